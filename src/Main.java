@@ -1,40 +1,86 @@
 import controller.AdminController;
 import controller.LoginController;
+import controller.SessionServer;
 import controller.StudentController;
+import exception.BulkImportException;
+import exception.ChangeNotSavedException;
+import exception.StorageNotLoadedException;
+import filemanager.BulkCsvTransfer;
+import filemanager.BulkImport;
 import filemanager.ILoginInfoFileManager;
 import filemanager.ILoginable;
 import filemanager.IStorageManager;
 import filemanager.LoginInfoFileManager;
 import filemanager.LoginManager;
+import filemanager.PipelinedStorageManager;
 import filemanager.StorageManager;
-import model.LoginInfo;
+import filemanager.WaitingRoom;
+import model.Session;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 
 /**
  * The main entry point for the program.
  */
 public class Main {
+    /**
+     * The port that the server listens on when no port is given.
+     */
+    private static final int DEFAULT_SERVER_PORT = 2002;
 
     /**
      * The main entry into the program. First initialises the relevant objects which are injected as
      * dependencies into the relevant controllers. The LoginController is first instantiated to get login
      * information from the user, after which either the AdminController or StudentController will be
-     * instantiated, depending if the user logging in is a student or admin.
+     * instantiated, depending if the user logging in is a student or admin. When started with "--import" or
+     * "--export" followed by a folder, a bulk import or export is done instead and the program exits. When started
+     * with "--check", the stored data is checked for problems instead. When started with "--server" and optionally a
+     * port, many users are served at the same time over connections to that port instead of the console. Changes are
+     * made on a single writer thread by a {@code PipelinedStorageManager} instead of under locks by a
+     * {@code StorageManager} when the "stars.storagePipeline" system property is set to true. If the stored data
+     * cannot be loaded, the program stops straight away.
      * @param args The supplied command line arguments as an array of String objects.
      */
     public static void main(String[] args) {
-        IStorageManager storageManager = new StorageManager();
+        IStorageManager storageManager;
+        try {
+            storageManager = Boolean.getBoolean("stars.storagePipeline")
+                    ? new PipelinedStorageManager() : new StorageManager();
+        } catch (StorageNotLoadedException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
         ILoginInfoFileManager loginInfoFileManager = new LoginInfoFileManager();
+        if (args.length == 2 && args[0].equals("--import")) {
+            importBulk(storageManager, loginInfoFileManager, new File(args[1]));
+            return;
+        } else if (args.length == 2 && args[0].equals("--export")) {
+            exportBulk(storageManager, loginInfoFileManager, new File(args[1]));
+            return;
+        } else if (args.length == 1 && args[0].equals("--check")) {
+            checkInvariants(storageManager);
+            return;
+        }
         ILoginable loginManager = new LoginManager(loginInfoFileManager, storageManager);
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("--server")) {
+            serve(storageManager, loginInfoFileManager, loginManager,
+                    args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_SERVER_PORT);
+            return;
+        }
 
         LoginController lc = new LoginController(loginManager);
-        LoginInfo providedLoginInfo = lc.run();
-        switch (providedLoginInfo.getAccountType()) {
+        Session session = lc.run();
+        switch (session.getAccountType()) {
         case ADMIN:
             AdminController ac = new AdminController(storageManager, loginInfoFileManager);
             ac.run();
+            loginManager.endSession(session.getToken());
             break;
         case STUDENT:
-            StudentController sc = new StudentController(providedLoginInfo.getUserId(), storageManager, loginManager);
+            StudentController sc = new StudentController(session, storageManager, loginManager, new WaitingRoom());
             sc.run();
             break;
         default:
@@ -42,4 +88,84 @@ public class Main {
         }
     }
 
+    /**
+     * Serves many users at the same time over connections to a port of the local machine, sharing one storage, until
+     * the program is stopped.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param loginManager An object that implements ILoginable.
+     * @param port The port to listen on.
+     * @see SessionServer
+     */
+    private static void serve(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                              ILoginable loginManager, int port) {
+        try {
+            SessionServer server = new SessionServer(storageManager, loginInfoFileManager, loginManager,
+                    new WaitingRoom(), port);
+            System.out.printf("Serving STARS on port %d with %s%n", server.getPort(),
+                    server.isUsingVirtualThreads() ? "virtual threads" : "a pool of threads");
+            server.serve();
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Imports the students, courses and enrolments in the files inside a folder. Nothing is imported if any of the
+     * files contains an error.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param directory The folder containing the files.
+     * @see BulkCsvTransfer
+     */
+    private static void importBulk(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                                   File directory) {
+        long start = System.nanoTime();
+        try {
+            BulkImport bulkImport = new BulkCsvTransfer().readImport(directory);
+            storageManager.importBulk(bulkImport);
+            loginInfoFileManager.addLoginInfoForNewStudents(bulkImport.getLoginInfos());
+            System.out.printf("Imported %d students, %d courses and %d enrolments in %d ms%n",
+                    bulkImport.getStudents().size(), bulkImport.getCourses().size(),
+                    bulkImport.getEnrolments().size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (BulkImportException | ChangeNotSavedException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Checks that the AUs, numbers of students and vacancies kept up to date in storage agree with the enrolments, and
+     * prints the problems found.
+     * @param storageManager An object that implements IStorageManager.
+     */
+    private static void checkInvariants(IStorageManager storageManager) {
+        long start = System.nanoTime();
+        ArrayList<String> violations = storageManager.checkInvariants();
+        for (String violation: violations) {
+            System.out.println(violation);
+        }
+        System.out.printf("Checked %d students and %d courses in %d ms: %d problems found%n",
+                storageManager.getAllStudents().size(), storageManager.getAllCourses().size(),
+                (System.nanoTime() - start) / 1_000_000, violations.size());
+    }
+
+    /**
+     * Exports all the students, courses and enrolments into files inside a folder.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param directory The folder into which the files are written.
+     * @see BulkCsvTransfer
+     */
+    private static void exportBulk(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                                   File directory) {
+        long start = System.nanoTime();
+        try {
+            storageManager.exportBulk(loginInfoFileManager.retrieveStudentLoginInfoList(), directory);
+            System.out.printf("Exported to %s in %d ms%n", directory, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package benchmark;
+
+import model.ClashMatrix;
+import model.Course;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.TimeTable;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares checking an index number for clashes against a timetable through {@code TimeTable} with the previous way,
+ * which copied the registered and wait listed index numbers into new ArrayLists and compared every pair of lessons.
+ * The timetables are checked twice: first with only the {@code WeeklyOccupancy} masks, then again once a
+ * {@code ClashMatrix} of all the index numbers has been built, so that what the masks cannot decide is looked up.
+ * Timetables of random index numbers, which like real timetables do not clash among themselves, are checked against
+ * random candidate index numbers. This is done once with lessons starting and ending on the hour or half hour, which
+ * the masks can decide on their own, and once with lessons starting and ending at odd minutes. All the ways must find
+ * the same clashes.
+ *
+ * <p>Usage: {@code java benchmark.ClashCheckBenchmark [number of checks] [registered index numbers per timetable]},
+ * which defaults to 2000000 checks and 6 registered index numbers.</p>
+ */
+public class ClashCheckBenchmark {
+    /**
+     * The number of index numbers checked against.
+     */
+    private static final int INDEX_NUMBERS = 500;
+
+    /**
+     * The number of timetables checked against.
+     */
+    private static final int TIMETABLES = 1000;
+
+    /**
+     * The number of wait listed index numbers in every timetable.
+     */
+    private static final int WAIT_LISTED_PER_TIMETABLE = 2;
+
+    public static void main(String[] args) {
+        int checks = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int registeredPerTimetable = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+        run("aligned", 30, checks, registeredPerTimetable);
+        run("odd minutes", 7, checks, registeredPerTimetable);
+    }
+
+    /**
+     * Runs the benchmark for one kind of lesson times.
+     * @param name The name of the kind of lesson times.
+     * @param minuteStep The lessons start and end at multiples of this number of minutes.
+     * @param checks The number of checks measured for each way.
+     * @param registeredPerTimetable The number of registered index numbers in every timetable.
+     */
+    private static void run(String name, int minuteStep, int checks, int registeredPerTimetable) {
+        Random random = new Random(minuteStep);
+        IndexNumber[] indexNumbers = new IndexNumber[INDEX_NUMBERS];
+        Course course = new Course("COURSE", "CZ0000", School.SCSE, 3);
+        for (int i = 0; i < INDEX_NUMBERS; i++) {
+            ArrayList<Lesson> lessons = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                LocalTime start = LocalTime.of(8, 0).plusMinutes((long) minuteStep * random.nextInt(600 / minuteStep));
+                lessons.add(new Lesson(LessonType.values()[j % LessonType.values().length],
+                        DayOfWeek.of(1 + random.nextInt(5)), start, start.plusMinutes(60 + minuteStep
+                        * random.nextInt(60 / minuteStep + 1))));
+            }
+            indexNumbers[i] = new IndexNumber(10000 + i, course, lessons, 50);
+        }
+
+        TimeTable[] timeTables = new TimeTable[TIMETABLES];
+        ArrayList<HashMap<String, IndexNumber>> registered = new ArrayList<>();
+        ArrayList<HashMap<String, IndexNumber>> waitListed = new ArrayList<>();
+        for (int i = 0; i < TIMETABLES; i++) {
+            registered.add(new HashMap<>());
+            waitListed.add(new HashMap<>());
+            for (int attempt = 0; attempt < 1000 && registered.get(i).size() < registeredPerTimetable; attempt++) {
+                IndexNumber indexNumber = indexNumbers[random.nextInt(INDEX_NUMBERS)];
+                if (!clashesWithLessons(registered.get(i), indexNumber)) {
+                    registered.get(i).put("R" + registered.get(i).size(), indexNumber);
+                }
+            }
+            for (int attempt = 0; attempt < 1000 && waitListed.get(i).size() < WAIT_LISTED_PER_TIMETABLE; attempt++) {
+                IndexNumber indexNumber = indexNumbers[random.nextInt(INDEX_NUMBERS)];
+                if (!clashesWithLessons(registered.get(i), waitListed.get(i), indexNumber)) {
+                    waitListed.get(i).put("W" + waitListed.get(i).size(), indexNumber);
+                }
+            }
+            timeTables[i] = new TimeTable(null);
+            for (Map.Entry<String, IndexNumber> entry: registered.get(i).entrySet()) {
+                timeTables[i].enrol(entry.getKey(), entry.getValue(), false);
+            }
+            for (Map.Entry<String, IndexNumber> entry: waitListed.get(i).entrySet()) {
+                timeTables[i].enrol(entry.getKey(), entry.getValue(), true);
+            }
+        }
+        int[] timeTableChoices = new int[checks];
+        int[] indexNumberChoices = new int[checks];
+        for (int i = 0; i < checks; i++) {
+            timeTableChoices[i] = random.nextInt(TIMETABLES);
+            indexNumberChoices[i] = random.nextInt(INDEX_NUMBERS);
+        }
+
+        int mismatches = countMismatches(registered, waitListed, timeTables, indexNumbers, timeTableChoices,
+                indexNumberChoices);
+        long lessonClashes = 0;
+        long lessonNanos = 0;
+        for (int round = 0; round < 3; round++) {
+            lessonClashes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                int t = timeTableChoices[i];
+                if (clashesWithLessons(registered.get(t), waitListed.get(t), indexNumbers[indexNumberChoices[i]])) {
+                    lessonClashes++;
+                }
+            }
+            lessonNanos = System.nanoTime() - start;
+        }
+        long[] masks = timeChecks(timeTables, indexNumbers, timeTableChoices, indexNumberChoices);
+
+        for (int i = 0; i < INDEX_NUMBERS; i++) {
+            indexNumbers[i].setRecordId(i + 1);
+        }
+        long start = System.nanoTime();
+        new ClashMatrix(Arrays.asList(indexNumbers));
+        long buildNanos = System.nanoTime() - start;
+        mismatches += countMismatches(registered, waitListed, timeTables, indexNumbers, timeTableChoices,
+                indexNumberChoices);
+        long[] matrix = timeChecks(timeTables, indexNumbers, timeTableChoices, indexNumberChoices);
+
+        System.out.printf("%-12s lessons: %6.1f ns/check  masks: %6.1f ns/check  matrix: %6.1f ns/check "
+                        + "(built in %.1f ms)  clashes: %d / %d / %d  mismatches: %d%n", name,
+                (double) lessonNanos / checks, (double) masks[0] / checks, (double) matrix[0] / checks,
+                buildNanos / 1e6, lessonClashes, masks[1], matrix[1], mismatches);
+    }
+
+    /**
+     * Counts the checks for which the timetables find different clashes from comparing every pair of lessons.
+     * @param registered The registered index numbers of every timetable.
+     * @param waitListed The wait listed index numbers of every timetable.
+     * @param timeTables The {@code TimeTable} objects.
+     * @param indexNumbers The {@code IndexNumber} objects checked.
+     * @param timeTableChoices The timetable of every check.
+     * @param indexNumberChoices The index number of every check.
+     * @return The number of checks with different answers.
+     */
+    private static int countMismatches(ArrayList<HashMap<String, IndexNumber>> registered,
+                                       ArrayList<HashMap<String, IndexNumber>> waitListed, TimeTable[] timeTables,
+                                       IndexNumber[] indexNumbers, int[] timeTableChoices, int[] indexNumberChoices) {
+        int mismatches = 0;
+        for (int i = 0; i < Math.min(timeTableChoices.length, 100_000); i++) {
+            int t = timeTableChoices[i];
+            IndexNumber indexNumber = indexNumbers[indexNumberChoices[i]];
+            if (clashesWithLessons(registered.get(t), waitListed.get(t), indexNumber)
+                    != clashesWithTimeTable(timeTables[t], indexNumber)) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Measures checking for clashes through the timetables, after two rounds to warm up.
+     * @param timeTables The {@code TimeTable} objects.
+     * @param indexNumbers The {@code IndexNumber} objects checked.
+     * @param timeTableChoices The timetable of every check.
+     * @param indexNumberChoices The index number of every check.
+     * @return The time in nanoseconds taken by the last round and the number of clashes found.
+     */
+    private static long[] timeChecks(TimeTable[] timeTables, IndexNumber[] indexNumbers, int[] timeTableChoices,
+                                     int[] indexNumberChoices) {
+        long nanos = 0;
+        long clashes = 0;
+        for (int round = 0; round < 3; round++) {
+            clashes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < timeTableChoices.length; i++) {
+                if (clashesWithTimeTable(timeTables[timeTableChoices[i]], indexNumbers[indexNumberChoices[i]])) {
+                    clashes++;
+                }
+            }
+            nanos = System.nanoTime() - start;
+        }
+        return new long[] { nanos, clashes };
+    }
+
+    /**
+     * Checks for clashes through the timetable.
+     * @param timeTable The {@code TimeTable} checked against.
+     * @param indexNumber The {@code IndexNumber} checked.
+     * @return true if the index number clashes with a registered or wait listed index number; false otherwise.
+     */
+    private static boolean clashesWithTimeTable(TimeTable timeTable, IndexNumber indexNumber) {
+        return timeTable.hasClashingRegisteredIndexNumber(indexNumber)
+                || timeTable.hasClashingWaitListedIndexNumber(indexNumber);
+    }
+
+    /**
+     * Checks for clashes in the previous way, copying the index numbers and comparing every pair of lessons.
+     * @param registered The registered index numbers of the timetable checked against.
+     * @param waitListed The wait listed index numbers of the timetable checked against.
+     * @param indexNumber The {@code IndexNumber} checked.
+     * @return true if the index number clashes with a registered or wait listed index number; false otherwise.
+     */
+    private static boolean clashesWithLessons(HashMap<String, IndexNumber> registered,
+                                              HashMap<String, IndexNumber> waitListed, IndexNumber indexNumber) {
+        return clashesWithLessons(registered, indexNumber) || clashesWithLessons(waitListed, indexNumber);
+    }
+
+    /**
+     * Checks for clashes with a copy of a group of index numbers by comparing every pair of lessons.
+     * @param indexNumbers The group of index numbers.
+     * @param indexNumberToBeAdded The {@code IndexNumber} checked.
+     * @return true if the index number clashes with any of the group; false otherwise.
+     */
+    private static boolean clashesWithLessons(HashMap<String, IndexNumber> indexNumbers,
+                                              IndexNumber indexNumberToBeAdded) {
+        ArrayList<IndexNumber> clashingIndexNumbers = new ArrayList<>();
+        for (IndexNumber indexNumber: new ArrayList<>(indexNumbers.values())) {
+            lessons:
+            for (Lesson lesson: indexNumber.getLessons()) {
+                for (Lesson lessonToBeAdded: indexNumberToBeAdded.getLessons()) {
+                    if (lessonToBeAdded.getDayOfWeek() == lesson.getDayOfWeek()
+                            && lessonToBeAdded.getStartTime().isBefore(lesson.getEndTime())
+                            && lesson.getStartTime().isBefore(lessonToBeAdded.getEndTime())) {
+                        clashingIndexNumbers.add(indexNumber);
+                        break lessons;
+                    }
+                }
+            }
+        }
+        return !clashingIndexNumbers.isEmpty();
+    }
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import filemanager.MappedSnapshotWriter;
+import filemanager.SegmentedSnapshot;
+import filemanager.SnapshotFile;
+import filemanager.StorageSnapshot;
+import filemanager.StorageSnapshotReader;
+import filemanager.StorageSnapshotWriter;
+import model.IndexNumber;
+import model.Storage;
+import model.Student;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how long it takes until the first student can be served after start up, for snapshots of increasing
+ * numbers of students. The mapped layout written by {@code MappedSnapshotWriter} only reads the courses and the one
+ * student asked for, so its time should stay flat, while decoding the binary format written by
+ * {@code StorageSnapshotWriter} reads every student first. For each number of students, a synthetic {@code Storage}
+ * object is saved through a {@code SnapshotFile}, then loaded and asked for a random student a number of times, and
+ * the averages are printed.
+ *
+ * <p>Usage: {@code java benchmark.LazyLoadBenchmark [number of rounds] [numbers of students...]}, which defaults to
+ * 10 rounds and 1000, 10000, 100000 and 200000 students.</p>
+ */
+public class LazyLoadBenchmark {
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int[] studentCounts = { 1000, 10000, 100000, 200000 };
+        if (args.length > 1) {
+            studentCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                studentCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Path directory = Files.createTempDirectory("snapshots");
+        try {
+            for (int studentCount: studentCounts) {
+                run(directory, studentCount, rounds);
+            }
+        } finally {
+            for (File file: directory.toFile().listFiles()) {
+                Files.deleteIfExists(file.toPath());
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Runs the benchmark for one number of students.
+     * @param directory The folder to save the snapshots in.
+     * @param studentCount The number of students in the generated {@code Storage} object.
+     * @param rounds The number of times each format is loaded after warming up.
+     * @throws Exception if a format could not be saved or loaded.
+     */
+    private static void run(Path directory, int studentCount, int rounds) throws Exception {
+        Storage storage = SnapshotCodecBenchmark.generateStorage(studentCount);
+        byte[] binary = new StorageSnapshotWriter().write(storage);
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("Storage-" + studentCount + ".ser").toFile());
+        snapshotFile.write(new MappedSnapshotWriter().write(storage), 0);
+        Random random = new Random(studentCount);
+
+        for (int i = 0; i < 3; i++) {
+            firstStudentMapped(snapshotFile, "S" + random.nextInt(studentCount));
+            firstStudentBinary(binary, "S" + random.nextInt(studentCount));
+        }
+
+        long mappedNanos = 0;
+        long binaryNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            firstStudentMapped(snapshotFile, "S" + random.nextInt(studentCount));
+            mappedNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            firstStudentBinary(binary, "S" + random.nextInt(studentCount));
+            binaryNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%,9d students   mapped %8.2f ms   binary (in memory) %8.2f ms%n", studentCount,
+                mappedNanos / 1e6 / rounds, binaryNanos / 1e6 / rounds);
+    }
+
+    /**
+     * Loads the mapped snapshot and serves a student, i.e. reads the student and the vacancy of its index numbers.
+     * @param snapshotFile The file of the snapshot.
+     * @param userId The user id of the student to be served.
+     * @throws Exception if the snapshot could not be loaded or does not contain the student.
+     */
+    private static void firstStudentMapped(SnapshotFile snapshotFile, String userId) throws Exception {
+        StorageSnapshot snapshot = snapshotFile.read();
+        Storage storage = new SegmentedSnapshot(List.of(snapshot.getPayloadBuffer())).read();
+        serve(storage, userId);
+    }
+
+    /**
+     * Decodes the binary snapshot, which is already in memory, and serves a student.
+     * @param binary The bytes of the binary snapshot.
+     * @param userId The user id of the student to be served.
+     * @throws Exception if the snapshot could not be decoded or does not contain the student.
+     */
+    private static void firstStudentBinary(byte[] binary, String userId) throws Exception {
+        serve(new StorageSnapshotReader(binary).read(), userId);
+    }
+
+    /**
+     * Reads a student and the vacancy of each of its registered index numbers.
+     * @param storage The loaded {@code Storage} object.
+     * @param userId The user id of the student.
+     * @throws IllegalStateException if there is no student with the user id.
+     */
+    private static void serve(Storage storage, String userId) {
+        Student student = storage.getStudent(userId);
+        if (student == null) {
+            throw new IllegalStateException("Student " + userId + " is missing");
+        }
+        for (IndexNumber indexNumber: student.getRegisteredIndexNumbers().values()) {
+            if (indexNumber.getAvailableVacancy() < 0) {
+                throw new IllegalStateException("Index number " + indexNumber.getId() + " is over capacity");
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import exception.ServerBusyException;
+import filemanager.PasswordHashingPool;
+import model.AccountType;
+import model.LoginInfo;
+import utility.PasswordHasher;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates a crowd of students logging in at the start of an access period against a {@code PasswordHashingPool}.
+ * Every student logs in on its own thread at the same moment, and the number of logins verified and turned away, the
+ * number of hashes per second, the average time a hash waited in the queue and the average time a hash took are
+ * printed for every cost.
+ *
+ * <p>Usage: {@code java benchmark.PasswordHashingBenchmark [number of students] [queue capacity] [costs...]}, which
+ * defaults to 200 students, a queue of 32 hashes per processor and the costs 10, 12 and 14.</p>
+ */
+public class PasswordHashingBenchmark {
+    /**
+     * The password of every student.
+     */
+    private static final String PASSWORD = "correct horse battery staple";
+
+    public static void main(String[] args) throws InterruptedException {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = args.length > 1 ? Integer.parseInt(args[1]) : threads * 32;
+        int[] costs = { 10, 12, 14 };
+        if (args.length > 2) {
+            costs = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                costs[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%d students, %d hashing threads, queue of %d%n", studentCount, threads, queueCapacity);
+        for (int cost: costs) {
+            run(studentCount, threads, queueCapacity, cost);
+        }
+    }
+
+    /**
+     * Runs the login crowd for one cost.
+     * @param studentCount The number of students logging in.
+     * @param threads The number of hashing threads.
+     * @param queueCapacity The maximum number of hashes waiting in the queue.
+     * @param cost The cost the passwords of the students are hashed with.
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static void run(int studentCount, int threads, int queueCapacity, int cost)
+            throws InterruptedException {
+        String salt = PasswordHasher.newSalt();
+        LoginInfo loginInfo = new LoginInfo(AccountType.STUDENT, "Student", PasswordHasher.hash(PASSWORD, salt, cost),
+                salt, cost);
+        PasswordHashingPool pool = new PasswordHashingPool(threads, queueCapacity);
+        AtomicInteger verified = new AtomicInteger();
+        AtomicInteger turnedAway = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] students = new Thread[studentCount];
+        for (int i = 0; i < studentCount; i++) {
+            students[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    if (pool.verify(PASSWORD, loginInfo)) {
+                        verified.incrementAndGet();
+                    }
+                } catch (ServerBusyException e) {
+                    turnedAway.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            students[i].start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread student: students) {
+            student.join();
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        pool.close();
+
+        System.out.printf("cost %2d: %d verified, %d turned away in %.2f s, %.1f hashes/s, "
+                        + "average queue wait %.1f ms, average hash %.2f ms%n",
+                cost, verified.get(), turnedAway.get(), seconds, pool.getTotalHashes() / seconds,
+                pool.getAverageQueueWaitMillis(), pool.getAverageHashMillis());
+    }
+}
@@ -0,0 +1,211 @@
+package benchmark;
+
+import exception.SameIndexNumberSwapException;
+import filemanager.BulkImport;
+import filemanager.Enrolment;
+import filemanager.IStorageManager;
+import filemanager.StorageManager;
+import model.AccessTime;
+import model.Course;
+import model.EmailNotification;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Student;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Has pairs of students swap index numbers with each other through a {@code StorageManager} at the same time, each
+ * student of a pair asking to swap with the other on its own thread, so that both sides of every swap keep racing
+ * each other. Now and then a student swaps with a random student instead, so that swaps also cross between pairs, and
+ * a student whose partner has ended up in the same index number keeps trying random students until one of them
+ * swaps. The threads are watched for deadlocks while they run, and afterwards every student must still be registered
+ * exactly once, every index number must still hold as many students as it started with, and the storage is checked
+ * for problems.
+ *
+ * <p>New students and a new course are imported into the storage in the working folder, so the benchmark should be
+ * run from a copy of the data folder.</p>
+ *
+ * <p>Usage: {@code java benchmark.PeerSwapBenchmark [number of pairs] [seconds]}, which defaults to 32 pairs, or 64
+ * threads, for 5 seconds.</p>
+ */
+public class PeerSwapBenchmark {
+    /**
+     * The number of swaps out of every hundred that are made with a random student instead of the other student of
+     * the pair.
+     */
+    private static final int RANDOM_PEER_PERCENT = 10;
+
+    /**
+     * The number of seconds the threads may take to finish after the time is up before they are taken to be stuck.
+     */
+    private static final int GRACE_SECONDS = 30;
+
+    public static void main(String[] args) throws Exception {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        EmailNotification.setEnabled(false);
+
+        IStorageManager storageManager = new StorageManager();
+        String prefix = "PS" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36).toUpperCase();
+        String courseCode = prefix + "C";
+        String[] userIds = importStudentsAndCourse(storageManager, prefix, courseCode, pairs);
+        System.out.printf("%d pairs of students swapping with each other for %d s%n", pairs, seconds);
+
+        AtomicLong swaps = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(userIds.length);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        for (int i = 0; i < userIds.length; i++) {
+            int student = i;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                boolean refusedByPartner = false;
+                try {
+                    start.await();
+                    while (System.nanoTime() < end) {
+                        boolean randomPeer = refusedByPartner || random.nextInt(100) < RANDOM_PEER_PERCENT;
+                        int peer = randomPeer ? random.nextInt(userIds.length) : student ^ 1;
+                        if (peer == student) {
+                            continue;
+                        }
+                        try {
+                            storageManager.swapIndexWithPeer(userIds[student], userIds[peer], courseCode);
+                            swaps.incrementAndGet();
+                            refusedByPartner = false;
+                        } catch (SameIndexNumberSwapException e) {
+                            refused.incrementAndGet();
+                            refusedByPartner = !randomPeer;
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            firstFailure.compareAndSet(null, e);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "swapper-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        while (!done.await(1, TimeUnit.SECONDS)) {
+            long[] deadlocked = threadMXBean.findDeadlockedThreads();
+            if (deadlocked != null) {
+                System.out.printf("Deadlock between %d threads:%n", deadlocked.length);
+                for (ThreadInfo threadInfo: threadMXBean.getThreadInfo(deadlocked, true, true)) {
+                    System.out.print(threadInfo);
+                }
+                System.exit(1);
+            }
+            if (System.nanoTime() - end > TimeUnit.SECONDS.toNanos(GRACE_SECONDS)) {
+                System.out.printf("%d threads still running %d s after the time was up%n", done.getCount(),
+                        GRACE_SECONDS);
+                System.exit(1);
+            }
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.printf("%d swaps (%.0f/s), %d refused for having the same index number, %d failed%n", swaps.get(),
+                swaps.get() / elapsed, refused.get(), failures.get());
+        if (firstFailure.get() != null) {
+            System.out.println("First failure: " + firstFailure.get());
+        }
+        System.out.printf("Students not registered exactly once: %d%n",
+                countStudentsNotRegisteredOnce(storageManager, userIds, courseCode));
+        for (IndexNumber indexNumber: storageManager.getCourse(courseCode).getIndexNumbers()) {
+            System.out.printf("Index number %d: %d registered students, %d seats taken (started with %d)%n",
+                    indexNumber.getId(), indexNumber.getNumberOfRegisteredStudents(),
+                    indexNumber.getNumberOfSeatsTaken(), pairs);
+        }
+        System.out.printf("Problems found in storage: %d%n", storageManager.checkInvariants().size());
+        System.exit(0);
+    }
+
+    /**
+     * Imports new students whose access period is open and a new course with two index numbers at different times,
+     * with the first student of every pair registered for the first index number and the second for the second.
+     * @param storageManager The storage to import into.
+     * @param prefix The prefix of the user ids, which is different on every run.
+     * @param courseCode The course code of the new course.
+     * @param pairs The number of pairs of students.
+     * @return The user ids of the new students, with the students of every pair next to each other.
+     * @throws Exception if the students or the course could not be imported.
+     */
+    private static String[] importStudentsAndCourse(IStorageManager storageManager, String prefix, String courseCode,
+                                                    int pairs) throws Exception {
+        AccessTime accessTime = new AccessTime(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        Course course = new Course("Swap Course", courseCode, School.SCSE, 3);
+        course.setIndexNumbers(new ArrayList<>());
+        int firstIndexNumberId = 70000 + Math.floorMod(prefix.hashCode(), 1000) * 10;
+        for (int i = 0; i < 2; i++) {
+            ArrayList<Lesson> lessons = new ArrayList<>();
+            LocalTime startTime = LocalTime.of(8 + 2 * i, 0);
+            lessons.add(new Lesson(LessonType.LECTURE, DayOfWeek.MONDAY, startTime, startTime.plusHours(2)));
+            course.addIndexNumber(new IndexNumber(firstIndexNumberId + i, course, lessons, pairs));
+        }
+
+        String[] userIds = new String[pairs * 2];
+        ArrayList<Student> students = new ArrayList<>();
+        ArrayList<Enrolment> enrolments = new ArrayList<>();
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = prefix + "S" + i;
+            students.add(new Student("Swap Student " + i, userIds[i], prefix + "M" + i, "Singaporean",
+                    "swap" + i + "@e.ntu.edu.sg", i % 2 == 0 ? Gender.MALE : Gender.FEMALE, accessTime));
+            enrolments.add(new Enrolment(userIds[i], courseCode, firstIndexNumberId + i % 2, false));
+        }
+        ArrayList<Course> courses = new ArrayList<>();
+        courses.add(course);
+        storageManager.importBulk(new BulkImport(students, courses, enrolments, new ArrayList<>()));
+        return userIds;
+    }
+
+    /**
+     * Counts the students that are not registered for the course, or that are among the registered students of
+     * anything but exactly one of its index numbers.
+     * @param storageManager The storage the students are in.
+     * @param userIds The user ids of the students.
+     * @param courseCode The course code of the course.
+     * @return The number of students.
+     */
+    private static int countStudentsNotRegisteredOnce(IStorageManager storageManager, String[] userIds,
+                                                      String courseCode) {
+        ArrayList<IndexNumber> indexNumbers = storageManager.getCourse(courseCode).getIndexNumbers();
+        int count = 0;
+        for (String userId: userIds) {
+            Student student = storageManager.getStudent(userId);
+            int registrations = 0;
+            for (IndexNumber indexNumber: indexNumbers) {
+                if (indexNumber.getRegisteredStudents().contains(student)) {
+                    registrations++;
+                }
+            }
+            if (registrations != 1 || student.getRegisteredIndexNumbers().get(courseCode) == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
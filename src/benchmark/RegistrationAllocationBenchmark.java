@@ -0,0 +1,169 @@
+package benchmark;
+
+import model.AccessTime;
+import model.Course;
+import model.EmailNotification;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.RegistrationCheck;
+import model.School;
+import model.Student;
+
+import java.lang.management.ManagementFactory;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
+/**
+ * Measures the bytes allocated and the time taken by checking and registering for a course through a student's
+ * {@code TimeTable}, using the number of bytes the JVM has allocated for the current thread. Every reason a
+ * registration can be refused is checked without exceptions through {@code Student.checkRegistration}, and once
+ * through {@code Student.registerForCourse}, which throws. A successful registration is measured together with
+ * dropping the course again, so that every attempt starts from the same timetable. Notifications are turned off, as
+ * they would otherwise send an E-mail.
+ *
+ * <p>Usage: {@code java benchmark.RegistrationAllocationBenchmark [number of attempts]}, which defaults to 1000000
+ * attempts.</p>
+ */
+public class RegistrationAllocationBenchmark {
+    /**
+     * The number of attempts made before measuring, so that the methods have been compiled.
+     */
+    private static final int WARM_UP_ATTEMPTS = 200_000;
+
+    /**
+     * The bean that tells how many bytes the current thread has allocated.
+     */
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * An attempt at registering that is measured.
+     */
+    private interface Attempt {
+        /**
+         * Makes the attempt.
+         * @throws Exception if the attempt is refused with an exception.
+         */
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int attempts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        EmailNotification.setEnabled(false);
+
+        AccessTime accessTime = new AccessTime(LocalDateTime.of(2020, 10, 10, 8, 0),
+                LocalDateTime.of(2020, 12, 11, 23, 59));
+        Student student = new Student("Student", "U0000000A", "STUDENT", "Singaporean", "student@e.ntu.edu.sg",
+                Gender.MALE, accessTime);
+        Student other = new Student("Other", "U0000001A", "OTHER", "Singaporean", "other@e.ntu.edu.sg",
+                Gender.FEMALE, accessTime);
+
+        IndexNumber[] registered = new IndexNumber[4];
+        for (int i = 0; i < registered.length; i++) {
+            registered[i] = newIndexNumber("CZ100" + i, 3, DayOfWeek.MONDAY, 8 + 2 * i, 10);
+            student.registerForCourse(registered[i].getCourse().getCourseCode(), registered[i]);
+        }
+        IndexNumber waitListed = newIndexNumber("CZ2000", 3, DayOfWeek.TUESDAY, 8, 10);
+        student.addCourseToWaitList(waitListed.getCourse().getCourseCode(), waitListed);
+        IndexNumber otherWaitListed = newIndexNumber("CZ2000", 3, DayOfWeek.TUESDAY, 14, 10);
+
+        IndexNumber clashingRegistered = newIndexNumber("CZ3000", 3, DayOfWeek.MONDAY, 8, 10);
+        IndexNumber clashingWaitListed = newIndexNumber("CZ3001", 3, DayOfWeek.TUESDAY, 8, 10);
+        IndexNumber tooManyAus = newIndexNumber("CZ3002", 7, DayOfWeek.FRIDAY, 8, 10);
+        IndexNumber full = newIndexNumber("CZ3003", 3, DayOfWeek.THURSDAY, 8, 1);
+        other.registerForCourse(full.getCourse().getCourseCode(), full);
+        IndexNumber allowed = newIndexNumber("CZ3004", 3, DayOfWeek.WEDNESDAY, 8, 10);
+
+        System.out.printf("%-36s %12s %12s%n", "attempt", "bytes/op", "ns/op");
+        measure("check: course registered", attempts, RegistrationCheck.COURSE_REGISTERED,
+                () -> student.checkRegistration(registered[0].getCourse().getCourseCode(), registered[0]));
+        measure("check: course in wait list", attempts, RegistrationCheck.COURSE_IN_WAIT_LIST,
+                () -> student.checkRegistration(otherWaitListed.getCourse().getCourseCode(), otherWaitListed));
+        measure("check: max AU exceeded", attempts, RegistrationCheck.MAX_AU_EXCEEDED,
+                () -> student.checkRegistration(tooManyAus.getCourse().getCourseCode(), tooManyAus));
+        measure("check: clashing registered", attempts, RegistrationCheck.CLASHING_REGISTERED_INDEX_NUMBER,
+                () -> student.checkRegistration(clashingRegistered.getCourse().getCourseCode(), clashingRegistered));
+        measure("check: clashing wait listed", attempts, RegistrationCheck.CLASHING_WAIT_LISTED_INDEX_NUMBER,
+                () -> student.checkRegistration(clashingWaitListed.getCourse().getCourseCode(), clashingWaitListed));
+        measure("check: no vacancy", attempts, RegistrationCheck.NO_VACANCY,
+                () -> student.checkRegistration(full.getCourse().getCourseCode(), full));
+        measure("check: allowed", attempts, RegistrationCheck.ALLOWED,
+                () -> student.checkRegistration(allowed.getCourse().getCourseCode(), allowed));
+
+        measure("register: refused with exception", attempts, () -> {
+            try {
+                student.registerForCourse(clashingRegistered.getCourse().getCourseCode(), clashingRegistered);
+            } catch (Exception e) {
+                return;
+            }
+            throw new AssertionError("Registration was not refused");
+        });
+        measure("register and drop", attempts, () -> {
+            student.registerForCourse(allowed.getCourse().getCourseCode(), allowed);
+            student.dropCourseAndRegisterNextStudentInWaitList(allowed.getCourse(), allowed);
+        });
+    }
+
+    /**
+     * Creates an index number of a new course with a single two hour lecture.
+     * @param courseCode The course code of the course.
+     * @param au The AUs of the course.
+     * @param dayOfWeek The day of the lecture.
+     * @param hour The hour the lecture starts.
+     * @param maxVacancy The maximum vacancy of the index number.
+     * @return The new {@code IndexNumber} object.
+     */
+    private static IndexNumber newIndexNumber(String courseCode, int au, DayOfWeek dayOfWeek, int hour,
+                                              int maxVacancy) {
+        Course course = new Course(courseCode, courseCode, School.SCSE, au);
+        ArrayList<Lesson> lessons = new ArrayList<>();
+        lessons.add(new Lesson(LessonType.LECTURE, dayOfWeek, LocalTime.of(hour, 0), LocalTime.of(hour + 2, 0)));
+        IndexNumber indexNumber = new IndexNumber(10000 + hour, course, lessons, maxVacancy);
+        course.setIndexNumbers(new ArrayList<>());
+        course.addIndexNumber(indexNumber);
+        return indexNumber;
+    }
+
+    /**
+     * Measures a check, making sure it gives the expected result.
+     * @param name The name of the check.
+     * @param attempts The number of checks measured.
+     * @param expected The expected {@code RegistrationCheck}.
+     * @param check The check.
+     * @throws Exception if the check gives another result.
+     */
+    private static void measure(String name, int attempts, RegistrationCheck expected,
+                                java.util.function.Supplier<RegistrationCheck> check) throws Exception {
+        measure(name, attempts, () -> {
+            if (check.get() != expected) {
+                throw new AssertionError(name + " did not give " + expected);
+            }
+        });
+    }
+
+    /**
+     * Makes an attempt many times to warm up, then measures the bytes allocated and the time taken by the attempts.
+     * @param name The name of the attempt.
+     * @param attempts The number of attempts measured.
+     * @param attempt The attempt.
+     * @throws Exception if an attempt fails.
+     */
+    private static void measure(String name, int attempts, Attempt attempt) throws Exception {
+        for (int i = 0; i < WARM_UP_ATTEMPTS; i++) {
+            attempt.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long startBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < attempts; i++) {
+            attempt.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = THREAD_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+        System.out.printf("%-36s %12.2f %12.1f%n", name, (double) bytes / attempts, (double) nanos / attempts);
+    }
+}
@@ -0,0 +1,224 @@
+package benchmark;
+
+import exception.NoVacancyException;
+import model.AccessTime;
+import model.Course;
+import model.EmailNotification;
+import model.Gender;
+import model.IndexNumber;
+import model.School;
+import model.Student;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the seat reservation of an {@code IndexNumber} with many threads hammering one popular index number at
+ * the same time. It first has every thread try to take a seat at the same moment, over and over, and checks that the
+ * number of seats taken is never more than the maximum vacancy. It then has every thread reserve and release seats
+ * for a while, once through {@code tryReserveSeat} and once through a check-then-act guarded by a lock, as the
+ * vacancy used to be checked, and once by registering students for the index number and dropping them again. The
+ * number of attempts per second and how many of them got a seat are printed for each.
+ *
+ * <p>Usage: {@code java benchmark.SeatReservationBenchmark [number of threads] [seconds per run] [maximum vacancy]},
+ * which defaults to 64 threads, 3 seconds and a vacancy of 10.</p>
+ */
+public class SeatReservationBenchmark {
+    /**
+     * The number of times every thread tries to take a seat at the same moment.
+     */
+    private static final int RACES = 200;
+
+    /**
+     * A way of trying to take a seat and giving it back.
+     */
+    private interface SeatAttempt {
+        /**
+         * Tries to take a seat and gives it back if it got one.
+         * @param thread The number of the thread trying.
+         * @return true if a seat was taken.
+         * @throws Exception if the attempt fails.
+         */
+        boolean attempt(int thread) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 3;
+        int maxVacancy = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        EmailNotification.setEnabled(false);
+        System.out.printf("%d threads on one index number with a vacancy of %d%n", threads, maxVacancy);
+
+        race(threads, maxVacancy);
+
+        IndexNumber casIndexNumber = newIndexNumber(maxVacancy);
+        run("tryReserveSeat", threads, seconds, thread -> {
+            if (casIndexNumber.tryReserveSeat()) {
+                casIndexNumber.releaseSeat();
+                return true;
+            }
+            return false;
+        });
+
+        Object lock = new Object();
+        int[] seatsTaken = new int[1];
+        run("locked check-then-act", threads, seconds, thread -> {
+            synchronized (lock) {
+                if (seatsTaken[0] >= maxVacancy) {
+                    return false;
+                }
+                seatsTaken[0]++;
+            }
+            synchronized (lock) {
+                seatsTaken[0]--;
+            }
+            return true;
+        });
+
+        IndexNumber popularIndexNumber = newIndexNumber(maxVacancy);
+        Course course = popularIndexNumber.getCourse();
+        Student[] students = newStudents(threads);
+        run("register and drop", threads, seconds, thread -> {
+            Student student = students[thread];
+            if (popularIndexNumber.getAvailableVacancy() <= 0) {
+                return false;
+            }
+            try {
+                student.registerForCourse(course.getCourseCode(), popularIndexNumber);
+            } catch (NoVacancyException e) {
+                return false;
+            }
+            student.dropCourseAndRegisterNextStudentInWaitList(course, popularIndexNumber);
+            return true;
+        });
+        System.out.printf("Seats taken afterwards: %d of %d, %d registered students%n",
+                popularIndexNumber.getNumberOfSeatsTaken(), maxVacancy,
+                popularIndexNumber.getNumberOfRegisteredStudents());
+    }
+
+    /**
+     * Has every thread try to take a seat at the same moment, without giving it back, over and over, and prints how
+     * many times more seats were taken than the maximum vacancy.
+     * @param threads The number of threads.
+     * @param maxVacancy The maximum vacancy of the index number.
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static void race(int threads, int maxVacancy) throws InterruptedException {
+        int overbooked = 0;
+        int totalTaken = 0;
+        for (int i = 0; i < RACES; i++) {
+            IndexNumber indexNumber = newIndexNumber(maxVacancy);
+            AtomicInteger taken = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] racers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                racers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int attempt = 0; attempt < 4; attempt++) {
+                        if (indexNumber.tryReserveSeat()) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                });
+                racers[t].start();
+            }
+            start.countDown();
+            for (Thread racer: racers) {
+                racer.join();
+            }
+            totalTaken += taken.get();
+            if (taken.get() > maxVacancy || indexNumber.getNumberOfSeatsTaken() != taken.get()) {
+                overbooked++;
+            }
+        }
+        System.out.printf("%d races for %d seats: %d seats taken in all, %d races overbooked%n", RACES, maxVacancy,
+                totalTaken, overbooked);
+    }
+
+    /**
+     * Has every thread try to take a seat and give it back for a while, and prints the number of attempts per second
+     * and how many of them got a seat.
+     * @param name The name of the way of taking a seat.
+     * @param threads The number of threads.
+     * @param seconds The number of seconds to run for.
+     * @param seatAttempt The way of taking a seat.
+     * @throws InterruptedException if the benchmark is interrupted.
+     */
+    private static void run(String name, int threads, long seconds, SeatAttempt seatAttempt)
+            throws InterruptedException {
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong seated = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] end = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long localAttempts = 0;
+                long localSeated = 0;
+                while (System.nanoTime() < end[0]) {
+                    try {
+                        if (seatAttempt.attempt(thread)) {
+                            localSeated++;
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    localAttempts++;
+                }
+                attempts.addAndGet(localAttempts);
+                seated.addAndGet(localSeated);
+            });
+            workers[t].start();
+        }
+        end[0] = System.nanoTime() + seconds * 1_000_000_000L;
+        start.countDown();
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        System.out.printf("%-22s %,12.0f attempts/s, %5.1f%% got a seat, %d failed%n", name,
+                attempts.get() / (double) seconds, 100.0 * seated.get() / Math.max(1, attempts.get()),
+                failures.get());
+    }
+
+    /**
+     * Creates an index number of a course of its own without any lessons.
+     * @param maxVacancy The maximum vacancy of the index number.
+     * @return The {@code IndexNumber} object.
+     */
+    private static IndexNumber newIndexNumber(int maxVacancy) {
+        Course course = new Course("Popular Course", "POP1", School.SCSE, 3);
+        course.setIndexNumbers(new ArrayList<>());
+        IndexNumber indexNumber = new IndexNumber(1, course, new ArrayList<>(), maxVacancy);
+        course.addIndexNumber(indexNumber);
+        return indexNumber;
+    }
+
+    /**
+     * Creates students that have not registered for anything.
+     * @param count The number of students.
+     * @return The {@code Student} objects.
+     */
+    private static Student[] newStudents(int count) {
+        AccessTime accessTime = new AccessTime(LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        Student[] students = new Student[count];
+        for (int i = 0; i < count; i++) {
+            students[i] = new Student("Student " + i, "STUDENT" + i, "U" + i, "Singaporean", "student" + i + "@e.ntu.edu.sg",
+                    Gender.MALE, accessTime);
+        }
+        return students;
+    }
+}
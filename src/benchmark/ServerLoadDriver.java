@@ -0,0 +1,299 @@
+package benchmark;
+
+import controller.SessionServer;
+import exception.BulkImportException;
+import filemanager.BulkImport;
+import filemanager.ILoginInfoFileManager;
+import filemanager.ILoginable;
+import filemanager.IStorageManager;
+import filemanager.LoginInfoFileManager;
+import filemanager.LoginManager;
+import filemanager.SessionManager;
+import filemanager.StorageManager;
+import filemanager.WaitingRoom;
+import model.AccessTime;
+import model.AccountType;
+import model.Course;
+import model.EmailNotification;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.LoginInfo;
+import model.School;
+import model.Student;
+import utility.PasswordHasher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Simulates a crowd of students all registering for a course at the same moment through a {@code SessionServer}. New
+ * students whose access period is open and new courses with fewer vacancies than students are imported into the
+ * storage in the working folder, a server is started on a free port, and then every student connects at once, logs
+ * in, waits in the waiting room, adds a random index number of a random new course through the student panel and
+ * quits, exactly as a user typing into the connection would. The outcomes, the time every student took, and the
+ * result of checking the storage for problems afterwards are printed.
+ *
+ * <p>The students and courses stay in the storage afterwards, so the driver should be run from a copy of the data
+ * folder. The passwords of the new students are hashed with the default cost, which can be lowered with the
+ * "stars.passwordHashCost" system property to leave out most of the time spent hashing.</p>
+ *
+ * <p>Usage: {@code java benchmark.ServerLoadDriver [number of students] [admissions per second]}, which defaults to
+ * 2000 students let in at 500 per second.</p>
+ */
+public class ServerLoadDriver {
+    /**
+     * The password of every new student.
+     */
+    private static final String PASSWORD = "load-test";
+
+    /**
+     * The number of new courses.
+     */
+    private static final int COURSES = 10;
+
+    /**
+     * The number of index numbers in every new course.
+     */
+    private static final int INDEX_NUMBERS_PER_COURSE = 4;
+
+    /**
+     * The number of times a student tries to log in before giving up.
+     */
+    private static final int MAX_LOGIN_ATTEMPTS = 20;
+
+    /**
+     * The longest time in milliseconds a student waits before trying to log in again after being turned away, which
+     * grows with every attempt.
+     */
+    private static final int LOGIN_BACKOFF_MILLIS = 50;
+
+    /**
+     * A line of a numbered list of courses, such as "3. CZ2001 Algorithms".
+     */
+    private static final Pattern LISTED_COURSE = Pattern.compile("^(\\d+)\\. (\\S+) ");
+
+    /**
+     * The ways a simulated student can end up.
+     */
+    private enum Outcome {
+        REGISTERED,
+        WAIT_LISTED,
+        REFUSED,
+        LOGIN_FAILED,
+        DISCONNECTED
+    }
+
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        double admissionsPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : 500;
+        EmailNotification.setEnabled(false);
+
+        IStorageManager storageManager = new StorageManager();
+        ILoginInfoFileManager loginInfoFileManager = new LoginInfoFileManager();
+        String prefix = "LD" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36).toUpperCase();
+        long start = System.nanoTime();
+        List<String> userIds = importStudentsAndCourses(storageManager, loginInfoFileManager, prefix, studentCount);
+        System.out.printf("Imported %d students and %d courses in %d ms%n", studentCount, COURSES,
+                (System.nanoTime() - start) / 1_000_000);
+
+        ILoginable loginManager = new LoginManager(loginInfoFileManager, storageManager);
+        SessionServer server = new SessionServer(storageManager, loginInfoFileManager, loginManager,
+                new WaitingRoom(admissionsPerSecond, Math.max(1, studentCount)), 0,
+                Math.max(SessionServer.DEFAULT_MAX_CONNECTIONS, studentCount), (int) SessionManager.DEFAULT_TTL_MILLIS);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "session-server");
+        serverThread.start();
+        System.out.printf("Serving on port %d with %s%n", server.getPort(),
+                server.isUsingVirtualThreads() ? "virtual threads" : "a pool of threads");
+
+        ExecutorService clients = SessionServer.newVirtualThreadExecutor();
+        if (clients == null) {
+            clients = Executors.newCachedThreadPool();
+        }
+        AtomicInteger[] outcomes = new AtomicInteger[Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new AtomicInteger();
+        }
+        long[] sessionNanos = new long[studentCount];
+        CountDownLatch ready = new CountDownLatch(studentCount);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            int student = i;
+            clients.execute(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    long sessionStart = System.nanoTime();
+                    Outcome outcome = simulateStudent(server.getPort(), userIds.get(student), prefix);
+                    sessionNanos[student] = System.nanoTime() - sessionStart;
+                    outcomes[outcome.ordinal()].incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        ready.await();
+        start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long nanos = System.nanoTime() - start;
+        clients.shutdown();
+        server.close();
+
+        Arrays.sort(sessionNanos);
+        System.out.printf("%d students in %.1f s (%.0f sessions/s)%n", studentCount, nanos / 1e9,
+                studentCount / (nanos / 1e9));
+        for (Outcome outcome: Outcome.values()) {
+            System.out.printf("  %-13s %d%n", outcome, outcomes[outcome.ordinal()].get());
+        }
+        System.out.printf("Session time: p50 %d ms, p99 %d ms, max %d ms%n",
+                sessionNanos[studentCount / 2] / 1_000_000, sessionNanos[studentCount * 99 / 100] / 1_000_000,
+                sessionNanos[studentCount - 1] / 1_000_000);
+        System.out.printf("Problems found in storage: %d%n", storageManager.checkInvariants().size());
+        System.exit(0);
+    }
+
+    /**
+     * Imports new students whose access period is open and new courses with half as many vacancies as students.
+     * @param storageManager The storage to import into.
+     * @param loginInfoFileManager The login information to add the new students to.
+     * @param prefix The prefix of the user ids and course codes, which is different on every run.
+     * @param studentCount The number of new students.
+     * @return The user ids of the new students.
+     * @throws BulkImportException if the students or courses could not be imported.
+     */
+    private static List<String> importStudentsAndCourses(IStorageManager storageManager,
+                                                         ILoginInfoFileManager loginInfoFileManager, String prefix,
+                                                         int studentCount) throws BulkImportException {
+        AccessTime accessTime = new AccessTime(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        ArrayList<Student> students = new ArrayList<>();
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new Student("Load Student " + i, prefix + "S" + i, prefix + "M" + i, "Singaporean",
+                    "load" + i + "@e.ntu.edu.sg", i % 2 == 0 ? Gender.MALE : Gender.FEMALE, accessTime));
+        }
+        ArrayList<LoginInfo> loginInfos = students.parallelStream().map(student -> {
+            String salt = PasswordHasher.newSalt();
+            return new LoginInfo(AccountType.STUDENT, student.getUserId(),
+                    PasswordHasher.hash(PASSWORD, salt, PasswordHasher.DEFAULT_COST), salt,
+                    PasswordHasher.DEFAULT_COST);
+        }).collect(Collectors.toCollection(ArrayList::new));
+
+        ArrayList<Course> courses = new ArrayList<>();
+        int vacancy = Math.max(1, studentCount / 2 / (COURSES * INDEX_NUMBERS_PER_COURSE));
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course("Load Course " + c, prefix + "C" + c, School.SCSE, 3);
+            course.setIndexNumbers(new ArrayList<>());
+            for (int i = 0; i < INDEX_NUMBERS_PER_COURSE; i++) {
+                ArrayList<Lesson> lessons = new ArrayList<>();
+                LocalTime startTime = LocalTime.of(8 + 2 * (c / 5), 0);
+                lessons.add(new Lesson(LessonType.LECTURE, DayOfWeek.of(1 + c % 5), startTime,
+                        startTime.plusHours(2)));
+                course.addIndexNumber(new IndexNumber(90000 + c * 10 + i, course, lessons, vacancy));
+            }
+            courses.add(course);
+        }
+
+        BulkImport bulkImport = new BulkImport(students, courses, new ArrayList<>(), loginInfos);
+        storageManager.importBulk(bulkImport);
+        loginInfoFileManager.addLoginInfoForNewStudents(loginInfos);
+        return students.stream().map(Student::getUserId).collect(Collectors.toList());
+    }
+
+    /**
+     * Connects to the server as a student and answers the prompts the way a user would: logging in, adding a random
+     * index number of a random new course, and quitting. A student turned away while logging in, such as when the
+     * server is too busy checking passwords, waits a little longer after every attempt before trying again.
+     * @param port The port of the server.
+     * @param userId The user id of the student.
+     * @param prefix The prefix of the course codes of the new courses.
+     * @return The {@code Outcome} of the session.
+     */
+    private static Outcome simulateStudent(int port, String userId, String prefix) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Outcome outcome = Outcome.DISCONNECTED;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            boolean loggedIn = false;
+            boolean added = false;
+            int loginAttempts = 0;
+            HashMap<String, Integer> listedCourses = new HashMap<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                Matcher listedCourse = LISTED_COURSE.matcher(line);
+                if (listedCourse.find()) {
+                    listedCourses.put(listedCourse.group(2), Integer.parseInt(listedCourse.group(1)));
+                } else if (line.startsWith("Enter your choice:")) {
+                    if (!loggedIn) {
+                        if (++loginAttempts > MAX_LOGIN_ATTEMPTS) {
+                            return Outcome.LOGIN_FAILED;
+                        }
+                        out.println(1);
+                    } else if (!added) {
+                        added = true;
+                        out.println(1);
+                    } else {
+                        out.println(8);
+                    }
+                } else if (line.startsWith("Enter user id:")) {
+                    out.println(userId);
+                } else if (line.startsWith("Enter password:")) {
+                    out.println(PASSWORD);
+                } else if (line.startsWith("Welcome, ")) {
+                    loggedIn = true;
+                } else if (line.startsWith("Which course would you like to add?")) {
+                    Integer choice = listedCourses.get(prefix + "C" + random.nextInt(COURSES));
+                    out.println(choice == null ? 1 : choice);
+                    listedCourses.clear();
+                } else if (line.startsWith("Which index number would you like to add?")) {
+                    out.println(1 + random.nextInt(INDEX_NUMBERS_PER_COURSE));
+                } else if (line.startsWith("You have been successfully registered")) {
+                    outcome = Outcome.REGISTERED;
+                } else if (line.startsWith("There is no vacancy")) {
+                    outcome = Outcome.WAIT_LISTED;
+                } else if (line.startsWith("Error Message:") && !loggedIn) {
+                    Thread.sleep(random.nextInt(1, LOGIN_BACKOFF_MILLIS * loginAttempts + 2));
+                } else if (line.startsWith("Error Message:") && added && outcome == Outcome.DISCONNECTED) {
+                    outcome = Outcome.REFUSED;
+                }
+            }
+        } catch (IOException e) {
+            return Outcome.DISCONNECTED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.DISCONNECTED;
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,232 @@
+package benchmark;
+
+import filemanager.StorageSnapshotReader;
+import filemanager.StorageSnapshotWriter;
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Storage;
+import model.Student;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
+/**
+ * Compares the binary snapshot format written by {@code StorageSnapshotWriter} against saving the {@code Storage}
+ * object with Java serialization, which is how "Storage.ser" used to be saved. A synthetic {@code Storage} object is
+ * generated, saved to and loaded from a temporary file in both formats a number of times, and the average save time,
+ * load time and file size of each format are printed.
+ *
+ * <p>Usage: {@code java benchmark.SnapshotCodecBenchmark [number of students] [number of rounds]}, which defaults to
+ * 100000 students and 5 rounds. Java serialization follows the references between students and index numbers
+ * recursively, so the benchmark runs on a thread with a large stack to keep it from overflowing.</p>
+ */
+public class SnapshotCodecBenchmark {
+    /**
+     * The number of courses in the generated {@code Storage} object.
+     */
+    private static final int COURSES = 400;
+
+    /**
+     * The number of index numbers of each course.
+     */
+    private static final int INDEX_NUMBERS_PER_COURSE = 10;
+
+    /**
+     * The number of courses each student is registered for.
+     */
+    private static final int COURSES_PER_STUDENT = 5;
+
+    /**
+     * The size of the stack of the thread running the benchmark.
+     */
+    private static final long STACK_SIZE = 1L << 30;
+
+    public static void main(String[] args) throws InterruptedException {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Thread thread = new Thread(null, () -> {
+            try {
+                run(studentCount, rounds);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "benchmark", STACK_SIZE);
+        thread.start();
+        thread.join();
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param studentCount The number of students in the generated {@code Storage} object.
+     * @param rounds The number of times each format is saved and loaded after warming up.
+     * @throws Exception if a format could not be saved or loaded.
+     */
+    private static void run(int studentCount, int rounds) throws Exception {
+        Storage storage = generateStorage(studentCount);
+        Path file = Files.createTempFile("storage", ".snapshot");
+        System.out.println("Students: " + studentCount + ", courses: " + COURSES + ", rounds: " + rounds);
+
+        try {
+            measure("Java serialization", storage, file, rounds, false);
+            measure("Binary codec", storage, file, rounds, true);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Saves and loads a {@code Storage} object in one format, once to warm up and then a number of times, and prints
+     * the averages.
+     * @param name The name of the format.
+     * @param storage The {@code Storage} object to be saved.
+     * @param file The file to save to and load from.
+     * @param rounds The number of times the format is saved and loaded after warming up.
+     * @param binary true to use the binary codec; false to use Java serialization.
+     * @throws Exception if the format could not be saved or loaded.
+     */
+    private static void measure(String name, Storage storage, Path file, int rounds, boolean binary)
+            throws Exception {
+        save(storage, file, binary);
+        checkLoaded(load(file, binary), storage);
+
+        long saveNanos = 0;
+        long loadNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            save(storage, file, binary);
+            saveNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            load(file, binary);
+            loadNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-20s save %8.1f ms   load %8.1f ms   size %,12d bytes%n", name,
+                saveNanos / 1e6 / rounds, loadNanos / 1e6 / rounds, Files.size(file));
+    }
+
+    /**
+     * Saves a {@code Storage} object to a file.
+     * @param storage The {@code Storage} object to be saved.
+     * @param file The file to save to.
+     * @param binary true to use the binary codec; false to use Java serialization.
+     * @throws IOException if the {@code Storage} object could not be saved.
+     */
+    private static void save(Storage storage, Path file, boolean binary) throws IOException {
+        byte[] bytes;
+        if (binary) {
+            bytes = new StorageSnapshotWriter().write(storage);
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(storage);
+            oos.close();
+            bytes = out.toByteArray();
+        }
+        Files.write(file, bytes);
+    }
+
+    /**
+     * Loads a {@code Storage} object from a file.
+     * @param file The file to load from.
+     * @param binary true to use the binary codec; false to use Java serialization.
+     * @return The loaded {@code Storage} object.
+     * @throws Exception if the {@code Storage} object could not be loaded.
+     */
+    private static Storage load(Path file, boolean binary) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        if (binary) {
+            return new StorageSnapshotReader(bytes).read();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Storage) ois.readObject();
+        }
+    }
+
+    /**
+     * Checks that a loaded {@code Storage} object has the same number of students, courses and registrations as the
+     * one that was saved.
+     * @param loaded The loaded {@code Storage} object.
+     * @param saved The saved {@code Storage} object.
+     */
+    private static void checkLoaded(Storage loaded, Storage saved) {
+        if (loaded.getAllStudents().size() != saved.getAllStudents().size()
+                || loaded.getAllCourses().size() != saved.getAllCourses().size()
+                || countRegistrations(loaded) != countRegistrations(saved)) {
+            throw new IllegalStateException("Loaded storage does not match the saved storage");
+        }
+    }
+
+    /**
+     * Counts the registrations of all the students, both from the students' and the index numbers' side.
+     * @param storage The {@code Storage} object.
+     * @return The number of registrations.
+     */
+    private static long countRegistrations(Storage storage) {
+        long count = 0;
+        for (Student student: storage.getAllStudents()) {
+            count += student.getRegisteredIndexNumbers().size();
+        }
+        for (Course course: storage.getAllCourses()) {
+            count += course.getRegisteredStudents().size();
+        }
+        return count;
+    }
+
+    /**
+     * Generates a {@code Storage} object in which every student is registered for a few courses. The students are
+     * linked to the index numbers directly, since checking for clashes is not what is being measured.
+     * @param studentCount The number of students to be generated.
+     * @return The generated {@code Storage} object.
+     */
+    static Storage generateStorage(int studentCount) {
+        Storage storage = new Storage();
+        Course[] courses = new Course[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            courses[i] = new Course("COURSE " + i, String.format("CZ%04d", i),
+                    i % 2 == 0 ? School.SCSE : School.SSS, 3);
+            ArrayList<IndexNumber> indexNumbers = new ArrayList<>();
+            for (int j = 0; j < INDEX_NUMBERS_PER_COURSE; j++) {
+                ArrayList<Lesson> lessons = new ArrayList<>();
+                LocalTime start = LocalTime.of(8 + j, 30);
+                lessons.add(new Lesson(LessonType.LECTURE, DayOfWeek.of(1 + i % 5), start, start.plusHours(1)));
+                lessons.add(new Lesson(LessonType.TUTORIAL, DayOfWeek.of(1 + j % 5), start, start.plusHours(1)));
+                indexNumbers.add(new IndexNumber(10000 + i * INDEX_NUMBERS_PER_COURSE + j, courses[i], lessons,
+                        studentCount));
+            }
+            courses[i].setIndexNumbers(indexNumbers);
+            storage.addCourse(courses[i]);
+        }
+
+        AccessTime accessTime = new AccessTime(LocalDateTime.of(2020, 10, 10, 8, 0),
+                LocalDateTime.of(2020, 12, 11, 23, 59));
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("Student " + i, "S" + i, String.format("U%07dA", i), "Singaporean",
+                    "s" + i + "@e.ntu.edu.sg", i % 2 == 0 ? Gender.MALE : Gender.FEMALE, accessTime);
+            for (int j = 0; j < COURSES_PER_STUDENT; j++) {
+                Course course = courses[(i * 7 + j * 31) % COURSES];
+                IndexNumber indexNumber = course.getIndexNumbers().get((i + j) % INDEX_NUMBERS_PER_COURSE);
+                student.enrol(course.getCourseCode(), indexNumber, false);
+                indexNumber.registerStudent(student);
+            }
+            storage.addStudent(student);
+        }
+
+        return storage;
+    }
+}
@@ -0,0 +1,259 @@
+package benchmark;
+
+import exception.NoVacancyException;
+import filemanager.BulkImport;
+import filemanager.IStorageManager;
+import filemanager.PipelinedStorageManager;
+import filemanager.StorageManager;
+import model.AccessTime;
+import model.Course;
+import model.EmailNotification;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Student;
+
+import java.io.File;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the {@code StorageManager}, which makes changes under locks on the threads that ask for them, with the
+ * {@code PipelinedStorageManager}, which makes every change on a single writer thread. New students and courses are
+ * imported into the storage in the working folder, and then many threads keep picking a random student and
+ * registering, wait listing, dropping or swapping a random index number, through the {@code IStorageManager} exactly
+ * as the student panel does, until the time is up. The number of changes per second, the time every change took and
+ * the result of checking the storage for problems afterwards are printed.
+ *
+ * <p>Only one storage manager can use the data folder at a time, so with "both" each of them is run in a new Java
+ * process of its own, one after the other. The students and courses stay in the storage afterwards, so the benchmark
+ * should be run from a copy of the data folder.</p>
+ *
+ * <p>Usage: {@code java benchmark.StoragePipelineBenchmark [locked|pipelined|both] [number of threads] [seconds]
+ * [number of students]}, which defaults to both, 64 threads, 5 seconds and 2000 students.</p>
+ */
+public class StoragePipelineBenchmark {
+    /**
+     * The number of new courses.
+     */
+    private static final int COURSES = 10;
+
+    /**
+     * The number of index numbers in every new course.
+     */
+    private static final int INDEX_NUMBERS_PER_COURSE = 4;
+
+    /**
+     * The kinds of changes made by the threads.
+     */
+    private enum Change {
+        REGISTER,
+        WAIT_LIST,
+        DROP,
+        SWAP,
+        DROP_FROM_WAIT_LIST,
+        REFUSED
+    }
+
+    public static void main(String[] args) throws Exception {
+        String implementation = args.length > 0 ? args[0] : "both";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int studentCount = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        if (implementation.equals("both")) {
+            runInNewProcess("locked", threads, seconds, studentCount);
+            runInNewProcess("pipelined", threads, seconds, studentCount);
+            return;
+        }
+        EmailNotification.setEnabled(false);
+
+        IStorageManager storageManager = implementation.equals("pipelined") ? new PipelinedStorageManager()
+                : new StorageManager();
+        String prefix = "SP" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36).toUpperCase();
+        String[] userIds = importStudentsAndCourses(storageManager, prefix, studentCount);
+        ArrayList<Course> courses = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            courses.add(storageManager.getCourse(prefix + "C" + c));
+        }
+
+        AtomicLong[] changes = new AtomicLong[Change.values().length];
+        for (int i = 0; i < changes.length; i++) {
+            changes[i] = new AtomicLong();
+        }
+        long[][] changeNanos = new long[threads][];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] end = new long[1];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                long[] nanos = new long[1024];
+                int count = 0;
+                try {
+                    start.await();
+                    while (System.nanoTime() < end[0]) {
+                        long changeStart = System.nanoTime();
+                        Change change = makeRandomChange(storageManager, userIds, courses);
+                        if (count == nanos.length) {
+                            nanos = Arrays.copyOf(nanos, count * 2);
+                        }
+                        nanos[count++] = System.nanoTime() - changeStart;
+                        changes[change.ordinal()].incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    changeNanos[thread] = Arrays.copyOf(nanos, count);
+                    done.countDown();
+                }
+            }, "changer-" + t).start();
+        }
+        end[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+
+        long[] allNanos = Arrays.stream(changeNanos).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%s: %d threads, %d students%n", implementation, threads, studentCount);
+        System.out.printf("  %,d changes in %.1f s (%,.0f changes/s)%n", allNanos.length, elapsed,
+                allNanos.length / elapsed);
+        for (Change change: Change.values()) {
+            System.out.printf("    %-20s %,d%n", change, changes[change.ordinal()].get());
+        }
+        if (allNanos.length > 0) {
+            System.out.printf("  Change time: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    allNanos[allNanos.length / 2] / 1e6, allNanos[allNanos.length * 99 / 100] / 1e6,
+                    allNanos[allNanos.length - 1] / 1e6);
+        }
+        if (storageManager instanceof PipelinedStorageManager) {
+            System.out.printf("  Average batch taken by the writer thread: %.1f commands%n",
+                    ((PipelinedStorageManager) storageManager).getAverageBatchSize());
+        }
+        System.out.printf("  Problems found in storage: %d%n", storageManager.checkInvariants().size());
+        System.exit(0);
+    }
+
+    /**
+     * Runs the benchmark for one storage manager in a new Java process with the same class path, waiting for it to
+     * finish.
+     * @param implementation Either "locked" or "pipelined".
+     * @param threads The number of threads.
+     * @param seconds The number of seconds to run for.
+     * @param studentCount The number of new students.
+     * @throws Exception if the process could not be started or was interrupted.
+     */
+    private static void runInNewProcess(String implementation, int threads, long seconds, int studentCount)
+            throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                StoragePipelineBenchmark.class.getName(), implementation, String.valueOf(threads),
+                String.valueOf(seconds), String.valueOf(studentCount)).inheritIO().start().waitFor();
+    }
+
+    /**
+     * Makes a random change for a random student: registering for a random index number of a random course, or wait
+     * listing it if there is no vacancy; dropping a registered course; swapping to another index number of a
+     * registered course; or dropping a course from the wait list.
+     * @param storageManager The storage to change.
+     * @param userIds The user ids of the students.
+     * @param courses The courses.
+     * @return The kind of change made.
+     */
+    private static Change makeRandomChange(IStorageManager storageManager, String[] userIds,
+                                           ArrayList<Course> courses) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String userId = userIds[random.nextInt(userIds.length)];
+        Student student = storageManager.getStudent(userId);
+        int choice = random.nextInt(100);
+        try {
+            if (choice < 50) {
+                Course course = courses.get(random.nextInt(courses.size()));
+                IndexNumber indexNumber = course.getIndexNumbers().get(random.nextInt(INDEX_NUMBERS_PER_COURSE));
+                try {
+                    storageManager.registerForCourse(userId, course.getCourseCode(), indexNumber);
+                    return Change.REGISTER;
+                } catch (NoVacancyException e) {
+                    storageManager.addCourseToWaitList(userId, course.getCourseCode(), indexNumber);
+                    return Change.WAIT_LIST;
+                }
+            }
+
+            boolean waitList = choice >= 90;
+            ArrayList<Course> taken = waitList ? storageManager.getCoursesInWaitListByStudent(student)
+                    : storageManager.getCoursesTakenByStudent(student);
+            if (taken.isEmpty()) {
+                return Change.REFUSED;
+            }
+            Course course = taken.get(random.nextInt(taken.size()));
+            IndexNumber indexNumber = waitList ? student.getWaitListIndexNumbers().get(course.getCourseCode())
+                    : student.getRegisteredIndexNumbers().get(course.getCourseCode());
+            if (indexNumber == null) {
+                return Change.REFUSED;
+            }
+            if (waitList) {
+                storageManager.dropCourseFromWaitList(userId, course.getCourseCode(), indexNumber);
+                return Change.DROP_FROM_WAIT_LIST;
+            } else if (choice < 75) {
+                storageManager.dropCourseAndRegisterNextStudentInWaitList(userId, course.getCourseCode(),
+                        indexNumber);
+                return Change.DROP;
+            } else {
+                IndexNumber newIndexNumber = course.getIndexNumbers().get(random.nextInt(INDEX_NUMBERS_PER_COURSE));
+                storageManager.swapIndexNumber(userId, course.getCourseCode(), newIndexNumber);
+                return Change.SWAP;
+            }
+        } catch (Exception e) {
+            return Change.REFUSED;
+        }
+    }
+
+    /**
+     * Imports new students whose access period is open and new courses that do not clash with each other, with few
+     * enough vacancies that the courses fill up and wait lists form.
+     * @param storageManager The storage to import into.
+     * @param prefix The prefix of the user ids and course codes, which is different on every run.
+     * @param studentCount The number of new students.
+     * @return The user ids of the new students.
+     * @throws Exception if the students or courses could not be imported.
+     */
+    private static String[] importStudentsAndCourses(IStorageManager storageManager, String prefix,
+                                                     int studentCount) throws Exception {
+        AccessTime accessTime = new AccessTime(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        String[] userIds = new String[studentCount];
+        ArrayList<Student> students = new ArrayList<>();
+        for (int i = 0; i < studentCount; i++) {
+            userIds[i] = prefix + "S" + i;
+            students.add(new Student("Pipeline Student " + i, userIds[i], prefix + "M" + i, "Singaporean",
+                    "pipeline" + i + "@e.ntu.edu.sg", i % 2 == 0 ? Gender.MALE : Gender.FEMALE, accessTime));
+        }
+
+        ArrayList<Course> courses = new ArrayList<>();
+        int vacancy = Math.max(1, studentCount / 40 / INDEX_NUMBERS_PER_COURSE);
+        int firstIndexNumberId = 50000 + Math.floorMod(prefix.hashCode(), 400) * 100;
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course("Pipeline Course " + c, prefix + "C" + c, School.SCSE, 2);
+            course.setIndexNumbers(new ArrayList<>());
+            for (int i = 0; i < INDEX_NUMBERS_PER_COURSE; i++) {
+                ArrayList<Lesson> lessons = new ArrayList<>();
+                LocalTime startTime = LocalTime.of(8 + 2 * (c / 5), 0);
+                lessons.add(new Lesson(LessonType.LECTURE, DayOfWeek.of(1 + c % 5), startTime,
+                        startTime.plusHours(2)));
+                course.addIndexNumber(new IndexNumber(firstIndexNumberId + c * 10 + i, course, lessons, vacancy));
+            }
+            courses.add(course);
+        }
+
+        storageManager.importBulk(new BulkImport(students, courses, new ArrayList<>(), new ArrayList<>()));
+        return userIds;
+    }
+}
@@ -1,16 +1,24 @@
 package controller;
 
 import errormessage.ErrorMessage;
+import exception.ChangeNotSavedException;
+import exception.InsufficientAccessSlotsException;
 import filemanager.ILoginInfoFileManager;
 import filemanager.IStorageManager;
-import filemanager.LoginInfoFileManager;
+import filemanager.PasswordHashingPool;
+import model.AccessTime;
+import model.AccessTimeScheduler;
 import model.Course;
 import model.IndexNumber;
 import model.LoginInfo;
 import model.Student;
 import view.AdminUi;
+import view.Terminal;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
 
 /**
  * This class is responsible for handling tasks related to the admin panel.
@@ -42,7 +50,22 @@ public class AdminController {
      * @see IStorageManager
      */
     public AdminController(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager) {
-        adminUi = new AdminUi();
+        this(storageManager, loginInfoFileManager, Terminal.getSystemTerminal());
+    }
+
+    /**
+     * Creates a new AdminController by injecting the dependencies, for an admin using a terminal other than the
+     * console the program was started from.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager
+     * @param terminal The {@code Terminal} of the admin.
+     * @see ILoginInfoFileManager
+     * @see IStorageManager
+     * @see Terminal
+     */
+    public AdminController(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                           Terminal terminal) {
+        adminUi = new AdminUi(terminal);
         this.storageManager = storageManager;
         this.loginInfoFileManager = loginInfoFileManager;
     }
@@ -55,35 +78,93 @@ public class AdminController {
         do {
             choice = adminUi.getMenuInputChoice();
 
-            switch (choice) {
-            case 1:
-                editStudentAccessPeriod();
-                break;
-            case 2:
-                addStudent();
-                break;
-            case 3:
-                addCourse();
-                break;
-            case 4:
-                editCourse();
-                break;
-            case 5:
-                checkAvailableSlot();
-                break;
-            case 6:
-                printStudentsByIndexNumber();
-                break;
-            case 7:
-                printStudentsByCourses();
-                break;
-            case 8:
-                adminUi.printGoodBye();
-                break;
-            default:
-                adminUi.printErrorMessage(ErrorMessage.ERROR_INPUT_CHOICE);
+            try {
+                switch (choice) {
+                case 1:
+                    editStudentAccessPeriod();
+                    break;
+                case 2:
+                    addStudent();
+                    break;
+                case 3:
+                    addCourse();
+                    break;
+                case 4:
+                    editCourse();
+                    break;
+                case 5:
+                    checkAvailableSlot();
+                    break;
+                case 6:
+                    printStudentsByIndexNumber();
+                    break;
+                case 7:
+                    printStudentsByCourses();
+                    break;
+                case 8:
+                    printAccessLoad();
+                    break;
+                case 9:
+                    staggerAccessPeriods();
+                    break;
+                case 10:
+                    adminUi.printGoodBye();
+                    break;
+                default:
+                    adminUi.printErrorMessage(ErrorMessage.ERROR_INPUT_CHOICE);
+                }
+            } catch (ChangeNotSavedException e) {
+                adminUi.printErrorMessage(e.getMessage());
+            }
+        } while (choice != 10);
+    }
+
+    /**
+     * Get user to input a date and time and print the number of students within their access period at it, the number
+     * of students whose access period starts within the hour after it and the largest number of students within their
+     * access period at the same time over its day.
+     */
+    private void printAccessLoad() {
+        LocalDateTime dateTime = adminUi.getAccessLoadDateTime();
+        adminUi.printAccessLoad(dateTime, storageManager.countStudentsWithinAccessTime(dateTime),
+                storageManager.countAccessTimesStartingBetween(dateTime, dateTime.plusHours(1)),
+                storageManager.getPeakStudentsWithinAccessTime(dateTime.toLocalDate()));
+    }
+
+    /**
+     * Get user to input a cohort of students, identified by the date and time at which their access periods currently
+     * start, and how their access periods should be staggered. The new access periods of the whole cohort are saved
+     * at once, and the projected load is printed.
+     * @see AccessTimeScheduler
+     */
+    private void staggerAccessPeriods() {
+        LocalDateTime cohortStart = adminUi.getCohortAccessStart();
+        ArrayList<Student> cohort = new ArrayList<>();
+        for (Student student: storageManager.getAllStudents()) {
+            if (student.getAccessTime().getStart().equals(cohortStart)) {
+                cohort.add(student);
             }
-        } while (choice != 8);
+        }
+        if (cohort.isEmpty()) {
+            adminUi.printErrorMessage(ErrorMessage.NO_STUDENTS_WITH_ACCESS_START);
+            return;
+        }
+
+        LinkedHashMap<String, AccessTime> accessTimes;
+        try {
+            accessTimes = adminUi.getAccessTimeScheduler(cohort.size()).schedule(cohort);
+        } catch (InsufficientAccessSlotsException e) {
+            adminUi.printErrorMessage(e.getMessage());
+            return;
+        }
+        storageManager.setNewAccessTimes(accessTimes);
+
+        TreeMap<LocalDateTime, Integer> startCounts = AccessTimeScheduler.countStarts(accessTimes.values());
+        TreeMap<LocalDateTime, Integer> studentCounts = new TreeMap<>();
+        for (LocalDateTime start: startCounts.keySet()) {
+            studentCounts.put(start, storageManager.countStudentsWithinAccessTime(start.plusSeconds(1)));
+        }
+        adminUi.printStaggeredAccessTimes(accessTimes, startCounts, studentCounts);
     }
 
     /**
@@ -173,7 +254,7 @@ public class AdminController {
         }
         Student student = adminUi.getNewStudent(loginInfoForStudent.getUserId());
         storageManager.addStudent(student);
-        loginInfoFileManager.addLoginInfoForNewStudent(loginInfoForStudent);
+        loginInfoFileManager.addLoginInfoForNewStudent(PasswordHashingPool.saltAndHash(loginInfoForStudent));
         adminUi.printStudents(storageManager.getAllStudents(), "Added " + student.getName() + "!");
     }
 
@@ -183,14 +264,7 @@ public class AdminController {
      * @return true if userId of the new student to be added does not yet exist; false otherwise.
      */
     private boolean checkUserIdExists(String userId) {
-        LoginInfoFileManager loginInfoFileManager = new LoginInfoFileManager();
-        for (LoginInfo loginInfo: loginInfoFileManager.retrieveStudentLoginInfoList()) {
-            if (loginInfo.getUserId().equals(userId)) {
-                return true;
-            }
-        }
-
-        return false;
+        return loginInfoFileManager.findStudentLoginInfo(userId) != null;
     }
 
     /**
@@ -3,7 +3,10 @@ package controller;
 import filemanager.ILoginable;
 import model.AccountType;
 import model.LoginInfo;
+import model.Session;
 import view.LoginUi;
+import view.Terminal;
+import exception.ServerBusyException;
 import exception.WrongAccessPeriodException;
 import exception.WrongLoginInfoException;
 
@@ -30,30 +33,42 @@ public class LoginController {
      * @see ILoginable
      */
     public LoginController(ILoginable loginManager) {
-        loginUi = new LoginUi();
+        this(loginManager, Terminal.getSystemTerminal());
+    }
+
+    /**
+     * Creates a new LoginController for a user using a terminal other than the console the program was started from.
+     * @param loginManager An object that implements ILoginable.
+     * @param terminal The {@code Terminal} of the user.
+     * @see ILoginable
+     * @see Terminal
+     */
+    public LoginController(ILoginable loginManager, Terminal terminal) {
+        loginUi = new LoginUi(terminal);
         this.loginManager = loginManager;
     }
 
     /**
-     * This method runs a loop to get user login information, verifies the login information and returns the login
-     * information only if the user provided a correct login information.
-     * @return A LoginInfo object containing the user id, hashed password and account type that has been verified to be correct.
+     * This method runs a loop to get user login information, verifies the login information and opens a session only
+     * if the user provided a correct login information.
+     * @return A Session object containing the user id and account type of the user whose login information has been
+     * verified to be correct.
      */
-    public LoginInfo run() {
-        LoginInfo providedLoginInfo;
+    public Session run() {
+        Session session;
         while (true) {
             AccountType accountType = loginUi.getAccountType();
-            providedLoginInfo = loginUi.getLoginInfo(accountType);
+            LoginInfo providedLoginInfo = loginUi.getLoginInfo(accountType);
 
             try {
-                loginManager.verifyLoginInfo(providedLoginInfo);
+                session = loginManager.createSession(providedLoginInfo, true);
                 break;
-            } catch (WrongAccessPeriodException | WrongLoginInfoException e) {
+            } catch (WrongAccessPeriodException | WrongLoginInfoException | ServerBusyException e) {
                 loginUi.printErrorMessage(e.getMessage());
             }
         }
 
-        return providedLoginInfo;
+        return session;
     }
 
 }
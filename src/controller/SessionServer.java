@@ -0,0 +1,307 @@
+package controller;
+
+import errormessage.ErrorMessage;
+import filemanager.ILoginInfoFileManager;
+import filemanager.ILoginable;
+import filemanager.IStorageManager;
+import filemanager.SessionManager;
+import filemanager.WaitingRoom;
+import model.Session;
+import view.Terminal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is responsible for serving many users at the same time from a single process, so that they all share one
+ * {@code IStorageManager} instead of every user starting their own program against the same data folder. Users connect
+ * to a TCP port on the local machine, and every connection is served by the same {@code LoginController},
+ * {@code StudentController} and {@code AdminController} flows as the console, reading from and printing to the
+ * connection through its own {@code Terminal}.
+ *
+ * <p>Every connection is served on its own virtual thread when the Java runtime has them, since the flows spend nearly
+ * all their time waiting for the user. On older runtimes a growing pool of ordinary threads is used instead. Either
+ * way, only a limited number of connections are served at the same time, and further connections are told to try
+ * again later and closed. A connection whose user has not sent anything for as long as a session stays valid is
+ * closed, so that users who leave without disconnecting do not hold on to a thread forever.</p>
+ * @see Terminal
+ */
+public class SessionServer {
+    /**
+     * The default largest number of connections served at the same time.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 4096;
+
+    /**
+     * The number of connections that may wait to be accepted.
+     */
+    private static final int BACKLOG = 4096;
+
+    /**
+     * An object that implements IStorageManager, shared by all the sessions.
+     * @see IStorageManager
+     */
+    private IStorageManager storageManager;
+
+    /**
+     * An object that implements ILoginInfoFileManager, shared by all the sessions.
+     * @see ILoginInfoFileManager
+     */
+    private ILoginInfoFileManager loginInfoFileManager;
+
+    /**
+     * An object that implements ILoginable, shared by all the sessions.
+     * @see ILoginable
+     */
+    private ILoginable loginManager;
+
+    /**
+     * The waiting room that lets students of all the sessions into the student panel.
+     * @see WaitingRoom
+     */
+    private WaitingRoom waitingRoom;
+
+    /**
+     * The socket that connections are accepted from.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * The executor that runs every session on its own thread.
+     */
+    private ExecutorService sessionExecutor;
+
+    /**
+     * Whether the sessions run on virtual threads.
+     */
+    private boolean usingVirtualThreads;
+
+    /**
+     * The permits of the connections that may be served at the same time, one of which is held by every connection
+     * being served.
+     */
+    private Semaphore connectionPermits;
+
+    /**
+     * The time in milliseconds a connection may wait for its user to send something before it is closed.
+     */
+    private int idleTimeoutMillis;
+
+    /**
+     * The number of sessions being served.
+     */
+    private AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * The total number of connections closed straight away because too many connections were being served.
+     */
+    private AtomicLong refusedSessions = new AtomicLong();
+
+    /**
+     * The total number of connections accepted.
+     */
+    private AtomicLong totalSessions = new AtomicLong();
+
+    /**
+     * Whether the server has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new SessionServer listening on a port of the local machine, which serves at most
+     * DEFAULT_MAX_CONNECTIONS connections at the same time and closes a connection once its user has not sent anything
+     * for as long as a session stays valid.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param loginManager An object that implements ILoginable.
+     * @param waitingRoom The waiting room that lets students into the student panel.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException if the port could not be listened on.
+     * @see SessionManager#DEFAULT_TTL_MILLIS
+     */
+    public SessionServer(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                         ILoginable loginManager, WaitingRoom waitingRoom, int port) throws IOException {
+        this(storageManager, loginInfoFileManager, loginManager, waitingRoom, port, DEFAULT_MAX_CONNECTIONS,
+                (int) SessionManager.DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a new SessionServer listening on a port of the local machine.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param loginManager An object that implements ILoginable.
+     * @param waitingRoom The waiting room that lets students into the student panel.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param maxConnections The largest number of connections served at the same time.
+     * @param idleTimeoutMillis The time in milliseconds a connection may wait for its user to send something before it
+     *                          is closed.
+     * @throws IOException if the port could not be listened on.
+     */
+    public SessionServer(IStorageManager storageManager, ILoginInfoFileManager loginInfoFileManager,
+                         ILoginable loginManager, WaitingRoom waitingRoom, int port, int maxConnections,
+                         int idleTimeoutMillis) throws IOException {
+        if (maxConnections < 1 || idleTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of connections or idle timeout");
+        }
+        this.storageManager = storageManager;
+        this.loginInfoFileManager = loginInfoFileManager;
+        this.loginManager = loginManager;
+        this.waitingRoom = waitingRoom;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        connectionPermits = new Semaphore(maxConnections);
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        sessionExecutor = newVirtualThreadExecutor();
+        usingVirtualThreads = sessionExecutor != null;
+        if (sessionExecutor == null) {
+            sessionExecutor = Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread, if the Java runtime has virtual threads. The
+     * executor is looked up by name, so that the program still runs on runtimes without them.
+     * @return The ExecutorService, or null if the runtime does not have virtual threads.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Accepts connections and serves each of them on its own thread until the server is closed. A connection accepted
+     * while the largest number of connections are being served is told to try again later and closed. This method
+     * only returns once the server has been closed.
+     * @throws IOException if accepting a connection fails while the server is open.
+     */
+    public void serve() throws IOException {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                throw e;
+            }
+            totalSessions.incrementAndGet();
+            if (!connectionPermits.tryAcquire()) {
+                refuse(socket);
+                continue;
+            }
+            activeSessions.incrementAndGet();
+            sessionExecutor.execute(() -> serveSession(socket));
+        }
+    }
+
+    /**
+     * Tells the user of a connection that too many users are connected and closes the connection.
+     * @param socket The socket of the connection.
+     */
+    private void refuse(Socket socket) {
+        refusedSessions.incrementAndGet();
+        try (socket) {
+            PrintStream output = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            output.println(ErrorMessage.TOO_MANY_CONNECTIONS);
+        } catch (IOException e) {
+            // The user disconnected.
+        }
+    }
+
+    /**
+     * Serves a single connection through the same flows as the console, then closes it. The session of the user is
+     * ended if the user disconnects in the middle of it, or has not sent anything for too long, which is treated the
+     * same way.
+     * @param socket The socket of the connection.
+     */
+    private void serveSession(Socket socket) {
+        Session session = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(idleTimeoutMillis);
+            Terminal terminal = new Terminal(socket.getInputStream(), socket.getOutputStream());
+            session = new LoginController(loginManager, terminal).run();
+            switch (session.getAccountType()) {
+            case ADMIN:
+                new AdminController(storageManager, loginInfoFileManager, terminal).run();
+                break;
+            case STUDENT:
+                new StudentController(session, storageManager, loginManager, waitingRoom, terminal).run();
+                break;
+            default:
+                assert false : "Invalid accountType returned from LoginController!";
+            }
+        } catch (NoSuchElementException | IOException e) {
+            // The user disconnected or has been idle for too long.
+        } finally {
+            if (session != null) {
+                loginManager.endSession(session.getToken());
+            }
+            activeSessions.decrementAndGet();
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The port number.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns whether the sessions run on virtual threads.
+     * @return true if every session runs on a virtual thread; false if they run on a pool of ordinary threads.
+     */
+    public boolean isUsingVirtualThreads() {
+        return usingVirtualThreads;
+    }
+
+    /**
+     * Returns the number of sessions being served.
+     * @return The number of connections that have not been closed yet.
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Returns the total number of connections accepted.
+     * @return The number of connections.
+     */
+    public long getTotalSessions() {
+        return totalSessions.get();
+    }
+
+    /**
+     * Returns the total number of connections closed straight away because too many connections were being served.
+     * @return The number of connections refused.
+     */
+    public long getRefusedSessions() {
+        return refusedSessions.get();
+    }
+
+    /**
+     * Stops accepting connections. Sessions being served carry on until their users leave.
+     * @throws IOException if the socket could not be closed.
+     */
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        sessionExecutor.shutdown();
+    }
+}
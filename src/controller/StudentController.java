@@ -4,17 +4,24 @@ import errormessage.ErrorMessage;
 import exception.MaxAuExceededException;
 import filemanager.ILoginable;
 import filemanager.IStorageManager;
+import filemanager.WaitingRoom;
 import model.Course;
 import model.IndexNumber;
 import model.LoginInfo;
+import model.Session;
 import model.Student;
 import view.StudentUi;
+import view.Terminal;
+import exception.ChangeNotSavedException;
 import exception.CourseRegisteredException;
 import exception.ClashingRegisteredIndexNumberException;
 import exception.NoVacancyException;
 import exception.NoVacancySwapException;
+import exception.NotRegisteredSwapException;
 import exception.CourseInWaitListException;
 import exception.SameIndexNumberSwapException;
+import exception.ServerBusyException;
+import exception.WaitingRoomFullException;
 import exception.WrongLoginInfoException;
 import exception.WrongAccessPeriodException;
 import exception.ClashingWaitListedIndexNumberException;
@@ -22,11 +29,17 @@ import exception.PeerClashingRegisteredIndexNumberException;
 import exception.PeerClashingWaitListedIndexNumberException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * This class is responsible for handling all the tasks related to the student panel.
  */
 public class StudentController {
+    /**
+     * The time in milliseconds between updates of the position of a student waiting in the waiting room.
+     */
+    private static final long WAITING_ROOM_UPDATE_MILLIS = 5000;
+
     /**
      * Represents the student which is logged in.
      */
@@ -49,58 +62,156 @@ public class StudentController {
      */
     private ILoginable loginManager;
 
+    /**
+     * The session of the student which is logged in.
+     */
+    private Session session;
+
+    /**
+     * The sessions opened for the peers whose login information has been verified to swap index, so that swapping
+     * with the same peer again does not need the login information of the peer again. The key is the user id of the
+     * peer.
+     */
+    private HashMap<String, Session> peerSessions = new HashMap<>();
+
+    /**
+     * The waiting room that lets students into the student panel at a steady rate.
+     * @see WaitingRoom
+     */
+    private WaitingRoom waitingRoom;
+
     /**
      * Constructs a StudentController.
-     * @param userId The user id of the student that is using the program.
+     * @param session The session of the student that is using the program.
      * @param storageManager An object that implements IStorageManager.
      * @param loginManager An object that implements ILoginable.
+     * @param waitingRoom The waiting room that lets students into the student panel.
      * @see IStorageManager
      * @see ILoginable
+     * @see WaitingRoom
      */
-    public StudentController(String userId, IStorageManager storageManager, ILoginable loginManager) {
-        studentUi = new StudentUi();
+    public StudentController(Session session, IStorageManager storageManager, ILoginable loginManager,
+                             WaitingRoom waitingRoom) {
+        this(session, storageManager, loginManager, waitingRoom, Terminal.getSystemTerminal());
+    }
+
+    /**
+     * Constructs a StudentController for a student using a terminal other than the console the program was started
+     * from.
+     * @param session The session of the student that is using the program.
+     * @param storageManager An object that implements IStorageManager.
+     * @param loginManager An object that implements ILoginable.
+     * @param waitingRoom The waiting room that lets students into the student panel.
+     * @param terminal The {@code Terminal} of the student.
+     * @see IStorageManager
+     * @see ILoginable
+     * @see WaitingRoom
+     * @see Terminal
+     */
+    public StudentController(Session session, IStorageManager storageManager, ILoginable loginManager,
+                             WaitingRoom waitingRoom, Terminal terminal) {
+        studentUi = new StudentUi(terminal);
         this.storageManager = storageManager;
-        student = storageManager.getStudent(userId);
+        student = storageManager.getStudent(session.getUserId());
         this.loginManager = loginManager;
+        this.session = session;
+        this.waitingRoom = waitingRoom;
     }
 
     /**
-     * Runs the main loop for the student panel to get user's input on what tasks they want to do.
+     * Runs the main loop for the student panel to get user's input on what tasks they want to do, once the student
+     * has been let in by the waiting room. The loop ends if the session of the student is no longer valid. The
+     * sessions of the student and peers are closed when the loop ends.
      */
     public void run() {
+        if (!waitForAdmission()) {
+            loginManager.endSession(session.getToken());
+            return;
+        }
         studentUi.printWelcomeMessage(student.getName());
         int choice;
         do {
             choice = studentUi.getMenuInputChoice();
-            switch (choice) {
-                case 1:
-                    addCourse();
-                    break;
-                case 2:
-                    dropRegisteredCourse();
-                    break;
-                case 3:
-                    dropWaitListCourse();
-                    break;
-                case 4:
-                    printRegisteredAndWaitListCourses();
-                    break;
-                case 5:
-                    printVacancies();
-                    break;
-                case 6:
-                    changeIndex();
-                    break;
-                case 7:
-                    swapIndex();
-                    break;
-                case 8:
-                    studentUi.printGoodBye();
-                    break;
-                default:
-                    studentUi.printErrorMessage(ErrorMessage.ERROR_INPUT_CHOICE);
+            if (loginManager.validateSession(session.getToken()) == null) {
+                studentUi.printErrorMessage(ErrorMessage.SESSION_EXPIRED);
+                break;
+            }
+            try {
+                switch (choice) {
+                    case 1:
+                        addCourse();
+                        break;
+                    case 2:
+                        dropRegisteredCourse();
+                        break;
+                    case 3:
+                        dropWaitListCourse();
+                        break;
+                    case 4:
+                        printRegisteredAndWaitListCourses();
+                        break;
+                    case 5:
+                        printVacancies();
+                        break;
+                    case 6:
+                        changeIndex();
+                        break;
+                    case 7:
+                        swapIndex();
+                        break;
+                    case 8:
+                        studentUi.printGoodBye();
+                        break;
+                    default:
+                        studentUi.printErrorMessage(ErrorMessage.ERROR_INPUT_CHOICE);
+                }
+            } catch (ChangeNotSavedException e) {
+                studentUi.printErrorMessage(e.getMessage());
             }
         } while (choice != 8);
+
+        loginManager.endSession(session.getToken());
+        for (Session peerSession: peerSessions.values()) {
+            loginManager.endSession(peerSession.getToken());
+        }
+    }
+
+    /**
+     * Joins the waiting room and waits until the student is let in, telling the student their position in the queue
+     * and the estimated waiting time every few seconds. The session of the student is kept valid while waiting.
+     * @return true if the student has been let in; false if the waiting room is full, the session is no longer valid
+     * or the wait was interrupted.
+     */
+    private boolean waitForAdmission() {
+        WaitingRoom.Ticket ticket;
+        try {
+            ticket = waitingRoom.join();
+        } catch (WaitingRoomFullException e) {
+            studentUi.printErrorMessage(e.getMessage());
+            return false;
+        }
+
+        try {
+            while (!ticket.isAdmitted()) {
+                int position = waitingRoom.getPosition(ticket);
+                if (position > 0) {
+                    studentUi.printWaitingRoomPosition(position, waitingRoom.getEstimatedWaitMillis(ticket));
+                }
+                if (waitingRoom.awaitAdmission(ticket, WAITING_ROOM_UPDATE_MILLIS)) {
+                    break;
+                }
+                if (loginManager.validateSession(session.getToken()) == null) {
+                    waitingRoom.leave(ticket);
+                    studentUi.printErrorMessage(ErrorMessage.SESSION_EXPIRED);
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            waitingRoom.leave(ticket);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -128,6 +239,8 @@ public class StudentController {
             studentUi.printMessageWithDivider(e.getMessage());
             storageManager.addCourseToWaitList(student.getUserId(), courseToBeAdded.getCourseCode(),
                     indexNumberToBeAdded);
+        } catch (ChangeNotSavedException e) {
+            studentUi.printErrorMessage(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -146,12 +259,15 @@ public class StudentController {
         }
         int index = studentUi.getIndexOfCourseToDrop(registeredCourses, true);
         Course courseToBeDropped = registeredCourses.get(index);
-        IndexNumber indexNumber = student.getRegisteredIndexNumbers().get(courseToBeDropped.getCourseCode());
+        IndexNumber indexNumber = storageManager.getIndexNumbersTakenByStudent(student)
+                .get(courseToBeDropped.getCourseCode());
         try {
             storageManager.dropCourseAndRegisterNextStudentInWaitList(student.getUserId(), courseToBeDropped.getCourseCode(), indexNumber);
             String messageSuccess = "You have successfully dropped the course:\n\n"
                     + courseToBeDropped.toString() + "\n\n" + indexNumber.getFullDescription();
             studentUi.printMessageWithDivider(messageSuccess, "An email will be sent to you");
+        } catch (ChangeNotSavedException e) {
+            studentUi.printErrorMessage(e.getMessage());
         } catch (Exception e) {
             assert false : "These exceptions should have already been accounted for when you add the course into wait list...";
         }
@@ -170,7 +286,7 @@ public class StudentController {
         }
         int index = studentUi.getIndexOfCourseToDrop(waitListCourses, false);
         Course course = waitListCourses.get(index);
-        IndexNumber indexNumber = student.getWaitListIndexNumbers().get(course.getCourseCode());
+        IndexNumber indexNumber = storageManager.getIndexNumbersInWaitListByStudent(student).get(course.getCourseCode());
         storageManager.dropCourseFromWaitList(student.getUserId(), course.getCourseCode(), indexNumber);
 
         String messageSuccess = "You have dropped from wait list for the course:\n\n"
@@ -183,14 +299,16 @@ public class StudentController {
      * and wait list) that the student has.
      */
     private void printRegisteredAndWaitListCourses() {
+        HashMap<String, IndexNumber> registeredIndexNumbers = storageManager.getIndexNumbersTakenByStudent(student);
+        HashMap<String, IndexNumber> waitListIndexNumbers = storageManager.getIndexNumbersInWaitListByStudent(student);
         String registeredAu = "You are registered for " + student.getRegisteredAu() + " AU.";
         String registeredCourses = "\n";
         int index = 1;
-        for (String courseCode: student.getRegisteredCourseCodes()) {
+        for (String courseCode: registeredIndexNumbers.keySet()) {
             Course course = storageManager.getCourse(courseCode);
             registeredCourses += (index) + ". " + course.toString();
-            registeredCourses += "\n\t" + student.getRegisteredIndexNumbers().get(courseCode).getFullDescription();
-            if (index != student.getRegisteredCourseCodes().size()) {
+            registeredCourses += "\n\t" + registeredIndexNumbers.get(courseCode).getFullDescription();
+            if (index != registeredIndexNumbers.size()) {
                 registeredCourses += "\n";
             }
             index++;
@@ -200,11 +318,11 @@ public class StudentController {
 
         String waitListAu = "You have " + student.getWaitListAu() + " AU in the wait list.";
         String waitListCourses = "\n";
-        for (String courseCode: student.getWaitListCourseCodes()) {
+        for (String courseCode: waitListIndexNumbers.keySet()) {
             Course course = storageManager.getCourse(courseCode);
             waitListCourses += (index) + ". " + course.toString();
-            waitListCourses += "\n\t" + student.getWaitListIndexNumbers().get(courseCode).getFullDescription();
-            if (index != student.getWaitListIndexNumbers().size()) {
+            waitListCourses += "\n\t" + waitListIndexNumbers.get(courseCode).getFullDescription();
+            if (index != waitListIndexNumbers.size()) {
                 registeredCourses += "\n";
             }
             index++;
@@ -236,7 +354,12 @@ public class StudentController {
         }
         int indexStudent = studentUi.getIndexOfCourseToChange(courses);
         Course courseToBeChanged = courses.get(indexStudent);
-        IndexNumber indexNumberToBeChanged = student.getRegisteredIndexNumbers().get(courseToBeChanged.getCourseCode());
+        IndexNumber indexNumberToBeChanged = storageManager.getIndexNumbersTakenByStudent(student)
+                .get(courseToBeChanged.getCourseCode());
+        if (indexNumberToBeChanged == null) {
+            studentUi.printErrorMessage(ErrorMessage.NOT_REGISTERED_SWAP);
+            return;
+        }
         studentUi.printMessageWithDivider("Swapping index for course: " + courseToBeChanged.toString()
                 , "You are currently registered for Index Number:\n" + indexNumberToBeChanged.getId());
 
@@ -250,7 +373,10 @@ public class StudentController {
             studentUi.printMessageWithDivider("Index Number: " + indexNumberToBeChanged.getId() + " for "
                     + courseToBeChanged.toString() + " has been successfully changed to " + newIndexNumber.getId(),
                     "An email will be sent to you.");
-        } catch (NoVacancySwapException | ClashingRegisteredIndexNumberException | SameIndexNumberSwapException e) {
+        } catch (NoVacancySwapException | ClashingRegisteredIndexNumberException | SameIndexNumberSwapException
+                | NotRegisteredSwapException e) {
+            studentUi.printErrorMessage(e.getMessage());
+        } catch (ChangeNotSavedException e) {
             studentUi.printErrorMessage(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
@@ -259,7 +385,8 @@ public class StudentController {
 
     /**
      * Displays the list of registered courses by the student and ask for which course which the student would like
-     * to swap with his/her peer. Then, get the user to input the login information of his/her peer to perform the swap.
+     * to swap with his/her peer. Then, get the user to input the login information of his/her peer to perform the swap,
+     * unless the peer has already done so for an earlier swap and the session opened for the peer then is still valid.
      * If the user does not have any registered courses, the method prints a message and returns.
      */
     private void swapIndex() {
@@ -269,40 +396,53 @@ public class StudentController {
             return;
         }
         int index = studentUi.getIndexOfCourseToChange(courses);
-        Course courseToBeSwapped = storageManager.getCourse(student.getRegisteredCourseCodes().get(index));
+        Course courseToBeSwapped = courses.get(index);
 
-        LoginInfo loginInfoOfPeer = studentUi.getLoginInfoOfPeer();
-        try {
-            loginManager.verifyLoginInfo(loginInfoOfPeer);
-        } catch (WrongLoginInfoException e) {
-            studentUi.printErrorMessage(e.getMessage());
-            return;
-        } catch (WrongAccessPeriodException e) {
-            // ignore, doesn't matter since we are just swapping index with peer
+        String peerUserId = studentUi.getUserIdOfPeer();
+        Session peerSession = peerSessions.get(peerUserId);
+        if (peerSession == null || loginManager.validateSession(peerSession.getToken()) == null) {
+            LoginInfo loginInfoOfPeer = studentUi.getLoginInfoOfPeer(peerUserId);
+            try {
+                // the access period does not matter since we are just swapping index with peer
+                peerSessions.put(peerUserId, loginManager.createSession(loginInfoOfPeer, false));
+            } catch (WrongLoginInfoException | WrongAccessPeriodException | ServerBusyException e) {
+                peerSessions.remove(peerUserId);
+                studentUi.printErrorMessage(e.getMessage());
+                return;
+            }
         }
 
-        Student peer = storageManager.getStudent(loginInfoOfPeer.getUserId());
+        Student peer = storageManager.getStudent(peerUserId);
+        IndexNumber yourIndexNumber = storageManager.getIndexNumbersTakenByStudent(student)
+                .get(courseToBeSwapped.getCourseCode());
+        IndexNumber peerIndexNumber = storageManager.getIndexNumbersTakenByStudent(peer)
+                .get(courseToBeSwapped.getCourseCode());
 
-        if (!peer.getRegisteredCourseCodes().contains(courseToBeSwapped.getCourseCode())) {
+        if (peerIndexNumber == null) {
             studentUi.printErrorMessage(ErrorMessage.PEER_DOES_NOT_TAKE_COURSE);
             return;
         }
+        if (yourIndexNumber == null) {
+            studentUi.printErrorMessage(ErrorMessage.NOT_REGISTERED_SWAP);
+            return;
+        }
 
-        if (!studentUi.confirmSwapWithPeer(student, peer, courseToBeSwapped)) {
+        if (!studentUi.confirmSwapWithPeer(peer, yourIndexNumber, peerIndexNumber, courseToBeSwapped)) {
             return;
         }
 
         try {
             storageManager.swapIndexWithPeer(student.getUserId(), peer.getUserId(), courseToBeSwapped.getCourseCode());
 
-            studentUi.printMessageWithDivider("Your Index Number: "
-                            + peer.getRegisteredIndexNumbers().get(courseToBeSwapped.getCourseCode()).getId() + " for "
+            studentUi.printMessageWithDivider("Your Index Number: " + yourIndexNumber.getId() + " for "
                             + courseToBeSwapped.toString() + " has been successfully changed to: "
-                            + student.getRegisteredIndexNumbers().get(courseToBeSwapped.getCourseCode()).getId(),
+                            + peerIndexNumber.getId(),
                             "An email will be sent to you and your peer.");
         } catch (PeerClashingRegisteredIndexNumberException | SameIndexNumberSwapException
                 | ClashingRegisteredIndexNumberException | PeerClashingWaitListedIndexNumberException
-                | ClashingWaitListedIndexNumberException e) {
+                | ClashingWaitListedIndexNumberException | NotRegisteredSwapException e) {
+            studentUi.printErrorMessage(e.getMessage());
+        } catch (ChangeNotSavedException e) {
             studentUi.printErrorMessage(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
@@ -6,10 +6,20 @@ package errormessage;
 public class ErrorMessage {
     // Common error message
     public static final String ERROR_INPUT_CHOICE = "Invalid input choice, please input a valid input choice!";
+    public static final String CHANGE_NOT_SAVED = "Your change was made but could not be saved, so it may be lost " +
+            "if STARS is restarted. Please check it again later or contact the administrator.";
+    public static final String STORAGE_NOT_LOADED = "The stored data could not be loaded, so STARS cannot start. " +
+            "Please contact the administrator.";
 
     // Error messages related to the login panel
     public static final String WRONG_LOGIN_INFO = "Wrong UserID and/or Password. Please try again!";
     public static final String WRONG_ACCESS_PERIOD = "You are not authorised to access STARS! Your access period is:";
+    public static final String SESSION_EXPIRED = "Your session has expired. Please log in again.";
+    public static final String SERVER_BUSY = "Too many users are logging in right now. Please try again in a moment.";
+    public static final String WAITING_ROOM_FULL = "Too many students are waiting to use STARS right now. Please " +
+            "try again later.";
+    public static final String TOO_MANY_CONNECTIONS = "Too many users are connected to STARS right now. Please try " +
+            "again later.";
 
     // Error messages related to the admin panel
     public static final String INVALID_SCHOOL = "Invalid school! Please try again.";
@@ -22,6 +32,11 @@ public class ErrorMessage {
     public static final String INVALID_NEW_MAX_VACANCY = "The new maximum vacancy for this index is less than"
             + "the number of registered students.\n" + "Please enter a new value.";
     public static final String INVALID_ACCESS_TIME = "Invalid Access Time! The start time is later than end time!";
+    public static final String NO_STUDENTS_WITH_ACCESS_START = "No student's access period starts at that date and " +
+            "time! Please try again.";
+    public static final String INVALID_MAX_STARTS_PER_SLOT = "Invalid number of students per slot! Please try again.";
+    public static final String INSUFFICIENT_ACCESS_SLOTS = "There are not enough access slots for all the students! " +
+            "Please widen the day range or daily hours, or allow more students per slot.";
     public static final String INVALID_GENDER_TYPE = "Invalid gender! Please try again!";
     public static final String USER_ID_EXISTS = "User id already exists! Please enter a new user id.";
     public static final String COURSE_CODE_EXISTS = "Course code already exists! Please enter a new course code.";
@@ -44,9 +59,14 @@ public class ErrorMessage {
             "registered for. Please try again.";
     public static final String PEER_DOES_NOT_TAKE_COURSE = "Your peer does not take this course. Please try again.";
     public static final String PEER_REGISTERED_CLASHING_INDEX = "Your peer has registered course that clashes with your index. Please try again.";
+    public static final String NOT_REGISTERED_SWAP = "You or your peer are no longer registered for this course. " +
+            "Please try again.";
     public static final String PEER_WAITLISTED_CLASHING_INDEX ="Your peer has wait listed course that clashes with your index. Please try again.";
     public static final String INVALID_CONFIRM_SWAP_PEER = "Invalid input. Please try again.";
     public static final String MAX_AU_EXCEEDED = "You have exceeded the maximum AU allowed! Please drop your " +
             "\nregistered courses or wait list courses before trying again.";
     public static final String INVALID_AU = "Invalid AU input. Please try again.";
+
+    // Error messages related to bulk import and export
+    public static final String BULK_IMPORT_FAILED = "The bulk import was rejected and nothing was imported. Errors found:";
 }
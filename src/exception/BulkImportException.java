@@ -0,0 +1,39 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+import java.util.ArrayList;
+
+/**
+ * This is a class that extends Exception which is thrown when the files of a bulk import contain errors, in which
+ * case nothing is imported at all.
+ */
+public class BulkImportException extends Exception {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The errors found in the files of the bulk import.
+     */
+    private ArrayList<String> errors;
+
+    /**
+     * Constructs a new BulkImportException with the corresponding error message.
+     * @param errors The errors found in the files of the bulk import.
+     * @see ErrorMessage
+     */
+    public BulkImportException(ArrayList<String> errors) {
+        super(ErrorMessage.BULK_IMPORT_FAILED + "\n" + String.join("\n", errors));
+        this.errors = errors;
+    }
+
+    /**
+     * Returns the errors found in the files of the bulk import.
+     * @return An ArrayList of String containing the errors.
+     */
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
+}
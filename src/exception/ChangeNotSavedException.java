@@ -0,0 +1,24 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends RuntimeException which is thrown when a change has been made but its record could not
+ * be written to the journal on disk, so the change may be lost if the program is restarted. It is unchecked since any
+ * change to the storage can fail to be saved.
+ */
+public class ChangeNotSavedException extends RuntimeException {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new ChangeNotSavedException with the corresponding error message.
+     * @param cause The reason the record of the change could not be written.
+     * @see ErrorMessage
+     */
+    public ChangeNotSavedException(Throwable cause) {
+        super(ErrorMessage.CHANGE_NOT_SAVED, cause);
+    }
+}
@@ -0,0 +1,24 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends Exception which is thrown when staggering the access periods of a cohort of students
+ * would put more students into the available slots than they are allowed to hold.
+ */
+public class InsufficientAccessSlotsException extends Exception {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new InsufficientAccessSlotsException with the corresponding error message.
+     * @param students The number of students to be given access periods.
+     * @param capacity The largest number of students the slots can hold.
+     * @see ErrorMessage
+     */
+    public InsufficientAccessSlotsException(int students, long capacity) {
+        super(ErrorMessage.INSUFFICIENT_ACCESS_SLOTS + " (" + students + " students, " + capacity + " places)");
+    }
+}
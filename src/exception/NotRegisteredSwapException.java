@@ -0,0 +1,23 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends Exception which is thrown when the student is no longer registered for the Course by
+ * the time the Index Number is swapped, or when the student or the peer is no longer registered for the Course by the
+ * time they swap Index Number with each other.
+ */
+public class NotRegisteredSwapException extends Exception {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new NotRegisteredSwapException with the corresponding error message.
+     * @see ErrorMessage
+     */
+    public NotRegisteredSwapException() {
+        super(ErrorMessage.NOT_REGISTERED_SWAP);
+    }
+}
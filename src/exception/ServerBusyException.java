@@ -0,0 +1,22 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends Exception which is thrown when too many users are logging in at the same time for the
+ * login information to be verified.
+ */
+public class ServerBusyException extends Exception {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new ServerBusyException with the corresponding error message.
+     * @see ErrorMessage
+     */
+    public ServerBusyException() {
+        super(ErrorMessage.SERVER_BUSY);
+    }
+}
@@ -0,0 +1,24 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends RuntimeException which is thrown when the stored data could not be loaded when the
+ * program starts, so that the program stops instead of carrying on without the data or with only part of it. It is
+ * unchecked since nothing can be done about it other than stopping.
+ */
+public class StorageNotLoadedException extends RuntimeException {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new StorageNotLoadedException with the corresponding error message.
+     * @param cause The reason the stored data could not be loaded.
+     * @see ErrorMessage
+     */
+    public StorageNotLoadedException(Throwable cause) {
+        super(ErrorMessage.STORAGE_NOT_LOADED + " (" + cause.getMessage() + ")", cause);
+    }
+}
@@ -0,0 +1,22 @@
+package exception;
+
+import errormessage.ErrorMessage;
+
+/**
+ * This is a class that extends Exception which is thrown when so many students are waiting to be let into the
+ * student panel that no more can join the queue.
+ */
+public class WaitingRoomFullException extends Exception {
+    /**
+     * The version of the serialized form of the exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new WaitingRoomFullException with the corresponding error message.
+     * @see ErrorMessage
+     */
+    public WaitingRoomFullException() {
+        super(ErrorMessage.WAITING_ROOM_FULL);
+    }
+}
@@ -0,0 +1,45 @@
+package filemanager;
+
+import model.Storage;
+
+import java.io.IOException;
+
+/**
+ * This class is responsible for upgrading a snapshot in the binary format written by {@code StorageSnapshotWriter} to
+ * the layout written by {@code MappedSnapshotWriter}, which can be loaded without reading all the students up front.
+ * The whole {@code Storage} object is decoded once and encoded again in the new layout.
+ * @see StorageSnapshotReader
+ * @see MappedSnapshotWriter
+ */
+public class BinarySnapshotMigrator implements ISnapshotMigrator {
+    /**
+     * Returns the format version of the snapshots that this migrator upgrades.
+     * @return {@code StorageSnapshot.BINARY_FORMAT}.
+     */
+    @Override
+    public int getSourceFormat() {
+        return StorageSnapshot.BINARY_FORMAT;
+    }
+
+    /**
+     * Returns the format version of the snapshots produced by this migrator.
+     * @return {@code StorageSnapshot.MAPPED_FORMAT}.
+     */
+    @Override
+    public int getTargetFormat() {
+        return StorageSnapshot.MAPPED_FORMAT;
+    }
+
+    /**
+     * Reads the {@code Storage} object in the binary format and writes it again in the mapped layout.
+     * @param snapshot The {@code StorageSnapshot} in the binary format.
+     * @return The {@code StorageSnapshot} in the mapped layout.
+     * @throws IOException if the payload is not a valid snapshot in the binary format.
+     */
+    @Override
+    public StorageSnapshot migrate(StorageSnapshot snapshot) throws IOException {
+        Storage storage = new StorageSnapshotReader(snapshot.getPayload()).read();
+        return new StorageSnapshot(new MappedSnapshotWriter().write(storage), snapshot.getSequence(),
+                StorageSnapshot.MAPPED_FORMAT);
+    }
+}
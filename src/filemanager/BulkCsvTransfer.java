@@ -0,0 +1,599 @@
+package filemanager;
+
+import exception.BulkImportException;
+import model.AccessTime;
+import model.AccountType;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.LoginInfo;
+import model.School;
+import model.Storage;
+import model.Student;
+import utility.Csv;
+import utility.PasswordHasher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * This class is responsible for the logic of importing students, courses, index numbers and enrolments from, and
+ * exporting them to, a folder of comma-separated values files:
+ * <ul>
+ *     <li>"students.csv": userId, name, matricNumber, nationality, gender, emailAddress, accessStart, accessEnd and
+ *     either passwordHash or password</li>
+ *     <li>"courses.csv": courseCode, courseName, school, au</li>
+ *     <li>"index_numbers.csv": courseCode, indexNumber, maxVacancy, lessons</li>
+ *     <li>"enrolments.csv": userId, courseCode, indexNumber, status</li>
+ * </ul>
+ * Every file starts with a header line naming its columns. Date-times are written as e.g. "2020-11-01T08:00", lessons
+ * are separated by semicolons and written as e.g. "LECTURE-MONDAY-08:30-09:30", a password hash is written as its
+ * hash, salt and cost separated by "|" as in the login file, and the status of an enrolment is either REGISTERED or
+ * WAITLISTED. Index numbers can only be imported for courses in the same import. The files are
+ * read a chunk of lines at a time and the lines of each chunk are parsed and validated in parallel, while the files
+ * are written line by line, so that neither the text of a whole file nor all of its lines are held in memory at once.
+ *
+ * <p>The objects parsed from the lines are still all held in memory until the import has been applied, and the whole
+ * import is written to the journal as a single record, so the memory taken by an import grows with its size. The
+ * number of lines of each file is therefore capped at {@link #MAX_LINES}; a larger import has to be split into several
+ * smaller ones, each of which is imported completely or not at all.</p>
+ * @see BulkImport
+ */
+public class BulkCsvTransfer {
+    /**
+     * The name of the file containing the students.
+     */
+    public static final String STUDENTS_FILE = "students.csv";
+
+    /**
+     * The name of the file containing the courses.
+     */
+    public static final String COURSES_FILE = "courses.csv";
+
+    /**
+     * The name of the file containing the index numbers.
+     */
+    public static final String INDEX_NUMBERS_FILE = "index_numbers.csv";
+
+    /**
+     * The name of the file containing the enrolments.
+     */
+    public static final String ENROLMENTS_FILE = "enrolments.csv";
+
+    /**
+     * The status of an enrolment of a student registered for an index number.
+     */
+    private static final String REGISTERED = "REGISTERED";
+
+    /**
+     * The status of an enrolment of a student on the wait list of an index number.
+     */
+    private static final String WAIT_LISTED = "WAITLISTED";
+
+    /**
+     * The largest number of lines after the header line that a file of a bulk import may have.
+     */
+    public static final int MAX_LINES = 200_000;
+
+    /**
+     * The number of lines read and parsed together.
+     */
+    private static final int CHUNK_LINES = 8192;
+
+    /**
+     * The columns of the students file when it contains the hashed passwords of the students.
+     */
+    private static final String[] STUDENT_COLUMNS = {"userId", "name", "matricNumber", "nationality", "gender",
+            "emailAddress", "accessStart", "accessEnd", "passwordHash"};
+
+    /**
+     * The name of the last column of the students file when it contains the passwords of the students in plain
+     * text, which are hashed with a new salt and the default cost while importing.
+     */
+    private static final String PLAIN_PASSWORD_COLUMN = "password";
+
+    /**
+     * The columns of the courses file.
+     */
+    private static final String[] COURSE_COLUMNS = {"courseCode", "courseName", "school", "au"};
+
+    /**
+     * The columns of the index numbers file.
+     */
+    private static final String[] INDEX_NUMBER_COLUMNS = {"courseCode", "indexNumber", "maxVacancy", "lessons"};
+
+    /**
+     * The columns of the enrolments file.
+     */
+    private static final String[] ENROLMENT_COLUMNS = {"userId", "courseCode", "indexNumber", "status"};
+
+    /**
+     * The pattern matching a character that is not allowed in a user id or course code.
+     */
+    private static final Pattern INVALID_ID_CHARACTER = Pattern.compile("[^a-z0-9 ]", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Reads all the files of a bulk import inside a folder and checks that they are consistent with each other. The
+     * files for courses, index numbers and enrolments may be left out.
+     * @param directory The folder containing the files.
+     * @return The {@code BulkImport} containing everything in the files.
+     * @throws IOException if one of the files could not be read.
+     * @throws BulkImportException if the files contain errors. Nothing should be imported in that case.
+     */
+    public BulkImport readImport(File directory) throws IOException, BulkImportException {
+        ArrayList<String> errors = new ArrayList<>();
+
+        ArrayList<StudentRow> studentRows = readFile(new File(directory, STUDENTS_FILE), STUDENT_COLUMNS,
+                this::parseStudent, errors);
+        ArrayList<Student> students = new ArrayList<>(studentRows.size());
+        ArrayList<LoginInfo> loginInfos = new ArrayList<>(studentRows.size());
+        HashSet<String> userIds = new HashSet<>();
+        for (StudentRow studentRow: studentRows) {
+            if (!userIds.add(studentRow.student.getUserId())) {
+                BulkImport.addError(errors, STUDENTS_FILE + " line " + studentRow.line + ": Duplicate user id "
+                        + studentRow.student.getUserId());
+            }
+            students.add(studentRow.student);
+            loginInfos.add(studentRow.loginInfo);
+        }
+
+        ArrayList<Course> courses = readFile(new File(directory, COURSES_FILE), COURSE_COLUMNS,
+                this::parseCourse, errors);
+        HashMap<String, Course> coursesByCode = new HashMap<>();
+        for (Course course: courses) {
+            if (coursesByCode.putIfAbsent(course.getCourseCode(), course) != null) {
+                BulkImport.addError(errors, COURSES_FILE + ": Duplicate course code " + course.getCourseCode());
+            }
+        }
+
+        ArrayList<IndexNumber> indexNumbers = readFile(new File(directory, INDEX_NUMBERS_FILE), INDEX_NUMBER_COLUMNS,
+                fields -> parseIndexNumber(fields, coursesByCode), errors);
+        HashSet<String> indexNumberIds = new HashSet<>();
+        for (IndexNumber indexNumber: indexNumbers) {
+            String courseCode = indexNumber.getCourse().getCourseCode();
+            if (!indexNumberIds.add(courseCode + "|" + indexNumber.getId())) {
+                BulkImport.addError(errors, INDEX_NUMBERS_FILE + ": Duplicate index number " + indexNumber.getId()
+                        + " of " + courseCode);
+            }
+            indexNumber.getCourse().addIndexNumber(indexNumber);
+        }
+
+        ArrayList<Enrolment> enrolments = readFile(new File(directory, ENROLMENTS_FILE), ENROLMENT_COLUMNS,
+                this::parseEnrolment, errors);
+
+        if (!errors.isEmpty()) {
+            throw new BulkImportException(errors);
+        }
+        return new BulkImport(students, courses, enrolments, loginInfos);
+    }
+
+    /**
+     * Writes all the students, courses, index numbers and enrolments of a {@code Storage} object into the files of a
+     * bulk import inside a folder, in an order that does not depend on how they are held in memory. Students are
+     * sorted by user id and courses by course code, and the enrolments of each index number list its registered
+     * students followed by its wait list in order.
+     * @param storage The {@code Storage} object to be exported.
+     * @param loginInfos The login information of the students, whose hashed passwords are exported together with
+     *                   the students.
+     * @param directory The folder into which the files are written.
+     * @throws IOException if one of the files could not be written.
+     */
+    public void writeExport(Storage storage, List<LoginInfo> loginInfos, File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        HashMap<String, String> passwords = new HashMap<>();
+        for (LoginInfo loginInfo: loginInfos) {
+            passwords.put(loginInfo.getUserId(), LoginInfoIndex.formatCredentials(loginInfo));
+        }
+
+        ArrayList<Student> students = storage.getAllStudents();
+        students.sort(Comparator.comparing(Student::getUserId));
+        try (BufferedWriter writer = newWriter(directory, STUDENTS_FILE, STUDENT_COLUMNS)) {
+            for (Student student: students) {
+                writeLine(writer, Csv.format(student.getUserId(), student.getName(), student.getMatricNumber(),
+                        student.getNationality(), student.getGender().name(), student.getEmailAddress(),
+                        student.getAccessTime().getStart().toString(), student.getAccessTime().getEnd().toString(),
+                        passwords.getOrDefault(student.getUserId(), "")));
+            }
+        }
+
+        ArrayList<Course> courses = storage.getAllCourses();
+        courses.sort(Comparator.comparing(Course::getCourseCode));
+        try (BufferedWriter writer = newWriter(directory, COURSES_FILE, COURSE_COLUMNS)) {
+            for (Course course: courses) {
+                writeLine(writer, Csv.format(course.getCourseCode(), course.getCourseName(), course.getSchool().name(),
+                        String.valueOf(course.getAu())));
+            }
+        }
+
+        try (BufferedWriter writer = newWriter(directory, INDEX_NUMBERS_FILE, INDEX_NUMBER_COLUMNS)) {
+            for (Course course: courses) {
+                for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                    writeLine(writer, Csv.format(course.getCourseCode(), String.valueOf(indexNumber.getId()),
+                            String.valueOf(indexNumber.getMaxVacancy()), formatLessons(indexNumber.getLessons())));
+                }
+            }
+        }
+
+        try (BufferedWriter writer = newWriter(directory, ENROLMENTS_FILE, ENROLMENT_COLUMNS)) {
+            for (Course course: courses) {
+                for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                    String id = String.valueOf(indexNumber.getId());
+                    for (Student student: indexNumber.getRegisteredStudents()) {
+                        writeLine(writer, Csv.format(student.getUserId(), course.getCourseCode(), id, REGISTERED));
+                    }
+                    for (Student student: indexNumber.getWaitListStudents()) {
+                        writeLine(writer, Csv.format(student.getUserId(), course.getCourseCode(), id, WAIT_LISTED));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a file a chunk of lines at a time and parses the lines of each chunk in parallel. Blank lines are
+     * skipped. A file that does not exist is treated as a file without any lines. Reading stops with an error once the
+     * file turns out to have more than {@link #MAX_LINES} lines after the header line.
+     * @param file The file to be read.
+     * @param columns The columns expected in the header line of the file. For the students file, the last column
+     *                may also be the column of plain text passwords.
+     * @param parser The parser for a single line, which is called from several threads at once.
+     * @param errors The list to which errors found in the file are added.
+     * @param <T> The type of object that a line is parsed into.
+     * @return The objects parsed from the lines without errors, in the order of the file.
+     * @throws IOException if the file could not be read.
+     */
+    private <T> ArrayList<T> readFile(File file, String[] columns, LineParser<T> parser, ArrayList<String> errors)
+            throws IOException {
+        ArrayList<T> results = new ArrayList<>();
+        if (!file.exists()) {
+            return results;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            ArrayList<String> headerFields = header == null ? new ArrayList<>() : Csv.parse(stripByteOrderMark(header));
+            boolean plainPasswords = columns == STUDENT_COLUMNS && headerFields.size() == columns.length
+                    && headerFields.get(columns.length - 1).equals(PLAIN_PASSWORD_COLUMN);
+            if (plainPasswords) {
+                headerFields.set(columns.length - 1, columns[columns.length - 1]);
+            }
+            if (!headerFields.equals(List.of(columns))) {
+                BulkImport.addError(errors, file.getName() + " line 1: Expected the header "
+                        + String.join(",", columns));
+                return results;
+            }
+
+            String[] lines = new String[CHUNK_LINES];
+            Object[] parsed = new Object[CHUNK_LINES];
+            String[] lineErrors = new String[CHUNK_LINES];
+            int firstLineNumber = 2;
+            while (true) {
+                int count = 0;
+                String line;
+                while (count < CHUNK_LINES && (line = reader.readLine()) != null) {
+                    lines[count++] = line;
+                }
+                if (count == 0) {
+                    return results;
+                }
+                if (firstLineNumber - 2 + count > MAX_LINES) {
+                    BulkImport.addError(errors, file.getName() + ": More than " + MAX_LINES + " lines; split the"
+                            + " import into several smaller ones");
+                    return results;
+                }
+
+                int lineNumber = firstLineNumber;
+                IntStream.range(0, count).parallel().forEach(i -> {
+                    parsed[i] = null;
+                    lineErrors[i] = null;
+                    if (lines[i].isBlank()) {
+                        return;
+                    }
+                    try {
+                        ArrayList<String> fields = Csv.parse(lines[i]);
+                        if (fields.size() != columns.length) {
+                            throw new IllegalArgumentException("Expected " + columns.length + " fields but found "
+                                    + fields.size());
+                        }
+                        if (plainPasswords) {
+                            String salt = PasswordHasher.newSalt();
+                            fields.set(columns.length - 1, PasswordHasher.hash(fields.get(columns.length - 1), salt,
+                                    PasswordHasher.DEFAULT_COST) + "|" + salt + "|" + PasswordHasher.DEFAULT_COST);
+                        }
+                        T result = parser.parse(fields);
+                        if (result instanceof StudentRow) {
+                            ((StudentRow) result).line = lineNumber + i;
+                        }
+                        parsed[i] = result;
+                    } catch (RuntimeException e) {
+                        lineErrors[i] = file.getName() + " line " + (lineNumber + i) + ": " + e.getMessage();
+                    }
+                });
+
+                for (int i = 0; i < count; i++) {
+                    if (lineErrors[i] != null) {
+                        BulkImport.addError(errors, lineErrors[i]);
+                    } else if (parsed[i] != null) {
+                        @SuppressWarnings("unchecked")
+                        T result = (T) parsed[i];
+                        results.add(result);
+                    }
+                    lines[i] = null;
+                    parsed[i] = null;
+                }
+                firstLineNumber += count;
+            }
+        }
+    }
+
+    /**
+     * Parses the fields of a line of the students file.
+     * @param fields The fields of the line.
+     * @return The {@code StudentRow} containing the student and its login information.
+     * @throws IllegalArgumentException if one of the fields is not valid.
+     */
+    private StudentRow parseStudent(ArrayList<String> fields) {
+        String userId = parseId(fields.get(0), "user id");
+        String name = parseNonBlank(fields.get(1), "name");
+        String matricNumber = parseNonBlank(fields.get(2), "matric number");
+        String nationality = parseNonBlank(fields.get(3), "nationality");
+        Gender gender = Gender.valueOf(parseNonBlank(fields.get(4), "gender"));
+        String emailAddress = fields.get(5).trim();
+        if (emailAddress.indexOf('@') <= 0) {
+            throw new IllegalArgumentException("Invalid email address " + emailAddress);
+        }
+        AccessTime accessTime = new AccessTime(LocalDateTime.parse(fields.get(6).trim()),
+                LocalDateTime.parse(fields.get(7).trim()));
+        LoginInfo loginInfo = LoginInfoIndex.parseCredentials(AccountType.STUDENT, userId,
+                parseNonBlank(fields.get(8), "password"));
+
+        return new StudentRow(new Student(name, userId, matricNumber, nationality, emailAddress, gender, accessTime),
+                loginInfo);
+    }
+
+    /**
+     * Parses the fields of a line of the courses file.
+     * @param fields The fields of the line.
+     * @return The {@code Course} described by the line, without any index numbers.
+     * @throws IllegalArgumentException if one of the fields is not valid.
+     */
+    private Course parseCourse(ArrayList<String> fields) {
+        String courseCode = parseId(fields.get(0), "course code");
+        String courseName = parseNonBlank(fields.get(1), "course name");
+        School school = School.valueOf(fields.get(2).trim());
+        int au = parsePositive(fields.get(3), "AU");
+
+        Course course = new Course(courseName, courseCode, school, au);
+        course.setIndexNumbers(new ArrayList<>());
+        return course;
+    }
+
+    /**
+     * Parses the fields of a line of the index numbers file.
+     * @param fields The fields of the line.
+     * @param coursesByCode The courses of the import by their course codes.
+     * @return The {@code IndexNumber} described by the line.
+     * @throws IllegalArgumentException if one of the fields is not valid or the course is not part of the import.
+     */
+    private IndexNumber parseIndexNumber(ArrayList<String> fields, HashMap<String, Course> coursesByCode) {
+        Course course = coursesByCode.get(fields.get(0).trim());
+        if (course == null) {
+            throw new IllegalArgumentException("Course " + fields.get(0) + " is not in " + COURSES_FILE);
+        }
+        int id = parsePositive(fields.get(1), "index number");
+        int maxVacancy = parsePositive(fields.get(2), "maximum vacancy");
+
+        return new IndexNumber(id, course, parseLessons(fields.get(3)), maxVacancy);
+    }
+
+    /**
+     * Parses the fields of a line of the enrolments file.
+     * @param fields The fields of the line.
+     * @return The {@code Enrolment} described by the line.
+     * @throws IllegalArgumentException if one of the fields is not valid.
+     */
+    private Enrolment parseEnrolment(ArrayList<String> fields) {
+        String userId = parseId(fields.get(0), "user id");
+        String courseCode = parseId(fields.get(1), "course code");
+        int indexNumberId = parsePositive(fields.get(2), "index number");
+        String status = fields.get(3).trim();
+        if (!status.equals(REGISTERED) && !status.equals(WAIT_LISTED)) {
+            throw new IllegalArgumentException("Expected the status " + REGISTERED + " or " + WAIT_LISTED);
+        }
+
+        return new Enrolment(userId, courseCode, indexNumberId, status.equals(WAIT_LISTED));
+    }
+
+    /**
+     * Parses the lessons of an index number, separated by semicolons.
+     * @param text The lessons, e.g. "LECTURE-MONDAY-08:30-09:30;TUTORIAL-FRIDAY-14:30-15:30".
+     * @return An ArrayList of the {@code Lesson} objects.
+     * @throws IllegalArgumentException if one of the lessons is not valid.
+     */
+    private ArrayList<Lesson> parseLessons(String text) {
+        ArrayList<Lesson> lessons = new ArrayList<>();
+        for (String lessonText: text.split(";")) {
+            if (lessonText.isBlank()) {
+                continue;
+            }
+            String[] parts = lessonText.trim().split("-");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid lesson " + lessonText);
+            }
+            LocalTime startTime = LocalTime.parse(parts[2]);
+            LocalTime endTime = LocalTime.parse(parts[3]);
+            if (!startTime.isBefore(endTime)) {
+                throw new IllegalArgumentException("Lesson " + lessonText + " does not end after it starts");
+            }
+            lessons.add(new Lesson(LessonType.valueOf(parts[0]), DayOfWeek.valueOf(parts[1]), startTime, endTime));
+        }
+
+        return lessons;
+    }
+
+    /**
+     * Formats the lessons of an index number in the way read by {@link #parseLessons(String)}.
+     * @param lessons The lessons of the index number.
+     * @return The lessons separated by semicolons.
+     */
+    private String formatLessons(ArrayList<Lesson> lessons) {
+        StringBuilder text = new StringBuilder();
+        for (Lesson lesson: lessons) {
+            if (text.length() > 0) {
+                text.append(';');
+            }
+            text.append(lesson.getLessonType().name()).append('-').append(lesson.getDayOfWeek().name()).append('-')
+                    .append(lesson.getStartTime()).append('-').append(lesson.getEndTime());
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Checks that a user id or course code only contains letters, digits and spaces.
+     * @param text The user id or course code.
+     * @param description The description of the field, used in the error message.
+     * @return The user id or course code without surrounding whitespace.
+     * @throws IllegalArgumentException if the field is blank or contains other characters.
+     */
+    private String parseId(String text, String description) {
+        String id = parseNonBlank(text, description);
+        if (INVALID_ID_CHARACTER.matcher(id).find()) {
+            throw new IllegalArgumentException("Invalid " + description + " " + id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Checks that a field is not blank.
+     * @param text The field.
+     * @param description The description of the field, used in the error message.
+     * @return The field without surrounding whitespace.
+     * @throws IllegalArgumentException if the field is blank.
+     */
+    private String parseNonBlank(String text, String description) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + description);
+        }
+
+        return trimmed;
+    }
+
+    /**
+     * Parses a field holding a positive whole number.
+     * @param text The field.
+     * @param description The description of the field, used in the error message.
+     * @return The number.
+     * @throws IllegalArgumentException if the field is not a positive whole number.
+     */
+    private int parsePositive(String text, String description) {
+        int number;
+        try {
+            number = Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + description + " " + text);
+        }
+        if (number <= 0) {
+            throw new IllegalArgumentException("Invalid " + description + " " + text);
+        }
+
+        return number;
+    }
+
+    /**
+     * Removes the byte order mark that some spreadsheet programs write at the start of a file.
+     * @param line The first line of a file.
+     * @return The line without a byte order mark.
+     */
+    private String stripByteOrderMark(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    /**
+     * Opens a file for writing and writes its header line.
+     * @param directory The folder containing the file.
+     * @param fileName The name of the file.
+     * @param columns The columns of the file.
+     * @return The {@code BufferedWriter} to write the remaining lines with.
+     * @throws IOException if the file could not be opened.
+     */
+    private BufferedWriter newWriter(File directory, String fileName, String[] columns) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(new File(directory, fileName).toPath(),
+                StandardCharsets.UTF_8);
+        writeLine(writer, Csv.format(columns));
+        return writer;
+    }
+
+    /**
+     * Writes a line followed by a line break.
+     * @param writer The {@code BufferedWriter} to write with.
+     * @param line The line to be written.
+     * @throws IOException if the line could not be written.
+     */
+    private void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    /**
+     * The logic to parse the fields of a single line of a file into an object.
+     * @param <T> The type of object that a line is parsed into.
+     */
+    private interface LineParser<T> {
+        /**
+         * Parses the fields of a line.
+         * @param fields The fields of the line.
+         * @return The object described by the line.
+         * @throws IllegalArgumentException if one of the fields is not valid.
+         */
+        T parse(ArrayList<String> fields);
+    }
+
+    /**
+     * A student read from the students file together with its login information and the line it was read from.
+     */
+    private static class StudentRow {
+        /**
+         * The student.
+         */
+        private Student student;
+
+        /**
+         * The login information of the student.
+         */
+        private LoginInfo loginInfo;
+
+        /**
+         * The number of the line the student was read from.
+         */
+        private int line;
+
+        /**
+         * Constructs a new StudentRow.
+         * @param student The student.
+         * @param loginInfo The login information of the student.
+         */
+        private StudentRow(Student student, LoginInfo loginInfo) {
+            this.student = student;
+            this.loginInfo = loginInfo;
+        }
+    }
+}
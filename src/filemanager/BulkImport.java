@@ -0,0 +1,299 @@
+package filemanager;
+
+import exception.BulkImportException;
+import model.Course;
+import model.IndexNumber;
+import model.LoginInfo;
+import model.RegistrationCheck;
+import model.Storage;
+import model.Student;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * This class holds everything read from the files of a bulk import: new students together with their login
+ * information, new courses together with their index numbers, and enrolments of new or existing students into new or
+ * existing index numbers. A bulk import is applied to the {@code Storage} object as a whole and recorded in the
+ * {@code MutationJournal} as a single record, so it is either imported completely or not at all.
+ * @see BulkCsvTransfer
+ */
+public class BulkImport {
+    /**
+     * The maximum number of errors reported for a single bulk import.
+     */
+    static final int MAX_ERRORS = 100;
+
+    /**
+     * The new students, in the order they were read.
+     */
+    private ArrayList<Student> students;
+
+    /**
+     * The new courses together with their index numbers, in the order they were read.
+     */
+    private ArrayList<Course> courses;
+
+    /**
+     * The enrolments, in the order they were read. The wait listed enrolments of an index number are in the order of
+     * its wait list.
+     */
+    private ArrayList<Enrolment> enrolments;
+
+    /**
+     * The login information of the new students. Only students with a password in the import have one.
+     */
+    private ArrayList<LoginInfo> loginInfos;
+
+    /**
+     * Constructs a new BulkImport.
+     * @param students The new students.
+     * @param courses The new courses together with their index numbers.
+     * @param enrolments The enrolments.
+     * @param loginInfos The login information of the new students.
+     */
+    public BulkImport(ArrayList<Student> students, ArrayList<Course> courses, ArrayList<Enrolment> enrolments,
+                      ArrayList<LoginInfo> loginInfos) {
+        this.students = students;
+        this.courses = courses;
+        this.enrolments = enrolments;
+        this.loginInfos = loginInfos;
+    }
+
+    /**
+     * Returns the new students.
+     * @return An ArrayList of the new {@code Student} objects.
+     */
+    public ArrayList<Student> getStudents() {
+        return students;
+    }
+
+    /**
+     * Returns the new courses.
+     * @return An ArrayList of the new {@code Course} objects.
+     */
+    public ArrayList<Course> getCourses() {
+        return courses;
+    }
+
+    /**
+     * Returns the enrolments.
+     * @return An ArrayList of the {@code Enrolment} objects.
+     */
+    public ArrayList<Enrolment> getEnrolments() {
+        return enrolments;
+    }
+
+    /**
+     * Returns the login information of the new students.
+     * @return An ArrayList of {@code LoginInfo} of the new students.
+     */
+    public ArrayList<LoginInfo> getLoginInfos() {
+        return loginInfos;
+    }
+
+    /**
+     * Checks that the bulk import can be applied to a {@code Storage} object: none of the new students and courses
+     * may exist already, and every enrolment must refer to a student, course and index number that exists either in
+     * the bulk import or in the {@code Storage} object, must not enrol a student into a course twice and must not
+     * register more students for an index number than its maximum vacancy. Every enrolment, registered or wait listed,
+     * must also follow the rules of registering for a course: it must not take the student over the maximum AU, and
+     * its index number must not clash with any index number the student is registered for or has in the wait list,
+     * whether it is in the {@code Storage} object or in an earlier enrolment of the bulk import.
+     * @param storage The {@code Storage} object that the bulk import is to be applied to.
+     * @throws BulkImportException if the bulk import cannot be applied.
+     */
+    public void validateAgainst(Storage storage) throws BulkImportException {
+        ArrayList<String> errors = new ArrayList<>();
+        HashMap<String, Student> newStudents = new HashMap<>();
+        for (Student student: students) {
+            if (storage.getStudent(student.getUserId()) != null) {
+                addError(errors, "Student " + student.getUserId() + " already exists");
+            }
+            newStudents.put(student.getUserId(), student);
+        }
+        HashMap<String, Course> newCourses = new HashMap<>();
+        for (Course course: courses) {
+            if (storage.getCourse(course.getCourseCode()) != null) {
+                addError(errors, "Course " + course.getCourseCode() + " already exists");
+            }
+            newCourses.put(course.getCourseCode(), course);
+        }
+
+        HashSet<String> enrolledCourses = new HashSet<>();
+        HashMap<IndexNumber, Integer> registeredCounts = new HashMap<>();
+        HashMap<String, ArrayList<IndexNumber>> importedIndexNumbers = new HashMap<>();
+        HashMap<String, Integer> importedAu = new HashMap<>();
+        for (Enrolment enrolment: enrolments) {
+            Student student = newStudents.get(enrolment.getUserId());
+            if (student == null) {
+                student = storage.getStudent(enrolment.getUserId());
+            }
+            Course course = newCourses.get(enrolment.getCourseCode());
+            if (course == null) {
+                course = storage.getCourse(enrolment.getCourseCode());
+            }
+            IndexNumber indexNumber = course == null ? null : findIndexNumber(course, enrolment.getIndexNumberId());
+            if (student == null || indexNumber == null) {
+                addError(errors, "Enrolment of " + enrolment.getUserId() + " into " + enrolment.getCourseCode()
+                        + " " + enrolment.getIndexNumberId() + " refers to a student or index number that does not"
+                        + " exist");
+                continue;
+            }
+
+            if (!enrolledCourses.add(enrolment.getUserId() + "|" + enrolment.getCourseCode())
+                    || student.getRegisteredIndexNumbers().containsKey(enrolment.getCourseCode())
+                    || student.getWaitListIndexNumbers().containsKey(enrolment.getCourseCode())) {
+                addError(errors, "Student " + enrolment.getUserId() + " is enrolled into "
+                        + enrolment.getCourseCode() + " more than once");
+            } else {
+                ArrayList<IndexNumber> imported = importedIndexNumbers.computeIfAbsent(enrolment.getUserId(),
+                        userId -> new ArrayList<>());
+                int au = student.getTotalAuInRegisteredAndWaitList()
+                        + importedAu.getOrDefault(enrolment.getUserId(), 0) + course.getAu();
+                RegistrationCheck check = student.checkRegistration(enrolment.getCourseCode(), indexNumber);
+                if (au > Student.maxAu) {
+                    addError(errors, "Enrolment of " + enrolment.getUserId() + " into " + enrolment.getCourseCode()
+                            + " takes the student over the maximum of " + Student.maxAu + " AU");
+                } else if (check == RegistrationCheck.CLASHING_REGISTERED_INDEX_NUMBER
+                        || check == RegistrationCheck.CLASHING_WAIT_LISTED_INDEX_NUMBER
+                        || clashesWithAny(indexNumber, imported)) {
+                    addError(errors, "Enrolment of " + enrolment.getUserId() + " into " + enrolment.getCourseCode()
+                            + " " + enrolment.getIndexNumberId() + " clashes with another index number of the"
+                            + " student");
+                }
+                imported.add(indexNumber);
+                importedAu.merge(enrolment.getUserId(), course.getAu(), Integer::sum);
+            }
+            if (!enrolment.isWaitListed()) {
+                int registered = registeredCounts.getOrDefault(indexNumber,
+                        indexNumber.getNumberOfRegisteredStudents()) + 1;
+                registeredCounts.put(indexNumber, registered);
+                if (registered == indexNumber.getMaxVacancy() + 1) {
+                    addError(errors, "Index number " + indexNumber.getId() + " of " + enrolment.getCourseCode()
+                            + " has more registered students than its maximum vacancy");
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new BulkImportException(errors);
+        }
+    }
+
+    /**
+     * Checks whether an index number clashes with any of a number of index numbers.
+     * @param indexNumber The {@code IndexNumber} to check.
+     * @param others The other {@code IndexNumber} objects.
+     * @return true if the index number clashes with any of the others; false otherwise.
+     */
+    private static boolean clashesWithAny(IndexNumber indexNumber, ArrayList<IndexNumber> others) {
+        for (IndexNumber other: others) {
+            if (indexNumber.clashesWith(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the bulk import to a {@code Storage} object. The enrolments are linked up directly instead of going
+     * through registering for a course, since the enrolments describe the state to be imported rather than requests
+     * to be processed; the rules of registering have already been checked by
+     * {@link #validateAgainst(Storage)}.
+     * @param storage The {@code Storage} object that the bulk import is applied to.
+     */
+    public void applyTo(Storage storage) {
+        for (Student student: students) {
+            storage.addStudent(student);
+        }
+        for (Course course: courses) {
+            storage.addCourse(course);
+        }
+        for (Enrolment enrolment: enrolments) {
+            IndexNumber indexNumber = findIndexNumber(storage.getCourse(enrolment.getCourseCode()),
+                    enrolment.getIndexNumberId());
+            storage.enrol(enrolment.getUserId(), enrolment.getCourseCode(), indexNumber, enrolment.isWaitListed());
+        }
+    }
+
+    /**
+     * Writes the students, courses and enrolments of the bulk import into a stream. The login information is not
+     * written since it is stored separately.
+     * @param out The {@code DataOutputStream} to write into.
+     * @throws IOException if the bulk import could not be written.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(students.size());
+        for (Student student: students) {
+            JournalRecord.writeStudent(out, student);
+        }
+        out.writeInt(courses.size());
+        for (Course course: courses) {
+            JournalRecord.writeCourse(out, course);
+        }
+        out.writeInt(enrolments.size());
+        for (Enrolment enrolment: enrolments) {
+            out.writeUTF(enrolment.getUserId());
+            out.writeUTF(enrolment.getCourseCode());
+            out.writeInt(enrolment.getIndexNumberId());
+            out.writeBoolean(enrolment.isWaitListed());
+        }
+    }
+
+    /**
+     * Reads a bulk import that was written by {@link #writeTo(DataOutputStream)} from a stream.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The BulkImport that was read.
+     * @throws IOException if the bulk import could not be read.
+     */
+    public static BulkImport readFrom(DataInputStream in) throws IOException {
+        int numberOfStudents = in.readInt();
+        ArrayList<Student> students = new ArrayList<>();
+        for (int i = 0; i < numberOfStudents; i++) {
+            students.add(JournalRecord.readStudent(in));
+        }
+        int numberOfCourses = in.readInt();
+        ArrayList<Course> courses = new ArrayList<>();
+        for (int i = 0; i < numberOfCourses; i++) {
+            courses.add(JournalRecord.readCourse(in));
+        }
+        int numberOfEnrolments = in.readInt();
+        ArrayList<Enrolment> enrolments = new ArrayList<>();
+        for (int i = 0; i < numberOfEnrolments; i++) {
+            enrolments.add(new Enrolment(in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean()));
+        }
+
+        return new BulkImport(students, courses, enrolments, new ArrayList<>());
+    }
+
+    /**
+     * Finds the index number with a particular id in a course.
+     * @param course The {@code Course} object to search in.
+     * @param indexNumberId The id of the index number.
+     * @return The {@code IndexNumber} object with the id, or null if the course does not have one.
+     */
+    private static IndexNumber findIndexNumber(Course course, int indexNumberId) {
+        for (IndexNumber indexNumber: course.getIndexNumbers()) {
+            if (indexNumber.getId() == indexNumberId) {
+                return indexNumber;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds an error to a list of errors unless the list already holds the maximum number of errors reported.
+     * @param errors The list of errors.
+     * @param error The error to be added.
+     */
+    static void addError(ArrayList<String> errors, String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
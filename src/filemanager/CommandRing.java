@@ -0,0 +1,150 @@
+package filemanager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is responsible for handing commands from any number of threads to a single writer thread, in the order
+ * they are submitted. The commands are kept in a ring of slots that is allocated once, so submitting a command does
+ * not allocate anything beyond the command itself and no thread ever takes a lock. A submitting thread claims the next
+ * sequence number with a single atomic increment, puts its command in the slot of that sequence number and then
+ * publishes it by writing the sequence number into the slot; the writer thread takes every command that has been
+ * published in a row, and moves on past them so that their slots can be used again.
+ *
+ * <p>A submitting thread that finds the ring full parks until the writer thread has moved on. The writer thread spins
+ * for a short while when the ring is empty and then parks until a command is published, so that it does not hold on
+ * to a processor while there is nothing to do.</p>
+ * @see StorageCommand
+ * @see PipelinedStorageManager
+ */
+public class CommandRing {
+    /**
+     * The number of times the writer thread checks for a new command before parking.
+     */
+    private static final int SPINS_BEFORE_PARKING = 100;
+
+    /**
+     * The longest time in nanoseconds a parked thread waits before checking the ring again, in case it was not woken.
+     */
+    private static final long PARK_NANOS = 1_000_000;
+
+    /**
+     * The time in nanoseconds a submitting thread parks for before checking again whether the ring is still full.
+     */
+    private static final long FULL_PARK_NANOS = 10_000;
+
+    /**
+     * The slots of the ring, which hold the commands that have been submitted but not yet taken.
+     */
+    private StorageCommand<?>[] slots;
+
+    /**
+     * The sequence number of the command that was last published into every slot.
+     */
+    private AtomicLongArray published;
+
+    /**
+     * The number of slots minus one, which turns a sequence number into the index of its slot.
+     */
+    private int mask;
+
+    /**
+     * The sequence number that will be claimed by the next command submitted.
+     */
+    private AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * The sequence number of the last command taken by the writer thread, whose slot can be used again.
+     */
+    private volatile long takenSequence = -1;
+
+    /**
+     * The writer thread while it is parked waiting for a command, or null if it is not parked.
+     */
+    private volatile Thread parkedWriter;
+
+    /**
+     * Constructs a new CommandRing.
+     * @param capacity The number of slots, which is rounded up to a power of two.
+     */
+    public CommandRing(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new StorageCommand<?>[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Submits a command to be taken by the writer thread, waiting while the ring is full.
+     * @param command The {@code StorageCommand} to be submitted.
+     */
+    public void submit(StorageCommand<?> command) {
+        long sequence = nextSequence.getAndIncrement();
+        while (sequence - slots.length > takenSequence) {
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        int slot = (int) sequence & mask;
+        slots[slot] = command;
+        published.set(slot, sequence);
+
+        Thread writer = parkedWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Takes the commands that have been published in a row since the last commands taken, waiting until there is at
+     * least one. Called by the writer thread only.
+     * @param batch The array the commands are put into, from the start.
+     * @return The number of commands taken, which is at least one and at most the length of the batch.
+     */
+    public int take(StorageCommand<?>[] batch) {
+        long sequence = takenSequence + 1;
+        awaitPublished(sequence);
+        int count = 0;
+        while (count < batch.length && published.get((int) sequence & mask) == sequence) {
+            int slot = (int) sequence & mask;
+            batch[count++] = slots[slot];
+            slots[slot] = null;
+            sequence++;
+        }
+        takenSequence = sequence - 1;
+        return count;
+    }
+
+    /**
+     * Returns the number of commands submitted but not yet taken by the writer thread.
+     * @return The number of commands waiting.
+     */
+    public int size() {
+        return (int) Math.max(0, nextSequence.get() - takenSequence - 1);
+    }
+
+    /**
+     * Waits until the command with a particular sequence number has been published, first spinning and then parking.
+     * @param sequence The sequence number of the command.
+     */
+    private void awaitPublished(long sequence) {
+        int slot = (int) sequence & mask;
+        for (int i = 0; i < SPINS_BEFORE_PARKING; i++) {
+            if (published.get(slot) == sequence) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+
+        parkedWriter = Thread.currentThread();
+        try {
+            while (published.get(slot) != sequence) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        } finally {
+            parkedWriter = null;
+        }
+    }
+}
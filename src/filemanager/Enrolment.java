@@ -0,0 +1,76 @@
+package filemanager;
+
+/**
+ * This class represents a single row of the enrolments file of a bulk import or export, i.e. a student being
+ * registered for or wait listed in a particular index number.
+ * @see BulkImport
+ * @see BulkCsvTransfer
+ */
+public class Enrolment {
+    /**
+     * The user id of the student.
+     */
+    private String userId;
+
+    /**
+     * The course code of the course.
+     */
+    private String courseCode;
+
+    /**
+     * The id of the index number.
+     */
+    private int indexNumberId;
+
+    /**
+     * Whether the student is on the wait list of the index number instead of registered for it.
+     */
+    private boolean waitListed;
+
+    /**
+     * Constructs a new Enrolment.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course.
+     * @param indexNumberId The id of the index number.
+     * @param waitListed true if the student is on the wait list of the index number; false if the student is
+     *                   registered for it.
+     */
+    public Enrolment(String userId, String courseCode, int indexNumberId, boolean waitListed) {
+        this.userId = userId;
+        this.courseCode = courseCode;
+        this.indexNumberId = indexNumberId;
+        this.waitListed = waitListed;
+    }
+
+    /**
+     * Returns the user id of the student.
+     * @return The user id of the student.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the course code of the course.
+     * @return The course code of the course.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * Returns the id of the index number.
+     * @return The id of the index number.
+     */
+    public int getIndexNumberId() {
+        return indexNumberId;
+    }
+
+    /**
+     * Returns whether the student is on the wait list of the index number instead of registered for it.
+     * @return true if the student is on the wait list; false if the student is registered.
+     */
+    public boolean isWaitListed() {
+        return waitListed;
+    }
+}
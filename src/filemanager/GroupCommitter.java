@@ -0,0 +1,283 @@
+package filemanager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for writing the records of the {@code MutationJournal} in groups. Instead of every change
+ * forcing its own record to disk, records are queued and a single writer thread appends everything that is queued
+ * as one batch with a single force to disk. Each record is given a future that completes once the batch it was
+ * written in is on disk, so a change is only reported as done once it is durable, while many changes made at about
+ * the same time share the cost of one write.
+ * @see MutationJournal
+ */
+public class GroupCommitter {
+    /**
+     * The length of the window over which the number of commits per second is measured.
+     */
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The queued record that tells the writer thread to stop once everything queued before it has been written.
+     */
+    private static final PendingCommit STOP = new PendingCommit(null, 0);
+
+    /**
+     * The journal that the records are appended to.
+     */
+    private MutationJournal journal;
+
+    /**
+     * The maximum number of records written in one batch.
+     */
+    private int maxBatchSize;
+
+    /**
+     * The maximum time the writer thread waits for more records after the first record of a batch is queued.
+     */
+    private long maxLatencyNanos;
+
+    /**
+     * The records waiting to be written.
+     */
+    private LinkedBlockingQueue<PendingCommit> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * The thread that writes the queued records.
+     */
+    private Thread writer;
+
+    /**
+     * The sequence number given to the last record queued.
+     */
+    private long lastSequence;
+
+    /**
+     * Whether the writer thread has been told to stop.
+     */
+    private boolean closed;
+
+    /**
+     * The total number of records written.
+     */
+    private volatile long totalCommits;
+
+    /**
+     * The total number of batches written.
+     */
+    private volatile long totalBatches;
+
+    /**
+     * The number of records written per second over the last full window.
+     */
+    private volatile double commitsPerSecond;
+
+    /**
+     * The time at which the current window started.
+     */
+    private long windowStart;
+
+    /**
+     * The number of records written in the current window.
+     */
+    private long windowCommits;
+
+    /**
+     * Constructs a new GroupCommitter and starts its writer thread.
+     * @param journal The journal that the records are appended to. Its sequence number must already be up to date.
+     * @param maxBatchSize The maximum number of records written in one batch.
+     * @param maxLatencyMillis The maximum time in milliseconds the writer thread waits for more records after the
+     *                         first record of a batch is queued. With 0 a batch is only made of the records that are
+     *                         already queued.
+     */
+    public GroupCommitter(MutationJournal journal, int maxBatchSize, long maxLatencyMillis) {
+        if (maxBatchSize < 1 || maxLatencyMillis < 0) {
+            throw new IllegalArgumentException("Invalid batch size or latency");
+        }
+        this.journal = journal;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        lastSequence = journal.getLastSequence();
+        windowStart = System.nanoTime();
+
+        writer = new Thread(this::run, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Gives a record the next sequence number, encodes it and queues it to be written. Records are written in the order
+     * they are queued, and a record describes the objects it refers to as they are when it is encoded, so this has to
+     * be called while holding the lock under which the change was made.
+     * @param record The {@code JournalRecord} describing the change.
+     * @return A future that completes with the sequence number of the record once it is on disk, or completes
+     * exceptionally if it could not be written.
+     */
+    public synchronized CompletableFuture<Long> submit(JournalRecord record) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("The journal has been closed"));
+        }
+
+        record.setSequence(lastSequence + 1);
+        byte[] frame;
+        try {
+            frame = MutationJournal.encode(record);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        lastSequence++;
+
+        PendingCommit pendingCommit = new PendingCommit(frame, lastSequence);
+        queue.add(pendingCommit);
+        return pendingCommit.durable;
+    }
+
+    /**
+     * Returns the sequence number given to the last record queued, which may not be on disk yet.
+     * @return The sequence number of the last record queued.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns the number of records written per second, measured over the last full second in which records were
+     * written.
+     * @return The number of records written per second.
+     */
+    public double getCommitsPerSecond() {
+        return commitsPerSecond;
+    }
+
+    /**
+     * Returns the total number of records written.
+     * @return The total number of records written.
+     */
+    public long getTotalCommits() {
+        return totalCommits;
+    }
+
+    /**
+     * Returns the average number of records written in one batch.
+     * @return The average number of records per batch, or 0 if nothing has been written yet.
+     */
+    public double getAverageBatchSize() {
+        long batches = totalBatches;
+        return batches == 0 ? 0 : (double) totalCommits / batches;
+    }
+
+    /**
+     * Writes everything that is still queued and stops the writer thread. Records queued afterwards are not written.
+     * @param timeoutMillis The maximum time in milliseconds to wait for the queued records to be written.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void close(long timeoutMillis) throws InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        writer.join(timeoutMillis);
+    }
+
+    /**
+     * Repeatedly takes a batch of queued records and writes it, until told to stop.
+     */
+    private void run() {
+        ArrayList<PendingCommit> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                PendingCommit pendingCommit = queue.take();
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (pendingCommit != null) {
+                    if (pendingCommit == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(pendingCommit);
+                    if (batch.size() == maxBatchSize) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    pendingCommit = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Appends a batch of records to the journal with a single force to disk, then completes their futures.
+     * @param batch The queued records to be written.
+     */
+    private void write(ArrayList<PendingCommit> batch) {
+        ArrayList<byte[]> frames = new ArrayList<>(batch.size());
+        for (PendingCommit pendingCommit: batch) {
+            frames.add(pendingCommit.frame);
+        }
+
+        try {
+            journal.append(frames, batch.get(batch.size() - 1).sequence);
+        } catch (IOException e) {
+            for (PendingCommit pendingCommit: batch) {
+                pendingCommit.durable.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingCommit pendingCommit: batch) {
+            pendingCommit.durable.complete(pendingCommit.sequence);
+        }
+
+        totalCommits += batch.size();
+        totalBatches++;
+        windowCommits += batch.size();
+        long now = System.nanoTime();
+        if (now - windowStart >= RATE_WINDOW_NANOS) {
+            commitsPerSecond = windowCommits * (double) RATE_WINDOW_NANOS / (now - windowStart);
+            windowStart = now;
+            windowCommits = 0;
+        }
+    }
+
+    /**
+     * A record waiting to be written, together with the future completed once it is on disk.
+     */
+    private static class PendingCommit {
+        /**
+         * The encoded record waiting to be written.
+         */
+        private byte[] frame;
+
+        /**
+         * The sequence number of the record.
+         */
+        private long sequence;
+
+        /**
+         * The future completed once the record is on disk.
+         */
+        private CompletableFuture<Long> durable = new CompletableFuture<>();
+
+        /**
+         * Constructs a new PendingCommit.
+         * @param frame The encoded record waiting to be written.
+         * @param sequence The sequence number of the record.
+         */
+        private PendingCommit(byte[] frame, long sequence) {
+            this.frame = frame;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package filemanager;
 import model.LoginInfo;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This interface is an abstraction of the methods that any class providing the logic to retrieve and store login
@@ -16,6 +17,20 @@ public interface ILoginInfoFileManager {
      */
     void addLoginInfoForNewStudent(LoginInfo loginInfo);
 
+    /**
+     * This method should contain the logic to add the new login information for many new students at once.
+     * @param loginInfos The {@code LoginInfo} objects that contain the new login information for the new students.
+     * @see LoginInfo
+     */
+    void addLoginInfoForNewStudents(List<LoginInfo> loginInfos);
+
+    /**
+     * This method should contain the logic to replace the login information of a user.
+     * @param loginInfo The {@code LoginInfo} object that contains the new login information of the user.
+     * @see LoginInfo
+     */
+    void updateLoginInfo(LoginInfo loginInfo);
+
     /**
      * This method should contain the logic to retrieve all the login information of all the students.
      * @return An ArrayList of {@code LoginInfo} that contains the login information of all the students.
@@ -29,4 +44,20 @@ public interface ILoginInfoFileManager {
      * @see LoginInfo
      */
     ArrayList<LoginInfo> retrieveAdminLoginInfoList();
+
+    /**
+     * This method should contain the logic to look up the login information of a student.
+     * @param userId The user id of the student.
+     * @return The {@code LoginInfo} object of the student, or null if there is no student with the user id.
+     * @see LoginInfo
+     */
+    LoginInfo findStudentLoginInfo(String userId);
+
+    /**
+     * This method should contain the logic to look up the login information of an admin.
+     * @param userId The user id of the admin.
+     * @return The {@code LoginInfo} object of the admin, or null if there is no admin with the user id.
+     * @see LoginInfo
+     */
+    LoginInfo findAdminLoginInfo(String userId);
 }
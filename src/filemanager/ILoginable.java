@@ -1,8 +1,10 @@
 package filemanager;
 
+import exception.ServerBusyException;
 import exception.WrongAccessPeriodException;
 import exception.WrongLoginInfoException;
 import model.LoginInfo;
+import model.Session;
 
 /**
  * This interface is an abstraction of the methods that any class providing the login logic should implement.
@@ -14,6 +16,36 @@ public interface ILoginable {
      * @throws WrongLoginInfoException if the login information provided is invalid.
      * @throws WrongAccessPeriodException if the current time is not within the access period of the student trying
      * to log in to the program.
+     * @throws ServerBusyException if too many users are logging in at the same time to verify the login information.
      */
-    void verifyLoginInfo(LoginInfo providedLoginInfo) throws WrongLoginInfoException, WrongAccessPeriodException;
+    void verifyLoginInfo(LoginInfo providedLoginInfo)
+            throws WrongLoginInfoException, WrongAccessPeriodException, ServerBusyException;
+
+    /**
+     * This method should contain the logic to verify the login information provided and open a session for the user.
+     * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified.
+     * @param checkAccessPeriod Whether the current time has to be within the access period of a student, which is
+     *                          not the case when a student only confirms who they are, e.g. to swap index with a peer.
+     * @return The {@code Session} object of the session opened for the user.
+     * @throws WrongLoginInfoException if the login information provided is invalid.
+     * @throws WrongAccessPeriodException if the access period is checked and the current time is not within the
+     * access period of the student trying to log in to the program.
+     * @throws ServerBusyException if too many users are logging in at the same time to verify the login information.
+     */
+    Session createSession(LoginInfo providedLoginInfo, boolean checkAccessPeriod)
+            throws WrongLoginInfoException, WrongAccessPeriodException, ServerBusyException;
+
+    /**
+     * This method should contain the logic to check whether a token identifies an open session, without verifying the
+     * login information of its user again.
+     * @param token The token of the session.
+     * @return The {@code Session} object, or null if the token does not identify an open session.
+     */
+    Session validateSession(String token);
+
+    /**
+     * This method should contain the logic to close a session.
+     * @param token The token of the session.
+     */
+    void endSession(String token);
 }
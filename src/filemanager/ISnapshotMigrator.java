@@ -0,0 +1,34 @@
+package filemanager;
+
+import java.io.IOException;
+
+/**
+ * This interface is an abstraction of the methods that any class upgrading a snapshot from one format version to a
+ * newer one should implement. Migrators are chained by {@code SnapshotMigrationChain} so that a snapshot of any older
+ * format version can be brought up to the current one.
+ * @see SnapshotMigrationChain
+ * @see StorageSnapshot
+ */
+public interface ISnapshotMigrator {
+    /**
+     * This method should return the format version of the snapshots that this migrator upgrades.
+     * @return The format version of the snapshots read by this migrator.
+     */
+    int getSourceFormat();
+
+    /**
+     * This method should return the format version of the snapshots produced by this migrator, which must be newer
+     * than the source format version.
+     * @return The format version of the snapshots produced by this migrator.
+     */
+    int getTargetFormat();
+
+    /**
+     * This method should contain the logic to upgrade a snapshot to the target format version without losing any of
+     * its contents.
+     * @param snapshot The {@code StorageSnapshot} of the source format version.
+     * @return The {@code StorageSnapshot} of the target format version.
+     * @throws IOException if the snapshot could not be read.
+     */
+    StorageSnapshot migrate(StorageSnapshot snapshot) throws IOException;
+}
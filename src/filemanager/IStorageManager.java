@@ -1,16 +1,28 @@
 package filemanager;
 
+import exception.BulkImportException;
 import model.AccessTime;
+import model.AccessTimeIndex;
 import model.Course;
 import model.IndexNumber;
+import model.LoginInfo;
 import model.School;
+import model.StorageInvariantChecker;
 import model.Student;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This interface contains the abstraction of the methods that any class providing the logic to retrieve and store
- * data should implement.
+ * data should implement. Any of the methods that change the data throws an unchecked {@code ChangeNotSavedException}
+ * if the change has been made but could not be saved.
  */
 public interface IStorageManager {
     /**
@@ -29,6 +41,25 @@ public interface IStorageManager {
      */
     ArrayList<Course> getCoursesInWaitListByStudent(Student student);
 
+    /**
+     * This method should contain the logic to retrieve a copy of the registered index numbers of a student, taken
+     * while no other session is changing the student. Sessions should use it instead of reading the
+     * {@code HashMap} of the student, which other sessions may be changing at the same time.
+     * @param student A {@code Student} object for which we are interested in the registered index numbers for.
+     * @return A HashMap of the registered {@code IndexNumber} objects by course code, in the same order as the
+     * courses returned by {@link #getCoursesTakenByStudent(Student)}.
+     */
+    HashMap<String, IndexNumber> getIndexNumbersTakenByStudent(Student student);
+
+    /**
+     * This method should contain the logic to retrieve a copy of the wait listed index numbers of a student, taken in
+     * the same way as {@link #getIndexNumbersTakenByStudent(Student)}.
+     * @param student A {@code Student} object for which we are interested in the wait listed index numbers for.
+     * @return A HashMap of the wait listed {@code IndexNumber} objects by course code, in the same order as the
+     * courses returned by {@link #getCoursesInWaitListByStudent(Student)}.
+     */
+    HashMap<String, IndexNumber> getIndexNumbersInWaitListByStudent(Student student);
+
     /**
      * This method should contain the logic to add a new course into the storage.
      * @param course The {@code Course} object containing all the information of the new course to be added into the storage.
@@ -74,7 +105,7 @@ public interface IStorageManager {
      * @param newIndexNumber The {@code IndexNumber} object that represents the new index number that the student wants
      *                       to swap to.
      * @throws Exception if there are any issues with swapping the index number, e.g. no vacancies for the new index
-     * number, clashes with any of the existing courses, etc.
+     * number, clashes with any of the existing courses, the student no longer being registered for the course, etc.
      */
     void swapIndexNumber(String userId, String courseCodeToBeSwapped, IndexNumber newIndexNumber)
             throws Exception;
@@ -116,6 +147,37 @@ public interface IStorageManager {
      */
     void setNewAccessTime(String userId, AccessTime newAccessTime);
 
+    /**
+     * This method should contain the logic to set new access times for a number of students at once, so that either
+     * all or none of them are saved.
+     * @param newAccessTimes The new {@code AccessTime} of every student. The key is the user id of the student.
+     */
+    void setNewAccessTimes(Map<String, AccessTime> newAccessTimes);
+
+    /**
+     * This method should contain the logic to count the students within their access period at a particular time.
+     * @param dateTime The date and time to check.
+     * @return The number of students within their access period.
+     */
+    int countStudentsWithinAccessTime(LocalDateTime dateTime);
+
+    /**
+     * This method should contain the logic to count the students whose access period starts within a time range.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, exclusive.
+     * @return The number of students whose access period starts within the time range.
+     */
+    int countAccessTimesStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * This method should contain the logic to find the largest number of students within their access period at the
+     * same time over a day.
+     * @param day The day to check.
+     * @return The {@code Peak} holding the largest number of students and the time it is first reached.
+     * @see AccessTimeIndex.Peak
+     */
+    AccessTimeIndex.Peak getPeakStudentsWithinAccessTime(LocalDate day);
+
     /**
      * This method should contain the logic to set the new course code for an existing course.
      * @param newCourseCode The new course code for the existing course.
@@ -182,4 +244,31 @@ public interface IStorageManager {
      * @see Student
      */
     ArrayList<Student> getAllStudents();
+
+    /**
+     * This method should contain the logic to check that the AUs, numbers of students and vacancies that are kept up
+     * to date agree with the enrolments they are kept for, and that the enrolments agree with each other.
+     * @return An ArrayList of descriptions of the problems found, which is empty if there are none.
+     * @see StorageInvariantChecker
+     */
+    ArrayList<String> checkInvariants();
+
+    /**
+     * This method should contain the logic to add all the students, courses and enrolments of a bulk import into the
+     * system at once, so that either all of them or none of them are added.
+     * @param bulkImport The {@code BulkImport} to be added.
+     * @throws BulkImportException if the bulk import is not consistent with the students and courses in the system.
+     * @see BulkImport
+     */
+    void importBulk(BulkImport bulkImport) throws BulkImportException;
+
+    /**
+     * This method should contain the logic to export all the students, courses and enrolments in the system into the
+     * files of a bulk import.
+     * @param loginInfos The login information of the students.
+     * @param directory The folder into which the files are written.
+     * @throws IOException if the files could not be written.
+     * @see BulkCsvTransfer
+     */
+    void exportBulk(List<LoginInfo> loginInfos, File directory) throws IOException;
 }
@@ -0,0 +1,703 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Storage;
+import model.Student;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents a single change made to the {@code Storage} object, which is recorded in the
+ * {@code MutationJournal} so that the change can be re-applied on start up instead of saving the whole
+ * {@code Storage} object every time something changes. Only the fields relevant to the {@code JournalRecordType} of a
+ * record are used.
+ * @see JournalRecordType
+ * @see MutationJournal
+ */
+public class JournalRecord {
+    /**
+     * The kind of change that this record represents.
+     * @see JournalRecordType
+     */
+    private JournalRecordType type;
+
+    /**
+     * The sequence number of this record in the journal. Assigned by the {@code MutationJournal} when the record is
+     * appended.
+     */
+    private long sequence;
+
+    /**
+     * The user id of the student that the change is made for.
+     */
+    private String userId;
+
+    /**
+     * The user id of the peer for a swap of index number with a peer.
+     */
+    private String peerUserId;
+
+    /**
+     * The course code of the course that the change is made for.
+     */
+    private String courseCode;
+
+    /**
+     * The new course code, course name or school, depending on the type of the record.
+     */
+    private String text;
+
+    /**
+     * The id of the index number that the change is made for.
+     */
+    private int indexNumberId;
+
+    /**
+     * The position of the index number in its course, used when setting a new maximum vacancy.
+     */
+    private int index;
+
+    /**
+     * The new maximum vacancy of an index number.
+     */
+    private int maxVacancy;
+
+    /**
+     * The lessons of a new index number.
+     * @see Lesson
+     */
+    private ArrayList<Lesson> lessons;
+
+    /**
+     * The new access time of a student.
+     * @see AccessTime
+     */
+    private AccessTime accessTime;
+
+    /**
+     * The new access times of a number of students. The key is the user id of the student.
+     * @see AccessTime
+     */
+    private LinkedHashMap<String, AccessTime> accessTimes;
+
+    /**
+     * The new student to be added.
+     * @see Student
+     */
+    private Student student;
+
+    /**
+     * The new course to be added, together with its index numbers.
+     * @see Course
+     */
+    private Course course;
+
+    /**
+     * The students, courses and enrolments of a bulk import.
+     * @see BulkImport
+     */
+    private BulkImport bulkImport;
+
+    /**
+     * Constructs a new JournalRecord of a particular type. The other fields are filled in by the static factory
+     * methods.
+     * @param type The {@code JournalRecordType} of the new record.
+     */
+    private JournalRecord(JournalRecordType type) {
+        this.type = type;
+    }
+
+    /**
+     * Creates a record of a student registering for a course.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course registered for.
+     * @param indexNumberId The id of the index number registered for.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord registerForCourse(String userId, String courseCode, int indexNumberId) {
+        return forIndexNumber(JournalRecordType.REGISTER_FOR_COURSE, userId, courseCode, indexNumberId);
+    }
+
+    /**
+     * Creates a record of a student dropping a course, which also registers the next student in the wait list.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course dropped.
+     * @param indexNumberId The id of the index number dropped.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord dropCourse(String userId, String courseCode, int indexNumberId) {
+        return forIndexNumber(JournalRecordType.DROP_COURSE, userId, courseCode, indexNumberId);
+    }
+
+    /**
+     * Creates a record of a student swapping to a new index number.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course for which the index number is swapped.
+     * @param newIndexNumberId The id of the new index number.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord swapIndexNumber(String userId, String courseCode, int newIndexNumberId) {
+        return forIndexNumber(JournalRecordType.SWAP_INDEX_NUMBER, userId, courseCode, newIndexNumberId);
+    }
+
+    /**
+     * Creates a record of a student swapping index number with a peer.
+     * @param userId The user id of the student initiating the swap.
+     * @param peerUserId The user id of the peer.
+     * @param courseCode The course code of the course for which the index numbers are swapped.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord swapIndexWithPeer(String userId, String peerUserId, String courseCode) {
+        JournalRecord record = new JournalRecord(JournalRecordType.SWAP_INDEX_WITH_PEER);
+        record.userId = userId;
+        record.peerUserId = peerUserId;
+        record.courseCode = courseCode;
+        return record;
+    }
+
+    /**
+     * Creates a record of a course being added to the wait list of a student.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course.
+     * @param indexNumberId The id of the index number.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord addCourseToWaitList(String userId, String courseCode, int indexNumberId) {
+        return forIndexNumber(JournalRecordType.ADD_COURSE_TO_WAIT_LIST, userId, courseCode, indexNumberId);
+    }
+
+    /**
+     * Creates a record of a course being dropped from the wait list of a student.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course.
+     * @param indexNumberId The id of the index number.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord dropCourseFromWaitList(String userId, String courseCode, int indexNumberId) {
+        return forIndexNumber(JournalRecordType.DROP_COURSE_FROM_WAIT_LIST, userId, courseCode, indexNumberId);
+    }
+
+    /**
+     * Creates a record of a new access time being set for a student.
+     * @param userId The user id of the student.
+     * @param accessTime The new {@code AccessTime} of the student.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setAccessTime(String userId, AccessTime accessTime) {
+        JournalRecord record = new JournalRecord(JournalRecordType.SET_ACCESS_TIME);
+        record.userId = userId;
+        record.accessTime = accessTime;
+        return record;
+    }
+
+    /**
+     * Creates a record of new access times being set for a number of students at once.
+     * @param accessTimes The new {@code AccessTime} of every student. The key is the user id of the student.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setAccessTimes(Map<String, AccessTime> accessTimes) {
+        JournalRecord record = new JournalRecord(JournalRecordType.SET_ACCESS_TIMES);
+        record.accessTimes = new LinkedHashMap<>(accessTimes);
+        return record;
+    }
+
+    /**
+     * Creates a record of a new course code being set for an existing course.
+     * @param newCourseCode The new course code.
+     * @param forCourseCode The course code of the existing course.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setCourseCode(String newCourseCode, String forCourseCode) {
+        return forCourse(JournalRecordType.SET_COURSE_CODE, forCourseCode, newCourseCode);
+    }
+
+    /**
+     * Creates a record of a new course name being set for an existing course.
+     * @param newCourseName The new course name.
+     * @param forCourseCode The course code of the existing course.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setCourseName(String newCourseName, String forCourseCode) {
+        return forCourse(JournalRecordType.SET_COURSE_NAME, forCourseCode, newCourseName);
+    }
+
+    /**
+     * Creates a record of a new school being set for an existing course.
+     * @param newSchool The new {@code School}.
+     * @param forCourseCode The course code of the existing course.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setSchool(School newSchool, String forCourseCode) {
+        return forCourse(JournalRecordType.SET_SCHOOL, forCourseCode, newSchool.name());
+    }
+
+    /**
+     * Creates a record of a new maximum vacancy being set for an existing index number.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param index The position of the index number in the course.
+     * @param newMaxVacancy The new maximum vacancy.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord setMaxVacancy(String courseCode, int index, int newMaxVacancy) {
+        JournalRecord record = new JournalRecord(JournalRecordType.SET_MAX_VACANCY);
+        record.courseCode = courseCode;
+        record.index = index;
+        record.maxVacancy = newMaxVacancy;
+        return record;
+    }
+
+    /**
+     * Creates a record of a new student being added.
+     * @param student The new {@code Student}.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord addStudent(Student student) {
+        JournalRecord record = new JournalRecord(JournalRecordType.ADD_STUDENT);
+        record.student = student;
+        return record;
+    }
+
+    /**
+     * Creates a record of a new course being added.
+     * @param course The new {@code Course}, together with its index numbers.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord addCourse(Course course) {
+        JournalRecord record = new JournalRecord(JournalRecordType.ADD_COURSE);
+        record.course = course;
+        return record;
+    }
+
+    /**
+     * Creates a record of a new index number being added to an existing course.
+     * @param indexNumber The new {@code IndexNumber}.
+     * @param courseCode The course code of the existing course.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord addIndexNumber(IndexNumber indexNumber, String courseCode) {
+        JournalRecord record = new JournalRecord(JournalRecordType.ADD_INDEX_NUMBER);
+        record.courseCode = courseCode;
+        record.indexNumberId = indexNumber.getId();
+        record.maxVacancy = indexNumber.getMaxVacancy();
+        record.lessons = indexNumber.getLessons();
+        return record;
+    }
+
+    /**
+     * Creates a record of a bulk import, which adds all of its students, courses and enrolments at once.
+     * @param bulkImport The {@code BulkImport} that was imported.
+     * @return The new JournalRecord.
+     */
+    public static JournalRecord bulkImport(BulkImport bulkImport) {
+        JournalRecord record = new JournalRecord(JournalRecordType.BULK_IMPORT);
+        record.bulkImport = bulkImport;
+        return record;
+    }
+
+    /**
+     * Creates a record of a change made by a student to a particular index number.
+     * @param type The {@code JournalRecordType} of the new record.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course.
+     * @param indexNumberId The id of the index number.
+     * @return The new JournalRecord.
+     */
+    private static JournalRecord forIndexNumber(JournalRecordType type, String userId, String courseCode,
+                                                int indexNumberId) {
+        JournalRecord record = new JournalRecord(type);
+        record.userId = userId;
+        record.courseCode = courseCode;
+        record.indexNumberId = indexNumberId;
+        return record;
+    }
+
+    /**
+     * Creates a record of a change made to a particular course.
+     * @param type The {@code JournalRecordType} of the new record.
+     * @param courseCode The course code of the course.
+     * @param text The new value for the course.
+     * @return The new JournalRecord.
+     */
+    private static JournalRecord forCourse(JournalRecordType type, String courseCode, String text) {
+        JournalRecord record = new JournalRecord(type);
+        record.courseCode = courseCode;
+        record.text = text;
+        return record;
+    }
+
+    /**
+     * Returns the type of this record.
+     * @return The {@code JournalRecordType} of this record.
+     */
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the sequence number of this record in the journal.
+     * @return The sequence number of this record.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the sequence number of this record in the journal.
+     * @param sequence The sequence number of this record.
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Re-applies the change that this record represents to a {@code Storage} object.
+     * @param storage The {@code Storage} object to apply the change to.
+     * @throws Exception if the change can no longer be applied to storage.
+     */
+    public void applyTo(Storage storage) throws Exception {
+        switch (type) {
+        case REGISTER_FOR_COURSE:
+            storage.registerForCourse(userId, courseCode, storage.getIndexNumber(courseCode, indexNumberId));
+            break;
+        case DROP_COURSE:
+            storage.dropCourseAndRegisterNextStudentInWaitList(userId, courseCode,
+                    storage.getIndexNumber(courseCode, indexNumberId));
+            break;
+        case SWAP_INDEX_NUMBER:
+            storage.swapIndexNumber(userId, courseCode, storage.getIndexNumber(courseCode, indexNumberId));
+            break;
+        case SWAP_INDEX_WITH_PEER:
+            storage.swapIndexWithPeer(userId, peerUserId, courseCode);
+            break;
+        case ADD_COURSE_TO_WAIT_LIST:
+            storage.addCourseToWaitList(userId, courseCode, storage.getIndexNumber(courseCode, indexNumberId));
+            break;
+        case DROP_COURSE_FROM_WAIT_LIST:
+            storage.dropCourseFromWaitList(userId, courseCode, storage.getIndexNumber(courseCode, indexNumberId));
+            break;
+        case SET_ACCESS_TIME:
+            storage.setAccessTime(userId, accessTime);
+            break;
+        case SET_COURSE_CODE:
+            storage.setCourseCode(text, courseCode);
+            break;
+        case SET_COURSE_NAME:
+            storage.setCourseName(courseCode, text);
+            break;
+        case SET_SCHOOL:
+            storage.setSchool(courseCode, School.valueOf(text));
+            break;
+        case SET_MAX_VACANCY:
+            storage.setMaxVacancy(courseCode, index, maxVacancy);
+            break;
+        case ADD_STUDENT:
+            storage.addStudent(student);
+            break;
+        case ADD_COURSE:
+            storage.addCourse(course);
+            break;
+        case ADD_INDEX_NUMBER:
+            storage.addIndexNumber(new IndexNumber(indexNumberId, storage.getCourse(courseCode), lessons, maxVacancy),
+                    courseCode);
+            break;
+        case BULK_IMPORT:
+            bulkImport.applyTo(storage);
+            break;
+        case SET_ACCESS_TIMES:
+            for (Map.Entry<String, AccessTime> entry: accessTimes.entrySet()) {
+                storage.setAccessTime(entry.getKey(), entry.getValue());
+            }
+            break;
+        default:
+            assert false : "Invalid journal record type!";
+        }
+    }
+
+    /**
+     * Writes this record into a stream.
+     * @param out The {@code DataOutputStream} to write this record into.
+     * @throws IOException if the record could not be written.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type.ordinal());
+        switch (type) {
+        case REGISTER_FOR_COURSE:
+        case DROP_COURSE:
+        case SWAP_INDEX_NUMBER:
+        case ADD_COURSE_TO_WAIT_LIST:
+        case DROP_COURSE_FROM_WAIT_LIST:
+            out.writeUTF(userId);
+            out.writeUTF(courseCode);
+            out.writeInt(indexNumberId);
+            break;
+        case SWAP_INDEX_WITH_PEER:
+            out.writeUTF(userId);
+            out.writeUTF(peerUserId);
+            out.writeUTF(courseCode);
+            break;
+        case SET_ACCESS_TIME:
+            out.writeUTF(userId);
+            writeAccessTime(out, accessTime);
+            break;
+        case SET_COURSE_CODE:
+        case SET_COURSE_NAME:
+        case SET_SCHOOL:
+            out.writeUTF(courseCode);
+            out.writeUTF(text);
+            break;
+        case SET_MAX_VACANCY:
+            out.writeUTF(courseCode);
+            out.writeInt(index);
+            out.writeInt(maxVacancy);
+            break;
+        case ADD_STUDENT:
+            writeStudent(out, student);
+            break;
+        case ADD_COURSE:
+            writeCourse(out, course);
+            break;
+        case ADD_INDEX_NUMBER:
+            out.writeUTF(courseCode);
+            out.writeInt(indexNumberId);
+            out.writeInt(maxVacancy);
+            writeLessons(out, lessons);
+            break;
+        case BULK_IMPORT:
+            bulkImport.writeTo(out);
+            break;
+        case SET_ACCESS_TIMES:
+            out.writeInt(accessTimes.size());
+            for (Map.Entry<String, AccessTime> entry: accessTimes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeAccessTime(out, entry.getValue());
+            }
+            break;
+        default:
+            assert false : "Invalid journal record type!";
+        }
+    }
+
+    /**
+     * Reads a record that was written by {@link #writeTo(DataOutputStream)} from a stream.
+     * @param in The {@code DataInputStream} to read the record from.
+     * @return The JournalRecord that was read.
+     * @throws IOException if the record could not be read.
+     */
+    public static JournalRecord readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        int typeOrdinal = in.readUnsignedByte();
+        if (typeOrdinal >= JournalRecordType.values().length) {
+            throw new IOException("Unknown journal record type: " + typeOrdinal);
+        }
+
+        JournalRecord record = new JournalRecord(JournalRecordType.values()[typeOrdinal]);
+        record.sequence = sequence;
+        switch (record.type) {
+        case REGISTER_FOR_COURSE:
+        case DROP_COURSE:
+        case SWAP_INDEX_NUMBER:
+        case ADD_COURSE_TO_WAIT_LIST:
+        case DROP_COURSE_FROM_WAIT_LIST:
+            record.userId = in.readUTF();
+            record.courseCode = in.readUTF();
+            record.indexNumberId = in.readInt();
+            break;
+        case SWAP_INDEX_WITH_PEER:
+            record.userId = in.readUTF();
+            record.peerUserId = in.readUTF();
+            record.courseCode = in.readUTF();
+            break;
+        case SET_ACCESS_TIME:
+            record.userId = in.readUTF();
+            record.accessTime = readAccessTime(in);
+            break;
+        case SET_COURSE_CODE:
+        case SET_COURSE_NAME:
+        case SET_SCHOOL:
+            record.courseCode = in.readUTF();
+            record.text = in.readUTF();
+            break;
+        case SET_MAX_VACANCY:
+            record.courseCode = in.readUTF();
+            record.index = in.readInt();
+            record.maxVacancy = in.readInt();
+            break;
+        case ADD_STUDENT:
+            record.student = readStudent(in);
+            break;
+        case ADD_COURSE:
+            record.course = readCourse(in);
+            break;
+        case ADD_INDEX_NUMBER:
+            record.courseCode = in.readUTF();
+            record.indexNumberId = in.readInt();
+            record.maxVacancy = in.readInt();
+            record.lessons = readLessons(in);
+            break;
+        case BULK_IMPORT:
+            record.bulkImport = BulkImport.readFrom(in);
+            break;
+        case SET_ACCESS_TIMES:
+            int count = in.readInt();
+            record.accessTimes = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                record.accessTimes.put(in.readUTF(), readAccessTime(in));
+            }
+            break;
+        default:
+            assert false : "Invalid journal record type!";
+        }
+
+        return record;
+    }
+
+    /**
+     * Writes an {@code AccessTime} into a stream.
+     * @param out The {@code DataOutputStream} to write into.
+     * @param accessTime The {@code AccessTime} to be written.
+     * @throws IOException if the access time could not be written.
+     */
+    private static void writeAccessTime(DataOutputStream out, AccessTime accessTime) throws IOException {
+        out.writeUTF(accessTime.getStart().toString());
+        out.writeUTF(accessTime.getEnd().toString());
+    }
+
+    /**
+     * Reads an {@code AccessTime} from a stream.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The {@code AccessTime} that was read.
+     * @throws IOException if the access time could not be read.
+     */
+    private static AccessTime readAccessTime(DataInputStream in) throws IOException {
+        return new AccessTime(LocalDateTime.parse(in.readUTF()), LocalDateTime.parse(in.readUTF()));
+    }
+
+    /**
+     * Writes all the information of a newly added {@code Student} into a stream.
+     * @param out The {@code DataOutputStream} to write into.
+     * @param student The {@code Student} to be written.
+     * @throws IOException if the student could not be written.
+     */
+    static void writeStudent(DataOutputStream out, Student student) throws IOException {
+        out.writeUTF(student.getName());
+        out.writeUTF(student.getUserId());
+        out.writeUTF(student.getMatricNumber());
+        out.writeUTF(student.getNationality());
+        out.writeUTF(student.getEmailAddress());
+        out.writeUTF(student.getGender().name());
+        writeAccessTime(out, student.getAccessTime());
+    }
+
+    /**
+     * Reads a newly added {@code Student} from a stream.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The {@code Student} that was read.
+     * @throws IOException if the student could not be read.
+     */
+    static Student readStudent(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        String userId = in.readUTF();
+        String matricNumber = in.readUTF();
+        String nationality = in.readUTF();
+        String emailAddress = in.readUTF();
+        Gender gender = Gender.valueOf(in.readUTF());
+        AccessTime accessTime = readAccessTime(in);
+
+        return new Student(name, userId, matricNumber, nationality, emailAddress, gender, accessTime);
+    }
+
+    /**
+     * Writes all the information of a newly added {@code Course} and its index numbers into a stream.
+     * @param out The {@code DataOutputStream} to write into.
+     * @param course The {@code Course} to be written.
+     * @throws IOException if the course could not be written.
+     */
+    static void writeCourse(DataOutputStream out, Course course) throws IOException {
+        out.writeUTF(course.getCourseName());
+        out.writeUTF(course.getCourseCode());
+        out.writeUTF(course.getSchool().name());
+        out.writeInt(course.getAu());
+        out.writeInt(course.getIndexNumbers().size());
+        for (IndexNumber indexNumber: course.getIndexNumbers()) {
+            out.writeInt(indexNumber.getId());
+            out.writeInt(indexNumber.getMaxVacancy());
+            writeLessons(out, indexNumber.getLessons());
+        }
+    }
+
+    /**
+     * Reads a newly added {@code Course} and its index numbers from a stream.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The {@code Course} that was read.
+     * @throws IOException if the course could not be read.
+     */
+    static Course readCourse(DataInputStream in) throws IOException {
+        String courseName = in.readUTF();
+        String courseCode = in.readUTF();
+        School school = School.valueOf(in.readUTF());
+        int au = in.readInt();
+        Course course = new Course(courseName, courseCode, school, au);
+
+        int numberOfIndexNumbers = in.readInt();
+        ArrayList<IndexNumber> indexNumbers = new ArrayList<>(numberOfIndexNumbers);
+        for (int i = 0; i < numberOfIndexNumbers; i++) {
+            int id = in.readInt();
+            int maxVacancy = in.readInt();
+            indexNumbers.add(new IndexNumber(id, course, readLessons(in), maxVacancy));
+        }
+        course.setIndexNumbers(indexNumbers);
+
+        return course;
+    }
+
+    /**
+     * Writes the lessons of an index number into a stream.
+     * @param out The {@code DataOutputStream} to write into.
+     * @param lessons The ArrayList of {@code Lesson} to be written.
+     * @throws IOException if the lessons could not be written.
+     */
+    private static void writeLessons(DataOutputStream out, ArrayList<Lesson> lessons) throws IOException {
+        out.writeInt(lessons.size());
+        for (Lesson lesson: lessons) {
+            out.writeUTF(lesson.getLessonType().name());
+            out.writeByte(lesson.getDayOfWeek().getValue());
+            out.writeInt(lesson.getStartTime().toSecondOfDay());
+            out.writeInt(lesson.getEndTime().toSecondOfDay());
+        }
+    }
+
+    /**
+     * Reads the lessons of an index number from a stream.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The ArrayList of {@code Lesson} that was read.
+     * @throws IOException if the lessons could not be read.
+     */
+    private static ArrayList<Lesson> readLessons(DataInputStream in) throws IOException {
+        int numberOfLessons = in.readInt();
+        ArrayList<Lesson> lessons = new ArrayList<>(numberOfLessons);
+        for (int i = 0; i < numberOfLessons; i++) {
+            LessonType lessonType = LessonType.valueOf(in.readUTF());
+            DayOfWeek dayOfWeek = DayOfWeek.of(in.readUnsignedByte());
+            LocalTime startTime = LocalTime.ofSecondOfDay(in.readInt());
+            LocalTime endTime = LocalTime.ofSecondOfDay(in.readInt());
+            lessons.add(new Lesson(lessonType, dayOfWeek, startTime, endTime));
+        }
+
+        return lessons;
+    }
+}
@@ -0,0 +1,27 @@
+package filemanager;
+
+/**
+ * This is the enum of all the kinds of changes to the {@code Storage} object that can be recorded in the
+ * {@code MutationJournal}. The ordinal of each constant is written into the journal, so new constants must only ever
+ * be added at the end.
+ * @see JournalRecord
+ * @see MutationJournal
+ */
+public enum JournalRecordType {
+    REGISTER_FOR_COURSE,
+    DROP_COURSE,
+    SWAP_INDEX_NUMBER,
+    SWAP_INDEX_WITH_PEER,
+    ADD_COURSE_TO_WAIT_LIST,
+    DROP_COURSE_FROM_WAIT_LIST,
+    SET_ACCESS_TIME,
+    SET_COURSE_CODE,
+    SET_COURSE_NAME,
+    SET_SCHOOL,
+    SET_MAX_VACANCY,
+    ADD_STUDENT,
+    ADD_COURSE,
+    ADD_INDEX_NUMBER,
+    BULK_IMPORT,
+    SET_ACCESS_TIMES;
+}
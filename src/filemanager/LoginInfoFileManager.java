@@ -3,15 +3,19 @@ package filemanager;
 import model.AccountType;
 import model.LoginInfo;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
 
 /**
- * This class is responsible for the logic that handles the storage and retrieval of login information.
+ * This class is responsible for the logic that handles the storage and retrieval of login information. The login
+ * information in each file is kept in a {@code LoginInfoIndex}, so that it is looked up by user id instead of reading
+ * the file every time.
+ * @see LoginInfoIndex
  */
 public class LoginInfoFileManager implements ILoginInfoFileManager {
     /**
@@ -26,27 +30,63 @@ public class LoginInfoFileManager implements ILoginInfoFileManager {
      */
     private File adminLoginInfoFile;
 
+    /**
+     * The login information of all the students, indexed by user id.
+     * @see LoginInfoIndex
+     */
+    private LoginInfoIndex studentLoginInfoIndex;
+
+    /**
+     * The login information of all the admin, indexed by user id.
+     * @see LoginInfoIndex
+     */
+    private LoginInfoIndex adminLoginInfoIndex;
+
     /**
      * Constructs a new LoginInfoFileManager object by instantiating the studentLoginInfoFile and adminLoginInfoFile.
      */
     public LoginInfoFileManager() {
         adminLoginInfoFile = new File("data/AdminLoginInfo.txt");
         studentLoginInfoFile = new File("data/StudentLoginInfo.txt");
+        adminLoginInfoIndex = new LoginInfoIndex(adminLoginInfoFile.toPath(), AccountType.ADMIN);
+        studentLoginInfoIndex = new LoginInfoIndex(studentLoginInfoFile.toPath(), AccountType.STUDENT);
     }
 
     /**
      * Contains the logic to save the new login information of the new student.
-     * @param loginInfo The {@code LoginInfo} object that contains the new login information for the new student.
+     * @param loginInfo The {@code LoginInfo} object that contains the new login information for the new student, with
+     *                  the hash of the password.
      * @see LoginInfo
      */
     @Override
     public void addLoginInfoForNewStudent(LoginInfo loginInfo) {
-        try {
-            FileWriter fw = new FileWriter(studentLoginInfoFile, true);
-            fw.write(loginInfo.getUserId() + "|" + loginInfo.getPassword() + "\n");
-            fw.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        appendLoginInfo(studentLoginInfoFile, studentLoginInfoIndex, List.of(loginInfo));
+    }
+
+    /**
+     * Contains the logic to save the new login information of many new students with a single write to the file.
+     * @param loginInfos The {@code LoginInfo} objects that contain the new login information for the new students,
+     *                   with the hashes of the passwords.
+     * @see LoginInfo
+     */
+    @Override
+    public void addLoginInfoForNewStudents(List<LoginInfo> loginInfos) {
+        appendLoginInfo(studentLoginInfoFile, studentLoginInfoIndex, loginInfos);
+    }
+
+    /**
+     * Contains the logic to replace the login information of a user, by appending a line that is read instead of the
+     * earlier lines of the user.
+     * @param loginInfo The {@code LoginInfo} object that contains the new login information of the user, with the hash
+     *                  of the password.
+     * @see LoginInfo
+     */
+    @Override
+    public void updateLoginInfo(LoginInfo loginInfo) {
+        if (loginInfo.getAccountType() == AccountType.ADMIN) {
+            appendLoginInfo(adminLoginInfoFile, adminLoginInfoIndex, List.of(loginInfo));
+        } else {
+            appendLoginInfo(studentLoginInfoFile, studentLoginInfoIndex, List.of(loginInfo));
         }
     }
 
@@ -57,7 +97,7 @@ public class LoginInfoFileManager implements ILoginInfoFileManager {
      */
     @Override
     public ArrayList<LoginInfo> retrieveStudentLoginInfoList() {
-        return retrieveLoginInfoList(studentLoginInfoFile, AccountType.STUDENT);
+        return studentLoginInfoIndex.getAll();
     }
 
     /**
@@ -67,33 +107,68 @@ public class LoginInfoFileManager implements ILoginInfoFileManager {
      */
     @Override
     public ArrayList<LoginInfo> retrieveAdminLoginInfoList() {
-        return retrieveLoginInfoList(adminLoginInfoFile, AccountType.ADMIN);
+        return adminLoginInfoIndex.getAll();
     }
 
     /**
-     * Retrieves all the login information stored in the {@code File} object and what account type the {@code File} object
-     * stores.
-     * @param file A {@code File} object that stores all the login information.
-     * @param accountType The {@code AccountType} which the file stores.
-     * @return An ArrayList of {@code LoginInfo} that contains all the login information of accountType.
-     * @see File
-     * @see AccountType
+     * Contains the logic to look up the login information of a student.
+     * @param userId The user id of the student.
+     * @return The {@code LoginInfo} object of the student, or null if there is no student with the user id.
+     * @see LoginInfo
      */
-    private ArrayList<LoginInfo> retrieveLoginInfoList(File file, AccountType accountType) {
-        ArrayList<LoginInfo> adminLoginInfoList = new ArrayList<>();
-        try {
-            Scanner sc = new Scanner(file);
-
-            while (sc.hasNext()) {
-                String[] lineSplit = sc.nextLine().split("\\|");
-                adminLoginInfoList.add(new LoginInfo(accountType, lineSplit[0], lineSplit[1]));
-            }
+    @Override
+    public LoginInfo findStudentLoginInfo(String userId) {
+        return studentLoginInfoIndex.find(userId);
+    }
 
-        } catch (FileNotFoundException e) {
+    /**
+     * Contains the logic to look up the login information of an admin.
+     * @param userId The user id of the admin.
+     * @return The {@code LoginInfo} object of the admin, or null if there is no admin with the user id.
+     * @see LoginInfo
+     */
+    @Override
+    public LoginInfo findAdminLoginInfo(String userId) {
+        return adminLoginInfoIndex.find(userId);
+    }
+
+    /**
+     * Appends login information to a file with a single write and adds it to the index of the file. If the last line
+     * of the file does not end with a line separator, one is written first.
+     * @param file The {@code File} object that represents the file.
+     * @param index The {@code LoginInfoIndex} of the file.
+     * @param loginInfos The {@code LoginInfo} objects to be appended.
+     */
+    private synchronized void appendLoginInfo(File file, LoginInfoIndex index, List<LoginInfo> loginInfos) {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
+            if (!endsWithLineSeparator(file)) {
+                bw.write("\n");
+            }
+            for (LoginInfo loginInfo: loginInfos) {
+                bw.write(LoginInfoIndex.formatLine(loginInfo) + "\n");
+            }
+        } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+        for (LoginInfo loginInfo: loginInfos) {
+            index.add(loginInfo);
         }
-
-        return adminLoginInfoList;
     }
 
+    /**
+     * Checks whether a file is empty or its last line ends with a line separator.
+     * @param file The {@code File} object that represents the file.
+     * @return true if the file is empty or ends with a line separator; false otherwise.
+     * @throws IOException if the file could not be read.
+     */
+    private boolean endsWithLineSeparator(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() == 0) {
+                return true;
+            }
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
 }
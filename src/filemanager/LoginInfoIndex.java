@@ -0,0 +1,277 @@
+package filemanager;
+
+import model.AccountType;
+import model.LoginInfo;
+import utility.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * This class is responsible for keeping the login information stored in a file in memory, indexed by user id, so that
+ * login information can be looked up without reading the file. The file is checked for changes before every lookup,
+ * which only takes reading its attributes. Lines appended to the file since it was last read, which is how login
+ * information is added, are read from where the last read stopped; if the file has been replaced or rewritten
+ * instead, it is read again from the start. Whenever the file has been modified, the part of it that was read before
+ * is checked against its checksum, so that a line changed in place without changing the size of the file is noticed
+ * wherever it is.
+ *
+ * <p>Every line of the file is the user id, the hash of the password, its salt and its cost separated by "|". Lines
+ * saved before passwords were salted only have the user id and the hash. If a user id appears on more than one line,
+ * the last line is used, which is how the login information of a user is replaced.</p>
+ */
+public class LoginInfoIndex {
+    /**
+     * The number of bytes of the file read at a time when computing its checksum.
+     */
+    private static final int CHECKSUM_BUFFER_SIZE = 65536;
+
+    /**
+     * The path of the file in which the login information is stored in.
+     */
+    private Path path;
+
+    /**
+     * The {@code AccountType} of the login information stored in the file.
+     * @see AccountType
+     */
+    private AccountType accountType;
+
+    /**
+     * The login information read from the file, in the order the user ids first appear in the file. The key is the
+     * user id.
+     */
+    private LinkedHashMap<String, LoginInfo> loginInfos = new LinkedHashMap<>();
+
+    /**
+     * The number of bytes of the file that have been read, which always ends at the end of a line.
+     */
+    private long readLength;
+
+    /**
+     * The identity of the file that was read, which changes when the file is replaced by another file.
+     */
+    private Object fileKey;
+
+    /**
+     * The time the file that was read was last modified.
+     */
+    private long lastModifiedMillis;
+
+    /**
+     * The checksum of the part of the file that has been read.
+     */
+    private long readChecksum;
+
+    /**
+     * Constructs a new LoginInfoIndex for a file. The file is read the first time login information is looked up.
+     * @param path The path of the file in which the login information is stored in.
+     * @param accountType The {@code AccountType} of the login information stored in the file.
+     */
+    public LoginInfoIndex(Path path, AccountType accountType) {
+        this.path = path;
+        this.accountType = accountType;
+    }
+
+    /**
+     * Looks up the login information of a user.
+     * @param userId The user id of the user.
+     * @return The {@code LoginInfo} object of the user, or null if there is none.
+     */
+    public synchronized LoginInfo find(String userId) {
+        refresh();
+        return loginInfos.get(userId);
+    }
+
+    /**
+     * Returns all the login information.
+     * @return An ArrayList of {@code LoginInfo} in the order the user ids first appear in the file.
+     */
+    public synchronized ArrayList<LoginInfo> getAll() {
+        refresh();
+        return new ArrayList<>(loginInfos.values());
+    }
+
+    /**
+     * Adds login information that has just been appended to the file, so that it can be looked up straight away. It
+     * is read again harmlessly when the appended line is read from the file.
+     * @param loginInfo The {@code LoginInfo} object that has been appended.
+     */
+    public synchronized void add(LoginInfo loginInfo) {
+        loginInfos.put(loginInfo.getUserId(), loginInfo);
+    }
+
+    /**
+     * Reads the changes made to the file since it was last read, if any.
+     */
+    private void refresh() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            boolean replaced = !Objects.equals(attributes.fileKey(), fileKey) || attributes.size() < readLength;
+            if (!replaced && attributes.size() == readLength && lastModified == lastModifiedMillis) {
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                CRC32 crc = new CRC32();
+                if (replaced || checksum(channel, crc) != readChecksum) {
+                    loginInfos.clear();
+                    readLength = 0;
+                    crc.reset();
+                }
+                readFrom(channel, crc);
+                readChecksum = crc.getValue();
+            }
+            fileKey = attributes.fileKey();
+            lastModifiedMillis = lastModified;
+        } catch (NoSuchFileException e) {
+            loginInfos.clear();
+            readLength = 0;
+            fileKey = null;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the lines of the file after the part that has already been read. The last line is read even if it does
+     * not end with a line separator, but it is read again next time, since it might not have been completely written
+     * yet.
+     * @param channel The channel of the file.
+     * @param crc The checksum of the part of the file that has already been read, which is updated with the lines
+     *            read.
+     * @throws IOException if the file could not be read.
+     */
+    private void readFrom(FileChannel channel, CRC32 crc) throws IOException {
+        long size = channel.size();
+        if (size <= readLength) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (size - readLength));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, readLength + bytes.position()) < 0) {
+                break;
+            }
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i < bytes.position(); i++) {
+            if (bytes.get(i) == '\n') {
+                parseLine(new String(bytes.array(), lineStart, i - lineStart, StandardCharsets.UTF_8));
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < bytes.position()) {
+            parseLine(new String(bytes.array(), lineStart, bytes.position() - lineStart, StandardCharsets.UTF_8));
+        }
+        crc.update(bytes.array(), 0, lineStart);
+        readLength += lineStart;
+    }
+
+    /**
+     * Adds the login information on a line of the file.
+     * @param line The line without its line separator.
+     */
+    private void parseLine(String line) {
+        String strippedLine = line.strip();
+        int separator = strippedLine.indexOf('|');
+        if (separator <= 0) {
+            return;
+        }
+        String userId = strippedLine.substring(0, separator);
+        try {
+            loginInfos.put(userId, parseCredentials(accountType, userId, strippedLine.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            // not valid login information
+        }
+    }
+
+    /**
+     * Formats login information into a line of the file.
+     * @param loginInfo The {@code LoginInfo} object holding the hash of the password.
+     * @return The line without its line separator.
+     */
+    static String formatLine(LoginInfo loginInfo) {
+        return loginInfo.getUserId() + "|" + formatCredentials(loginInfo);
+    }
+
+    /**
+     * Formats the hash of the password of login information together with its salt and cost, the way they follow the
+     * user id on a line of the file.
+     * @param loginInfo The {@code LoginInfo} object holding the hash of the password.
+     * @return The hash, salt and cost separated by "|", or only the hash if it is not salted.
+     */
+    static String formatCredentials(LoginInfo loginInfo) {
+        if (loginInfo.getSalt() == null) {
+            return loginInfo.getPassword();
+        }
+        return loginInfo.getPassword() + "|" + loginInfo.getSalt() + "|" + loginInfo.getCost();
+    }
+
+    /**
+     * Parses the hash of a password together with its salt and cost, as formatted by formatCredentials.
+     * @param accountType The {@code AccountType} of the user.
+     * @param userId The user id of the user.
+     * @param credentials The hash, salt and cost separated by "|", or only the hash if it is not salted.
+     * @return The {@code LoginInfo} object holding the hash of the password.
+     * @throws IllegalArgumentException if the hash is empty, or the salt is not hexadecimal, or the cost is not valid.
+     */
+    static LoginInfo parseCredentials(AccountType accountType, String userId, String credentials) {
+        String[] fields = credentials.strip().split("\\|", -1);
+        if (fields[0].isEmpty() || (fields.length != 1 && fields.length != 3)) {
+            throw new IllegalArgumentException("Invalid password hash " + credentials);
+        }
+        if (fields.length == 1) {
+            return new LoginInfo(accountType, userId, fields[0]);
+        }
+
+        if (fields[1].isEmpty()) {
+            throw new IllegalArgumentException("Missing password salt");
+        }
+        PasswordHasher.fromHex(fields[1]);
+        int cost;
+        try {
+            cost = Integer.parseInt(fields[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid password hash cost " + fields[2]);
+        }
+        if (cost < PasswordHasher.MIN_COST || cost > PasswordHasher.MAX_COST) {
+            throw new IllegalArgumentException("Invalid password hash cost " + cost);
+        }
+        return new LoginInfo(accountType, userId, fields[0], fields[1], cost);
+    }
+
+    /**
+     * Computes the checksum of the part of the file that has been read, as it is now.
+     * @param channel The channel of the file.
+     * @param crc The CRC32 object to compute the checksum with, which must not have been updated yet.
+     * @return The checksum of the first readLength bytes of the file.
+     * @throws IOException if the file could not be read.
+     */
+    private long checksum(FileChannel channel, CRC32 crc) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHECKSUM_BUFFER_SIZE, Math.max(readLength, 1)));
+        long position = 0;
+        while (position < readLength) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), readLength - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            crc.update(buffer.flip());
+            position += read;
+        }
+        return crc.getValue();
+    }
+}
@@ -1,14 +1,25 @@
 package filemanager;
 
 import model.LoginInfo;
+import model.Session;
+import exception.ServerBusyException;
 import exception.WrongLoginInfoException;
 import exception.WrongAccessPeriodException;
 
+import utility.PasswordHasher;
+
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 /**
- * This class is responsible for handling the login logic.
+ * This class is responsible for handling the login logic. Passwords are checked against their saved hashes on a
+ * {@code PasswordHashingPool}, and a saved hash made with a lower cost than new hashes, or before passwords were
+ * salted, is replaced by a new hash of the password once it has been checked.
+ *
+ * <p>Once the login information of a user has been verified, a session can be opened for the user through a
+ * {@code SessionManager}, so that the user is recognised again by the token of the session without verifying the
+ * login information again.</p>
+ * @see PasswordHashingPool
+ * @see SessionManager
  */
 public class LoginManager implements ILoginable {
     /**
@@ -24,33 +35,117 @@ public class LoginManager implements ILoginable {
     private IStorageManager storageManager;
 
     /**
-     * Constructs a new LoginManager and injects the dependencies using constructor injections.
+     * The pool of worker threads that the passwords are hashed on.
+     * @see PasswordHashingPool
+     */
+    private PasswordHashingPool hashingPool;
+
+    /**
+     * The sessions opened for the users whose login information has been verified.
+     * @see SessionManager
+     */
+    private SessionManager sessionManager;
+
+    /**
+     * Constructs a new LoginManager with a new {@code PasswordHashingPool} and {@code SessionManager} and injects the dependencies using
+     * constructor injections.
      * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
      * @param storageManager An object that implements IStorageManager.
      * @see ILoginInfoFileManager
      * @see IStorageManager
      */
     public LoginManager(ILoginInfoFileManager loginInfoFileManager, IStorageManager storageManager) {
+        this(loginInfoFileManager, storageManager, new PasswordHashingPool(), new SessionManager());
+    }
+
+    /**
+     * Constructs a new LoginManager and injects the dependencies using constructor injections.
+     * @param loginInfoFileManager An object that implements ILoginInfoFileManager.
+     * @param storageManager An object that implements IStorageManager.
+     * @param hashingPool The pool of worker threads that the passwords are hashed on.
+     * @param sessionManager The sessions opened for the users whose login information has been verified.
+     * @see ILoginInfoFileManager
+     * @see IStorageManager
+     * @see PasswordHashingPool
+     * @see SessionManager
+     */
+    public LoginManager(ILoginInfoFileManager loginInfoFileManager, IStorageManager storageManager,
+                        PasswordHashingPool hashingPool, SessionManager sessionManager) {
         this.loginInfoFileManager = loginInfoFileManager;
         this.storageManager = storageManager;
+        this.hashingPool = hashingPool;
+        this.sessionManager = sessionManager;
     }
 
     /**
      * Contains the main logic to verify the provided login information.
-     * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified.
+     * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified,
+     *                          with the password as entered.
      * @throws WrongLoginInfoException if the login information provided is invalid.
      * @throws WrongAccessPeriodException if the current time is not within the access period of the student trying
      * to log in to the program.
+     * @throws ServerBusyException if the queue of the {@code PasswordHashingPool} is full.
      */
     @Override
     public void verifyLoginInfo(LoginInfo providedLoginInfo)
-        throws WrongLoginInfoException, WrongAccessPeriodException {
+        throws WrongLoginInfoException, WrongAccessPeriodException, ServerBusyException {
+        verifyLoginInfo(providedLoginInfo, true);
+    }
+
+    /**
+     * Verifies the provided login information and opens a session for the user.
+     * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified,
+     *                          with the password as entered.
+     * @param checkAccessPeriod Whether the current time has to be within the access period of a student.
+     * @return The {@code Session} object of the session opened for the user.
+     * @throws WrongLoginInfoException if the login information provided is invalid.
+     * @throws WrongAccessPeriodException if the access period is checked and the current time is not within the
+     * access period of the student trying to log in to the program.
+     * @throws ServerBusyException if the queue of the {@code PasswordHashingPool} is full.
+     */
+    @Override
+    public Session createSession(LoginInfo providedLoginInfo, boolean checkAccessPeriod)
+            throws WrongLoginInfoException, WrongAccessPeriodException, ServerBusyException {
+        verifyLoginInfo(providedLoginInfo, checkAccessPeriod);
+        return sessionManager.createSession(providedLoginInfo.getUserId(), providedLoginInfo.getAccountType());
+    }
+
+    /**
+     * Checks whether a token identifies an open session, which neither reads the login file nor hashes a password.
+     * @param token The token of the session.
+     * @return The {@code Session} object, or null if the token does not identify an open session.
+     */
+    @Override
+    public Session validateSession(String token) {
+        return sessionManager.validateSession(token);
+    }
+
+    /**
+     * Closes a session.
+     * @param token The token of the session.
+     */
+    @Override
+    public void endSession(String token) {
+        sessionManager.endSession(token);
+    }
+
+    /**
+     * Verifies the provided login information according to its account type.
+     * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified.
+     * @param checkAccessPeriod Whether the current time has to be within the access period of a student.
+     * @throws WrongLoginInfoException if the login information provided is invalid.
+     * @throws WrongAccessPeriodException if the access period is checked and the current time is not within the
+     * access period of the student trying to log in to the program.
+     * @throws ServerBusyException if the queue of the {@code PasswordHashingPool} is full.
+     */
+    private void verifyLoginInfo(LoginInfo providedLoginInfo, boolean checkAccessPeriod)
+            throws WrongLoginInfoException, WrongAccessPeriodException, ServerBusyException {
         switch (providedLoginInfo.getAccountType()) {
             case ADMIN:
                 verifyAdminLoginInfo(providedLoginInfo);
                 break;
             case STUDENT:
-                verifyStudentLoginInfo(providedLoginInfo);
+                verifyStudentLoginInfo(providedLoginInfo, checkAccessPeriod);
                 break;
             default:
                 assert false : "Invalid account type!";
@@ -61,21 +156,22 @@ public class LoginManager implements ILoginable {
      * This method is called if the provided login information is for student. Contains the logic to verify if the
      * login information for the student is valid and the current time is within the access period of that student.
      * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified.
+     * @param checkAccessPeriod Whether the current time has to be within the access period of the student.
      * @throws WrongAccessPeriodException if the login information provided is invalid.
      * @throws WrongLoginInfoException if the current time is not within the access period of the student trying
      * to log in to the program.
+     * @throws ServerBusyException if the queue of the {@code PasswordHashingPool} is full.
      */
-    private void verifyStudentLoginInfo(LoginInfo providedLoginInfo)
-            throws WrongAccessPeriodException, WrongLoginInfoException {
-        ArrayList<LoginInfo> loginInfoList = loginInfoFileManager.retrieveStudentLoginInfoList();
-        for (LoginInfo loginInfo: loginInfoList) {
-            if (loginInfo.equals(providedLoginInfo)) {
-                if (isWithinAccessTimeForStudent(loginInfo.getUserId())) {
-                    return;
-                }
-
-                throw new WrongAccessPeriodException(storageManager.getStudent(loginInfo.getUserId()).getAccessTime());
+    private void verifyStudentLoginInfo(LoginInfo providedLoginInfo, boolean checkAccessPeriod)
+            throws WrongAccessPeriodException, WrongLoginInfoException, ServerBusyException {
+        LoginInfo loginInfo = loginInfoFileManager.findStudentLoginInfo(providedLoginInfo.getUserId());
+        if (loginInfo != null && hashingPool.verify(providedLoginInfo.getPassword(), loginInfo)) {
+            upgradeLoginInfo(providedLoginInfo, loginInfo);
+            if (!checkAccessPeriod || isWithinAccessTimeForStudent(loginInfo.getUserId())) {
+                return;
             }
+
+            throw new WrongAccessPeriodException(storageManager.getStudent(loginInfo.getUserId()).getAccessTime());
         }
 
         throw new WrongLoginInfoException();
@@ -86,18 +182,37 @@ public class LoginManager implements ILoginable {
      * login information for the admin is valid.
      * @param providedLoginInfo The {@code LoginInfo} object containing the login information that is to be verified.
      * @throws WrongLoginInfoException if the login information provided is invalid.
+     * @throws ServerBusyException if the queue of the {@code PasswordHashingPool} is full.
      */
-    private void verifyAdminLoginInfo(LoginInfo providedLoginInfo) throws WrongLoginInfoException {
-        ArrayList<LoginInfo> loginInfoList = loginInfoFileManager.retrieveAdminLoginInfoList();
-        for (LoginInfo loginInfo: loginInfoList) {
-            if (loginInfo.equals(providedLoginInfo)) {
-                return;
-            }
+    private void verifyAdminLoginInfo(LoginInfo providedLoginInfo)
+            throws WrongLoginInfoException, ServerBusyException {
+        LoginInfo loginInfo = loginInfoFileManager.findAdminLoginInfo(providedLoginInfo.getUserId());
+        if (loginInfo != null && hashingPool.verify(providedLoginInfo.getPassword(), loginInfo)) {
+            upgradeLoginInfo(providedLoginInfo, loginInfo);
+            return;
         }
 
         throw new WrongLoginInfoException();
     }
 
+    /**
+     * Replaces saved login information whose hash was made with a lower cost than new hashes, or before passwords were
+     * salted, with a new hash of the password that has just been checked. If the pool is too busy, it is left for a
+     * later login.
+     * @param providedLoginInfo The {@code LoginInfo} object containing the password that has been checked.
+     * @param loginInfo The saved {@code LoginInfo} object that the password matches.
+     */
+    private void upgradeLoginInfo(LoginInfo providedLoginInfo, LoginInfo loginInfo) {
+        if (loginInfo.getCost() >= PasswordHasher.DEFAULT_COST) {
+            return;
+        }
+        try {
+            loginInfoFileManager.updateLoginInfo(hashingPool.hash(providedLoginInfo));
+        } catch (ServerBusyException e) {
+            // upgraded the next time the user logs in
+        }
+    }
+
     /**
      * Checks if the current time is within the access time for a particular student.
      * @param userId The user id of the student to check if the time now is within access time of the student.
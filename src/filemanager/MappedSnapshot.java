@@ -0,0 +1,563 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Student;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * This class is responsible for reading one segment in the snapshot layout written by {@code MappedSnapshotWriter},
+ * without decoding it as a whole. A segment is either a whole snapshot or a delta holding only the courses and
+ * students that changed after it. Only the catalogue of courses and index numbers is read up front; students and
+ * the student lists of index numbers are read by position when they are asked for, which is how
+ * {@code SegmentedSnapshot} loads them on demand.
+ *
+ * <p>The segment is usually memory-mapped, so the records that are never asked for are never read from disk. All
+ * reads use absolute positions, so students can be read by several threads at once. The checksum of every record and
+ * student list is verified when it is read; a corrupted one is reported with an {@code UncheckedIOException}, since it
+ * is only found after the snapshot has been loaded.</p>
+ * @see MappedSnapshotWriter
+ * @see SegmentedSnapshot
+ */
+public class MappedSnapshot {
+    /**
+     * The bytes of the segment payload.
+     */
+    private ByteBuffer payload;
+
+    /**
+     * The number of students in the segment.
+     */
+    private int studentCount;
+
+    /**
+     * The smallest record id that is not taken by any of the students in the segment.
+     */
+    private int nextStudentRecordId;
+
+    /**
+     * The position of the student lists.
+     */
+    private int listsOffset;
+
+    /**
+     * The position of the record index.
+     */
+    private int recordIndexOffset;
+
+    /**
+     * The position of the user id table.
+     */
+    private int userTableOffset;
+
+    /**
+     * The number of slots of the user id table.
+     */
+    private int userTableCapacity;
+
+    /**
+     * The position of the student records.
+     */
+    private int recordsOffset;
+
+    /**
+     * The number of registered and wait listed students, the position and the checksum of the student list of each
+     * index number in the segment. The key is the record id of the index number.
+     */
+    private HashMap<Integer, int[]> studentLists = new HashMap<>();
+
+    /**
+     * The course codes of the courses that were removed before the segment was written, which are only found in
+     * deltas.
+     */
+    private ArrayList<String> removedCourseCodes = new ArrayList<>();
+
+    /**
+     * Constructs a new MappedSnapshot.
+     * @param payload The bytes of the segment payload, from the position to the limit of the buffer.
+     */
+    public MappedSnapshot(ByteBuffer payload) {
+        this.payload = payload.slice();
+    }
+
+    /**
+     * Reads the header and the catalogue of the segment. The index numbers of the courses read do not have their
+     * students yet.
+     * @return An ArrayList of the {@code Course} objects in the segment, in the order they were written.
+     * @throws IOException if the segment was written by an unknown version of the layout or is not a valid segment.
+     */
+    ArrayList<Course> readCatalogue() throws IOException {
+        try {
+            ByteBuffer header = payload.duplicate();
+            int eagerLength = header.getInt();
+            int version = header.getInt();
+            if (version < MappedSnapshotWriter.FIRST_LAYOUT_VERSION || version > MappedSnapshotWriter.LAYOUT_VERSION) {
+                throw new StreamCorruptedException("unknown snapshot layout version " + version);
+            }
+            studentCount = header.getInt();
+            nextStudentRecordId = header.getInt();
+            listsOffset = header.getInt();
+            recordIndexOffset = header.getInt();
+            userTableOffset = header.getInt();
+            userTableCapacity = header.getInt();
+            recordsOffset = header.getInt();
+            if (eagerLength != listsOffset || studentCount < 0 || listsOffset > recordIndexOffset
+                    || recordIndexOffset + (long) studentCount * MappedSnapshotWriter.RECORD_INDEX_ENTRY_SIZE
+                    != userTableOffset || Integer.bitCount(userTableCapacity) != 1
+                    || userTableCapacity < studentCount
+                    || userTableOffset + (long) userTableCapacity * MappedSnapshotWriter.USER_TABLE_ENTRY_SIZE
+                    != recordsOffset || recordsOffset > payload.limit()) {
+                throw new StreamCorruptedException("snapshot has an invalid header");
+            }
+
+            ByteBuffer catalogue = payload.duplicate();
+            catalogue.position(MappedSnapshotWriter.HEADER_SIZE).limit(eagerLength);
+            int courseCount = readCount(catalogue);
+            ArrayList<Course> courses = new ArrayList<>(courseCount);
+            for (int i = 0; i < courseCount; i++) {
+                courses.add(readCourse(catalogue));
+            }
+            if (version >= MappedSnapshotWriter.DELTA_LAYOUT_VERSION) {
+                int removedCount = readCount(catalogue);
+                for (int i = 0; i < removedCount; i++) {
+                    removedCourseCodes.add(readString(catalogue));
+                }
+            }
+
+            return courses;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new StreamCorruptedException("snapshot is truncated");
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new StreamCorruptedException("snapshot contains an invalid value: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the course codes of the courses that were removed before the segment was written. Only valid after
+     * {@link #readCatalogue()}.
+     * @return An ArrayList of the course codes.
+     */
+    ArrayList<String> getRemovedCourseCodes() {
+        return removedCourseCodes;
+    }
+
+    /**
+     * Reads a course together with all its index numbers from the catalogue. The students of the index numbers are
+     * not read.
+     * The number of registered and wait listed students, the position and the checksum of the student list of each
+     * index number are kept in studentLists.
+     * @param catalogue The buffer positioned at the course.
+     * @return The {@code Course} object.
+     * @throws IOException if the catalogue ends before the course does.
+     */
+    private Course readCourse(ByteBuffer catalogue) throws IOException {
+        String courseName = readString(catalogue);
+        String courseCode = readString(catalogue);
+        School school = School.values()[catalogue.get()];
+        int au = catalogue.getInt();
+        Course course = new Course(courseName, courseCode, school, au);
+
+        int indexNumberCount = readCount(catalogue);
+        ArrayList<IndexNumber> courseIndexNumbers = new ArrayList<>(indexNumberCount);
+        for (int i = 0; i < indexNumberCount; i++) {
+            int recordId = catalogue.getInt();
+            int id = catalogue.getInt();
+            int maxVacancy = catalogue.getInt();
+
+            int lessonCount = readCount(catalogue);
+            ArrayList<Lesson> lessons = new ArrayList<>(lessonCount);
+            for (int j = 0; j < lessonCount; j++) {
+                LessonType lessonType = LessonType.values()[catalogue.get()];
+                DayOfWeek dayOfWeek = DayOfWeek.of(catalogue.get());
+                LocalTime startTime = LocalTime.ofSecondOfDay(catalogue.getInt());
+                LocalTime endTime = LocalTime.ofSecondOfDay(catalogue.getInt());
+                lessons.add(new Lesson(lessonType, dayOfWeek, startTime, endTime));
+            }
+
+            IndexNumber indexNumber = new IndexNumber(id, course, lessons, maxVacancy);
+            if (recordId <= 0) {
+                throw new StreamCorruptedException("snapshot contains an invalid record id " + recordId);
+            }
+            indexNumber.setRecordId(recordId);
+            int[] studentList = { catalogue.getInt(), catalogue.getInt(), catalogue.getInt(), catalogue.getInt() };
+            if (studentList[0] < 0 || studentList[1] < 0 || studentList[2] < 0 || listsOffset + (long) studentList[2]
+                    + ((long) studentList[0] + studentList[1]) * 4 > recordIndexOffset) {
+                throw new StreamCorruptedException("snapshot refers to a student list it does not contain");
+            }
+            studentLists.put(recordId, studentList);
+
+            courseIndexNumbers.add(indexNumber);
+        }
+        course.setIndexNumbers(courseIndexNumbers);
+
+        return course;
+    }
+
+    /**
+     * Finds a student in the user id table.
+     * @param userId The user id of the student.
+     * @return The position of the student in the record index, or -1 if there is no student with the user id.
+     * @throws UncheckedIOException if the user id table or the record of a student with the same hash code is
+     *                              corrupted.
+     */
+    int findUserId(String userId) {
+        int hash = userId.hashCode();
+        int slot = bucket(hash, userTableCapacity);
+        for (int probes = 0; probes < userTableCapacity; probes++) {
+            int entry = userTableOffset + slot * MappedSnapshotWriter.USER_TABLE_ENTRY_SIZE;
+            int index = payload.getInt(entry + 4) - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (payload.getInt(entry) == hash && userId.equals(readUserId(readRecord(checkIndex(index))))) {
+                return index;
+            }
+            slot = (slot + 1) & (userTableCapacity - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a student in the record index by binary search.
+     * @param recordId The record id of the student.
+     * @return The position of the student in the record index, or -1 if there is no student with the record id.
+     */
+    int findRecordId(int recordId) {
+        int low = 0;
+        int high = studentCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleRecordId = getRecordId(middle);
+            if (middleRecordId < recordId) {
+                low = middle + 1;
+            } else if (middleRecordId > recordId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the user id of a student.
+     * @param index The position of the student in the record index.
+     * @return The user id of the student.
+     * @throws UncheckedIOException if the record of the student is corrupted.
+     */
+    String readUserId(int index) {
+        return readUserId(readRecord(index));
+    }
+
+    /**
+     * Reads a student and its time table.
+     * @param index The position of the student in the record index.
+     * @param indexNumbersByRecordId The index numbers that the time table can refer to. The key is the record id of
+     *                               the index number.
+     * @return The {@code Student} object.
+     * @throws UncheckedIOException if the record of the student is corrupted or refers to an unknown index number.
+     */
+    Student readStudent(int index, HashMap<Integer, IndexNumber> indexNumbersByRecordId) {
+        return readStudent(readRecord(index), indexNumbersByRecordId);
+    }
+
+    /**
+     * Returns the smallest record id that is not taken by any of the students in the segment.
+     * @return The next student record id.
+     */
+    int getNextRecordId() {
+        return nextStudentRecordId;
+    }
+
+    /**
+     * Returns the number of students registered for an index number in the segment.
+     * @param indexNumberRecordId The record id of the index number.
+     * @return The number of registered students.
+     */
+    int getRegisteredCount(int indexNumberRecordId) {
+        return studentLists.get(indexNumberRecordId)[0];
+    }
+
+    /**
+     * Returns the number of students in the segment.
+     * @return The number of students in the segment.
+     */
+    int getStudentCount() {
+        return studentCount;
+    }
+
+    /**
+     * Returns the record id of a student.
+     * @param index The position of the student in the record index.
+     * @return The record id of the student.
+     */
+    int getRecordId(int index) {
+        return payload.getInt(recordIndexOffset + index * MappedSnapshotWriter.RECORD_INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the hash code of the user id of a student.
+     * @param index The position of the student in the record index.
+     * @return The hash code of the user id of the student.
+     */
+    int getUserIdHash(int index) {
+        return payload.getInt(recordIndexOffset + index * MappedSnapshotWriter.RECORD_INDEX_ENTRY_SIZE + 4);
+    }
+
+    /**
+     * Returns the bytes of the record of a student, including its length and checksum, after verifying them.
+     * @param index The position of the student in the record index.
+     * @return The bytes of the record.
+     * @throws UncheckedIOException if the record is corrupted.
+     */
+    byte[] copyRecord(int index) {
+        ByteBuffer record = readRecord(index);
+        byte[] bytes = new byte[MappedSnapshotWriter.RECORD_HEADER_SIZE + record.remaining()];
+        ByteBuffer copy = payload.duplicate();
+        copy.position(record.position() - MappedSnapshotWriter.RECORD_HEADER_SIZE);
+        copy.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads the record ids of the students registered for an index number.
+     * @param indexNumberRecordId The record id of the index number.
+     * @return The record ids of the registered students, in the order they registered.
+     * @throws UncheckedIOException if the student list of the index number is corrupted.
+     */
+    int[] readRegisteredRecordIds(int indexNumberRecordId) {
+        int[] studentList = readStudentList(indexNumberRecordId);
+        int[] recordIds = new int[getRegisteredCount(indexNumberRecordId)];
+        System.arraycopy(studentList, 0, recordIds, 0, recordIds.length);
+        return recordIds;
+    }
+
+    /**
+     * Reads the record ids of the students in the wait list of an index number.
+     * @param indexNumberRecordId The record id of the index number.
+     * @return The record ids of the wait listed students, in the order they joined the wait list.
+     * @throws UncheckedIOException if the student list of the index number is corrupted.
+     */
+    int[] readWaitListRecordIds(int indexNumberRecordId) {
+        int[] studentList = readStudentList(indexNumberRecordId);
+        int registeredCount = getRegisteredCount(indexNumberRecordId);
+        int[] recordIds = new int[studentList.length - registeredCount];
+        System.arraycopy(studentList, registeredCount, recordIds, 0, recordIds.length);
+        return recordIds;
+    }
+
+    /**
+     * Returns the slot of the user id table where the lookup of a hash code starts. The bits of the hash code are mixed
+     * first since user ids that only differ in their last characters have hash codes that only differ in their low
+     * bits.
+     * @param hash The hash code of a user id.
+     * @param capacity The number of slots of the user id table, which is a power of two.
+     * @return The slot where the lookup starts.
+     */
+    static int bucket(int hash, int capacity) {
+        int mixed = (hash ^ (hash >>> 16)) * 0x9e3779b1;
+        return (mixed ^ (mixed >>> 16)) & (capacity - 1);
+    }
+
+    /**
+     * Reads the record ids of the registered and wait listed students of an index number, after verifying their
+     * checksum.
+     * @param indexNumberRecordId The record id of the index number.
+     * @return The record ids of the registered students followed by those of the wait listed students.
+     * @throws UncheckedIOException if the student list of the index number is corrupted.
+     */
+    private int[] readStudentList(int indexNumberRecordId) {
+        int[] studentList = studentLists.get(indexNumberRecordId);
+        int registeredCount = studentList[0];
+        int waitListCount = studentList[1];
+        ByteBuffer list = payload.duplicate();
+        list.position(listsOffset + studentList[2]);
+        list.limit(list.position() + (registeredCount + waitListCount) * 4);
+
+        CRC32 crc = new CRC32();
+        crc.update(list.duplicate());
+        if ((int) crc.getValue() != studentList[3]) {
+            throw new UncheckedIOException(new StreamCorruptedException(
+                    "student list of index number record " + indexNumberRecordId + " is corrupted"));
+        }
+
+        int[] recordIds = new int[registeredCount + waitListCount];
+        list.asIntBuffer().get(recordIds);
+        return recordIds;
+    }
+
+    /**
+     * Returns the contents of the record of a student after verifying its length and checksum.
+     * @param index The position of the student in the record index.
+     * @return A buffer positioned at the start and limited to the end of the contents of the record.
+     * @throws UncheckedIOException if the record is corrupted.
+     */
+    private ByteBuffer readRecord(int index) {
+        long position = recordsOffset + (long) payload.getInt(recordIndexOffset
+                + index * MappedSnapshotWriter.RECORD_INDEX_ENTRY_SIZE + 8);
+        if (position < recordsOffset || position + MappedSnapshotWriter.RECORD_HEADER_SIZE > payload.limit()) {
+            throw corruptedRecord(index);
+        }
+        int length = payload.getInt((int) position);
+        int checksum = payload.getInt((int) position + 4);
+        long start = position + MappedSnapshotWriter.RECORD_HEADER_SIZE;
+        if (length < 0 || start + length > payload.limit()) {
+            throw corruptedRecord(index);
+        }
+
+        ByteBuffer record = payload.duplicate();
+        record.limit((int) start + length).position((int) start);
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw corruptedRecord(index);
+        }
+        return record;
+    }
+
+    /**
+     * Reads the user id from the contents of the record of a student, without moving the buffer.
+     * @param record The buffer positioned at the start of the contents of the record.
+     * @return The user id of the student.
+     * @throws UncheckedIOException if the record is corrupted.
+     */
+    private String readUserId(ByteBuffer record) {
+        ByteBuffer copy = record.duplicate();
+        try {
+            copy.getInt();
+            return readString(copy);
+        } catch (BufferUnderflowException | IOException e) {
+            throw new UncheckedIOException(new StreamCorruptedException("student record is corrupted"));
+        }
+    }
+
+    /**
+     * Reads a student and its time table from the contents of its record.
+     * @param record The buffer positioned at the start of the contents of the record.
+     * @param indexNumbersByRecordId The index numbers that the time table can refer to.
+     * @return The {@code Student} object.
+     * @throws UncheckedIOException if the record is corrupted.
+     */
+    private Student readStudent(ByteBuffer record, HashMap<Integer, IndexNumber> indexNumbersByRecordId) {
+        record = record.duplicate();
+        try {
+            int recordId = record.getInt();
+            String userId = readString(record);
+            String name = readString(record);
+            String matricNumber = readString(record);
+            String nationality = readString(record);
+            String emailAddress = readString(record);
+            Gender gender = Gender.values()[record.get()];
+            AccessTime accessTime = new AccessTime(readDateTime(record), readDateTime(record));
+
+            Student student = new Student(name, userId, matricNumber, nationality, emailAddress, gender, accessTime);
+            student.setRecordId(recordId);
+            readIndexNumbers(record, student, false, indexNumbersByRecordId);
+            readIndexNumbers(record, student, true, indexNumbersByRecordId);
+
+            return student;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | DateTimeException | IOException e) {
+            throw new UncheckedIOException(new StreamCorruptedException("student record is corrupted"));
+        }
+    }
+
+    /**
+     * Reads the registered or wait listed index numbers of a time table and enrols the student in them, which keeps
+     * the AUs of the time table up to date.
+     * @param record The buffer positioned at the index numbers.
+     * @param student The {@code Student} whose time table is read.
+     * @param waitListed true if the wait listed index numbers are read; false if the registered ones are.
+     * @param indexNumbersByRecordId The index numbers that the time table can refer to.
+     * @throws IOException if the record ends before the index numbers do or refers to an unknown index number.
+     */
+    private void readIndexNumbers(ByteBuffer record, Student student, boolean waitListed,
+                                  HashMap<Integer, IndexNumber> indexNumbersByRecordId) throws IOException {
+        int count = readCount(record);
+        for (int i = 0; i < count; i++) {
+            String courseCode = readString(record);
+            IndexNumber indexNumber = indexNumbersByRecordId.get(record.getInt());
+            if (indexNumber == null) {
+                throw new StreamCorruptedException("snapshot refers to an index number it does not contain");
+            }
+            student.enrol(courseCode, indexNumber, waitListed);
+        }
+    }
+
+    /**
+     * Reads a date-time written as the number of seconds since the epoch and the nanoseconds within that second.
+     * @param buffer The buffer positioned at the date-time.
+     * @return The {@code LocalDateTime} object.
+     */
+    private LocalDateTime readDateTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads a string written as its length in bytes and its UTF-8 bytes.
+     * @param buffer The buffer positioned at the string.
+     * @return The string.
+     * @throws IOException if the buffer ends before the string does.
+     */
+    private String readString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[readCount(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the number of items that follow, which can never be more than the number of bytes left.
+     * @param buffer The buffer positioned at the number.
+     * @return The number of items that follow.
+     * @throws IOException if the number is negative or too large.
+     */
+    private int readCount(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new StreamCorruptedException("snapshot is truncated");
+        }
+        return count;
+    }
+
+    /**
+     * Checks that a position in the record index, taken from the user id table, is within the record index.
+     * @param index The position in the record index.
+     * @return The position in the record index.
+     * @throws UncheckedIOException if the position is not within the record index.
+     */
+    private int checkIndex(int index) {
+        if (index >= studentCount) {
+            throw new UncheckedIOException(new StreamCorruptedException("user id table is corrupted"));
+        }
+        return index;
+    }
+
+    /**
+     * Creates the exception reporting a corrupted student record.
+     * @param index The position of the student in the record index.
+     * @return The {@code UncheckedIOException} to be thrown.
+     */
+    private UncheckedIOException corruptedRecord(int index) {
+        return new UncheckedIOException(new StreamCorruptedException("student record " + index + " is corrupted"));
+    }
+}
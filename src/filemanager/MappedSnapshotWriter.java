@@ -0,0 +1,441 @@
+package filemanager;
+
+import model.AccessTime;
+import model.ChangeSet;
+import model.Course;
+import model.IStudentLoader;
+import model.IndexNumber;
+import model.Lesson;
+import model.Storage;
+import model.Student;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * This class is responsible for encoding a {@code Storage} object into the snapshot layout read by
+ * {@code MappedSnapshot}. The layout is meant to be memory-mapped rather than decoded as a whole: the courses and index
+ * numbers are at the front and are read straight away, while every student is a separate record that is only read
+ * when it is first asked for, through an index of the records by record id and a hash table of the records by user
+ * id. Nothing in a student record refers to a position in the snapshot, so the records of students that have not been
+ * read since the last snapshot was loaded are copied into the next snapshot as they are.
+ *
+ * <p>The same layout is used for deltas, which only hold the courses and students that changed since the previous
+ * segment together with the course codes of the courses that were removed, and are laid over a whole snapshot by
+ * {@code SegmentedSnapshot}.</p>
+ *
+ * <p>The layout starts with a header of nine ints, in this order: the length of the part that is read straight away
+ * (the header and the catalogue), the layout version, the number of students, the next student record id, the
+ * positions of the student lists, the record index and the user id table, the capacity of the user id table and the
+ * position of the student records. The sections follow in that order:</p>
+ * <ol>
+ *     <li>the catalogue: the number of courses, then for each course its name, course code, school, AUs and index
+ *     numbers. Each index number is written as its record id, its ID, its maximum vacancy, its lessons, the number of
+ *     its registered and wait listed students and the position and CRC32 checksum of its student list. The courses
+ *     are followed by the number of removed course codes and the course codes themselves;</li>
+ *     <li>the student lists: for each index number, the record ids of its registered and then its wait listed
+ *     students in order;</li>
+ *     <li>the record index: for each student in increasing order of record id, its record id, the hash code of its user
+ *     id and the position of its record;</li>
+ *     <li>the user id table: an open-addressing hash table of pairs of the hash code of a user id and one more than
+ *     the position of the student in the record index, or zero for an empty slot;</li>
+ *     <li>the student records: for each student, the length and CRC32 checksum of the record, then its record id,
+ *     user ID, name, matriculation number, nationality, email address, gender, access time and the course codes and
+ *     record ids of its registered and wait listed index numbers.</li>
+ * </ol>
+ * All positions are relative to the start of their section, and every string is written as its length in bytes and
+ * its UTF-8 bytes.
+ * @see MappedSnapshot
+ */
+public class MappedSnapshotWriter {
+    /**
+     * The version of the layout written into every snapshot, to be increased whenever the layout changes.
+     */
+    public static final int LAYOUT_VERSION = 2;
+
+    /**
+     * The version of the layout that added the removed course codes to the catalogue.
+     */
+    static final int DELTA_LAYOUT_VERSION = 2;
+
+    /**
+     * The oldest version of the layout that can still be read.
+     */
+    static final int FIRST_LAYOUT_VERSION = 1;
+
+    /**
+     * The size in bytes of the header.
+     */
+    static final int HEADER_SIZE = 36;
+
+    /**
+     * The size in bytes of an entry of the record index.
+     */
+    static final int RECORD_INDEX_ENTRY_SIZE = 12;
+
+    /**
+     * The size in bytes of a slot of the user id table.
+     */
+    static final int USER_TABLE_ENTRY_SIZE = 8;
+
+    /**
+     * The size in bytes of the length and checksum in front of every student record.
+     */
+    static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The bytes of the student record being encoded.
+     */
+    private ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+
+    /**
+     * Encodes a {@code Storage} object as a whole snapshot. If its students are read on demand from a
+     * {@code SegmentedSnapshot}, the records and student lists that have not been read yet are copied from there
+     * instead of being read.
+     * @param storage The {@code Storage} object to be encoded.
+     * @return The encoded {@code Storage} object.
+     * @throws IOException if the {@code Storage} object refers to a student or index number without a record id, or
+     * two students have the same record id.
+     */
+    public byte[] write(Storage storage) throws IOException {
+        return encode(storage.getAllCourses(), new ArrayList<>(), storage.getLoadedStudents(),
+                previousOf(storage), true);
+    }
+
+    /**
+     * Encodes the courses and students of a {@code Storage} object that have changed as a delta, to be laid over the
+     * segments that were saved before. A course is written with all its index numbers and their student lists.
+     * @param storage The {@code Storage} object to be encoded.
+     * @param changes The {@code ChangeSet} object of the students and courses that have changed since the previous
+     *                segment was saved.
+     * @return The encoded delta.
+     * @throws IOException if the {@code Storage} object refers to a student or index number without a record id, or
+     * two students have the same record id.
+     */
+    public byte[] writeDelta(Storage storage, ChangeSet changes) throws IOException {
+        ArrayList<Course> courses = new ArrayList<>();
+        for (String courseCode: new TreeSet<>(changes.getCourseCodes())) {
+            Course course = storage.getCourse(courseCode);
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        ArrayList<Student> students = new ArrayList<>();
+        for (String userId: changes.getStudentUserIds()) {
+            Student student = storage.getStudent(userId);
+            if (student != null) {
+                students.add(student);
+            }
+        }
+        return encode(courses, new ArrayList<>(new TreeSet<>(changes.getRemovedCourseCodes())), students,
+                previousOf(storage), false);
+    }
+
+    /**
+     * Returns the {@code SegmentedSnapshot} that the students of a {@code Storage} object are read from on demand.
+     * @param storage The {@code Storage} object.
+     * @return The {@code SegmentedSnapshot} object, or null if the students are not read from one.
+     */
+    private SegmentedSnapshot previousOf(Storage storage) {
+        IStudentLoader studentLoader = storage.getStudentLoader();
+        return studentLoader instanceof SegmentedSnapshot ? (SegmentedSnapshot) studentLoader : null;
+    }
+
+    /**
+     * Encodes courses and students into a segment.
+     * @param courses The courses to be written, with all their index numbers.
+     * @param removedCourseCodes The course codes of the courses that were removed.
+     * @param students The students to be written.
+     * @param previous The {@code SegmentedSnapshot} that the students are read from on demand, or null.
+     * @param copyUnloadedStudents Whether the records of the students in previous that have not been read are copied
+     *                             into the segment as well, i.e. whether a whole snapshot is written.
+     * @return The encoded segment.
+     * @throws IOException if a course refers to a student or index number without a record id, or two students have
+     * the same record id.
+     */
+    private byte[] encode(ArrayList<Course> courses, ArrayList<String> removedCourseCodes, ArrayList<Student> students,
+                          SegmentedSnapshot previous, boolean copyUnloadedStudents) throws IOException {
+        ByteArrayOutputStream catalogueBytes = new ByteArrayOutputStream(1 << 16);
+        ByteArrayOutputStream listBytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream catalogue = new DataOutputStream(catalogueBytes);
+        DataOutputStream lists = new DataOutputStream(listBytes);
+        catalogue.writeInt(courses.size());
+        for (Course course: courses) {
+            writeCourse(catalogue, lists, course, previous);
+        }
+        catalogue.writeInt(removedCourseCodes.size());
+        for (String courseCode: removedCourseCodes) {
+            writeString(catalogue, courseCode);
+        }
+
+        HashMap<Integer, Student> studentsToWrite = new HashMap<>(students.size() * 2);
+        for (Student student: students) {
+            studentsToWrite.put(student.getRecordId(), student);
+        }
+        int copiedCount = previous != null && copyUnloadedStudents ? previous.getRecordCount() : 0;
+        int studentCount = copiedCount + students.size();
+        ByteArrayOutputStream recordIndexBytes = new ByteArrayOutputStream(studentCount * RECORD_INDEX_ENTRY_SIZE);
+        ByteArrayOutputStream recordsBytes = new ByteArrayOutputStream(studentCount * 128 + 16);
+        DataOutputStream recordIndex = new DataOutputStream(recordIndexBytes);
+        DataOutputStream records = new DataOutputStream(recordsBytes);
+        ArrayList<Integer> userIdHashes = new ArrayList<>(studentCount);
+        int lastRecordId = 0;
+
+        for (int i = 0; i < copiedCount; i++) {
+            int recordId = previous.getRecordId(i);
+            Student student = studentsToWrite.remove(recordId);
+            int position = recordsBytes.size();
+            int userIdHash;
+            if (student == null) {
+                records.write(previous.copyRecord(i));
+                userIdHash = previous.getUserIdHash(i);
+            } else {
+                writeStudent(records, student);
+                userIdHash = student.getUserId().hashCode();
+            }
+            lastRecordId = writeRecordIndexEntry(recordIndex, lastRecordId, recordId, userIdHash, position);
+            userIdHashes.add(userIdHash);
+        }
+
+        ArrayList<Student> remainingStudents = new ArrayList<>(studentsToWrite.values());
+        remainingStudents.sort(Comparator.comparingInt(Student::getRecordId));
+        for (Student student: remainingStudents) {
+            int position = recordsBytes.size();
+            writeStudent(records, student);
+            lastRecordId = writeRecordIndexEntry(recordIndex, lastRecordId, student.getRecordId(),
+                    student.getUserId().hashCode(), position);
+            userIdHashes.add(student.getUserId().hashCode());
+        }
+
+        int userTableCapacity = userTableCapacity(userIdHashes.size());
+        int[] userTable = new int[userTableCapacity * 2];
+        for (int i = 0; i < userIdHashes.size(); i++) {
+            int hash = userIdHashes.get(i);
+            int slot = MappedSnapshot.bucket(hash, userTableCapacity);
+            while (userTable[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & (userTableCapacity - 1);
+            }
+            userTable[slot * 2] = hash;
+            userTable[slot * 2 + 1] = i + 1;
+        }
+
+        int eagerLength = HEADER_SIZE + catalogueBytes.size();
+        int listsOffset = eagerLength;
+        int recordIndexOffset = listsOffset + listBytes.size();
+        int userTableOffset = recordIndexOffset + recordIndexBytes.size();
+        int recordsOffset = userTableOffset + userTableCapacity * USER_TABLE_ENTRY_SIZE;
+        long totalLength = (long) recordsOffset + recordsBytes.size();
+        if (totalLength > Integer.MAX_VALUE) {
+            throw new IOException("Storage is too large for a snapshot");
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate((int) totalLength);
+        payload.putInt(eagerLength).putInt(LAYOUT_VERSION).putInt(userIdHashes.size())
+                .putInt(Math.max(lastRecordId + 1, copiedCount == 0 ? 1 : previous.getNextRecordId()))
+                .putInt(listsOffset).putInt(recordIndexOffset).putInt(userTableOffset).putInt(userTableCapacity)
+                .putInt(recordsOffset);
+        payload.put(catalogueBytes.toByteArray());
+        payload.put(listBytes.toByteArray());
+        payload.put(recordIndexBytes.toByteArray());
+        payload.asIntBuffer().put(userTable);
+        payload.position(recordsOffset);
+        payload.put(recordsBytes.toByteArray());
+
+        return payload.array();
+    }
+
+    /**
+     * Encodes a course together with all its index numbers into the catalogue, and the students of each index number
+     * into the student lists.
+     * @param catalogue The stream of the catalogue.
+     * @param lists The stream of the student lists.
+     * @param course The {@code Course} object to be encoded.
+     * @param previous The {@code SegmentedSnapshot} that the students are read from on demand, or null.
+     * @throws IOException if an index number or one of its students does not have a record id.
+     */
+    private void writeCourse(DataOutputStream catalogue, DataOutputStream lists, Course course,
+                             SegmentedSnapshot previous) throws IOException {
+        writeString(catalogue, course.getCourseName());
+        writeString(catalogue, course.getCourseCode());
+        catalogue.writeByte(course.getSchool().ordinal());
+        catalogue.writeInt(course.getAu());
+
+        ArrayList<IndexNumber> indexNumbers = course.getIndexNumbers() == null
+                ? new ArrayList<>() : course.getIndexNumbers();
+        catalogue.writeInt(indexNumbers.size());
+        for (IndexNumber indexNumber: indexNumbers) {
+            if (indexNumber.getRecordId() == 0) {
+                throw new IOException("Index number " + indexNumber.getId() + " is not in the storage");
+            }
+            catalogue.writeInt(indexNumber.getRecordId());
+            catalogue.writeInt(indexNumber.getId());
+            catalogue.writeInt(indexNumber.getMaxVacancy());
+
+            catalogue.writeInt(indexNumber.getLessons().size());
+            for (Lesson lesson: indexNumber.getLessons()) {
+                catalogue.writeByte(lesson.getLessonType().ordinal());
+                catalogue.writeByte(lesson.getDayOfWeek().getValue());
+                catalogue.writeInt(lesson.getStartTime().toSecondOfDay());
+                catalogue.writeInt(lesson.getEndTime().toSecondOfDay());
+            }
+
+            int[] registered;
+            int[] waitList;
+            if (previous != null && indexNumber.getStudentLoader() == previous) {
+                registered = previous.readRegisteredRecordIds(indexNumber);
+                waitList = previous.readWaitListRecordIds(indexNumber);
+            } else {
+                registered = recordIdsOf(indexNumber.getRegisteredStudents());
+                waitList = recordIdsOf(indexNumber.getWaitListStudents());
+            }
+            ByteBuffer list = ByteBuffer.allocate((registered.length + waitList.length) * 4);
+            list.asIntBuffer().put(registered).put(waitList);
+            CRC32 crc = new CRC32();
+            crc.update(list.array());
+
+            catalogue.writeInt(registered.length);
+            catalogue.writeInt(waitList.length);
+            catalogue.writeInt(lists.size());
+            catalogue.writeInt((int) crc.getValue());
+            lists.write(list.array());
+        }
+    }
+
+    /**
+     * Returns the record ids of a list of students.
+     * @param students The list of students.
+     * @return The record ids of the students, in the same order.
+     * @throws IOException if one of the students does not have a record id.
+     */
+    private int[] recordIdsOf(Collection<Student> students) throws IOException {
+        int[] recordIds = new int[students.size()];
+        int i = 0;
+        for (Student student: students) {
+            if (student.getRecordId() == 0) {
+                throw new IOException("Student " + student.getUserId() + " is not in the storage");
+            }
+            recordIds[i++] = student.getRecordId();
+        }
+        return recordIds;
+    }
+
+    /**
+     * Encodes a student as a record, preceded by the length and checksum of the record.
+     * @param records The stream of the student records.
+     * @param student The {@code Student} object to be encoded.
+     * @throws IOException if one of the index numbers of the student does not have a record id.
+     */
+    private void writeStudent(DataOutputStream records, Student student) throws IOException {
+        recordBytes.reset();
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        record.writeInt(student.getRecordId());
+        writeString(record, student.getUserId());
+        writeString(record, student.getName());
+        writeString(record, student.getMatricNumber());
+        writeString(record, student.getNationality());
+        writeString(record, student.getEmailAddress());
+        record.writeByte(student.getGender().ordinal());
+        writeAccessTime(record, student.getAccessTime());
+        writeIndexNumbers(record, student.getRegisteredIndexNumbers());
+        writeIndexNumbers(record, student.getWaitListIndexNumbers());
+
+        byte[] bytes = recordBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        records.writeInt(bytes.length);
+        records.writeInt((int) crc.getValue());
+        records.write(bytes);
+    }
+
+    /**
+     * Appends an entry to the record index.
+     * @param recordIndex The stream of the record index.
+     * @param lastRecordId The record id of the previous entry, or 0 if there is none.
+     * @param recordId The record id of the student.
+     * @param userIdHash The hash code of the user id of the student.
+     * @param position The position of the record of the student.
+     * @return The record id of the student.
+     * @throws IOException if the record id is not larger than the record id of the previous entry, i.e. the student
+     * does not have a record id or two students have the same record id.
+     */
+    private int writeRecordIndexEntry(DataOutputStream recordIndex, int lastRecordId, int recordId, int userIdHash,
+                                      int position) throws IOException {
+        if (recordId <= lastRecordId) {
+            throw new IOException("Student record id " + recordId + " is missing or not unique");
+        }
+        recordIndex.writeInt(recordId);
+        recordIndex.writeInt(userIdHash);
+        recordIndex.writeInt(position);
+        return recordId;
+    }
+
+    /**
+     * Encodes the index numbers of a time table as pairs of course codes and index number record ids.
+     * @param record The stream of the student record.
+     * @param indexNumbers The course codes and index numbers of the time table.
+     * @throws IOException if one of the index numbers does not have a record id.
+     */
+    private void writeIndexNumbers(DataOutputStream record, HashMap<String, IndexNumber> indexNumbers)
+            throws IOException {
+        record.writeInt(indexNumbers.size());
+        for (Map.Entry<String, IndexNumber> entry: indexNumbers.entrySet()) {
+            if (entry.getValue().getRecordId() == 0) {
+                throw new IOException("Index number " + entry.getValue().getId() + " is not in the storage");
+            }
+            writeString(record, entry.getKey());
+            record.writeInt(entry.getValue().getRecordId());
+        }
+    }
+
+    /**
+     * Encodes an access time as the start and end date-times, each as the number of seconds since the epoch and the
+     * nanoseconds within that second.
+     * @param record The stream of the student record.
+     * @param accessTime The {@code AccessTime} object to be encoded.
+     * @throws IOException if the stream could not be written.
+     */
+    private void writeAccessTime(DataOutputStream record, AccessTime accessTime) throws IOException {
+        for (LocalDateTime dateTime: new LocalDateTime[] { accessTime.getStart(), accessTime.getEnd() }) {
+            record.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            record.writeInt(dateTime.getNano());
+        }
+    }
+
+    /**
+     * Encodes a string as its length in bytes and its UTF-8 bytes.
+     * @param stream The stream to write to.
+     * @param string The string to be encoded.
+     * @throws IOException if the stream could not be written.
+     */
+    private void writeString(DataOutputStream stream, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    /**
+     * Returns the number of slots of the user id table for a number of students, which is a power of two that leaves
+     * at least half of the slots empty so that lookups only have to probe a few slots.
+     * @param studentCount The number of students.
+     * @return The number of slots of the user id table.
+     */
+    private int userTableCapacity(int studentCount) {
+        int capacity = 16;
+        while (capacity < studentCount * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
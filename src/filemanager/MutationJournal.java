@@ -0,0 +1,401 @@
+package filemanager;
+
+import model.EmailNotification;
+import model.Storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class is responsible for the append-only journal of changes made to the {@code Storage} object. Every change
+ * is appended as a {@code JournalRecord} and forced to disk before the change is reported as done, so that only the
+ * change itself has to be written instead of the whole {@code Storage} object. Records are appended in batches by the
+ * {@code GroupCommitter}, so that changes made at about the same time share a single force to disk. The journal is
+ * split into numbered segment files inside the journal folder so that the segments already covered by a whole
+ * snapshot can simply be deleted. Each record is framed by its length and a CRC32 checksum, so that a record that was
+ * only partly written when the program stopped is detected and discarded on replay.
+ * @see JournalRecord
+ */
+public class MutationJournal {
+    /**
+     * The file extension of the journal segment files.
+     */
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    /**
+     * The size in bytes of the frame header in front of each record, i.e. the length and the checksum of the record.
+     */
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    /**
+     * The {@code File} object that represents the folder in which the journal segments are stored in.
+     */
+    private File directory;
+
+    /**
+     * The channel of the segment that records are currently appended to.
+     */
+    private FileChannel currentSegment;
+
+    /**
+     * The number of the segment that records are currently appended to.
+     */
+    private long currentSegmentNumber;
+
+    /**
+     * The sequence number of the last record appended to or replayed from the journal.
+     */
+    private long lastSequence;
+
+    /**
+     * Constructs a new MutationJournal which stores its segments inside a particular folder.
+     * @param directory The {@code File} object representing the folder to store the journal segments in.
+     */
+    public MutationJournal(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Re-applies all the records in the journal that are newer than a snapshot to a {@code Storage} object, after which
+     * new records are appended to the last segment. Replay stops at the first record that is incomplete
+     * or corrupted, since none of the records after it can be applied safely; that record and everything after it is
+     * discarded. The records re-applied must carry on from the snapshot without any sequence number missing, since a
+     * missing record means changes that were reported as done would be lost.
+     * @param storage The {@code Storage} object loaded from the snapshot.
+     * @param snapshotSequence The sequence number of the last record already contained in the snapshot.
+     * @return The number of records that were re-applied.
+     * @throws IOException if the journal could not be read, a record is missing or could not be re-applied, or the new
+     * segment could not be created. The {@code Storage} object must not be used in that case.
+     */
+    public int replay(Storage storage, long snapshotSequence) throws IOException {
+        lastSequence = snapshotSequence;
+        int replayed = 0;
+        long[] segmentNumbers = listSegmentNumbers();
+
+        EmailNotification.setEnabled(false);
+        try {
+            replaySegments: for (int i = 0; i < segmentNumbers.length; i++) {
+                File segmentFile = getSegmentFile(segmentNumbers[i]);
+                byte[] bytes = Files.readAllBytes(segmentFile.toPath());
+                int position = 0;
+                while (position < bytes.length) {
+                    JournalRecord record = readFrame(bytes, position);
+                    if (record == null) {
+                        System.out.println("Discarding incomplete journal record in " + segmentFile.getName());
+                        truncate(segmentFile, position);
+                        deleteSegmentsAfter(segmentNumbers, i);
+                        break replaySegments;
+                    }
+                    position += FRAME_HEADER_SIZE + ByteBuffer.wrap(bytes, position, 4).getInt();
+
+                    if (record.getSequence() <= snapshotSequence) {
+                        continue;
+                    }
+                    if (record.getSequence() != lastSequence + 1) {
+                        throw new StreamCorruptedException("journal record " + record.getSequence() + " in "
+                                + segmentFile.getName() + " does not follow record " + lastSequence);
+                    }
+                    try {
+                        record.applyTo(storage);
+                    } catch (Exception e) {
+                        throw new IOException("Unable to re-apply journal record " + record.getSequence(), e);
+                    }
+                    lastSequence = record.getSequence();
+                    replayed++;
+                }
+            }
+        } finally {
+            EmailNotification.setEnabled(true);
+        }
+
+        long[] remainingSegmentNumbers = listSegmentNumbers();
+        if (remainingSegmentNumbers.length == 0) {
+            currentSegmentNumber = 0;
+            roll();
+        } else {
+            currentSegmentNumber = remainingSegmentNumbers[remainingSegmentNumbers.length - 1];
+            currentSegment = openSegment(currentSegmentNumber);
+        }
+
+        return replayed;
+    }
+
+    /**
+     * Encodes a record into the frame that is appended to the journal, i.e. the length and the checksum of the
+     * record followed by the record itself. The record must have been given its sequence number already.
+     * @param record The {@code JournalRecord} to be encoded.
+     * @return The frame containing the record.
+     * @throws IOException if the record could not be encoded.
+     */
+    public static byte[] encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        record.writeTo(out);
+        out.close();
+
+        byte[] frame = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(frame, FRAME_HEADER_SIZE, frame.length - FRAME_HEADER_SIZE);
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        buffer.putInt(0, frame.length - FRAME_HEADER_SIZE);
+        buffer.putInt(4, (int) crc.getValue());
+
+        return frame;
+    }
+
+    /**
+     * Appends a batch of encoded records to the journal and forces them to disk with a single write. If the batch
+     * could not be written, whatever part of it was written is cut off again, so that the records appended after it
+     * are not hidden behind an incomplete record on replay.
+     * @param frames The records encoded by {@link #encode(JournalRecord)}, in ascending order of sequence number.
+     * @param lastSequenceInBatch The sequence number of the last record in the batch.
+     * @throws IOException if the records could not be written to disk.
+     * @see GroupCommitter
+     */
+    public synchronized void append(List<byte[]> frames, long lastSequenceInBatch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[frames.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(frames.get(i));
+        }
+        long size = currentSegment.size();
+        try {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                currentSegment.write(buffers);
+            }
+            currentSegment.force(false);
+        } catch (IOException e) {
+            try {
+                currentSegment.truncate(size);
+            } catch (IOException truncateException) {
+                e.addSuppressed(truncateException);
+            }
+            throw e;
+        }
+        lastSequence = lastSequenceInBatch;
+    }
+
+    /**
+     * Returns the sequence number of the last record in the journal.
+     * @return The sequence number of the last record appended to or replayed from the journal.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Closes the current segment and starts appending to a new segment. The segments before the new segment can be
+     * deleted with {@link #deleteSegmentsUpTo(long)} once a whole snapshot containing their records has been saved.
+     * @return The number of the new segment.
+     * @throws IOException if the new segment could not be created.
+     */
+    public synchronized long roll() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.close();
+        }
+        currentSegmentNumber++;
+        currentSegment = openSegment(currentSegmentNumber);
+
+        return currentSegmentNumber;
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence number up to a particular one. Records are appended in
+     * order of sequence number, so the records of a segment all come before the first record of any segment after it;
+     * the segment that records are currently appended to is always kept.
+     * @param sequence The sequence number of the last record that no longer has to be kept.
+     * @throws IOException if the first record of a segment could not be read.
+     */
+    public synchronized void deleteSegmentsUpTo(long sequence) throws IOException {
+        long[] segmentNumbers = listSegmentNumbers();
+        long nextFirstSequence = lastSequence + 1;
+        for (int i = segmentNumbers.length - 1; i >= 0; i--) {
+            long firstSequence = readFirstSequence(segmentNumbers[i]);
+            if (segmentNumbers[i] < currentSegmentNumber && nextFirstSequence - 1 <= sequence) {
+                getSegmentFile(segmentNumbers[i]).delete();
+            }
+            if (firstSequence >= 0) {
+                nextFirstSequence = firstSequence;
+            }
+        }
+    }
+
+    /**
+     * Deletes every record in the journal and starts again from sequence number 0. This is used when the
+     * {@code Storage} object is rebuilt from the pre-loaded information, since the records no longer apply to it.
+     * @throws IOException if a new segment could not be created.
+     */
+    public synchronized void discardAll() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.close();
+            currentSegment = null;
+        }
+        for (long number: listSegmentNumbers()) {
+            getSegmentFile(number).delete();
+        }
+        lastSequence = 0;
+        currentSegmentNumber = 0;
+        roll();
+    }
+
+    /**
+     * Decodes the record framed at a particular position in a segment.
+     * @param bytes The contents of the segment.
+     * @param position The position of the frame in the segment.
+     * @return The {@code JournalRecord} that was decoded, or null if the frame is incomplete or corrupted.
+     */
+    private JournalRecord readFrame(byte[] bytes, int position) {
+        if (bytes.length - position < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.wrap(bytes, position, FRAME_HEADER_SIZE);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || length > bytes.length - position - FRAME_HEADER_SIZE) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, position + FRAME_HEADER_SIZE, length);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        try {
+            return JournalRecord.readFrom(new DataInputStream(
+                    new ByteArrayInputStream(bytes, position + FRAME_HEADER_SIZE, length)));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the sequence number of the first record in a segment.
+     * @param segmentNumber The number of the segment.
+     * @return The sequence number of the first record, or -1 if the segment is empty or its first record is
+     * incomplete or corrupted.
+     * @throws IOException if the segment could not be read.
+     */
+    private long readFirstSequence(long segmentNumber) throws IOException {
+        try (FileChannel channel = FileChannel.open(getSegmentFile(segmentNumber).toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FRAME_HEADER_SIZE) {
+                return -1;
+            }
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+            readFully(channel, header, 0);
+            int length = header.getInt(0);
+            if (length < 0 || length > size - FRAME_HEADER_SIZE) {
+                return -1;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + length);
+            readFully(channel, frame, 0);
+            JournalRecord record = readFrame(frame.array(), 0);
+            return record == null ? -1 : record.getSequence();
+        }
+    }
+
+    /**
+     * Reads from a channel at a particular position until the buffer is full or the end of the channel is reached.
+     * @param channel The {@code FileChannel} to read from.
+     * @param buffer The {@code ByteBuffer} to read into.
+     * @param position The position in the channel to start reading from.
+     * @throws IOException if the channel could not be read.
+     */
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Cuts off a segment at a particular position.
+     * @param segmentFile The {@code File} object representing the segment.
+     * @param length The new length of the segment.
+     * @throws IOException if the segment could not be cut off.
+     */
+    private void truncate(File segmentFile, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+            file.setLength(length);
+            file.getFD().sync();
+        }
+    }
+
+    /**
+     * Deletes all the segments after a particular segment.
+     * @param segmentNumbers The sorted numbers of all the segments.
+     * @param index The index of the last segment to be kept in segmentNumbers.
+     */
+    private void deleteSegmentsAfter(long[] segmentNumbers, int index) {
+        for (int i = index + 1; i < segmentNumbers.length; i++) {
+            getSegmentFile(segmentNumbers[i]).delete();
+        }
+    }
+
+    /**
+     * Returns the numbers of all the segments in the journal folder in ascending order.
+     * @return A sorted array of the numbers of all the segments.
+     */
+    private long[] listSegmentNumbers() {
+        String[] fileNames = directory.list();
+        if (fileNames == null) {
+            return new long[0];
+        }
+
+        ArrayList<Long> segmentNumbers = new ArrayList<>();
+        for (String fileName: fileNames) {
+            if (!fileName.endsWith(SEGMENT_EXTENSION)) {
+                continue;
+            }
+            try {
+                segmentNumbers.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length())));
+            } catch (NumberFormatException e) {
+                // not a segment of this journal
+            }
+        }
+
+        long[] sortedSegmentNumbers = segmentNumbers.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sortedSegmentNumbers);
+        return sortedSegmentNumbers;
+    }
+
+    /**
+     * Opens a particular segment for appending, creating it if it does not exist yet.
+     * @param segmentNumber The number of the segment.
+     * @return The {@code FileChannel} to append records to the segment.
+     * @throws IOException if the segment could not be opened.
+     */
+    private FileChannel openSegment(long segmentNumber) throws IOException {
+        directory.mkdirs();
+        return FileChannel.open(getSegmentFile(segmentNumber).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Returns the {@code File} object representing a particular segment.
+     * @param segmentNumber The number of the segment.
+     * @return The {@code File} object representing the segment.
+     */
+    private File getSegmentFile(long segmentNumber) {
+        return new File(directory, String.format("%016d", segmentNumber) + SEGMENT_EXTENSION);
+    }
+}
@@ -0,0 +1,256 @@
+package filemanager;
+
+import exception.ServerBusyException;
+import model.LoginInfo;
+import utility.PasswordHasher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is responsible for hashing passwords on a fixed number of worker threads, so that the cost of hashing
+ * salted passwords is kept off the threads of the users logging in. Hashes wait in a bounded queue for a free worker;
+ * once the queue is full, further hashes are turned away straight away instead of queueing up behind a crowd of users
+ * logging in at the start of an access period, and their users are asked to try again.
+ *
+ * <p>The number of hashes done per second, the average time a hash waits in the queue and the number of hashes
+ * turned away are measured, so that the cost of new hashes and the size of the pool can be tuned.</p>
+ * @see PasswordHasher
+ */
+public class PasswordHashingPool {
+    /**
+     * The length of the window over which the number of hashes per second is measured.
+     */
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The number of hashes that may wait in the queue for every worker thread, by default.
+     */
+    private static final int QUEUE_CAPACITY_PER_THREAD = 32;
+
+    /**
+     * The executor running the hashes.
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * The total number of hashes done.
+     */
+    private long totalHashes;
+
+    /**
+     * The total number of hashes turned away because the queue was full.
+     */
+    private long totalRejected;
+
+    /**
+     * The total time in nanoseconds that the hashes done waited in the queue.
+     */
+    private long totalQueueWaitNanos;
+
+    /**
+     * The total time in nanoseconds that the hashes done took to run.
+     */
+    private long totalHashNanos;
+
+    /**
+     * The number of hashes done per second over the last full window.
+     */
+    private volatile double hashesPerSecond;
+
+    /**
+     * The time at which the current window started.
+     */
+    private long windowStart;
+
+    /**
+     * The number of hashes done in the current window.
+     */
+    private long windowHashes;
+
+    /**
+     * Constructs a new PasswordHashingPool with a worker thread for every processor.
+     */
+    public PasswordHashingPool() {
+        this(Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors() * QUEUE_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * Constructs a new PasswordHashingPool.
+     * @param threads The number of worker threads.
+     * @param queueCapacity The maximum number of hashes waiting for a worker thread.
+     */
+    public PasswordHashingPool(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid number of threads or queue capacity");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        windowStart = System.nanoTime();
+    }
+
+    /**
+     * Checks whether a password matches saved login information on a worker thread, and waits for the result.
+     * @param password The password to be checked.
+     * @param loginInfo The saved {@code LoginInfo} object holding the hash of the password.
+     * @return true if the password matches; false otherwise, including if the saved salt or cost is not valid.
+     * @throws ServerBusyException if the queue is full.
+     */
+    public boolean verify(String password, LoginInfo loginInfo) throws ServerBusyException {
+        return run(() -> {
+            try {
+                return PasswordHasher.verify(password, loginInfo.getPassword(), loginInfo.getSalt(),
+                        loginInfo.getCost());
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Hashes the password of login information with a new salt and the default cost on a worker thread, and waits for
+     * the result.
+     * @param loginInfo The {@code LoginInfo} object holding the password.
+     * @return The {@code LoginInfo} object holding the hash of the password, to be saved.
+     * @throws ServerBusyException if the queue is full.
+     */
+    public LoginInfo hash(LoginInfo loginInfo) throws ServerBusyException {
+        return run(() -> saltAndHash(loginInfo));
+    }
+
+    /**
+     * Hashes the password of login information with a new salt and the default cost on the calling thread.
+     * @param loginInfo The {@code LoginInfo} object holding the password.
+     * @return The {@code LoginInfo} object holding the hash of the password, to be saved.
+     */
+    public static LoginInfo saltAndHash(LoginInfo loginInfo) {
+        String salt = PasswordHasher.newSalt();
+        return new LoginInfo(loginInfo.getAccountType(), loginInfo.getUserId(),
+                PasswordHasher.hash(loginInfo.getPassword(), salt, PasswordHasher.DEFAULT_COST), salt,
+                PasswordHasher.DEFAULT_COST);
+    }
+
+    /**
+     * Returns the number of hashes done per second over the last full window.
+     * @return The number of hashes per second.
+     */
+    public double getHashesPerSecond() {
+        return hashesPerSecond;
+    }
+
+    /**
+     * Returns the total number of hashes done.
+     * @return The number of hashes.
+     */
+    public synchronized long getTotalHashes() {
+        return totalHashes;
+    }
+
+    /**
+     * Returns the total number of hashes turned away because the queue was full.
+     * @return The number of hashes turned away.
+     */
+    public synchronized long getTotalRejected() {
+        return totalRejected;
+    }
+
+    /**
+     * Returns the average time the hashes done waited in the queue.
+     * @return The average wait in milliseconds, or 0 if no hash has been done.
+     */
+    public synchronized double getAverageQueueWaitMillis() {
+        return totalHashes == 0 ? 0 : totalQueueWaitNanos / 1e6 / totalHashes;
+    }
+
+    /**
+     * Returns the average time the hashes done took to run.
+     * @return The average time in milliseconds, or 0 if no hash has been done.
+     */
+    public synchronized double getAverageHashMillis() {
+        return totalHashes == 0 ? 0 : totalHashNanos / 1e6 / totalHashes;
+    }
+
+    /**
+     * Returns the number of hashes waiting in the queue.
+     * @return The length of the queue.
+     */
+    public int getQueueLength() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the worker threads once the hashes already queued are done.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs a hash on a worker thread and waits for its result.
+     * @param hash The hash to be run.
+     * @param <T> The type of the result.
+     * @return The result of the hash.
+     * @throws ServerBusyException if the queue is full, or the calling thread is interrupted while waiting.
+     */
+    private <T> T run(Callable<T> hash) throws ServerBusyException {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    recordHash(start - queuedAt, System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                totalRejected++;
+            }
+            throw new ServerBusyException();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Adds a hash that has been done to the measurements.
+     * @param queueWaitNanos The time in nanoseconds the hash waited in the queue.
+     * @param hashNanos The time in nanoseconds the hash took to run.
+     */
+    private synchronized void recordHash(long queueWaitNanos, long hashNanos) {
+        totalHashes++;
+        totalQueueWaitNanos += queueWaitNanos;
+        totalHashNanos += hashNanos;
+        windowHashes++;
+        long now = System.nanoTime();
+        if (now - windowStart >= RATE_WINDOW_NANOS) {
+            hashesPerSecond = windowHashes * (double) RATE_WINDOW_NANOS / (now - windowStart);
+            windowStart = now;
+            windowHashes = 0;
+        }
+    }
+}
@@ -0,0 +1,774 @@
+package filemanager;
+
+import exception.BulkImportException;
+import model.AccessTime;
+import model.AccessTimeIndex;
+import model.Course;
+import model.IndexNumber;
+import model.LoginInfo;
+import model.School;
+import model.Storage;
+import model.StorageInvariantChecker;
+import model.Student;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * This class is responsible for making every change to the Storage object on a single writer thread, in the order the
+ * changes are asked for, instead of letting many threads make changes under locks. Every change that
+ * {@code IStorageManager} exposes is turned into a {@code StorageCommand} and submitted to a {@code CommandRing}. The
+ * writer thread takes the commands in batches, makes each change, queues its journal record and completes the future
+ * of the command once the record is on disk, which the thread that asked for the change waits on. Since only one
+ * thread ever changes the Storage object, no locks are taken for the students and index numbers involved, and the
+ * changes are made and recorded in exactly the order they were submitted.
+ *
+ * <p>Loading, journaling and saving deltas are still done by a {@code StorageManager}, whose storage lock the writer
+ * thread holds on its shared side while it works through a batch, so that a delta is never taken halfway through
+ * one. Reads are served without going through the writer thread from views the writer thread publishes after the
+ * changes that affect them: an unmodifiable copy of the courses by course code, and for every student asked about an
+ * unmodifiable copy of the index numbers the student is registered for and has in the wait list. Queries that have to
+ * see the whole Storage object at one point in time, such as counting access periods or checking for problems, are
+ * submitted as commands like the changes are.</p>
+ *
+ * <p>The {@code StorageManager} is used instead of this class unless the program is started with the
+ * "stars.storagePipeline" system property set to true.</p>
+ * @see StorageCommand
+ * @see CommandRing
+ * @see StorageManager
+ */
+public class PipelinedStorageManager implements IStorageManager {
+    /**
+     * The default number of commands the ring can hold, which can be changed with the "stars.commandRingSize" system
+     * property.
+     */
+    private static final int DEFAULT_RING_SIZE = Math.max(2, Integer.getInteger("stars.commandRingSize", 4096));
+
+    /**
+     * The largest number of commands the writer thread takes from the ring at once.
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * The {@code StorageManager} that loads, journals and saves deltas of the Storage object.
+     * @see StorageManager
+     */
+    private StorageManager storageManager;
+
+    /**
+     * The Storage object, which only the writer thread changes.
+     * @see Storage
+     */
+    private Storage storage;
+
+    /**
+     * The ring through which commands are handed to the writer thread.
+     * @see CommandRing
+     */
+    private CommandRing ring;
+
+    /**
+     * The thread that runs every command.
+     */
+    private Thread writer;
+
+    /**
+     * The courses by course code, in the order the Storage object returns them, as of the last change that added,
+     * renamed or imported courses.
+     */
+    private volatile Map<String, Course> courses;
+
+    /**
+     * The index numbers that students are registered for and have in their wait list, as of the last change made to
+     * each of them. A student that is not in here has not been asked about since it last had to be dropped.
+     */
+    private ConcurrentHashMap<String, Enrolments> enrolments = new ConcurrentHashMap<>();
+
+    /**
+     * The total number of commands run by the writer thread.
+     */
+    private volatile long totalCommands;
+
+    /**
+     * The total number of batches of commands taken by the writer thread.
+     */
+    private volatile long totalBatches;
+
+    /**
+     * Constructs a new PipelinedStorageManager over a new {@code StorageManager} with the default ring size, and starts
+     * the writer thread.
+     */
+    public PipelinedStorageManager() {
+        this(new StorageManager(), DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * Constructs a new PipelinedStorageManager and starts the writer thread.
+     * @param storageManager The {@code StorageManager} that loads, journals and saves deltas of the Storage object,
+     *                       which must not be used for anything else afterwards.
+     * @param ringSize The number of commands the ring can hold.
+     */
+    public PipelinedStorageManager(StorageManager storageManager, int ringSize) {
+        this.storageManager = storageManager;
+        storage = storageManager.getStorage();
+        ring = new CommandRing(ringSize);
+        publishCourses(storage);
+
+        writer = new Thread(this::runWriter, "storage-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the number of changes written to disk per second.
+     * @return The number of journal records written per second.
+     * @see StorageManager#getCommitsPerSecond()
+     */
+    public double getCommitsPerSecond() {
+        return storageManager.getCommitsPerSecond();
+    }
+
+    /**
+     * Returns the average number of commands the writer thread has taken from the ring at once.
+     * @return The average number of commands in a batch, or 0 if none have been taken.
+     */
+    public double getAverageBatchSize() {
+        long batches = totalBatches;
+        return batches == 0 ? 0 : (double) totalCommands / batches;
+    }
+
+    /**
+     * Retrieves all the registered courses taken by a student from the published view of the student.
+     * @param student A {@code Student} object for which we are interested in the registered courses for.
+     * @return An ArrayList of {@code Course} taken by the student.
+     * @see Student
+     * @see Course
+     */
+    @Override
+    public ArrayList<Course> getCoursesTakenByStudent(Student student) {
+        return coursesOf(enrolmentsOf(student.getUserId()).registeredIndexNumbers.keySet());
+    }
+
+    /**
+     * Retrieves all the courses in the wait list by a student from the published view of the student.
+     * @param student A {@code Student} object for which we are interested in the courses in the wait list for.
+     * @return An ArrayList of {@code Course} containing the wait list courses by the student.
+     * @see Student
+     * @see Course
+     */
+    @Override
+    public ArrayList<Course> getCoursesInWaitListByStudent(Student student) {
+        return coursesOf(enrolmentsOf(student.getUserId()).waitListIndexNumbers.keySet());
+    }
+
+    /**
+     * Retrieves a copy of the registered index numbers of a student from the published view of the student.
+     * @param student A {@code Student} object for which we are interested in the registered index numbers for.
+     * @return A HashMap of the registered {@code IndexNumber} objects by course code.
+     */
+    @Override
+    public HashMap<String, IndexNumber> getIndexNumbersTakenByStudent(Student student) {
+        return new LinkedHashMap<>(enrolmentsOf(student.getUserId()).registeredIndexNumbers);
+    }
+
+    /**
+     * Retrieves a copy of the wait listed index numbers of a student from the published view of the student.
+     * @param student A {@code Student} object for which we are interested in the wait listed index numbers for.
+     * @return A HashMap of the wait listed {@code IndexNumber} objects by course code.
+     */
+    @Override
+    public HashMap<String, IndexNumber> getIndexNumbersInWaitListByStudent(Student student) {
+        return new LinkedHashMap<>(enrolmentsOf(student.getUserId()).waitListIndexNumbers);
+    }
+
+    /**
+     * Add a new course into the storage object and save the storage object.
+     * @param course The {@code Course} object containing all the information of the new course to be added into the storage.
+     * @see Course
+     */
+    @Override
+    public void addCourse(Course course) {
+        change((storage, command) -> {
+            storage.addCourse(course);
+            command.record(JournalRecord.addCourse(course));
+            publishCourses(storage);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a {@code Course} object that represents the course with a particular course code provided from the
+     * published courses.
+     * @param courseCode The course code of the particular {@code Course} object to be retrieved.
+     * @return A {@code Course} object with the courseCode specified.
+     * @see Course
+     */
+    @Override
+    public Course getCourse(String courseCode) {
+        return courses.get(courseCode);
+    }
+
+    /**
+     * Contains the logic to register a student for a particular course and index number.
+     * @param userId The user id of the student to register the course and index number for.
+     * @param courseCodeToBeAdded The course code of the course to register the student for.
+     * @param indexNumberToBeAdded The {@code IndexNumber} object to register the student for.
+     * @throws Exception the exceptions thrown by {@link StorageManager#registerForCourse(String, String, IndexNumber)},
+     * if the student cannot be registered.
+     */
+    @Override
+    public void registerForCourse(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded)
+            throws Exception {
+        submit(new StorageCommand<Void>((storage, command) -> {
+            storage.registerForCourse(userId, courseCodeToBeAdded, indexNumberToBeAdded);
+            command.record(JournalRecord.registerForCourse(userId, courseCodeToBeAdded, indexNumberToBeAdded.getId()));
+            publishEnrolments(storage, userId);
+            return null;
+        })).await();
+    }
+
+    /**
+     * Contains the logic to drop a course and the index number and register the next student in the wait list for that
+     * index number. The drop is recorded even if registering the next student fails, since the course has already
+     * been dropped by then.
+     * @param userId The user id of the student for which the course and index number will be dropped.
+     * @param courseCodeToBeDropped The course code of the course which the student wants to drop.
+     * @param indexNumberToBeDropped The {@code IndexNumber} object of the index number which the student wants to drop.
+     * @throws Exception the exceptions thrown by
+     * {@link StorageManager#dropCourseAndRegisterNextStudentInWaitList(String, String, IndexNumber)}, if the next
+     * student in the wait list cannot be registered.
+     */
+    @Override
+    public void dropCourseAndRegisterNextStudentInWaitList(String userId, String courseCodeToBeDropped,
+                                                           IndexNumber indexNumberToBeDropped) throws Exception {
+        submit(new StorageCommand<Void>((storage, command) -> {
+            Student nextStudentInWaitList = indexNumberToBeDropped.getWaitListStudents().peek();
+            command.record(JournalRecord.dropCourse(userId, courseCodeToBeDropped, indexNumberToBeDropped.getId()));
+            try {
+                storage.dropCourseAndRegisterNextStudentInWaitList(userId, courseCodeToBeDropped,
+                        indexNumberToBeDropped);
+            } finally {
+                publishEnrolments(storage, userId);
+                if (nextStudentInWaitList != null) {
+                    publishEnrolments(storage, nextStudentInWaitList.getUserId());
+                }
+            }
+            return null;
+        })).await();
+    }
+
+    /**
+     * Swap index number for a course that a student is registered for, publishing a new view of the student
+     * afterwards.
+     * @param userId The user id of the student for which the index number will be swapped.
+     * @param courseCodeToBeSwapped The course code of the course for which the index number will swapped for the student.
+     * @param newIndexNumber The {@code IndexNumber} object that represents the new index number that the student wants
+     *                       to swap to.
+     * @throws Exception the exceptions thrown by {@link StorageManager#swapIndexNumber(String, String, IndexNumber)},
+     * if the index number cannot be swapped, including when the student is no longer registered for the course, in
+     * which case nothing is recorded.
+     */
+    @Override
+    public void swapIndexNumber(String userId, String courseCodeToBeSwapped, IndexNumber newIndexNumber)
+            throws Exception {
+        submit(new StorageCommand<Void>((storage, command) -> {
+            storage.swapIndexNumber(userId, courseCodeToBeSwapped, newIndexNumber);
+            command.record(JournalRecord.swapIndexNumber(userId, courseCodeToBeSwapped, newIndexNumber.getId()));
+            publishEnrolments(storage, userId);
+            return null;
+        })).await();
+    }
+
+    /**
+     * Swap an index number with another peer, publishing new views of both students afterwards.
+     * @param userId The user id of the student initiating the swap.
+     * @param peerUserId The user id of the peer that is swapping with the student.
+     * @param courseCodeToBeSwapped The course code of the course that is to be swapped by the student and the peer.
+     * @throws Exception the exceptions thrown by {@link StorageManager#swapIndexWithPeer(String, String, String)}, if
+     * the index numbers cannot be swapped.
+     */
+    @Override
+    public void swapIndexWithPeer(String userId, String peerUserId, String courseCodeToBeSwapped) throws Exception {
+        submit(new StorageCommand<Void>((storage, command) -> {
+            storage.swapIndexWithPeer(userId, peerUserId, courseCodeToBeSwapped);
+            command.record(JournalRecord.swapIndexWithPeer(userId, peerUserId, courseCodeToBeSwapped));
+            publishEnrolments(storage, userId);
+            publishEnrolments(storage, peerUserId);
+            return null;
+        })).await();
+    }
+
+    /**
+     * Drop a course from the wait list for a particular student.
+     * @param userId The user id of the student for which the course will be dropped from the wait list.
+     * @param courseCodeToBeDropped The course code of the course for which it will be dropped from the wait list.
+     * @param indexNumberToBeDropped The {@code IndexNumber} object for which it will be dropped from the wait list.
+     */
+    @Override
+    public void dropCourseFromWaitList(String userId, String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped) {
+        change((storage, command) -> {
+            storage.dropCourseFromWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped);
+            command.record(JournalRecord.dropCourseFromWaitList(userId, courseCodeToBeDropped,
+                    indexNumberToBeDropped.getId()));
+            publishEnrolments(storage, userId);
+            return null;
+        });
+    }
+
+    /**
+     * Add a course to the wait list for a student.
+     * @param userId The user id of the student for which the course will be added to the wait list for.
+     * @param courseCodeToBeAdded The course code of the course for which it will be added to the wait list for the
+     *                            student.
+     * @param indexNumberToBeAdded The {@code IndexNumber} object for which it will be added to the wait list for the
+     *                             student.
+     * @see IndexNumber
+     */
+    @Override
+    public void addCourseToWaitList(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
+        change((storage, command) -> {
+            storage.addCourseToWaitList(userId, courseCodeToBeAdded, indexNumberToBeAdded);
+            command.record(JournalRecord.addCourseToWaitList(userId, courseCodeToBeAdded,
+                    indexNumberToBeAdded.getId()));
+            publishEnrolments(storage, userId);
+            return null;
+        });
+    }
+
+    /**
+     * Set the new access time for an existing student.
+     * @param userId The user id of the student for which the new access time will be set for.
+     * @param newAccessTime The new {@code AccessTime} object containing the new start and end date and time for the
+     *                      student.
+     */
+    @Override
+    public void setNewAccessTime(String userId, AccessTime newAccessTime) {
+        change((storage, command) -> {
+            storage.setAccessTime(userId, newAccessTime);
+            command.record(JournalRecord.setAccessTime(userId, newAccessTime));
+            return null;
+        });
+    }
+
+    /**
+     * Sets new access times for a number of students in storage, recording all of them in a single journal record.
+     * @param newAccessTimes The new {@code AccessTime} of every student. The key is the user id of the student.
+     */
+    @Override
+    public void setNewAccessTimes(Map<String, AccessTime> newAccessTimes) {
+        change((storage, command) -> {
+            for (Map.Entry<String, AccessTime> entry: newAccessTimes.entrySet()) {
+                storage.setAccessTime(entry.getKey(), entry.getValue());
+            }
+            command.record(JournalRecord.setAccessTimes(newAccessTimes));
+            return null;
+        });
+    }
+
+    /**
+     * Counts the students within their access period at a particular time through the {@code AccessTimeIndex} of
+     * storage, on the writer thread.
+     * @param dateTime The date and time to check.
+     * @return The number of students within their access period.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public int countStudentsWithinAccessTime(LocalDateTime dateTime) {
+        return query((storage, command) -> storage.getAccessTimeIndex().countWithinAccessTime(dateTime));
+    }
+
+    /**
+     * Counts the students whose access period starts within a time range through the {@code AccessTimeIndex} of
+     * storage, on the writer thread.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, exclusive.
+     * @return The number of students whose access period starts within the time range.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public int countAccessTimesStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return query((storage, command) -> storage.getAccessTimeIndex().countStartingBetween(from, to));
+    }
+
+    /**
+     * Finds the largest number of students within their access period at the same time over a day through the
+     * {@code AccessTimeIndex} of storage, on the writer thread.
+     * @param day The day to check.
+     * @return The {@code Peak} holding the largest number of students and the time it is first reached.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public AccessTimeIndex.Peak getPeakStudentsWithinAccessTime(LocalDate day) {
+        return query((storage, command) -> storage.getAccessTimeIndex().findPeakWithinAccessTime(day));
+    }
+
+    /**
+     * Set the new course code for an existing course. The views of the students are dropped, since they may still
+     * refer to the old course code, and are published again the next time they are asked for.
+     * @param newCourseCode The new course code for the existing course.
+     * @param forCourseCode The course code of the existing course.
+     */
+    @Override
+    public void setNewCourseCode(String newCourseCode, String forCourseCode) {
+        change((storage, command) -> {
+            storage.setCourseCode(newCourseCode, forCourseCode);
+            command.record(JournalRecord.setCourseCode(newCourseCode, forCourseCode));
+            publishCourses(storage);
+            enrolments.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Set the new course name for an existing course.
+     * @param newCourseName The new course name for the existing course.
+     * @param forCourseCode The course code of the existing course.
+     */
+    @Override
+    public void setNewCourseName(String newCourseName, String forCourseCode) {
+        change((storage, command) -> {
+            storage.setCourseName(forCourseCode, newCourseName);
+            command.record(JournalRecord.setCourseName(newCourseName, forCourseCode));
+            return null;
+        });
+    }
+
+    /**
+     * Set the new school for which an existing course is offered by.
+     * @param newSchool The new {@code School} for the existing course.
+     * @param forCourseCode The course code of the existing course.
+     */
+    @Override
+    public void setNewSchool(School newSchool, String forCourseCode) {
+        change((storage, command) -> {
+            storage.setSchool(forCourseCode, newSchool);
+            command.record(JournalRecord.setSchool(newSchool, forCourseCode));
+            return null;
+        });
+    }
+
+    /**
+     * Set the new maximum vacancy for an existing course.
+     * @param courseCode The course code of the course for which the existing index number is associated with.
+     * @param index The index of the index numbers that are associated with the course.
+     * @param newMaxVacancy The new maximum vacancy of the existing index number.
+     * @throws Exception an {@code InvalidNewMaxException} if the new maximum vacancy is less than the number of
+     * students registered inside the index number.
+     */
+    @Override
+    public void setNewMaxVacancy(String courseCode, int index, int newMaxVacancy) throws Exception {
+        submit(new StorageCommand<Void>((storage, command) -> {
+            storage.setMaxVacancy(courseCode, index, newMaxVacancy);
+            command.record(JournalRecord.setMaxVacancy(courseCode, index, newMaxVacancy));
+            return null;
+        })).await();
+    }
+
+    /**
+     *  Retrieves all courses from the published courses.
+     *  @return An ArrayList of {@code Course} containing all the courses in the Storage object.
+     *  @see Course
+     */
+    @Override
+    public ArrayList<Course> getAllCourses() {
+        return new ArrayList<>(courses.values());
+    }
+
+    /**
+     * Adds a new student into storage.
+     * @param student The {@code Student} object containing all the information about the new student.
+     * @see Student
+     */
+    @Override
+    public void addStudent(Student student) {
+        change((storage, command) -> {
+            storage.addStudent(student);
+            command.record(JournalRecord.addStudent(student));
+            publishEnrolments(storage, student.getUserId());
+            return null;
+        });
+    }
+
+    /**
+     * Adds a new index number to an existing course.
+     * @param indexNumber The {@code IndexNumber} object representing the new index number to be added.
+     * @param courseCode The course code of the course for which the new indexNumber will be added into.
+     * @see IndexNumber
+     */
+    @Override
+    public void addIndexNumber(IndexNumber indexNumber, String courseCode) {
+        change((storage, command) -> {
+            storage.addIndexNumber(indexNumber, courseCode);
+            command.record(JournalRecord.addIndexNumber(indexNumber, courseCode));
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves a particular {@code Student} object given its user id. The students are kept in a concurrent map by
+     * the Storage object, so they are looked up without going through the writer thread.
+     * @param userId The user id of the student which is to be retrieved.
+     * @return A {@code Student} object with the userId specified.
+     * @see Student
+     */
+    @Override
+    public Student getStudent(String userId) {
+        return storage.getStudent(userId);
+    }
+
+    /**
+     * Retrieves all students in the Storage object, on the writer thread, since the students that have not been asked
+     * for yet are read in the process.
+     * @return An ArrayList of {@code Student} containing all the students in the Storage object.
+     * @see Student
+     */
+    @Override
+    public ArrayList<Student> getAllStudents() {
+        return query((storage, command) -> storage.getAllStudents());
+    }
+
+    /**
+     * Checks the students and courses in the Storage object on the writer thread, counting every AU, number of
+     * students and vacancy that is kept up to date again from scratch.
+     * @return An ArrayList of descriptions of the problems found, which is empty if there are none.
+     * @see StorageInvariantChecker
+     */
+    @Override
+    public ArrayList<String> checkInvariants() {
+        return query((storage, command) -> new StorageInvariantChecker().check(storage));
+    }
+
+    /**
+     * Adds all the students, courses and enrolments of a bulk import into storage after checking that it is consistent
+     * with what is already in storage. The whole import is recorded as a single journal record, and a new delta is
+     * saved right afterwards so that the import does not have to be replayed on every start up.
+     * @param bulkImport The {@code BulkImport} to be added.
+     * @throws BulkImportException if the bulk import is not consistent with what is already in storage, in which case
+     * nothing is added.
+     * @see BulkImport
+     */
+    @Override
+    public void importBulk(BulkImport bulkImport) throws BulkImportException {
+        StorageCommand<Void> importCommand = submit(new StorageCommand<>((storage, command) -> {
+            bulkImport.validateAgainst(storage);
+            bulkImport.applyTo(storage);
+            command.record(JournalRecord.bulkImport(bulkImport));
+            publishCourses(storage);
+            enrolments.clear();
+            return null;
+        }));
+        try {
+            importCommand.await();
+        } catch (BulkImportException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        storageManager.checkpointSoon();
+    }
+
+    /**
+     * Exports all the students, courses and enrolments in storage into the files of a bulk import, on the writer
+     * thread, so that no changes are made while the files are being written.
+     * @param loginInfos The login information of the students.
+     * @param directory The folder into which the files are written.
+     * @throws IOException if the files could not be written.
+     * @see BulkCsvTransfer
+     */
+    @Override
+    public void exportBulk(List<LoginInfo> loginInfos, File directory) throws IOException {
+        StorageCommand<Void> exportCommand = submit(new StorageCommand<>((storage, command) -> {
+            new BulkCsvTransfer().writeExport(storage, loginInfos, directory);
+            return null;
+        }));
+        try {
+            exportCommand.await();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Submits a command to the writer thread.
+     * @param command The {@code StorageCommand} to be submitted.
+     * @param <T> The type of the result of the command.
+     * @return The command, so that it can be waited on.
+     */
+    private <T> StorageCommand<T> submit(StorageCommand<T> command) {
+        ring.submit(command);
+        return command;
+    }
+
+    /**
+     * Submits a change that does not throw any checked exceptions to the writer thread and waits until it is on disk.
+     * @param action The change to be made.
+     */
+    private void change(StorageCommand.IAction<Void> action) {
+        query(action);
+    }
+
+    /**
+     * Submits a command that does not throw any checked exceptions to the writer thread and waits for its result.
+     * @param action What the command does.
+     * @param <T> The type of the result of the command.
+     * @return The result of the command.
+     */
+    private <T> T query(StorageCommand.IAction<T> action) {
+        try {
+            return submit(new StorageCommand<>(action)).await();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes commands from the ring in batches and runs them one after another, holding the shared side of the storage
+     * lock of the {@code StorageManager} for each batch so that a delta is not taken in the middle of it.
+     */
+    private void runWriter() {
+        StorageCommand<?>[] batch = new StorageCommand<?>[MAX_BATCH_SIZE];
+        Lock sharedStorageLock = storageManager.getSharedStorageLock();
+        while (true) {
+            int count = ring.take(batch);
+            sharedStorageLock.lock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    run(batch[i]);
+                    batch[i] = null;
+                }
+            } finally {
+                sharedStorageLock.unlock();
+            }
+            totalCommands += count;
+            totalBatches++;
+        }
+    }
+
+    /**
+     * Runs a command and queues the journal record it leaves behind. The future of the command is completed once the
+     * record is on disk, or straight away if there is no record. If the record could not be written, the command
+     * fails with a {@code ChangeNotSavedException}, in the same way as a change made by the {@code StorageManager}.
+     * @param command The {@code StorageCommand} to be run.
+     */
+    private void run(StorageCommand<?> command) {
+        command.run(storage);
+        JournalRecord record = command.getRecord();
+        if (record == null) {
+            command.complete();
+            return;
+        }
+        storageManager.commit(record).whenComplete((sequence, e) -> {
+            if (e != null) {
+                command.completeUnsaved(e);
+            } else {
+                command.complete();
+            }
+        });
+    }
+
+    /**
+     * Returns the published view of a student, publishing it on the writer thread first if it has not been published
+     * since it was last dropped.
+     * @param userId The user id of the student.
+     * @return The {@code Enrolments} of the student.
+     */
+    private Enrolments enrolmentsOf(String userId) {
+        Enrolments studentEnrolments = enrolments.get(userId);
+        if (studentEnrolments == null) {
+            studentEnrolments = query((storage, command) -> publishEnrolments(storage, userId));
+        }
+        return studentEnrolments;
+    }
+
+    /**
+     * Looks up the published courses of a number of course codes.
+     * @param courseCodes The course codes.
+     * @return An ArrayList of the {@code Course} objects, in the same order.
+     */
+    private ArrayList<Course> coursesOf(Collection<String> courseCodes) {
+        Map<String, Course> publishedCourses = courses;
+        ArrayList<Course> result = new ArrayList<>();
+        for (String courseCode: courseCodes) {
+            result.add(publishedCourses.get(courseCode));
+        }
+        return result;
+    }
+
+    /**
+     * Publishes a new view of the index numbers a student is registered for and has in the wait list. Called on the
+     * writer thread only.
+     * @param storage The {@code Storage} object.
+     * @param userId The user id of the student.
+     * @return The {@code Enrolments} published.
+     */
+    private Enrolments publishEnrolments(Storage storage, String userId) {
+        Student student = storage.getStudent(userId);
+        if (student == null) {
+            return Enrolments.NONE;
+        }
+        Enrolments studentEnrolments = new Enrolments(student.getRegisteredIndexNumbers(),
+                student.getWaitListIndexNumbers());
+        enrolments.put(userId, studentEnrolments);
+        return studentEnrolments;
+    }
+
+    /**
+     * Publishes a new copy of the courses by course code. Called on the writer thread, and once by the constructor
+     * before the writer thread is started.
+     * @param storage The {@code Storage} object.
+     */
+    private void publishCourses(Storage storage) {
+        LinkedHashMap<String, Course> coursesByCode = new LinkedHashMap<>();
+        for (Course course: storage.getAllCourses()) {
+            coursesByCode.put(course.getCourseCode(), course);
+        }
+        courses = Collections.unmodifiableMap(coursesByCode);
+    }
+
+    /**
+     * The index numbers a student is registered for and has in the wait list at one point in time, by course code,
+     * which never change once published.
+     */
+    private static class Enrolments {
+        /**
+         * The view of a student that does not exist.
+         */
+        private static final Enrolments NONE = new Enrolments(Map.of(), Map.of());
+
+        /**
+         * The index numbers the student is registered for, in the order the student returns them.
+         */
+        private final Map<String, IndexNumber> registeredIndexNumbers;
+
+        /**
+         * The index numbers the student has in the wait list, in the order the student returns them.
+         */
+        private final Map<String, IndexNumber> waitListIndexNumbers;
+
+        /**
+         * Constructs a new Enrolments from copies of the index numbers.
+         * @param registeredIndexNumbers The index numbers the student is registered for.
+         * @param waitListIndexNumbers The index numbers the student has in the wait list.
+         */
+        private Enrolments(Map<String, IndexNumber> registeredIndexNumbers,
+                           Map<String, IndexNumber> waitListIndexNumbers) {
+            this.registeredIndexNumbers = Collections.unmodifiableMap(new LinkedHashMap<>(registeredIndexNumbers));
+            this.waitListIndexNumbers = Collections.unmodifiableMap(new LinkedHashMap<>(waitListIndexNumbers));
+        }
+    }
+}
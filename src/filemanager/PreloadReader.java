@@ -0,0 +1,329 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Student;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * This class is responsible for reading the pre-loaded information inside the "data/preload" folder. The course files
+ * are parsed in parallel on a fork-join pool, one file per task, and the students file is streamed in chunks through a
+ * parser that works directly on the bytes, so that neither a whole file nor a regular expression is needed. The
+ * courses are always returned in the order of their file names and the students in the order of the file, so that
+ * the result does not depend on how the work was scheduled.
+ */
+public class PreloadReader {
+    /**
+     * The number of bytes of the students file read at a time.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The number of fields in a line of the students file.
+     */
+    private static final int STUDENT_FIELDS = 8;
+
+    /**
+     * The {@code File} object that represents the "Students.txt" file.
+     */
+    private File studentFile;
+
+    /**
+     * The {@code File} object that represents the folder containing one file per course.
+     */
+    private File courseDirectory;
+
+    /**
+     * Constructs a new PreloadReader.
+     * @param preloadDirectory The {@code File} object that represents the "data/preload" folder.
+     */
+    public PreloadReader(File preloadDirectory) {
+        studentFile = new File(preloadDirectory, "Students.txt");
+        courseDirectory = new File(preloadDirectory, "Courses");
+    }
+
+    /**
+     * Parses all the course files in parallel on a fork-join pool.
+     * @param pool The {@code ForkJoinPool} on which the course files are parsed.
+     * @return The courses in the order of the names of their files.
+     * @throws IOException if one of the course files could not be read.
+     */
+    public ArrayList<Course> readCourses(ForkJoinPool pool) throws IOException {
+        File[] courseFiles = courseDirectory.listFiles(file -> !file.getName().startsWith("."));
+        if (courseFiles == null) {
+            throw new IOException("Unable to list " + courseDirectory);
+        }
+        Arrays.sort(courseFiles, Comparator.comparing(File::getName));
+
+        try {
+            List<Course> courses = pool.submit(() -> Arrays.stream(courseFiles).parallel()
+                    .map(this::readCourse)
+                    .collect(Collectors.toList())).join();
+            return new ArrayList<>(courses);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses a single course file, whose first line describes the course and every following line one of its index
+     * numbers.
+     * @param file The {@code File} object that represents the course file.
+     * @return The {@code Course} object containing all the information in the file.
+     * @throws UncheckedIOException if the file could not be read.
+     */
+    private Course readCourse(File file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Course course = parseCourseFromTxt(lines.get(0));
+        ArrayList<IndexNumber> indexNumbers = new ArrayList<>();
+        for (int i = 1; i < lines.size(); i++) {
+            if (!lines.get(i).isBlank()) {
+                indexNumbers.add(parseIndexNumberFromTxt(lines.get(i), course));
+            }
+        }
+        course.setIndexNumbers(indexNumbers);
+
+        return course;
+    }
+
+    /**
+     * Parse the second line onwards from the files inside the "data/preload/Courses" folder and returns an
+     * {@code IndexNumber} object.
+     * @param line The second line onwards from the files inside the "data/preload/Courses" folder.
+     * @param course The {@code Course} object which the index number is associated with.
+     * @return The {@code IndexNumber} object containing the information from the line.
+     */
+    private IndexNumber parseIndexNumberFromTxt(String line, Course course) {
+        String[] lineSplit = line.split("\\|");
+        int id = Integer.parseInt(lineSplit[0]);
+        int maxVacancy = Integer.parseInt(lineSplit[1]);
+        ArrayList<Lesson> lessons = new ArrayList<>();
+        for (int i = 2; i < lineSplit.length; i++) {
+            String[] lessonSplit = lineSplit[i].split("-");
+            LessonType lessonType;
+            switch (lessonSplit[0]) {
+            case "LEC":
+                lessonType = LessonType.LECTURE;
+                break;
+            case "TUT":
+                lessonType = LessonType.TUTORIAL;
+                break;
+            case "LAB":
+                lessonType = LessonType.LAB;
+                break;
+            default:
+                throw new IllegalStateException("Unexpected value: " + lessonSplit[0]);
+            }
+            DayOfWeek dayOfWeek = DayOfWeek.valueOf(lessonSplit[1]);
+            String startTimeString = lessonSplit[2];
+            String endTimeString = lessonSplit[3];
+            LocalTime startTime = LocalTime.of(Integer.parseInt(startTimeString.substring(0, 2)),
+                    Integer.parseInt(startTimeString.substring(2)));
+            LocalTime endTime = LocalTime.of(Integer.parseInt(endTimeString.substring(0, 2)),
+                    Integer.parseInt(endTimeString.substring(2)));
+
+            lessons.add(new Lesson(lessonType, dayOfWeek, startTime, endTime));
+        }
+
+        return new IndexNumber(id, course, lessons, maxVacancy);
+    }
+
+    /**
+     * Contains the logic to parse the first line of text from the files inside "data/preload/Courses" and return a
+     * {@code Course} object containing the information specified in the line.
+     * @param line The first line of text from the files inside "data/preload/Courses".
+     * @return A {@code Course} object containing all the information specified in line.
+     * @see Course
+     */
+    private Course parseCourseFromTxt(String line) {
+        String[] lineSplit = line.split("\\|");
+        String courseName = lineSplit[0];
+        String courseCode = lineSplit[1];
+        School school;
+        switch (lineSplit[2]) {
+        case "SCSE":
+            school = School.SCSE;
+            break;
+        case "SSS":
+            school = School.SSS;
+            break;
+        default:
+            throw new IllegalStateException("Unexpected value: " + lineSplit[2]);
+        }
+        int au = Integer.parseInt(lineSplit[3]);
+
+        return new Course(courseName, courseCode, school, au);
+    }
+
+    /**
+     * Streams the "Students.txt" file in chunks and parses every line of it into a {@code Student} object. A line
+     * that does not fit into the rest of a chunk is carried over to the start of the next chunk.
+     * @return The students in the order of the file.
+     * @throws IOException if the file could not be read.
+     */
+    public ArrayList<Student> readStudents() throws IOException {
+        ArrayList<Student> students = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(studentFile.toPath(), StandardOpenOption.READ)) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            int[] fieldEnds = new int[STUDENT_FIELDS];
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                endOfFile = channel.read(buffer) < 0;
+                int end = buffer.position();
+
+                int lineStart = 0;
+                for (int i = 0; i < end; i++) {
+                    if (chunk[i] == '\n') {
+                        addStudent(students, chunk, lineStart, i, fieldEnds);
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfFile && lineStart < end) {
+                    addStudent(students, chunk, lineStart, end, fieldEnds);
+                    lineStart = end;
+                }
+
+                if (lineStart == 0 && end == chunk.length) {
+                    chunk = Arrays.copyOf(chunk, chunk.length * 2);
+                    buffer = ByteBuffer.wrap(chunk);
+                } else {
+                    System.arraycopy(chunk, lineStart, chunk, 0, end - lineStart);
+                }
+                buffer.position(end - lineStart);
+            }
+        }
+
+        return students;
+    }
+
+    /**
+     * Parses a line of the "Students.txt" file and adds the student to a list. Blank lines are skipped.
+     * @param students The list of students to add the student to.
+     * @param bytes The bytes containing the line.
+     * @param start The position of the first byte of the line.
+     * @param end The position right after the last byte of the line, not counting the line break.
+     * @param fieldEnds An array to hold the position of the end of every field, reused between lines.
+     */
+    private void addStudent(ArrayList<Student> students, byte[] bytes, int start, int end, int[] fieldEnds) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+
+        int field = 0;
+        for (int i = start; i < end && field < STUDENT_FIELDS - 1; i++) {
+            if (bytes[i] == '|') {
+                fieldEnds[field++] = i;
+            }
+        }
+        if (field != STUDENT_FIELDS - 1) {
+            throw new IllegalStateException("Unexpected student: " + new String(bytes, start, end - start,
+                    StandardCharsets.UTF_8));
+        }
+        fieldEnds[field] = end;
+
+        String name = decode(bytes, start, fieldEnds[0]);
+        String userId = decode(bytes, fieldEnds[0] + 1, fieldEnds[1]);
+        String matricNumber = decode(bytes, fieldEnds[1] + 1, fieldEnds[2]);
+        String nationality = decode(bytes, fieldEnds[2] + 1, fieldEnds[3]);
+        Gender gender = matches(bytes, fieldEnds[3] + 1, fieldEnds[4], "MALE") ? Gender.MALE : Gender.FEMALE;
+        String emailAddress = decode(bytes, fieldEnds[4] + 1, fieldEnds[5]);
+        LocalDateTime accessStartTime = parseDateTime(bytes, fieldEnds[5] + 1, fieldEnds[6]);
+        LocalDateTime accessEndTime = parseDateTime(bytes, fieldEnds[6] + 1, fieldEnds[7]);
+
+        students.add(new Student(name, userId, matricNumber, nationality, emailAddress, gender,
+                new AccessTime(accessStartTime, accessEndTime)));
+    }
+
+    /**
+     * Parses a date-time written as year, month, day, hour and minute separated by dashes, e.g. "2020-10-10-8-0".
+     * @param bytes The bytes containing the date-time.
+     * @param start The position of the first byte of the date-time.
+     * @param end The position right after the last byte of the date-time.
+     * @return The {@code LocalDateTime} object represented by the bytes.
+     */
+    private LocalDateTime parseDateTime(byte[] bytes, int start, int end) {
+        int[] parts = new int[5];
+        int part = 0;
+        boolean hasDigit = false;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '-' && hasDigit && part < parts.length - 1) {
+                part++;
+                hasDigit = false;
+            } else if (b >= '0' && b <= '9') {
+                parts[part] = parts[part] * 10 + (b - '0');
+                hasDigit = true;
+            } else {
+                throw new IllegalStateException("Unexpected date: " + decode(bytes, start, end));
+            }
+        }
+        if (part != parts.length - 1 || !hasDigit) {
+            throw new IllegalStateException("Unexpected date: " + decode(bytes, start, end));
+        }
+
+        return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4]);
+    }
+
+    /**
+     * Decodes a range of bytes as a UTF-8 string.
+     * @param bytes The bytes containing the string.
+     * @param start The position of the first byte of the string.
+     * @param end The position right after the last byte of the string.
+     * @return The decoded string.
+     */
+    private String decode(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a range of bytes spells out a particular ASCII string.
+     * @param bytes The bytes to be checked.
+     * @param start The position of the first byte to be checked.
+     * @param end The position right after the last byte to be checked.
+     * @param expected The ASCII string to be compared against.
+     * @return true if the bytes spell out the string; false otherwise.
+     */
+    private boolean matches(byte[] bytes, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (bytes[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
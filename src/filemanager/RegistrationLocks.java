@@ -0,0 +1,178 @@
+package filemanager;
+
+import model.IndexNumber;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is responsible for the locks that let students register, drop and swap at the same time without getting
+ * in each other's way. There is a lock for every student and every index number, except that students and index
+ * numbers share a fixed number of locks, called stripes, chosen by hashing their user id or index number. Locks are
+ * always taken in the order of their stripes, and every student stripe comes before every index number stripe, so two
+ * changes can never each hold a lock the other is waiting for.
+ *
+ * <p>Changes that only involve students and index numbers that hash to different stripes go ahead fully in parallel.
+ * The stripes are held while the change is made to storage and its journal record is queued, so changes to the same
+ * student or index number are made and recorded in the same order.</p>
+ */
+public class RegistrationLocks {
+    /**
+     * The default number of student stripes, which can be changed with the "stars.studentLockStripes" system property.
+     */
+    private static final int DEFAULT_STUDENT_STRIPES = Math.max(1, Integer.getInteger("stars.studentLockStripes", 1024));
+
+    /**
+     * The default number of index number stripes, which can be changed with the "stars.indexNumberLockStripes" system
+     * property.
+     */
+    private static final int DEFAULT_INDEX_NUMBER_STRIPES = Math.max(1,
+            Integer.getInteger("stars.indexNumberLockStripes", 256));
+
+    /**
+     * The stripes, starting with the student stripes and followed by the index number stripes.
+     */
+    private ReentrantLock[] stripes;
+
+    /**
+     * The number of student stripes.
+     */
+    private int studentStripes;
+
+    /**
+     * Constructs a new RegistrationLocks with the default numbers of stripes.
+     */
+    public RegistrationLocks() {
+        this(DEFAULT_STUDENT_STRIPES, DEFAULT_INDEX_NUMBER_STRIPES);
+    }
+
+    /**
+     * Constructs a new RegistrationLocks.
+     * @param studentStripes The number of stripes shared by the students.
+     * @param indexNumberStripes The number of stripes shared by the index numbers.
+     */
+    public RegistrationLocks(int studentStripes, int indexNumberStripes) {
+        this.studentStripes = studentStripes;
+        stripes = new ReentrantLock[studentStripes + indexNumberStripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of a number of students and index numbers, in the order of the stripes.
+     * @param userIds The user ids of the students.
+     * @param indexNumbers The {@code IndexNumber} objects, which may include null.
+     * @return The stripes held, which have to be passed to {@link #unlock(int[])} afterwards.
+     */
+    public int[] lock(String[] userIds, IndexNumber... indexNumbers) {
+        int[] held = new int[0];
+        held = lockMore(held, stripesOf(userIds));
+        return lockMore(held, stripesOf(indexNumbers));
+    }
+
+    /**
+     * Locks the stripes of more index numbers while already holding some stripes. Since index number stripes come
+     * after student stripes, this can be used to lock the index numbers a student is enrolled in after locking the
+     * student and finding out which they are.
+     * @param held The stripes already held, which must not include index number stripes.
+     * @param indexNumbers The {@code IndexNumber} objects, which may include null.
+     * @return All the stripes held, which have to be passed to {@link #unlock(int[])} afterwards.
+     */
+    public int[] lockIndexNumbers(int[] held, IndexNumber... indexNumbers) {
+        return lockMore(held, stripesOf(indexNumbers));
+    }
+
+    /**
+     * Returns whether the stripe of a student is held.
+     * @param held The stripes held.
+     * @param userId The user id of the student.
+     * @return true if the stripe of the student is among the stripes held.
+     */
+    public boolean holdsStudent(int[] held, String userId) {
+        return Arrays.binarySearch(held, studentStripe(userId)) >= 0;
+    }
+
+    /**
+     * Unlocks the stripes held, in the opposite order they were locked in.
+     * @param held The stripes held.
+     */
+    public void unlock(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+    }
+
+    /**
+     * Locks more stripes, skipping those already held. Every new stripe must come after the stripes already held, so
+     * that stripes are always locked in order.
+     * @param held The stripes already held, in order.
+     * @param more The stripes to lock, in order and without duplicates.
+     * @return All the stripes held, in order.
+     */
+    private int[] lockMore(int[] held, int[] more) {
+        int[] all = Arrays.copyOf(held, held.length + more.length);
+        int count = held.length;
+        for (int stripe: more) {
+            if (Arrays.binarySearch(held, stripe) >= 0) {
+                continue;
+            }
+            assert count == 0 || stripe > all[count - 1] : "Stripes must be locked in order";
+            stripes[stripe].lock();
+            all[count++] = stripe;
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    /**
+     * Returns the stripes of a number of students.
+     * @param userIds The user ids of the students.
+     * @return The stripes, in order and without duplicates.
+     */
+    private int[] stripesOf(String[] userIds) {
+        int[] result = new int[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            result[i] = studentStripe(userIds[i]);
+        }
+        return Arrays.stream(result).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns the stripes of a number of index numbers.
+     * @param indexNumbers The {@code IndexNumber} objects, of which null ones are left out.
+     * @return The stripes, in order and without duplicates.
+     */
+    private int[] stripesOf(IndexNumber[] indexNumbers) {
+        return Arrays.stream(indexNumbers).filter(indexNumber -> indexNumber != null)
+                .mapToInt(this::indexNumberStripe).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns the stripe of a student.
+     * @param userId The user id of the student.
+     * @return The stripe, which is one of the student stripes.
+     */
+    private int studentStripe(String userId) {
+        return Math.floorMod(spread(userId.hashCode()), studentStripes);
+    }
+
+    /**
+     * Returns the stripe of an index number.
+     * @param indexNumber The {@code IndexNumber} object.
+     * @return The stripe, which is one of the index number stripes.
+     */
+    private int indexNumberStripe(IndexNumber indexNumber) {
+        return studentStripes + Math.floorMod(spread(indexNumber.getId()), stripes.length - studentStripes);
+    }
+
+    /**
+     * Spreads the bits of a hash code, so that hash codes that only differ in their upper bits, or that follow each
+     * other, still end up in different stripes.
+     * @param hash The hash code.
+     * @return The spread hash code.
+     */
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
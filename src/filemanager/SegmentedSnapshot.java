@@ -0,0 +1,314 @@
+package filemanager;
+
+import model.Course;
+import model.IStudentLoader;
+import model.IndexNumber;
+import model.Storage;
+import model.Student;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * This class is responsible for reading a {@code Storage} object from a whole snapshot and the deltas saved after it,
+ * without decoding any of them as a whole. Every segment is read by a {@code MappedSnapshot}. The catalogues are read
+ * up front and laid over each other in order, so that a course in a later delta replaces the course with the same
+ * course code, and a course removed in a later delta is left out. The {@code Storage} object is given this object as
+ * its {@code IStudentLoader}, so that every student is read the first time it is asked for from the latest segment
+ * holding it, and the students of every index number are read from the segment holding the latest version of its
+ * course.
+ * @see MappedSnapshot
+ * @see MappedSnapshotWriter
+ */
+public class SegmentedSnapshot implements IStudentLoader {
+    /**
+     * The segments, starting with the whole snapshot and followed by the deltas in the order they were saved.
+     */
+    private ArrayList<MappedSnapshot> segments = new ArrayList<>();
+
+    /**
+     * The {@code Storage} object that the students are read into.
+     */
+    private Storage storage;
+
+    /**
+     * The index numbers of the courses that are left after laying the catalogues over each other. The key is the
+     * record id of the index number.
+     */
+    private HashMap<Integer, IndexNumber> indexNumbersByRecordId = new HashMap<>();
+
+    /**
+     * The segment holding the student list of each index number. The key is the record id of the index number.
+     */
+    private HashMap<Integer, MappedSnapshot> studentListSegments = new HashMap<>();
+
+    /**
+     * The segment holding the latest record of each student, in increasing order of record id. Built the first time
+     * all the students are asked for.
+     */
+    private MappedSnapshot[] recordSegments;
+
+    /**
+     * The position in the record index of its segment of the latest record of each student, in the same order as
+     * recordSegments.
+     */
+    private int[] recordIndexes;
+
+    /**
+     * Constructs a new SegmentedSnapshot.
+     * @param payloads The bytes of the segment payloads, starting with the whole snapshot and followed by the deltas
+     *                 in the order they were saved.
+     */
+    public SegmentedSnapshot(List<ByteBuffer> payloads) {
+        for (ByteBuffer payload: payloads) {
+            segments.add(new MappedSnapshot(payload));
+        }
+    }
+
+    /**
+     * Reads the courses and index numbers of all the segments into a new {@code Storage} object that reads its
+     * students from the segments on demand. The {@code Storage} object starts without changes.
+     * @return The {@code Storage} object.
+     * @throws IOException if a segment was written by an unknown version of the layout or is not a valid segment.
+     */
+    public Storage read() throws IOException {
+        LinkedHashMap<String, Course> courses = new LinkedHashMap<>();
+        HashMap<String, MappedSnapshot> courseSegments = new HashMap<>();
+        for (MappedSnapshot segment: segments) {
+            ArrayList<Course> segmentCourses = segment.readCatalogue();
+            for (String courseCode: segment.getRemovedCourseCodes()) {
+                courses.remove(courseCode);
+            }
+            for (Course course: segmentCourses) {
+                courses.remove(course.getCourseCode());
+                courses.put(course.getCourseCode(), course);
+                courseSegments.put(course.getCourseCode(), segment);
+            }
+        }
+
+        for (Course course: courses.values()) {
+            MappedSnapshot segment = courseSegments.get(course.getCourseCode());
+            for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                if (indexNumbersByRecordId.put(indexNumber.getRecordId(), indexNumber) != null) {
+                    throw new StreamCorruptedException("snapshot contains index number record "
+                            + indexNumber.getRecordId() + " twice");
+                }
+                studentListSegments.put(indexNumber.getRecordId(), segment);
+            }
+        }
+
+        storage = new Storage();
+        for (Course course: courses.values()) {
+            for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                indexNumber.setStudentLoader(this, studentListSegments.get(indexNumber.getRecordId())
+                        .getRegisteredCount(indexNumber.getRecordId()));
+            }
+            storage.addCourse(course);
+        }
+        storage.setStudentLoader(this);
+        storage.takeChanges();
+
+        return storage;
+    }
+
+    /**
+     * Reads a student and its time table from the latest segment holding it.
+     * @param userId The user id of the student to be read.
+     * @return The {@code Student} object, or null if there is no student with the user id in any segment.
+     * @throws UncheckedIOException if the record of the student is corrupted.
+     */
+    @Override
+    public Student loadStudent(String userId) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            MappedSnapshot segment = segments.get(i);
+            int index = segment.findUserId(userId);
+            if (index >= 0) {
+                return segment.readStudent(index, indexNumbersByRecordId);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the user ids of all the students in the segments.
+     * @return An ArrayList of the user ids of all the students, in increasing order of record id.
+     * @throws UncheckedIOException if the record of a student is corrupted.
+     */
+    @Override
+    public ArrayList<String> getUserIds() {
+        int recordCount = getRecordCount();
+        ArrayList<String> userIds = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            userIds.add(recordSegments[i].readUserId(recordIndexes[i]));
+        }
+        return userIds;
+    }
+
+    /**
+     * Returns the smallest record id that is not taken by any of the students in the segments.
+     * @return The next student record id.
+     */
+    @Override
+    public int getNextRecordId() {
+        int nextRecordId = 1;
+        for (MappedSnapshot segment: segments) {
+            nextRecordId = Math.max(nextRecordId, segment.getNextRecordId());
+        }
+        return nextRecordId;
+    }
+
+    /**
+     * Reads the students registered for an index number, in the order they registered.
+     * @param indexNumber The {@code IndexNumber} object whose registered students are to be read.
+     * @return An ArrayList of the registered {@code Student} objects.
+     * @throws UncheckedIOException if the student list of the index number or the record of a student is corrupted.
+     */
+    @Override
+    public ArrayList<Student> loadRegisteredStudents(IndexNumber indexNumber) {
+        return loadStudents(readRegisteredRecordIds(indexNumber));
+    }
+
+    /**
+     * Reads the students in the wait list of an index number, in the order they joined the wait list.
+     * @param indexNumber The {@code IndexNumber} object whose wait listed students are to be read.
+     * @return An ArrayList of the wait listed {@code Student} objects.
+     * @throws UncheckedIOException if the student list of the index number or the record of a student is corrupted.
+     */
+    @Override
+    public ArrayList<Student> loadWaitListStudents(IndexNumber indexNumber) {
+        return loadStudents(readWaitListRecordIds(indexNumber));
+    }
+
+    /**
+     * Reads the record ids of the students registered for an index number.
+     * @param indexNumber The {@code IndexNumber} object.
+     * @return The record ids of the registered students, in the order they registered.
+     * @throws UncheckedIOException if the student list of the index number is corrupted.
+     */
+    int[] readRegisteredRecordIds(IndexNumber indexNumber) {
+        return studentListSegments.get(indexNumber.getRecordId()).readRegisteredRecordIds(indexNumber.getRecordId());
+    }
+
+    /**
+     * Reads the record ids of the students in the wait list of an index number.
+     * @param indexNumber The {@code IndexNumber} object.
+     * @return The record ids of the wait listed students, in the order they joined the wait list.
+     * @throws UncheckedIOException if the student list of the index number is corrupted.
+     */
+    int[] readWaitListRecordIds(IndexNumber indexNumber) {
+        return studentListSegments.get(indexNumber.getRecordId()).readWaitListRecordIds(indexNumber.getRecordId());
+    }
+
+    /**
+     * Returns the number of students in the segments, counting a student held by several segments once.
+     * @return The number of students.
+     */
+    int getRecordCount() {
+        mergeRecordIndexes();
+        return recordSegments.length;
+    }
+
+    /**
+     * Returns the record id of a student.
+     * @param index The position of the student in increasing order of record id.
+     * @return The record id of the student.
+     */
+    int getRecordId(int index) {
+        return recordSegments[index].getRecordId(recordIndexes[index]);
+    }
+
+    /**
+     * Returns the hash code of the user id of a student.
+     * @param index The position of the student in increasing order of record id.
+     * @return The hash code of the user id of the student.
+     */
+    int getUserIdHash(int index) {
+        return recordSegments[index].getUserIdHash(recordIndexes[index]);
+    }
+
+    /**
+     * Returns the bytes of the latest record of a student, including its length and checksum, after verifying them.
+     * @param index The position of the student in increasing order of record id.
+     * @return The bytes of the record.
+     * @throws UncheckedIOException if the record is corrupted.
+     */
+    byte[] copyRecord(int index) {
+        return recordSegments[index].copyRecord(recordIndexes[index]);
+    }
+
+    /**
+     * Merges the record indexes of the segments, which are each in increasing order of record id, into one list of
+     * the latest record of every student, unless that has been done already.
+     */
+    private synchronized void mergeRecordIndexes() {
+        if (recordSegments != null) {
+            return;
+        }
+        int[] positions = new int[segments.size()];
+        ArrayList<MappedSnapshot> mergedSegments = new ArrayList<>(segments.get(0).getStudentCount());
+        ArrayList<Integer> mergedIndexes = new ArrayList<>(segments.get(0).getStudentCount());
+        while (true) {
+            int latest = -1;
+            int smallestRecordId = Integer.MAX_VALUE;
+            for (int i = 0; i < segments.size(); i++) {
+                if (positions[i] < segments.get(i).getStudentCount()) {
+                    int recordId = segments.get(i).getRecordId(positions[i]);
+                    if (recordId <= smallestRecordId) {
+                        smallestRecordId = recordId;
+                        latest = i;
+                    }
+                }
+            }
+            if (latest < 0) {
+                break;
+            }
+            mergedSegments.add(segments.get(latest));
+            mergedIndexes.add(positions[latest]);
+            for (int i = 0; i < segments.size(); i++) {
+                if (positions[i] < segments.get(i).getStudentCount()
+                        && segments.get(i).getRecordId(positions[i]) == smallestRecordId) {
+                    positions[i]++;
+                }
+            }
+        }
+
+        int[] indexes = new int[mergedIndexes.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = mergedIndexes.get(i);
+        }
+        recordIndexes = indexes;
+        recordSegments = mergedSegments.toArray(new MappedSnapshot[0]);
+    }
+
+    /**
+     * Reads the students with particular record ids through the {@code Storage} object, so that a student that has
+     * already been read is not read again.
+     * @param recordIds The record ids of the students.
+     * @return An ArrayList of the {@code Student} objects, in the same order.
+     * @throws UncheckedIOException if no segment contains one of the students or its record is corrupted.
+     */
+    private ArrayList<Student> loadStudents(int[] recordIds) {
+        ArrayList<Student> students = new ArrayList<>(recordIds.length);
+        for (int recordId: recordIds) {
+            Student student = null;
+            for (int i = segments.size() - 1; i >= 0 && student == null; i--) {
+                int index = segments.get(i).findRecordId(recordId);
+                if (index >= 0) {
+                    student = storage.getStudent(segments.get(i).readUserId(index));
+                }
+            }
+            if (student == null) {
+                throw new UncheckedIOException(
+                        new StreamCorruptedException("snapshot refers to a student it does not contain"));
+            }
+            students.add(student);
+        }
+        return students;
+    }
+}
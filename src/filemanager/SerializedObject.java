@@ -0,0 +1,122 @@
+package filemanager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class represents an object read by {@code SerializedStreamReader} from a stream written with Java
+ * serialization. Instead of an instance of the class that was serialized, it holds the name of that class, the values
+ * of its serialized fields by name and whatever the class wrote in addition to its fields, so that the object can be
+ * read even if the class has changed or no longer exists.
+ * @see SerializedStreamReader
+ */
+public class SerializedObject {
+    /**
+     * The name of the class that was serialized.
+     */
+    private String className;
+
+    /**
+     * The values of the serialized fields of the object and its superclasses by name. Primitive values are boxed,
+     * objects are Strings, arrays, {@code SerializedObject} objects or null.
+     */
+    private HashMap<String, Object> fields = new HashMap<>();
+
+    /**
+     * The objects written by the class in addition to its fields, e.g. the elements of a collection.
+     */
+    private ArrayList<Object> objects = new ArrayList<>();
+
+    /**
+     * The primitive data written by the class in addition to its fields.
+     */
+    private byte[] blockData = new byte[0];
+
+    /**
+     * The name of the constant if the object is an enum constant.
+     */
+    private String enumConstant;
+
+    /**
+     * Constructs a new SerializedObject.
+     * @param className The name of the class that was serialized.
+     */
+    SerializedObject(String className) {
+        this.className = className;
+    }
+
+    /**
+     * Returns the name of the class that was serialized.
+     * @return The name of the class.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns whether a serialized field with a particular name exists.
+     * @param name The name of the field.
+     * @return true if the field was serialized; false otherwise.
+     */
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * Returns the value of a serialized field.
+     * @param name The name of the field.
+     * @return The value of the field, or null if it was not serialized.
+     */
+    public Object getField(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Sets the value of a serialized field.
+     * @param name The name of the field.
+     * @param value The value of the field.
+     */
+    void setField(String name, Object value) {
+        fields.put(name, value);
+    }
+
+    /**
+     * Returns the objects written by the class in addition to its fields, in the order they were written.
+     * @return An ArrayList of the objects.
+     */
+    public ArrayList<Object> getObjects() {
+        return objects;
+    }
+
+    /**
+     * Returns the primitive data written by the class in addition to its fields.
+     * @return The bytes of all the primitive data, in the order they were written.
+     */
+    public byte[] getBlockData() {
+        return blockData;
+    }
+
+    /**
+     * Sets the primitive data written by the class in addition to its fields.
+     * @param blockData The bytes of all the primitive data.
+     */
+    void setBlockData(byte[] blockData) {
+        this.blockData = blockData;
+    }
+
+    /**
+     * Returns the name of the constant if the object is an enum constant.
+     * @return The name of the enum constant, or null if the object is not an enum constant.
+     */
+    public String getEnumConstant() {
+        return enumConstant;
+    }
+
+    /**
+     * Sets the name of the constant if the object is an enum constant.
+     * @param enumConstant The name of the enum constant.
+     */
+    void setEnumConstant(String enumConstant) {
+        this.enumConstant = enumConstant;
+    }
+}
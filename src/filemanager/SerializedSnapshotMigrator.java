@@ -0,0 +1,426 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Storage;
+import model.Student;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is responsible for upgrading a snapshot whose {@code Storage} object was written with Java serialization
+ * to the binary format. The payload is read by {@code SerializedStreamReader} in a single pass, and the fields of the
+ * model classes are matched by name rather than by serialVersionUID, so a snapshot saved by an older version of the
+ * model classes can still be upgraded without losing any registrations. Like Java serialization itself, fields that
+ * did not exist yet are given their default value, and fields that no longer exist are ignored.
+ * @see SerializedStreamReader
+ * @see StorageSnapshotWriter
+ */
+public class SerializedSnapshotMigrator implements ISnapshotMigrator {
+    /**
+     * The type of a {@code LocalTime} written by the serialization proxy of java.time.
+     */
+    private static final int LOCAL_TIME_TYPE = 4;
+
+    /**
+     * The type of a {@code LocalDateTime} written by the serialization proxy of java.time.
+     */
+    private static final int LOCAL_DATE_TIME_TYPE = 5;
+
+    /**
+     * The format version of the snapshots upgraded, either {@code StorageSnapshot.LEGACY_FORMAT} or
+     * {@code StorageSnapshot.SERIALIZED_FORMAT}.
+     */
+    private int sourceFormat;
+
+    /**
+     * The students converted so far, by the serialized object they were converted from.
+     */
+    private IdentityHashMap<SerializedObject, Student> students;
+
+    /**
+     * The courses converted so far, by the serialized object they were converted from.
+     */
+    private IdentityHashMap<SerializedObject, Course> courses;
+
+    /**
+     * The index numbers converted so far, by the serialized object they were converted from.
+     */
+    private IdentityHashMap<SerializedObject, IndexNumber> indexNumbers;
+
+    /**
+     * Constructs a new SerializedSnapshotMigrator.
+     * @param sourceFormat The format version of the snapshots upgraded, either {@code StorageSnapshot.LEGACY_FORMAT},
+     *                     whose journal sequence number follows the {@code Storage} object in the payload, or
+     *                     {@code StorageSnapshot.SERIALIZED_FORMAT}.
+     */
+    public SerializedSnapshotMigrator(int sourceFormat) {
+        this.sourceFormat = sourceFormat;
+    }
+
+    /**
+     * Returns the format version of the snapshots that this migrator upgrades.
+     * @return The format version of the snapshots read by this migrator.
+     */
+    @Override
+    public int getSourceFormat() {
+        return sourceFormat;
+    }
+
+    /**
+     * Returns the format version of the snapshots produced by this migrator.
+     * @return {@code StorageSnapshot.BINARY_FORMAT}.
+     */
+    @Override
+    public int getTargetFormat() {
+        return StorageSnapshot.BINARY_FORMAT;
+    }
+
+    /**
+     * Reads the {@code Storage} object written with Java serialization and writes it again in the binary format.
+     * @param snapshot The {@code StorageSnapshot} of the source format version.
+     * @return The {@code StorageSnapshot} in the binary format.
+     * @throws IOException if the payload could not be read or does not contain a {@code Storage} object.
+     */
+    @Override
+    public StorageSnapshot migrate(StorageSnapshot snapshot) throws IOException {
+        SerializedStreamReader reader = new SerializedStreamReader(new ByteArrayInputStream(snapshot.getPayload()));
+        SerializedObject root = toSerializedObject(reader.readObject(), "model.Storage");
+        long sequence = snapshot.getSequence();
+        if (sourceFormat == StorageSnapshot.LEGACY_FORMAT) {
+            byte[] trailer = reader.readBlockData();
+            sequence = trailer != null && trailer.length >= Long.BYTES ? ByteBuffer.wrap(trailer).getLong() : 0;
+        }
+
+        students = new IdentityHashMap<>();
+        courses = new IdentityHashMap<>();
+        indexNumbers = new IdentityHashMap<>();
+        Storage storage;
+        try {
+            storage = toStorage(root);
+        } catch (IllegalArgumentException e) {
+            throw new StreamCorruptedException("invalid serialized storage: " + e.getMessage());
+        }
+
+        return new StorageSnapshot(new StorageSnapshotWriter().write(storage), sequence,
+                StorageSnapshot.BINARY_FORMAT);
+    }
+
+    /**
+     * Converts the serialized {@code Storage} object, adding the students and courses first and linking up the
+     * registrations and wait lists afterwards in their original order.
+     * @param serializedStorage The serialized {@code Storage} object.
+     * @return The converted {@code Storage} object.
+     * @throws IOException if the serialized object does not have the expected fields.
+     */
+    private Storage toStorage(SerializedObject serializedStorage) throws IOException {
+        Storage storage = new Storage();
+        for (Object serializedStudent: toMap(serializedStorage.getField("students")).values()) {
+            storage.addStudent(toStudent(toSerializedObject(serializedStudent, "model.Student")));
+        }
+        for (Object serializedCourse: toMap(serializedStorage.getField("courses")).values()) {
+            storage.addCourse(toCourse(toSerializedObject(serializedCourse, "model.Course")));
+        }
+
+        for (Map.Entry<SerializedObject, IndexNumber> entry: new ArrayList<>(indexNumbers.entrySet())) {
+            IndexNumber indexNumber = entry.getValue();
+            for (Object serializedStudent: toList(entry.getKey().getField("registeredStudents"))) {
+                indexNumber.registerStudent(toStudent(toSerializedObject(serializedStudent, "model.Student")));
+            }
+            for (Object serializedStudent: toList(entry.getKey().getField("waitListStudents"))) {
+                indexNumber.addStudentToWaitList(toStudent(toSerializedObject(serializedStudent, "model.Student")));
+            }
+        }
+        for (Map.Entry<SerializedObject, Student> entry: new ArrayList<>(students.entrySet())) {
+            SerializedObject timeTable = entry.getKey();
+            if (timeTable.hasField("timeTable")) {
+                timeTable = toSerializedObject(timeTable.getField("timeTable"), "model.TimeTable");
+            }
+            Student student = entry.getValue();
+            for (Map.Entry<Object, Object> registered:
+                    toMap(timeTable.getField("registeredIndexNumbers")).entrySet()) {
+                student.enrol(toString(registered.getKey()),
+                        toIndexNumber(toSerializedObject(registered.getValue(), "model.IndexNumber")), false);
+            }
+            for (Map.Entry<Object, Object> waitListed: toMap(timeTable.getField("waitListIndexNumbers")).entrySet()) {
+                student.enrol(toString(waitListed.getKey()),
+                        toIndexNumber(toSerializedObject(waitListed.getValue(), "model.IndexNumber")), true);
+            }
+        }
+
+        return storage;
+    }
+
+    /**
+     * Converts a serialized {@code Student} object, without its registrations and wait list.
+     * @param serializedStudent The serialized {@code Student} object.
+     * @return The converted {@code Student} object, the same one every time for the same serialized object.
+     * @throws IOException if the serialized object does not have the expected fields.
+     */
+    private Student toStudent(SerializedObject serializedStudent) throws IOException {
+        Student student = students.get(serializedStudent);
+        if (student != null) {
+            return student;
+        }
+
+        SerializedObject accessTime = toSerializedObject(serializedStudent.getField("accessTime"), "model.AccessTime");
+        student = new Student(toString(serializedStudent.getField("name")),
+                toString(serializedStudent.getField("userId")),
+                toString(serializedStudent.getField("matricNumber")),
+                toString(serializedStudent.getField("nationality")),
+                toString(serializedStudent.getField("emailAddress")),
+                Gender.valueOf(toEnumConstant(serializedStudent.getField("gender"))),
+                new AccessTime(toLocalDateTime(accessTime.getField("start")),
+                        toLocalDateTime(accessTime.getField("end"))));
+        student.setRecordId(toInt(serializedStudent.getField("recordId")));
+        students.put(serializedStudent, student);
+
+        return student;
+    }
+
+    /**
+     * Converts a serialized {@code Course} object together with its index numbers.
+     * @param serializedCourse The serialized {@code Course} object.
+     * @return The converted {@code Course} object, the same one every time for the same serialized object.
+     * @throws IOException if the serialized object does not have the expected fields.
+     */
+    private Course toCourse(SerializedObject serializedCourse) throws IOException {
+        Course course = courses.get(serializedCourse);
+        if (course != null) {
+            return course;
+        }
+
+        course = new Course(toString(serializedCourse.getField("courseName")),
+                toString(serializedCourse.getField("courseCode")),
+                School.valueOf(toEnumConstant(serializedCourse.getField("school"))),
+                toInt(serializedCourse.getField("au")));
+        courses.put(serializedCourse, course);
+
+        ArrayList<IndexNumber> courseIndexNumbers = new ArrayList<>();
+        for (Object serializedIndexNumber: toList(serializedCourse.getField("indexNumbers"))) {
+            courseIndexNumbers.add(toIndexNumber(toSerializedObject(serializedIndexNumber, "model.IndexNumber")));
+        }
+        course.setIndexNumbers(courseIndexNumbers);
+
+        return course;
+    }
+
+    /**
+     * Converts a serialized {@code IndexNumber} object, without its registered students and wait list.
+     * @param serializedIndexNumber The serialized {@code IndexNumber} object.
+     * @return The converted {@code IndexNumber} object, the same one every time for the same serialized object.
+     * @throws IOException if the serialized object does not have the expected fields.
+     */
+    private IndexNumber toIndexNumber(SerializedObject serializedIndexNumber) throws IOException {
+        IndexNumber indexNumber = indexNumbers.get(serializedIndexNumber);
+        if (indexNumber != null) {
+            return indexNumber;
+        }
+
+        Course course = toCourse(toSerializedObject(serializedIndexNumber.getField("course"), "model.Course"));
+        indexNumber = indexNumbers.get(serializedIndexNumber);
+        if (indexNumber != null) {
+            return indexNumber;
+        }
+        ArrayList<Lesson> lessons = new ArrayList<>();
+        for (Object serializedLesson: toList(serializedIndexNumber.getField("lessons"))) {
+            lessons.add(toLesson(toSerializedObject(serializedLesson, "model.Lesson")));
+        }
+        indexNumber = new IndexNumber(toInt(serializedIndexNumber.getField("id")), course, lessons,
+                toInt(serializedIndexNumber.getField("maxVacancy")));
+        indexNumber.setRecordId(toInt(serializedIndexNumber.getField("recordId")));
+        indexNumbers.put(serializedIndexNumber, indexNumber);
+
+        return indexNumber;
+    }
+
+    /**
+     * Converts a serialized {@code Lesson} object.
+     * @param serializedLesson The serialized {@code Lesson} object.
+     * @return The converted {@code Lesson} object.
+     * @throws IOException if the serialized object does not have the expected fields.
+     */
+    private Lesson toLesson(SerializedObject serializedLesson) throws IOException {
+        return new Lesson(LessonType.valueOf(toEnumConstant(serializedLesson.getField("lessonType"))),
+                DayOfWeek.valueOf(toEnumConstant(serializedLesson.getField("dayOfWeek"))),
+                toLocalTime(serializedLesson.getField("startTime")),
+                toLocalTime(serializedLesson.getField("endTime")));
+    }
+
+    /**
+     * Converts a serialized {@code LocalDateTime}, which is written through the serialization proxy of java.time.
+     * @param value The serialized {@code LocalDateTime}.
+     * @return The converted {@code LocalDateTime}.
+     * @throws IOException if the value is not a serialized {@code LocalDateTime}.
+     */
+    private LocalDateTime toLocalDateTime(Object value) throws IOException {
+        DataInputStream in = openTimeProxy(value, LOCAL_DATE_TIME_TYPE);
+        LocalDate date = LocalDate.of(in.readInt(), in.readByte(), in.readByte());
+        return LocalDateTime.of(date, readLocalTime(in));
+    }
+
+    /**
+     * Converts a serialized {@code LocalTime}, which is written through the serialization proxy of java.time.
+     * @param value The serialized {@code LocalTime}.
+     * @return The converted {@code LocalTime}.
+     * @throws IOException if the value is not a serialized {@code LocalTime}.
+     */
+    private LocalTime toLocalTime(Object value) throws IOException {
+        return readLocalTime(openTimeProxy(value, LOCAL_TIME_TYPE));
+    }
+
+    /**
+     * Opens the data written by the serialization proxy of java.time and checks its type.
+     * @param value The serialized proxy.
+     * @param type The type of value expected.
+     * @return The {@code DataInputStream} positioned right after the type.
+     * @throws IOException if the value is not a serialized proxy of the expected type.
+     */
+    private DataInputStream openTimeProxy(Object value, int type) throws IOException {
+        SerializedObject proxy = toSerializedObject(value, "java.time.Ser");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(proxy.getBlockData()));
+        if (in.readByte() != type) {
+            throw new StreamCorruptedException("unexpected java.time type");
+        }
+        return in;
+    }
+
+    /**
+     * Reads a {@code LocalTime} the way it is written by the serialization proxy of java.time, where the first of the
+     * hour, minute, second and nanosecond that is followed only by zeros is written complemented and the rest is left
+     * out.
+     * @param in The {@code DataInputStream} to read from.
+     * @return The {@code LocalTime} that was read.
+     * @throws IOException if the time could not be read.
+     */
+    private LocalTime readLocalTime(DataInputStream in) throws IOException {
+        int hour = in.readByte();
+        int minute = 0;
+        int second = 0;
+        int nano = 0;
+        if (hour < 0) {
+            hour = ~hour;
+        } else {
+            minute = in.readByte();
+            if (minute < 0) {
+                minute = ~minute;
+            } else {
+                second = in.readByte();
+                if (second < 0) {
+                    second = ~second;
+                } else {
+                    nano = in.readInt();
+                }
+            }
+        }
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    /**
+     * Converts a serialized HashMap or LinkedHashMap, whose entries are written as keys followed by values.
+     * @param value The serialized map.
+     * @return The keys and values of the map, in the order they were written.
+     * @throws IOException if the value is not a serialized map.
+     */
+    private LinkedHashMap<Object, Object> toMap(Object value) throws IOException {
+        LinkedHashMap<Object, Object> map = new LinkedHashMap<>();
+        if (value == null) {
+            return map;
+        }
+        ArrayList<Object> objects = toSerializedObject(value, null).getObjects();
+        if (objects.size() % 2 != 0) {
+            throw new StreamCorruptedException("map with a key but no value");
+        }
+        for (int i = 0; i < objects.size(); i += 2) {
+            map.put(objects.get(i), objects.get(i + 1));
+        }
+        return map;
+    }
+
+    /**
+     * Converts a serialized ArrayList or LinkedList, whose elements are written in order.
+     * @param value The serialized list.
+     * @return The elements of the list.
+     * @throws IOException if the value is not a serialized list.
+     */
+    private ArrayList<Object> toList(Object value) throws IOException {
+        if (value == null) {
+            return new ArrayList<>();
+        }
+        return toSerializedObject(value, null).getObjects();
+    }
+
+    /**
+     * Checks that a value is a serialized object of a particular class.
+     * @param value The value to be checked.
+     * @param className The name of the class expected, or null if any class is accepted.
+     * @return The value as a {@code SerializedObject}.
+     * @throws IOException if the value is not a serialized object of the class.
+     */
+    private SerializedObject toSerializedObject(Object value, String className) throws IOException {
+        if (!(value instanceof SerializedObject)
+                || className != null && !((SerializedObject) value).getClassName().equals(className)) {
+            throw new StreamCorruptedException("expected a serialized " + (className == null ? "object" : className));
+        }
+        return (SerializedObject) value;
+    }
+
+    /**
+     * Checks that a value is a String.
+     * @param value The value to be checked.
+     * @return The value as a String.
+     * @throws IOException if the value is not a String.
+     */
+    private String toString(Object value) throws IOException {
+        if (!(value instanceof String)) {
+            throw new StreamCorruptedException("expected a serialized string");
+        }
+        return (String) value;
+    }
+
+    /**
+     * Returns the value of an int field, which is 0 if the field did not exist when the snapshot was saved.
+     * @param value The value of the field.
+     * @return The value as an int.
+     * @throws IOException if the value is neither an int nor missing.
+     */
+    private int toInt(Object value) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+        if (!(value instanceof Integer)) {
+            throw new StreamCorruptedException("expected a serialized int");
+        }
+        return (Integer) value;
+    }
+
+    /**
+     * Returns the name of a serialized enum constant.
+     * @param value The serialized enum constant.
+     * @return The name of the enum constant.
+     * @throws IOException if the value is not an enum constant.
+     */
+    private String toEnumConstant(Object value) throws IOException {
+        if (!(value instanceof SerializedObject) || ((SerializedObject) value).getEnumConstant() == null) {
+            throw new StreamCorruptedException("expected a serialized enum constant");
+        }
+        return ((SerializedObject) value).getEnumConstant();
+    }
+}
@@ -0,0 +1,466 @@
+package filemanager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * This class is responsible for reading a stream written with Java serialization in a single pass without loading
+ * any of the classes that were serialized. Every object is read into a {@code SerializedObject} holding its fields by
+ * name, so neither a changed serialVersionUID nor added, removed or retyped fields prevent a stream from being read,
+ * and the caller decides how the fields map onto the current classes. Classes with a writeObject method are expected
+ * to write their default fields first, as all the collection classes do.
+ * @see SerializedObject
+ */
+public class SerializedStreamReader implements ObjectStreamConstants {
+    /**
+     * The stream being read.
+     */
+    private DataInputStream in;
+
+    /**
+     * The objects, strings, arrays and class descriptions read so far, by handle.
+     */
+    private ArrayList<Object> handles = new ArrayList<>();
+
+    /**
+     * Constructs a new SerializedStreamReader and reads the header of the stream.
+     * @param in The stream written with Java serialization.
+     * @throws IOException if the stream could not be read or does not start with the header of Java serialization.
+     */
+    public SerializedStreamReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if (this.in.readShort() != STREAM_MAGIC || this.in.readShort() != STREAM_VERSION) {
+            throw new StreamCorruptedException("not a Java serialization stream");
+        }
+    }
+
+    /**
+     * Reads the next object of the stream.
+     * @return The object that was read: a {@code SerializedObject}, a String, an array or null.
+     * @throws IOException if the stream could not be read or the next item is not an object.
+     */
+    public Object readObject() throws IOException {
+        int tc = in.readUnsignedByte();
+        if (tc == TC_BLOCKDATA || tc == TC_BLOCKDATALONG || tc == TC_ENDBLOCKDATA) {
+            throw new StreamCorruptedException("expected an object but found primitive data");
+        }
+        return readContent(tc);
+    }
+
+    /**
+     * Reads the next block of primitive data of the stream.
+     * @return The bytes of the block, or null if the end of the stream has been reached.
+     * @throws IOException if the stream could not be read or the next item is not primitive data.
+     */
+    public byte[] readBlockData() throws IOException {
+        int tc = in.read();
+        if (tc < 0) {
+            return null;
+        }
+        if (tc != TC_BLOCKDATA && tc != TC_BLOCKDATALONG) {
+            throw new StreamCorruptedException("expected primitive data but found " + tc);
+        }
+        return readBlockBytes(tc);
+    }
+
+    /**
+     * Reads an item of the stream whose type code has already been read.
+     * @param tc The type code of the item.
+     * @return The object that was read.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private Object readContent(int tc) throws IOException {
+        switch (tc) {
+        case TC_NULL:
+            return null;
+        case TC_REFERENCE:
+            return readReference();
+        case TC_STRING:
+            return addHandle(in.readUTF());
+        case TC_LONGSTRING:
+            return addHandle(readLongUtf());
+        case TC_CLASSDESC:
+        case TC_PROXYCLASSDESC:
+            return readNewClassDescription(tc);
+        case TC_CLASS:
+            ClassDescription classDescription = readClassDescription();
+            return addHandle(classDescription);
+        case TC_ARRAY:
+            return readArray();
+        case TC_ENUM:
+            return readEnum();
+        case TC_OBJECT:
+            return readNewObject();
+        case TC_RESET:
+            handles.clear();
+            return readContent(in.readUnsignedByte());
+        case TC_EXCEPTION:
+            throw new StreamCorruptedException("the stream was aborted by an exception while being written");
+        default:
+            throw new StreamCorruptedException("invalid type code " + tc);
+        }
+    }
+
+    /**
+     * Reads an object and the values of its fields, from the topmost serializable superclass down to its class.
+     * @return The {@code SerializedObject} that was read.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private SerializedObject readNewObject() throws IOException {
+        ClassDescription classDescription = readClassDescription();
+        if (classDescription == null) {
+            throw new StreamCorruptedException("object without a class");
+        }
+        SerializedObject object = new SerializedObject(classDescription.name);
+        addHandle(object);
+
+        ArrayList<ClassDescription> hierarchy = new ArrayList<>();
+        for (ClassDescription c = classDescription; c != null; c = c.superclass) {
+            hierarchy.add(c);
+        }
+        Collections.reverse(hierarchy);
+
+        ByteArrayOutputStream blockData = new ByteArrayOutputStream();
+        for (ClassDescription c: hierarchy) {
+            if ((c.flags & SC_EXTERNALIZABLE) != 0) {
+                if ((c.flags & SC_BLOCK_DATA) == 0) {
+                    throw new StreamCorruptedException("unsupported externalizable data of " + c.name);
+                }
+                readAnnotation(object, blockData);
+                continue;
+            }
+            for (FieldDescription field: c.fields) {
+                object.setField(field.name, readFieldValue(field.typeCode));
+            }
+            if ((c.flags & SC_WRITE_METHOD) != 0) {
+                readAnnotation(object, blockData);
+            }
+        }
+        object.setBlockData(blockData.toByteArray());
+
+        return object;
+    }
+
+    /**
+     * Reads what a class wrote in addition to its fields, up to the end marker.
+     * @param object The {@code SerializedObject} to add the objects to.
+     * @param blockData The buffer to add the primitive data to.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private void readAnnotation(SerializedObject object, ByteArrayOutputStream blockData) throws IOException {
+        while (true) {
+            int tc = in.readUnsignedByte();
+            if (tc == TC_ENDBLOCKDATA) {
+                return;
+            } else if (tc == TC_BLOCKDATA || tc == TC_BLOCKDATALONG) {
+                blockData.writeBytes(readBlockBytes(tc));
+            } else {
+                object.getObjects().add(readContent(tc));
+            }
+        }
+    }
+
+    /**
+     * Reads an array and its elements.
+     * @return The array that was read, an array of a primitive type or an array of Object.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private Object readArray() throws IOException {
+        ClassDescription classDescription = readClassDescription();
+        if (classDescription == null || classDescription.name.length() < 2) {
+            throw new StreamCorruptedException("array without a class");
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("negative array length");
+        }
+
+        char elementType = classDescription.name.charAt(1);
+        Object array;
+        switch (elementType) {
+        case 'B':
+            array = new byte[length];
+            break;
+        case 'C':
+            array = new char[length];
+            break;
+        case 'D':
+            array = new double[length];
+            break;
+        case 'F':
+            array = new float[length];
+            break;
+        case 'I':
+            array = new int[length];
+            break;
+        case 'J':
+            array = new long[length];
+            break;
+        case 'S':
+            array = new short[length];
+            break;
+        case 'Z':
+            array = new boolean[length];
+            break;
+        default:
+            array = new Object[length];
+        }
+        addHandle(array);
+
+        if (array instanceof byte[]) {
+            in.readFully((byte[]) array);
+        } else {
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, readFieldValue(elementType));
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Reads an enum constant.
+     * @return The {@code SerializedObject} holding the name of the enum constant.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private SerializedObject readEnum() throws IOException {
+        ClassDescription classDescription = readClassDescription();
+        if (classDescription == null) {
+            throw new StreamCorruptedException("enum constant without a class");
+        }
+        SerializedObject constant = new SerializedObject(classDescription.name);
+        addHandle(constant);
+        Object name = readObject();
+        if (!(name instanceof String)) {
+            throw new StreamCorruptedException("enum constant without a name");
+        }
+        constant.setEnumConstant((String) name);
+
+        return constant;
+    }
+
+    /**
+     * Reads the value of a field or array element of a particular type.
+     * @param typeCode The type code of the field, as in the descriptor of a field.
+     * @return The boxed primitive value or the object that was read.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private Object readFieldValue(char typeCode) throws IOException {
+        switch (typeCode) {
+        case 'B':
+            return in.readByte();
+        case 'C':
+            return in.readChar();
+        case 'D':
+            return in.readDouble();
+        case 'F':
+            return in.readFloat();
+        case 'I':
+            return in.readInt();
+        case 'J':
+            return in.readLong();
+        case 'S':
+            return in.readShort();
+        case 'Z':
+            return in.readBoolean();
+        case 'L':
+        case '[':
+            return readObject();
+        default:
+            throw new StreamCorruptedException("invalid field type " + typeCode);
+        }
+    }
+
+    /**
+     * Reads a class description, which may also be a reference to one read before or null.
+     * @return The {@code ClassDescription} that was read, or null.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private ClassDescription readClassDescription() throws IOException {
+        int tc = in.readUnsignedByte();
+        Object classDescription;
+        if (tc == TC_NULL) {
+            return null;
+        } else if (tc == TC_REFERENCE) {
+            classDescription = readReference();
+        } else if (tc == TC_CLASSDESC || tc == TC_PROXYCLASSDESC) {
+            classDescription = readNewClassDescription(tc);
+        } else {
+            throw new StreamCorruptedException("expected a class description but found " + tc);
+        }
+
+        if (!(classDescription instanceof ClassDescription)) {
+            throw new StreamCorruptedException("expected a class description");
+        }
+        return (ClassDescription) classDescription;
+    }
+
+    /**
+     * Reads a new class description whose type code has already been read, together with its superclasses.
+     * @param tc The type code of the class description.
+     * @return The {@code ClassDescription} that was read.
+     * @throws IOException if the stream could not be read or is corrupted.
+     */
+    private ClassDescription readNewClassDescription(int tc) throws IOException {
+        ClassDescription classDescription = new ClassDescription();
+        if (tc == TC_PROXYCLASSDESC) {
+            addHandle(classDescription);
+            int numberOfInterfaces = in.readInt();
+            for (int i = 0; i < numberOfInterfaces; i++) {
+                in.readUTF();
+            }
+            classDescription.name = "$Proxy";
+            classDescription.flags = SC_SERIALIZABLE;
+            classDescription.fields = new FieldDescription[0];
+        } else {
+            classDescription.name = in.readUTF();
+            in.readLong();
+            addHandle(classDescription);
+            classDescription.flags = in.readUnsignedByte();
+            int numberOfFields = in.readShort();
+            classDescription.fields = new FieldDescription[numberOfFields];
+            for (int i = 0; i < numberOfFields; i++) {
+                char typeCode = (char) in.readUnsignedByte();
+                String name = in.readUTF();
+                if (typeCode == 'L' || typeCode == '[') {
+                    readObject();
+                }
+                classDescription.fields[i] = new FieldDescription(typeCode, name);
+            }
+        }
+
+        SerializedObject annotation = new SerializedObject(classDescription.name);
+        readAnnotation(annotation, new ByteArrayOutputStream());
+        classDescription.superclass = readClassDescription();
+
+        return classDescription;
+    }
+
+    /**
+     * Reads a reference to an item read before.
+     * @return The item that the reference refers to.
+     * @throws IOException if the stream could not be read or the reference is invalid.
+     */
+    private Object readReference() throws IOException {
+        int handle = in.readInt() - baseWireHandle;
+        if (handle < 0 || handle >= handles.size()) {
+            throw new StreamCorruptedException("invalid reference " + handle);
+        }
+        return handles.get(handle);
+    }
+
+    /**
+     * Gives an item the next handle so that later references can refer to it.
+     * @param item The item that was read.
+     * @param <T> The type of the item.
+     * @return The item.
+     */
+    private <T> T addHandle(T item) {
+        handles.add(item);
+        return item;
+    }
+
+    /**
+     * Reads the bytes of a block of primitive data whose type code has already been read.
+     * @param tc The type code of the block.
+     * @return The bytes of the block.
+     * @throws IOException if the stream could not be read.
+     */
+    private byte[] readBlockBytes(int tc) throws IOException {
+        int length = tc == TC_BLOCKDATA ? in.readUnsignedByte() : in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("negative block length");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a string longer than 65535 bytes, written in the modified UTF-8 encoding used by Java serialization.
+     * @return The string that was read.
+     * @throws IOException if the stream could not be read or the string is not valid modified UTF-8.
+     */
+    private String readLongUtf() throws IOException {
+        long length = in.readLong();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("invalid string length");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+
+        StringBuilder text = new StringBuilder(bytes.length);
+        int i = 0;
+        while (i < bytes.length) {
+            int b = bytes[i++] & 0xff;
+            if (b < 0x80) {
+                text.append((char) b);
+            } else if ((b & 0xe0) == 0xc0 && i < bytes.length) {
+                text.append((char) (((b & 0x1f) << 6) | (bytes[i++] & 0x3f)));
+            } else if ((b & 0xf0) == 0xe0 && i + 1 < bytes.length) {
+                text.append((char) (((b & 0x0f) << 12) | ((bytes[i] & 0x3f) << 6) | (bytes[i + 1] & 0x3f)));
+                i += 2;
+            } else {
+                throw new EOFException("invalid modified UTF-8 string");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * The description of a serialized class as written in the stream.
+     */
+    private static class ClassDescription {
+        /**
+         * The name of the class.
+         */
+        private String name;
+
+        /**
+         * The flags of the class, e.g. whether it has a writeObject method.
+         */
+        private int flags;
+
+        /**
+         * The serialized fields of the class, in the order their values are written.
+         */
+        private FieldDescription[] fields;
+
+        /**
+         * The description of the serializable superclass, or null if there is none.
+         */
+        private ClassDescription superclass;
+    }
+
+    /**
+     * The description of a serialized field as written in the stream.
+     */
+    private static class FieldDescription {
+        /**
+         * The type code of the field, e.g. 'I' for an int or 'L' for an object.
+         */
+        private char typeCode;
+
+        /**
+         * The name of the field.
+         */
+        private String name;
+
+        /**
+         * Constructs a new FieldDescription.
+         * @param typeCode The type code of the field.
+         * @param name The name of the field.
+         */
+        private FieldDescription(char typeCode, String name) {
+            this.typeCode = typeCode;
+            this.name = name;
+        }
+    }
+}
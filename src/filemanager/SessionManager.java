@@ -0,0 +1,183 @@
+package filemanager;
+
+import model.AccountType;
+import model.Session;
+import utility.PasswordHasher;
+import utility.TimerWheel;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for the sessions opened for users whose login information has been verified. Every
+ * session is identified by a random token, and checking a token is a single lookup that neither reads the login file
+ * nor hashes a password. A session stays valid for a fixed time after it was last used.
+ *
+ * <p>The deadlines of the sessions are kept in a {@code TimerWheel} that a background thread moves forward every tick,
+ * removing the sessions that have not been used for the whole time. A session that has been used since its deadline
+ * was added is given a new deadline instead, so using a session only takes writing its expiry time.</p>
+ * @see TimerWheel
+ */
+public class SessionManager {
+    /**
+     * The default time in milliseconds a session stays valid after it was last used.
+     */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * The default length in milliseconds of a tick of the timer wheel.
+     */
+    private static final long DEFAULT_TICK_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    /**
+     * The number of slots of the timer wheel.
+     */
+    private static final int WHEEL_SLOTS = 512;
+
+    /**
+     * The number of random bytes in a token.
+     */
+    private static final int TOKEN_LENGTH = 16;
+
+    /**
+     * The open sessions. The key is the token of the session.
+     */
+    private ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * The deadlines of the open sessions.
+     */
+    private TimerWheel<Session> timerWheel;
+
+    /**
+     * The time in milliseconds a session stays valid after it was last used.
+     */
+    private long ttlMillis;
+
+    /**
+     * The source of random tokens.
+     */
+    private SecureRandom random = new SecureRandom();
+
+    /**
+     * The background thread that moves the timer wheel forward.
+     */
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructs a new SessionManager whose sessions stay valid for 30 minutes after they were last used.
+     */
+    public SessionManager() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Constructs a new SessionManager and starts its background thread.
+     * @param ttlMillis The time in milliseconds a session stays valid after it was last used.
+     * @param tickMillis The length in milliseconds of a tick of the timer wheel, which is how late an unused session
+     *                   may be removed.
+     */
+    public SessionManager(long ttlMillis, long tickMillis) {
+        if (ttlMillis < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("Invalid session time to live or tick length");
+        }
+        this.ttlMillis = ttlMillis;
+        timerWheel = new TimerWheel<>(WHEEL_SLOTS, tickMillis, now());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireSessions, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a new session for a user whose login information has been verified.
+     * @param userId The user id of the user.
+     * @param accountType The {@code AccountType} of the user.
+     * @return The {@code Session} object, whose token identifies it.
+     * @see AccountType
+     */
+    public Session createSession(String userId, AccountType accountType) {
+        byte[] tokenBytes = new byte[TOKEN_LENGTH];
+        random.nextBytes(tokenBytes);
+        Session session = new Session(PasswordHasher.toHex(tokenBytes), userId, accountType, now() + ttlMillis);
+        sessions.put(session.getToken(), session);
+        timerWheel.schedule(session, session.getExpiresAtMillis());
+        return session;
+    }
+
+    /**
+     * Checks whether a token identifies an open session, and if so keeps the session valid for another full time to
+     * live.
+     * @param token The token of the session.
+     * @return The {@code Session} object, or null if the token does not identify an open session.
+     */
+    public Session validateSession(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = now();
+        if (session.getExpiresAtMillis() <= now) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.setExpiresAtMillis(now + ttlMillis);
+        return session;
+    }
+
+    /**
+     * Closes a session, after which its token is no longer valid.
+     * @param token The token of the session.
+     */
+    public void endSession(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Returns the number of open sessions, including those whose time is up but have not been removed yet.
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops the background thread. The sessions that are open stay valid until their time is up.
+     */
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Moves the timer wheel forward, removing the sessions whose time is up and giving the sessions that have been
+     * used since their deadline was added a new deadline.
+     */
+    private void expireSessions() {
+        long now = now();
+        for (Session session: timerWheel.advance(now)) {
+            if (sessions.get(session.getToken()) != session) {
+                continue;
+            }
+            if (session.getExpiresAtMillis() <= now) {
+                sessions.remove(session.getToken(), session);
+            } else {
+                timerWheel.schedule(session, session.getExpiresAtMillis());
+            }
+        }
+    }
+
+    /**
+     * Returns the current time on a clock that is not affected by changes to the system time.
+     * @return The current time in milliseconds.
+     */
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,175 @@
+package filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * This class is responsible for the deltas saved on top of a whole snapshot. Each delta is written through its own
+ * {@code SnapshotFile} in the deltas folder, and is named after the sequence numbers of the last journal records
+ * contained in the segment before it and in itself, so that the deltas that follow a snapshot form a chain that can be
+ * found from the sequence number of the snapshot alone.
+ * @see SnapshotFile
+ * @see SegmentedSnapshot
+ */
+public class SnapshotDeltas {
+    /**
+     * The file extension of the delta files.
+     */
+    private static final String DELTA_EXTENSION = ".delta";
+
+    /**
+     * The {@code File} object that represents the folder in which the deltas are stored in.
+     */
+    private File directory;
+
+    /**
+     * Constructs a new SnapshotDeltas which stores its deltas inside a particular folder.
+     * @param directory The {@code File} object representing the folder to store the deltas in.
+     */
+    public SnapshotDeltas(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes a new delta. Returns only once the delta is on disk.
+     * @param payload The bytes of the delta written by {@code MappedSnapshotWriter}.
+     * @param fromSequence The sequence number of the last journal record contained in the segment before the delta.
+     * @param toSequence The sequence number of the last journal record contained in the delta.
+     * @throws IOException if the delta could not be written.
+     */
+    public void write(byte[] payload, long fromSequence, long toSequence) throws IOException {
+        directory.mkdirs();
+        new SnapshotFile(getDeltaFile(fromSequence, toSequence)).write(payload, toSequence);
+    }
+
+    /**
+     * Reads the chain of deltas that follows a segment. The chain stops before the first delta that is corrupted or
+     * was not written in the current format version, since none of the deltas after it can be laid over the segments
+     * safely; the journal records after the end of the chain have to be replayed instead.
+     * @param fromSequence The sequence number of the last journal record contained in the segment.
+     * @return An ArrayList of the {@code StorageSnapshot} objects of the deltas in the chain, in order.
+     */
+    public ArrayList<StorageSnapshot> readChain(long fromSequence) {
+        ArrayList<StorageSnapshot> chain = new ArrayList<>();
+        ArrayList<long[]> deltas = listDeltas();
+        for (long[] delta: deltas) {
+            if (delta[0] != fromSequence) {
+                continue;
+            }
+            File deltaFile = getDeltaFile(delta[0], delta[1]);
+            try {
+                StorageSnapshot snapshot = new SnapshotFile(deltaFile).read();
+                if (snapshot == null || snapshot.getFormatVersion() != StorageSnapshot.CURRENT_FORMAT
+                        || snapshot.getSequence() != delta[1]) {
+                    System.out.println("Unable to read " + deltaFile.getName()
+                            + ", ignoring it and the deltas after it");
+                    break;
+                }
+                chain.add(snapshot);
+            } catch (IOException e) {
+                System.out.println("Unable to read " + deltaFile.getName() + " (" + e.getMessage()
+                        + "), ignoring it and the deltas after it");
+                break;
+            }
+            fromSequence = delta[1];
+        }
+        return chain;
+    }
+
+    /**
+     * Returns the number of deltas in the chain that follows a segment, without reading them.
+     * @param fromSequence The sequence number of the last journal record contained in the segment.
+     * @return The number of deltas in the chain.
+     */
+    public int countChain(long fromSequence) {
+        int count = 0;
+        for (long[] delta: listDeltas()) {
+            if (delta[0] == fromSequence) {
+                count++;
+                fromSequence = delta[1];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total size of the deltas in the chain that follows a segment, without reading them.
+     * @param fromSequence The sequence number of the last journal record contained in the segment.
+     * @return The total size in bytes of the delta files in the chain.
+     */
+    public long sizeOfChain(long fromSequence) {
+        long size = 0;
+        for (long[] delta: listDeltas()) {
+            if (delta[0] == fromSequence) {
+                size += getDeltaFile(delta[0], delta[1]).length();
+                fromSequence = delta[1];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Deletes all the deltas that only contain journal records up to a particular sequence number.
+     * @param sequence The sequence number of the last journal record of the deltas to be deleted.
+     */
+    public void deleteUpTo(long sequence) {
+        for (long[] delta: listDeltas()) {
+            if (delta[1] <= sequence) {
+                getDeltaFile(delta[0], delta[1]).delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes every delta. This is used when the {@code Storage} object is rebuilt from the pre-loaded information,
+     * since the deltas no longer apply to it.
+     */
+    public void deleteAll() {
+        for (long[] delta: listDeltas()) {
+            getDeltaFile(delta[0], delta[1]).delete();
+        }
+    }
+
+    /**
+     * Returns the sequence numbers of all the deltas in the deltas folder, in ascending order of the sequence number
+     * before each delta. If saving a delta failed halfway and a later delta was saved from the same segment instead,
+     * the later delta contains everything in the failed one, so deltas from the same segment are in descending order
+     * of their own sequence number, which makes a chain pick the later one.
+     * @return An ArrayList of pairs of the sequence numbers before and of each delta.
+     */
+    private ArrayList<long[]> listDeltas() {
+        ArrayList<long[]> deltas = new ArrayList<>();
+        String[] fileNames = directory.list();
+        if (fileNames == null) {
+            return deltas;
+        }
+
+        for (String fileName: fileNames) {
+            if (!fileName.endsWith(DELTA_EXTENSION)) {
+                continue;
+            }
+            String[] sequences = fileName.substring(0, fileName.length() - DELTA_EXTENSION.length()).split("-");
+            try {
+                if (sequences.length == 2) {
+                    deltas.add(new long[] { Long.parseLong(sequences[0]), Long.parseLong(sequences[1]) });
+                }
+            } catch (NumberFormatException e) {
+                // not a delta
+            }
+        }
+        deltas.sort((first, second) -> first[0] != second[0]
+                ? Long.compare(first[0], second[0]) : Long.compare(second[1], first[1]));
+        return deltas;
+    }
+
+    /**
+     * Returns the file of a delta.
+     * @param fromSequence The sequence number of the last journal record contained in the segment before the delta.
+     * @param toSequence The sequence number of the last journal record contained in the delta.
+     * @return The {@code File} object representing the delta.
+     */
+    private File getDeltaFile(long fromSequence, long toSequence) {
+        return new File(directory, String.format("%016d-%016d%s", fromSequence, toSequence, DELTA_EXTENSION));
+    }
+}
@@ -0,0 +1,273 @@
+package filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is responsible for writing and reading snapshots of the {@code Storage} object in a crash-safe way. A
+ * snapshot is first written to a temporary file and forced to disk, then renamed over the current snapshot, so the
+ * snapshot file is always either the old or the new snapshot and never a partly written one. The snapshot it replaces
+ * is kept as the previous snapshot to fall back to if the current one turns out to be corrupted.
+ *
+ * <p>A snapshot starts with a header containing a magic number, the format version and the journal sequence number,
+ * and ends with a trailer containing the payload length, a CRC32 checksum of the header and payload, and another magic
+ * number. A truncated snapshot is therefore detected by reading the header and trailer alone, before the payload is
+ * read.</p>
+ *
+ * <p>Snapshots in {@code StorageSnapshot.MAPPED_FORMAT} are not read into memory but mapped, so that their students
+ * are only read when they are needed. Their payload starts with the number of bytes at its front that are read
+ * straight away, and the checksum only covers the header and those bytes. Everything after them carries its own
+ * checksum, which is verified when it is read.</p>
+ *
+ * <p>On Windows, a file cannot be renamed or deleted while it is mapped, and a mapping is only released once it has
+ * been garbage collected, so replacing a snapshot or deleting a delta that is still mapped would fail. Snapshots are
+ * therefore read onto the heap there instead of being mapped; their students are still only decoded when they are
+ * needed.</p>
+ * @see StorageSnapshot
+ */
+public class SnapshotFile {
+    /**
+     * The magic number at the start of a snapshot, "STRS" in ASCII.
+     */
+    private static final int HEADER_MAGIC = 0x53545253;
+
+    /**
+     * The magic number at the end of a snapshot, "SEND" in ASCII.
+     */
+    private static final int TRAILER_MAGIC = 0x53454e44;
+
+    /**
+     * The size in bytes of the header, i.e. the magic number, the format version and the journal sequence number.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The size in bytes of the trailer, i.e. the payload length, the checksum and the magic number.
+     */
+    private static final int TRAILER_SIZE = 16;
+
+    /**
+     * Whether snapshots in {@code StorageSnapshot.MAPPED_FORMAT} are mapped rather than read onto the heap, which is
+     * the case everywhere except on Windows.
+     */
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * The {@code File} object that represents the current snapshot.
+     */
+    private File file;
+
+    /**
+     * The {@code File} object that represents the previous snapshot.
+     */
+    private File previousFile;
+
+    /**
+     * The {@code File} object that represents the temporary file a new snapshot is written to.
+     */
+    private File temporaryFile;
+
+    /**
+     * Constructs a new SnapshotFile.
+     * @param file The {@code File} object that represents the current snapshot.
+     */
+    public SnapshotFile(File file) {
+        this.file = file;
+        previousFile = new File(file.getPath() + ".prev");
+        temporaryFile = new File(file.getPath() + ".tmp");
+    }
+
+    /**
+     * Writes a new snapshot and atomically replaces the current snapshot with it. Returns only once the new snapshot is
+     * on disk.
+     * @param payload The bytes of the {@code Storage} object written by {@code MappedSnapshotWriter}.
+     * @param sequence The sequence number of the last journal record contained in the payload.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public void write(byte[] payload, long sequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(HEADER_MAGIC).putInt(StorageSnapshot.CURRENT_FORMAT).putLong(sequence).flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        crc.update(payload, 0, checkedLength(StorageSnapshot.CURRENT_FORMAT, ByteBuffer.wrap(payload)));
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        trailer.putLong(payload.length).putInt((int) crc.getValue()).putInt(TRAILER_MAGIC).flip();
+
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = { header, ByteBuffer.wrap(payload), trailer };
+            while (trailer.hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+
+        if (file.exists()) {
+            move(file.toPath(), previousFile.toPath());
+        }
+        move(temporaryFile.toPath(), file.toPath());
+        syncDirectory();
+    }
+
+    /**
+     * Returns the size of the current snapshot on disk.
+     * @return The size in bytes of the current snapshot, or 0 if there is none.
+     */
+    public long getSize() {
+        return file.length();
+    }
+
+    /**
+     * Reads the current snapshot, falling back to the previous snapshot if the current one is missing or corrupted.
+     * @return The {@code StorageSnapshot} that was read, or null if there is no snapshot at all.
+     * @throws IOException if there is a snapshot but neither it nor the previous snapshot could be read.
+     */
+    public StorageSnapshot read() throws IOException {
+        if (!file.exists() && !previousFile.exists()) {
+            return null;
+        }
+
+        try {
+            return read(file);
+        } catch (IOException e) {
+            if (!previousFile.exists()) {
+                throw e;
+            }
+            System.out.println("Unable to read " + file.getName() + " (" + e.getMessage()
+                    + "), falling back to " + previousFile.getName());
+            return read(previousFile);
+        }
+    }
+
+    /**
+     * Reads and verifies a particular snapshot. Files without the header are snapshots saved before this format was
+     * introduced and are returned as they are.
+     * @param snapshotFile The {@code File} object that represents the snapshot.
+     * @return The {@code StorageSnapshot} that was read.
+     * @throws IOException if the snapshot could not be read or is corrupted.
+     */
+    private StorageSnapshot read(File snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < 4 || header.getInt(0) != HEADER_MAGIC) {
+                ByteBuffer legacyPayload = ByteBuffer.allocate((int) size);
+                readFully(channel, legacyPayload, 0);
+                return new StorageSnapshot(legacyPayload.array(), 0, StorageSnapshot.LEGACY_FORMAT);
+            }
+
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new StreamCorruptedException("snapshot is truncated");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, size - TRAILER_SIZE);
+            trailer.flip();
+            long payloadLength = trailer.getLong();
+            int checksum = trailer.getInt();
+            if (trailer.getInt() != TRAILER_MAGIC || payloadLength != size - HEADER_SIZE - TRAILER_SIZE) {
+                throw new StreamCorruptedException("snapshot is truncated");
+            }
+
+            header.getInt();
+            int version = header.getInt();
+            long sequence = header.getLong();
+            if (version < StorageSnapshot.SERIALIZED_FORMAT || version > StorageSnapshot.CURRENT_FORMAT) {
+                throw new StreamCorruptedException("unknown snapshot format version " + version);
+            }
+
+            ByteBuffer payload;
+            if (version == StorageSnapshot.MAPPED_FORMAT && MAP_FILES) {
+                payload = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, payloadLength);
+            } else {
+                payload = ByteBuffer.allocate((int) payloadLength);
+                readFully(channel, payload, HEADER_SIZE);
+                payload.flip();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(header.array());
+            ByteBuffer checkedPayload = payload.duplicate();
+            checkedPayload.limit(checkedLength(version, payload));
+            crc.update(checkedPayload);
+            if ((int) crc.getValue() != checksum) {
+                throw new StreamCorruptedException("snapshot checksum mismatch");
+            }
+
+            return new StorageSnapshot(payload, sequence, version);
+        }
+    }
+
+    /**
+     * Returns the number of bytes at the front of a payload that are covered by the checksum in the trailer, which is
+     * the whole payload except for {@code StorageSnapshot.MAPPED_FORMAT}.
+     * @param version The format version of the snapshot.
+     * @param payload The payload of the snapshot.
+     * @return The number of bytes covered by the checksum.
+     * @throws StreamCorruptedException if the number of bytes read straight away is not within the payload.
+     */
+    private static int checkedLength(int version, ByteBuffer payload) throws StreamCorruptedException {
+        if (version != StorageSnapshot.MAPPED_FORMAT) {
+            return payload.remaining();
+        }
+        int eagerLength = payload.remaining() < 4 ? -1 : payload.getInt(payload.position());
+        if (eagerLength < 4 || eagerLength > payload.remaining()) {
+            throw new StreamCorruptedException("snapshot is truncated");
+        }
+        return eagerLength;
+    }
+
+    /**
+     * Reads from a channel at a particular position until the buffer is full or the end of the channel is reached.
+     * @param channel The {@code FileChannel} to read from.
+     * @param buffer The {@code ByteBuffer} to read into.
+     * @param position The position in the channel to start reading from.
+     * @throws IOException if the channel could not be read.
+     */
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Renames a file, atomically if the file system supports it.
+     * @param source The path of the file to be renamed.
+     * @param target The new path of the file.
+     * @throws IOException if the file could not be renamed.
+     */
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the renames in the folder containing the snapshot to disk. Not every platform allows a folder to be
+     * opened, in which case this does nothing.
+     */
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the renames are still durable once the file system flushes its metadata
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package filemanager;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for upgrading a snapshot of an older format version to the current format version by
+ * running it through the {@code ISnapshotMigrator} for each format version in turn. The time taken by every step is
+ * printed, so that slow upgrades are noticed.
+ * @see ISnapshotMigrator
+ * @see StorageSnapshot
+ */
+public class SnapshotMigrationChain {
+    /**
+     * The migrators, at most one for each source format version.
+     */
+    private ArrayList<ISnapshotMigrator> migrators = new ArrayList<>();
+
+    /**
+     * Constructs a new SnapshotMigrationChain with the migrators for all the format versions older than the current
+     * one.
+     */
+    public SnapshotMigrationChain() {
+        migrators.add(new SerializedSnapshotMigrator(StorageSnapshot.LEGACY_FORMAT));
+        migrators.add(new SerializedSnapshotMigrator(StorageSnapshot.SERIALIZED_FORMAT));
+        migrators.add(new BinarySnapshotMigrator());
+    }
+
+    /**
+     * Returns whether a snapshot has to be upgraded before it can be read.
+     * @param snapshot The {@code StorageSnapshot} to be checked.
+     * @return true if the snapshot is of an older format version; false otherwise.
+     */
+    public boolean needsMigration(StorageSnapshot snapshot) {
+        return snapshot.getFormatVersion() != StorageSnapshot.CURRENT_FORMAT;
+    }
+
+    /**
+     * Upgrades a snapshot to the current format version.
+     * @param snapshot The {@code StorageSnapshot} of an older format version.
+     * @return The {@code StorageSnapshot} of the current format version, with the same contents and journal sequence
+     * number.
+     * @throws IOException if the snapshot could not be read or there is no way to upgrade its format version.
+     */
+    public StorageSnapshot migrate(StorageSnapshot snapshot) throws IOException {
+        while (snapshot.getFormatVersion() != StorageSnapshot.CURRENT_FORMAT) {
+            ISnapshotMigrator migrator = findMigrator(snapshot.getFormatVersion());
+            long start = System.nanoTime();
+            snapshot = migrator.migrate(snapshot);
+            System.out.printf("Migrated snapshot from format %d to format %d in %d ms%n",
+                    migrator.getSourceFormat(), migrator.getTargetFormat(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Finds the migrator that upgrades a particular format version.
+     * @param formatVersion The format version to be upgraded.
+     * @return The {@code ISnapshotMigrator} for the format version.
+     * @throws IOException if there is no migrator for the format version.
+     */
+    private ISnapshotMigrator findMigrator(int formatVersion) throws IOException {
+        for (ISnapshotMigrator migrator: migrators) {
+            if (migrator.getSourceFormat() == formatVersion && migrator.getTargetFormat() > formatVersion) {
+                return migrator;
+            }
+        }
+        throw new StreamCorruptedException("no migration from snapshot format version " + formatVersion);
+    }
+}
@@ -0,0 +1,137 @@
+package filemanager;
+
+import exception.ChangeNotSavedException;
+import model.Storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class represents a change or a query that is handed to the writer thread of a {@code PipelinedStorageManager}
+ * through its {@code CommandRing}. The writer thread runs the action of the command against the {@code Storage}
+ * object, writes the journal record the action leaves behind, if any, and then completes the future of the command,
+ * which the thread that submitted it waits on.
+ * @param <T> The type of the result of the command.
+ * @see PipelinedStorageManager
+ * @see CommandRing
+ */
+public class StorageCommand<T> {
+    /**
+     * This interface is an abstraction of what a command does to the {@code Storage} object.
+     * @param <T> The type of the result of the command.
+     */
+    @FunctionalInterface
+    public interface IAction<T> {
+        /**
+         * This method should contain the logic to make the change or answer the query against the Storage object,
+         * leaving the journal record of a change behind through {@link StorageCommand#record(JournalRecord)}.
+         * @param storage The {@code Storage} object.
+         * @param command The command being run.
+         * @return The result of the command.
+         * @throws Exception if the change could not be made.
+         */
+        T run(Storage storage, StorageCommand<T> command) throws Exception;
+    }
+
+    /**
+     * What the command does to the Storage object.
+     */
+    private IAction<T> action;
+
+    /**
+     * The journal record of the change made, or null if nothing has to be recorded.
+     */
+    private JournalRecord record;
+
+    /**
+     * The result of the command, once it has been run.
+     */
+    private T result;
+
+    /**
+     * The exception thrown by the action, or null if it did not throw one.
+     */
+    private Throwable failure;
+
+    /**
+     * The future that completes once the command has been run and its journal record, if any, is on disk.
+     */
+    private CompletableFuture<T> done = new CompletableFuture<>();
+
+    /**
+     * Constructs a new StorageCommand.
+     * @param action What the command does to the Storage object.
+     */
+    public StorageCommand(IAction<T> action) {
+        this.action = action;
+    }
+
+    /**
+     * Leaves behind the journal record of the change made by the command. A record left behind is written even if the
+     * action throws an exception afterwards, for changes that are only partly made when they fail.
+     * @param record The {@code JournalRecord} describing the change.
+     */
+    public void record(JournalRecord record) {
+        this.record = record;
+    }
+
+    /**
+     * Runs the action of the command against the Storage object, keeping its result or the exception it threw. Called
+     * by the writer thread only.
+     * @param storage The {@code Storage} object.
+     */
+    void run(Storage storage) {
+        try {
+            result = action.run(storage, this);
+        } catch (Exception | Error e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Returns the journal record left behind by the action.
+     * @return The {@code JournalRecord}, or null if nothing has to be recorded.
+     */
+    JournalRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Completes the future of the command with its result, or with the exception thrown by the action.
+     */
+    void complete() {
+        if (failure == null) {
+            done.complete(result);
+        } else {
+            done.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Completes the future of the command with a {@code ChangeNotSavedException}, since its journal record could not
+     * be written. This replaces any exception thrown by the action, as the change has been made either way.
+     * @param cause The reason the journal record could not be written.
+     */
+    void completeUnsaved(Throwable cause) {
+        failure = new ChangeNotSavedException(cause);
+        complete();
+    }
+
+    /**
+     * Waits until the command has been run and its journal record is on disk. The wait cannot be interrupted, since
+     * the change is made whether or not the thread waiting for it is still there.
+     * @return The result of the command.
+     * @throws Exception the exception thrown by the action, if any, or a {@code ChangeNotSavedException} if its
+     * journal record could not be written.
+     */
+    public T await() throws Exception {
+        try {
+            return done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (Exception) e.getCause();
+        }
+    }
+}
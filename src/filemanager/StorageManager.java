@@ -6,43 +6,99 @@ import exception.InvalidNewMaxException;
 import exception.MaxAuExceededException;
 import exception.NoVacancyException;
 import exception.NoVacancySwapException;
+import exception.NotRegisteredSwapException;
 import exception.CourseInWaitListException;
 import exception.SameIndexNumberSwapException;
 import exception.ClashingWaitListedIndexNumberException;
 import exception.PeerClashingWaitListedIndexNumberException;
 import exception.PeerClashingRegisteredIndexNumberException;
+import exception.BulkImportException;
+import exception.ChangeNotSavedException;
+import exception.StorageNotLoadedException;
 import model.AccessTime;
+import model.AccessTimeIndex;
+import model.ChangeSet;
 import model.Course;
-import model.Gender;
 import model.IndexNumber;
-import model.Lesson;
-import model.LessonType;
+import model.LoginInfo;
 import model.School;
 import model.Storage;
+import model.StorageInvariantChecker;
 import model.Student;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InvalidClassException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * This class is responsible for the persistency of a Storage object. Acts as a wrapper around Storage and saves any
- * changes that is made to the Storage object.
+ * This class is responsible for the persistency of a Storage object. Acts as a wrapper around Storage and records any
+ * changes that is made to the Storage object in a {@code MutationJournal}. A dedicated checkpoint thread periodically
+ * saves a delta of the students and courses that changed since the last checkpoint through {@code SnapshotDeltas}.
+ * Once the deltas add up to enough, the same thread merges them with the whole snapshot in the {@code SnapshotFile}
+ * into a new whole snapshot, so the cost of a checkpoint depends on what changed rather than on the size of the
+ * Storage object. Journal segments are only deleted once their records are contained in the previous whole snapshot,
+ * so that the journal can always be replayed on top of either whole snapshot even if a delta is corrupted. Journal records are written through a
+ * {@code GroupCommitter}: every change is made and queued while holding its locks, but waiting for its record to be
+ * on disk is done after releasing them, so that changes made by many users at about the same time are written to disk
+ * together.
+ *
+ * <p>Registering, dropping, swapping and wait listing only lock the students and index numbers involved through
+ * {@code RegistrationLocks}, together with the shared side of a read-write lock, so that students working with
+ * different index numbers do not wait for each other. Every other change, and saving a delta, takes the exclusive side
+ * of the read-write lock, which waits for all of them to finish.</p>
+ * @see MutationJournal
+ * @see GroupCommitter
+ * @see RegistrationLocks
+ * @see SnapshotFile
+ * @see SnapshotDeltas
  */
 public class StorageManager implements IStorageManager {
+    /**
+     * The number of journal records after which a new delta is saved.
+     */
+    private static final int CHECKPOINT_THRESHOLD = 500;
+
+    /**
+     * The number of deltas after which they are merged with the whole snapshot.
+     */
+    private static final int MAX_DELTAS = 8;
+
+    /**
+     * The number of seconds between each check of whether a new delta should be saved.
+     */
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 30;
+
+    /**
+     * The default maximum number of journal records written in one batch.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    /**
+     * The default maximum time in milliseconds that the first journal record of a batch waits for more records.
+     */
+    private static final long DEFAULT_MAX_COMMIT_LATENCY_MILLIS = 2;
+
     /**
      * The Storage object for which this class is managing.
      * @see Storage
@@ -50,10 +106,124 @@ public class StorageManager implements IStorageManager {
     private Storage storage;
 
     /**
-     * Constructs a new StorageManager.
+     * The journal in which every change made to the Storage object is recorded.
+     * @see MutationJournal
+     */
+    private MutationJournal journal;
+
+    /**
+     * The writer which writes the journal records in batches.
+     * @see GroupCommitter
+     */
+    private GroupCommitter groupCommitter;
+
+    /**
+     * The file in which snapshots of the Storage object are saved.
+     * @see SnapshotFile
+     */
+    private SnapshotFile snapshotFile;
+
+    /**
+     * The deltas saved on top of the whole snapshot.
+     * @see SnapshotDeltas
+     */
+    private SnapshotDeltas snapshotDeltas;
+
+    /**
+     * The number of journal records that are not yet contained in the snapshot or its deltas.
+     */
+    private AtomicInteger recordsSinceSnapshot = new AtomicInteger();
+
+    /**
+     * The lock whose shared side is held by registering, dropping, swapping and wait listing, and whose exclusive side
+     * is held by every other change made to the Storage object.
+     */
+    private ReentrantReadWriteLock storageLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether the {@code AccessTimeIndex} of storage has been built, after which it is queried under the shared side
+     * of the storage lock.
+     */
+    private volatile boolean accessTimeIndexBuilt;
+
+    /**
+     * The locks of the students and index numbers that are being registered, dropped, swapped and wait listed.
+     * @see RegistrationLocks
+     */
+    private RegistrationLocks registrationLocks = new RegistrationLocks();
+
+    /**
+     * The sequence number of the last journal record contained in the whole snapshot.
+     */
+    private long baseSequence;
+
+    /**
+     * The sequence number of the last journal record contained in the whole snapshot or the latest delta, which the
+     * next delta follows on from.
+     */
+    private long lastCheckpointSequence;
+
+    /**
+     * The dedicated thread that saves deltas and merges them in the background.
+     */
+    private ScheduledExecutorService checkpointExecutor;
+
+    /**
+     * Constructs a new StorageManager with the default group commit settings and starts saving deltas in the
+     * background.
      */
     public StorageManager() {
-        load();
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_COMMIT_LATENCY_MILLIS);
+    }
+
+    /**
+     * Constructs a new StorageManager, builds the {@code ClashMatrix} of the loaded courses and starts saving deltas in
+     * the background.
+     * @param maxBatchSize The maximum number of journal records written in one batch.
+     * @param maxCommitLatencyMillis The maximum time in milliseconds that the first journal record of a batch waits
+     *                               for more records.
+     * @throws StorageNotLoadedException if the stored data could not be loaded, in which case nothing has been
+     * started and the program should stop.
+     */
+    public StorageManager(int maxBatchSize, long maxCommitLatencyMillis) {
+        journal = new MutationJournal(new File("data/journal"));
+        snapshotFile = new SnapshotFile(new File("data/Storage.ser"));
+        snapshotDeltas = new SnapshotDeltas(new File("data/deltas"));
+        try {
+            load();
+        } catch (IOException | UncheckedIOException e) {
+            throw new StorageNotLoadedException(e);
+        }
+        storage.getClashMatrix();
+        groupCommitter = new GroupCommitter(journal, maxBatchSize, maxCommitLatencyMillis);
+        startCheckpointing();
+    }
+
+    /**
+     * Returns the number of changes written to disk per second.
+     * @return The number of journal records written per second.
+     * @see GroupCommitter#getCommitsPerSecond()
+     */
+    public double getCommitsPerSecond() {
+        return groupCommitter.getCommitsPerSecond();
+    }
+
+    /**
+     * Returns the Storage object that this class is managing, for a {@code PipelinedStorageManager} that makes the
+     * changes to it itself while this class keeps journaling and checkpointing them.
+     * @return The {@code Storage} object.
+     * @see PipelinedStorageManager
+     */
+    Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the shared side of the storage lock, which keeps a delta from being taken while it is held.
+     * @return The shared side of the storage lock.
+     */
+    Lock getSharedStorageLock() {
+        return storageLock.readLock();
     }
 
     /**
@@ -66,8 +236,13 @@ public class StorageManager implements IStorageManager {
     @Override
     public ArrayList<Course> getCoursesTakenByStudent(Student student) {
         ArrayList<Course> courses = new ArrayList<>();
-        for (String courseCode: student.getRegisteredCourseCodes()) {
-            courses.add(storage.getCourse(courseCode));
+        int[] held = lockShared(new String[] {student.getUserId()});
+        try {
+            for (String courseCode: student.getRegisteredCourseCodes()) {
+                courses.add(storage.getCourse(courseCode));
+            }
+        } finally {
+            unlockShared(held);
         }
 
         return courses;
@@ -83,13 +258,49 @@ public class StorageManager implements IStorageManager {
     @Override
     public ArrayList<Course> getCoursesInWaitListByStudent(Student student) {
         ArrayList<Course> courses = new ArrayList<>();
-        for (String courseCode: student.getWaitListCourseCodes()) {
-            courses.add(storage.getCourse(courseCode));
+        int[] held = lockShared(new String[] {student.getUserId()});
+        try {
+            for (String courseCode: student.getWaitListCourseCodes()) {
+                courses.add(storage.getCourse(courseCode));
+            }
+        } finally {
+            unlockShared(held);
         }
 
         return courses;
     }
 
+    /**
+     * Retrieves a copy of the registered index numbers of a student, taken while holding the lock of the student so
+     * that a change to the student, such as a swap with a peer, is never seen half made.
+     * @param student A {@code Student} object for which we are interested in the registered index numbers for.
+     * @return A HashMap of the registered {@code IndexNumber} objects by course code.
+     */
+    @Override
+    public HashMap<String, IndexNumber> getIndexNumbersTakenByStudent(Student student) {
+        int[] held = lockShared(new String[] {student.getUserId()});
+        try {
+            return new LinkedHashMap<>(student.getRegisteredIndexNumbers());
+        } finally {
+            unlockShared(held);
+        }
+    }
+
+    /**
+     * Retrieves a copy of the wait listed index numbers of a student, taken while holding the lock of the student.
+     * @param student A {@code Student} object for which we are interested in the wait listed index numbers for.
+     * @return A HashMap of the wait listed {@code IndexNumber} objects by course code.
+     */
+    @Override
+    public HashMap<String, IndexNumber> getIndexNumbersInWaitListByStudent(Student student) {
+        int[] held = lockShared(new String[] {student.getUserId()});
+        try {
+            return new LinkedHashMap<>(student.getWaitListIndexNumbers());
+        } finally {
+            unlockShared(held);
+        }
+    }
+
     /**
      * Add a new course into the storage object and save the storage object.
      * @param course The {@code Course} object containing all the information of the new course to be added into the storage.
@@ -97,8 +308,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void addCourse(Course course) {
-        storage.addCourse(course);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.addCourse(course);
+            durable = commit(JournalRecord.addCourse(course));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -109,7 +327,12 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public Course getCourse(String courseCode) {
-        return storage.getCourse(courseCode);
+        storageLock.readLock().lock();
+        try {
+            return storage.getCourse(courseCode);
+        } finally {
+            storageLock.readLock().unlock();
+        }
     }
 
     /**
@@ -131,14 +354,22 @@ public class StorageManager implements IStorageManager {
     public void registerForCourse(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded)
             throws CourseRegisteredException, ClashingRegisteredIndexNumberException, NoVacancyException,
             CourseInWaitListException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
-        storage.registerForCourse(userId, courseCodeToBeAdded, indexNumberToBeAdded);
-        save();
+        CompletableFuture<Long> durable;
+        int[] held = lockShared(new String[] {userId}, indexNumberToBeAdded);
+        try {
+            storage.registerForCourse(userId, courseCodeToBeAdded, indexNumberToBeAdded);
+            durable = commit(JournalRecord.registerForCourse(userId, courseCodeToBeAdded, indexNumberToBeAdded.getId()));
+        } finally {
+            unlockShared(held);
+        }
+        awaitDurable(durable);
     }
 
     /**
      * Contains the logic to drop a course and the index number and register the next student in the wait list for that
      * index number. The exceptions can be ignored since the exceptions should have been taken care of when the index number is
-     * added into the student's wait list.
+     * added into the student's wait list. The drop is recorded even if registering the next student fails, since the
+     * course has already been dropped by then.
      * @param userId The user id of the student for which the course and index number will be dropped.
      * @param courseCodeToBeDropped The course code of the course which the student wants to drop.
      * @param indexNumberToBeDropped The {@code IndexNumber} object of the index number which the student wants to drop.
@@ -147,8 +378,18 @@ public class StorageManager implements IStorageManager {
     public void dropCourseAndRegisterNextStudentInWaitList(String userId, String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped)
             throws CourseInWaitListException, ClashingRegisteredIndexNumberException,
             CourseRegisteredException, NoVacancyException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
-        storage.dropCourseAndRegisterNextStudentInWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped);
-        save();
+        CompletableFuture<Long> durable = null;
+        try {
+            int[] held = lockWithNextStudentInWaitList(userId, indexNumberToBeDropped);
+            try {
+                storage.dropCourseAndRegisterNextStudentInWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped);
+            } finally {
+                durable = commit(JournalRecord.dropCourse(userId, courseCodeToBeDropped, indexNumberToBeDropped.getId()));
+                unlockShared(held);
+            }
+        } finally {
+            awaitDurable(durable);
+        }
     }
 
     /**
@@ -163,16 +404,30 @@ public class StorageManager implements IStorageManager {
      * @throws SameIndexNumberSwapException if the new index number is the same as current index number of the student.
      * @throws ClashingWaitListedIndexNumberException if the new index number to be swapped clashes with an index number
      * that is in the wait list of the student.
+     * @throws NotRegisteredSwapException if the student is no longer registered for the course.
      */
     @Override
     public void swapIndexNumber(String userId, String courseCodeToBeSwapped, IndexNumber newIndexNumber)
-            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException, ClashingWaitListedIndexNumberException {
-        storage.swapIndexNumber(userId, courseCodeToBeSwapped, newIndexNumber);
-        save();
+            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException,
+            ClashingWaitListedIndexNumberException, NotRegisteredSwapException {
+        CompletableFuture<Long> durable;
+        int[] held = lockShared(new String[] {userId});
+        try {
+            held = registrationLocks.lockIndexNumbers(held,
+                    storage.getStudent(userId).getRegisteredIndexNumbers().get(courseCodeToBeSwapped), newIndexNumber);
+            storage.swapIndexNumber(userId, courseCodeToBeSwapped, newIndexNumber);
+            durable = commit(JournalRecord.swapIndexNumber(userId, courseCodeToBeSwapped, newIndexNumber.getId()));
+        } finally {
+            unlockShared(held);
+        }
+        awaitDurable(durable);
     }
 
     /**
-     * Swap an index number with another peer.
+     * Swap an index number with another peer. Both students are locked first, in the order of their stripes, and then
+     * the index numbers they are registered for in the course, so two students swapping with each other at the same
+     * time take the same locks in the same order and one simply waits for the other. The swap is checked and made
+     * while all four are held, and recorded as a single journal record, so no other change ever sees it half done.
      * @param userId The user id of the student initiating the swap.
      * @param peerUserId The user id of the peer that is swapping with the student.
      * @param courseCodeToBeSwapped The course code of the course that is to be swapped by the student and the peer.
@@ -185,14 +440,25 @@ public class StorageManager implements IStorageManager {
      * the student's registered list.
      * @throws PeerClashingWaitListedIndexNumberException if the student's index number clashes with an index number
      * that is in the peer's wait list.
+     * @throws NotRegisteredSwapException if the student or the peer is no longer registered for the course.
      */
     @Override
     public void swapIndexWithPeer(String userId, String peerUserId, String courseCodeToBeSwapped)
             throws SameIndexNumberSwapException, ClashingWaitListedIndexNumberException,
             PeerClashingRegisteredIndexNumberException, ClashingRegisteredIndexNumberException,
-            PeerClashingWaitListedIndexNumberException {
-        storage.swapIndexWithPeer(userId, peerUserId, courseCodeToBeSwapped);
-        save();
+            PeerClashingWaitListedIndexNumberException, NotRegisteredSwapException {
+        CompletableFuture<Long> durable;
+        int[] held = lockShared(new String[] {userId, peerUserId});
+        try {
+            held = registrationLocks.lockIndexNumbers(held,
+                    storage.getStudent(userId).getRegisteredIndexNumbers().get(courseCodeToBeSwapped),
+                    storage.getStudent(peerUserId).getRegisteredIndexNumbers().get(courseCodeToBeSwapped));
+            storage.swapIndexWithPeer(userId, peerUserId, courseCodeToBeSwapped);
+            durable = commit(JournalRecord.swapIndexWithPeer(userId, peerUserId, courseCodeToBeSwapped));
+        } finally {
+            unlockShared(held);
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -203,8 +469,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void dropCourseFromWaitList(String userId, String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped) {
-        storage.dropCourseFromWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped);
-        save();
+        CompletableFuture<Long> durable;
+        int[] held = lockShared(new String[] {userId}, indexNumberToBeDropped);
+        try {
+            storage.dropCourseFromWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped);
+            durable = commit(JournalRecord.dropCourseFromWaitList(userId, courseCodeToBeDropped, indexNumberToBeDropped.getId()));
+        } finally {
+            unlockShared(held);
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -218,8 +491,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void addCourseToWaitList(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
-        storage.addCourseToWaitList(userId, courseCodeToBeAdded, indexNumberToBeAdded);
-        save();
+        CompletableFuture<Long> durable;
+        int[] held = lockShared(new String[] {userId}, indexNumberToBeAdded);
+        try {
+            storage.addCourseToWaitList(userId, courseCodeToBeAdded, indexNumberToBeAdded);
+            durable = commit(JournalRecord.addCourseToWaitList(userId, courseCodeToBeAdded, indexNumberToBeAdded.getId()));
+        } finally {
+            unlockShared(held);
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -230,8 +510,109 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void setNewAccessTime(String userId, AccessTime newAccessTime) {
-        storage.setAccessTime(userId, newAccessTime);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.setAccessTime(userId, newAccessTime);
+            durable = commit(JournalRecord.setAccessTime(userId, newAccessTime));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
+    }
+
+    /**
+     * Sets new access times for a number of students in storage, recording all of them in a single journal record.
+     * @param newAccessTimes The new {@code AccessTime} of every student. The key is the user id of the student.
+     */
+    @Override
+    public void setNewAccessTimes(Map<String, AccessTime> newAccessTimes) {
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            for (Map.Entry<String, AccessTime> entry: newAccessTimes.entrySet()) {
+                storage.setAccessTime(entry.getKey(), entry.getValue());
+            }
+            durable = commit(JournalRecord.setAccessTimes(newAccessTimes));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
+    }
+
+    /**
+     * Counts the students within their access period at a particular time through the {@code AccessTimeIndex} of
+     * storage.
+     * @param dateTime The date and time to check.
+     * @return The number of students within their access period.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public int countStudentsWithinAccessTime(LocalDateTime dateTime) {
+        buildAccessTimeIndex();
+        storageLock.readLock().lock();
+        try {
+            return storage.getAccessTimeIndex().countWithinAccessTime(dateTime);
+        } finally {
+            storageLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the students whose access period starts within a time range through the {@code AccessTimeIndex} of
+     * storage.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, exclusive.
+     * @return The number of students whose access period starts within the time range.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public int countAccessTimesStartingBetween(LocalDateTime from, LocalDateTime to) {
+        buildAccessTimeIndex();
+        storageLock.readLock().lock();
+        try {
+            return storage.getAccessTimeIndex().countStartingBetween(from, to);
+        } finally {
+            storageLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the largest number of students within their access period at the same time over a day through the
+     * {@code AccessTimeIndex} of storage.
+     * @param day The day to check.
+     * @return The {@code Peak} holding the largest number of students and the time it is first reached.
+     * @see AccessTimeIndex
+     */
+    @Override
+    public AccessTimeIndex.Peak getPeakStudentsWithinAccessTime(LocalDate day) {
+        buildAccessTimeIndex();
+        storageLock.readLock().lock();
+        try {
+            return storage.getAccessTimeIndex().findPeakWithinAccessTime(day);
+        } finally {
+            storageLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the {@code AccessTimeIndex} of storage under the exclusive side of the storage lock if it has not been
+     * built yet, since building it reads every student. Afterwards it is only changed under the exclusive side, so it
+     * is queried under the shared side and checking the access load does not hold up registrations. It is built when
+     * first needed rather than on start up, so that students read lazily from a snapshot are not all read at once.
+     * @see Storage#getAccessTimeIndex()
+     */
+    private void buildAccessTimeIndex() {
+        if (accessTimeIndexBuilt) {
+            return;
+        }
+        storageLock.writeLock().lock();
+        try {
+            storage.getAccessTimeIndex();
+            accessTimeIndexBuilt = true;
+        } finally {
+            storageLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -241,14 +622,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void setNewCourseCode(String newCourseCode, String forCourseCode) {
-        Course oldCourse = getCourse(forCourseCode);
-        Course updatedCourse = new Course(oldCourse.getCourseName(), newCourseCode, oldCourse.getSchool(), oldCourse.getAu());
-        updatedCourse.setIndexNumbers(oldCourse.getIndexNumbers());
-
-        storage.removeCourse(oldCourse);
-        storage.addCourse(updatedCourse);
-
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.setCourseCode(newCourseCode, forCourseCode);
+            durable = commit(JournalRecord.setCourseCode(newCourseCode, forCourseCode));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -258,8 +640,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void setNewCourseName(String newCourseName, String forCourseCode) {
-        getCourse(forCourseCode).setCourseName(newCourseName);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.setCourseName(forCourseCode, newCourseName);
+            durable = commit(JournalRecord.setCourseName(newCourseName, forCourseCode));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -269,8 +658,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void setNewSchool(School newSchool, String forCourseCode) {
-        getCourse(forCourseCode).setSchool(newSchool);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.setSchool(forCourseCode, newSchool);
+            durable = commit(JournalRecord.setSchool(newSchool, forCourseCode));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -283,8 +679,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void setNewMaxVacancy(String courseCode, int index, int newMaxVacancy) throws InvalidNewMaxException {
-        getCourse(courseCode).getIndexNumbers().get(index).setMaxVacancy(newMaxVacancy);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.setMaxVacancy(courseCode, index, newMaxVacancy);
+            durable = commit(JournalRecord.setMaxVacancy(courseCode, index, newMaxVacancy));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -294,7 +697,12 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public ArrayList<Course> getAllCourses() {
-        return storage.getAllCourses();
+        storageLock.readLock().lock();
+        try {
+            return storage.getAllCourses();
+        } finally {
+            storageLock.readLock().unlock();
+        }
     }
 
     /**
@@ -304,8 +712,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void addStudent(Student student) {
-        storage.addStudent(student);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.addStudent(student);
+            durable = commit(JournalRecord.addStudent(student));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -316,8 +731,15 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public void addIndexNumber(IndexNumber indexNumber, String courseCode) {
-        storage.addIndexNumber(indexNumber, courseCode);
-        save();
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
+        try {
+            storage.addIndexNumber(indexNumber, courseCode);
+            durable = commit(JournalRecord.addIndexNumber(indexNumber, courseCode));
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
@@ -328,7 +750,12 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public Student getStudent(String userId) {
-        return storage.getStudent(userId);
+        storageLock.readLock().lock();
+        try {
+            return storage.getStudent(userId);
+        } finally {
+            storageLock.readLock().unlock();
+        }
     }
 
     /**
@@ -338,190 +765,407 @@ public class StorageManager implements IStorageManager {
      */
     @Override
     public ArrayList<Student> getAllStudents() {
-        return storage.getAllStudents();
+        storageLock.readLock().lock();
+        try {
+            return storage.getAllStudents();
+        } finally {
+            storageLock.readLock().unlock();
+        }
     }
 
     /**
-     * This method is called only when the byte-stream file "data/Storage.ser" does not exists. Initialises a new
-     * Storage object and load it with all the information provided in "data/preload" folder.
+     * Checks the students and courses in the Storage object maintained by this class, counting every AU, number of
+     * students and vacancy that is kept up to date again from scratch.
+     * @return An ArrayList of descriptions of the problems found, which is empty if there are none.
+     * @see StorageInvariantChecker
      */
-    private void preload() {
+    @Override
+    public ArrayList<String> checkInvariants() {
+        storageLock.writeLock().lock();
         try {
-            Files.copy(Path.of("data/preload/StudentLoginInfo.txt"), Path.of("data/StudentLoginInfo.txt")
-                    , StandardCopyOption.REPLACE_EXISTING);
-            Files.copy(Path.of("data/preload/AdminLoginInfo.txt"), Path.of("data/AdminLoginInfo.txt")
-                    , StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            e.printStackTrace();
+            return new StorageInvariantChecker().check(storage);
+        } finally {
+            storageLock.writeLock().unlock();
         }
+    }
 
-        storage = new Storage();
-        File studentFile = new File("data/preload/Students.txt");
+    /**
+     * Adds all the students, courses and enrolments of a bulk import into storage after checking that it is consistent
+     * with what is already in storage. The whole import is recorded as a single journal record, and a new delta is
+     * saved right afterwards so that the import does not have to be replayed on every start up.
+     * @param bulkImport The {@code BulkImport} to be added.
+     * @throws BulkImportException if the bulk import is not consistent with what is already in storage, in which case
+     * nothing is added.
+     * @see BulkImport
+     */
+    @Override
+    public void importBulk(BulkImport bulkImport) throws BulkImportException {
+        CompletableFuture<Long> durable;
+        storageLock.writeLock().lock();
         try {
-            Scanner sc = new Scanner(studentFile);
-            while (sc.hasNext()) {
-                storage.addStudent(parseStudentFromTxt(sc.nextLine()));
-            }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+            bulkImport.validateAgainst(storage);
+            bulkImport.applyTo(storage);
+            durable = commit(JournalRecord.bulkImport(bulkImport));
+        } finally {
+            storageLock.writeLock().unlock();
         }
+        awaitDurable(durable);
+        checkpointSoon();
+    }
 
-        File[] courseFiles = new File("data/preload/Courses").listFiles();
-        for (File file: courseFiles) {
-            if (file.getName().startsWith(".")) {
-                continue;
-            }
+    /**
+     * Exports all the students, courses and enrolments in storage into the files of a bulk import. No changes can be
+     * made while the files are being written, so that the files are consistent with each other.
+     * @param loginInfos The login information of the students.
+     * @param directory The folder into which the files are written.
+     * @throws IOException if the files could not be written.
+     * @see BulkCsvTransfer
+     */
+    @Override
+    public void exportBulk(List<LoginInfo> loginInfos, File directory) throws IOException {
+        storageLock.writeLock().lock();
+        try {
+            new BulkCsvTransfer().writeExport(storage, loginInfos, directory);
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method is called only when the byte-stream file "data/Storage.ser" does not exists. Initialises a new
+     * Storage object and load it with all the information provided in "data/preload" folder. The course files are
+     * parsed on a fork-join pool while the students file is parsed on this thread, and the time taken by each phase
+     * is printed.
+     * @throws IOException if the pre-loaded information could not be read or the new snapshot could not be saved.
+     * @see PreloadReader
+     */
+    private void preload() throws IOException {
+        Files.copy(Path.of("data/preload/StudentLoginInfo.txt"), Path.of("data/StudentLoginInfo.txt")
+                , StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(Path.of("data/preload/AdminLoginInfo.txt"), Path.of("data/AdminLoginInfo.txt")
+                , StandardCopyOption.REPLACE_EXISTING);
+
+        storage = new Storage();
+        PreloadReader preloadReader = new PreloadReader(new File("data/preload"));
+        long[] courseNanos = new long[1];
+        CompletableFuture<ArrayList<Course>> coursesRead = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
             try {
-                Scanner sc = new Scanner(file);
-                Course course = parseCourseFromTxt(sc.nextLine());
-                ArrayList<IndexNumber> indexNumbers = new ArrayList<>();
-                while (sc.hasNext()) {
-                    indexNumbers.add(parseIndexNumberFromTxt(sc.nextLine(), course));
-                }
-
-                course.setIndexNumbers(indexNumbers);
-                storage.addCourse(course);
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
+                return preloadReader.readCourses(ForkJoinPool.commonPool());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                courseNanos[0] = System.nanoTime() - start;
             }
-        }
+        }, ForkJoinPool.commonPool());
+
+        long start = System.nanoTime();
+        ArrayList<Student> students = preloadReader.readStudents();
+        long studentNanos = System.nanoTime() - start;
 
-        save();
-    }
-
-    /**
-     * Parse the second line onwards from the files inside the "data/preload/Courses" folder and returns an
-     * {@code IndexNumber} object.
-     * @param line The second line onwards from the files inside the "data/preload/Courses" folder.
-     * @param course The {@code Course} object which the index number is associated with.
-     * @return The {@code IndexNumber} object containing the information from the line.
-     */
-    private IndexNumber parseIndexNumberFromTxt(String line, Course course) {
-        String[] lineSplit = line.split("\\|");
-        int id = Integer.parseInt(lineSplit[0]);
-        int maxVacancy = Integer.parseInt(lineSplit[1]);
-        ArrayList<Lesson> lessons = new ArrayList<>();
-        for (int i = 2; i < lineSplit.length; i++) {
-            String[] lessonSplit = lineSplit[i].split("-");
-            LessonType lessonType;
-            switch (lessonSplit[0]) {
-            case "LEC":
-                lessonType = LessonType.LECTURE;
-                break;
-            case "TUT":
-                lessonType = LessonType.TUTORIAL;
-                break;
-            case "LAB":
-                lessonType = LessonType.LAB;
-                break;
-            default:
-                throw new IllegalStateException("Unexpected value: " + lessonSplit[0]);
+        ArrayList<Course> courses;
+        try {
+            courses = coursesRead.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
             }
-            DayOfWeek dayOfWeek = DayOfWeek.valueOf(lessonSplit[1]);
-            String startTimeString = lessonSplit[2];
-            String endTimeString = lessonSplit[3];
-            LocalTime startTime = LocalTime.of(Integer.parseInt(startTimeString.substring(0, 2)),
-                    Integer.parseInt(startTimeString.substring(2)));
-            LocalTime endTime = LocalTime.of(Integer.parseInt(endTimeString.substring(0, 2)),
-                    Integer.parseInt(endTimeString.substring(2)));
+            throw e;
+        }
 
-            lessons.add(new Lesson(lessonType, dayOfWeek, startTime, endTime));
+        start = System.nanoTime();
+        for (Student student: students) {
+            storage.addStudent(student);
         }
+        for (Course course: courses) {
+            storage.addCourse(course);
+        }
+        long mergeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        journal.discardAll();
+        snapshotDeltas.deleteAll();
+        recordsSinceSnapshot.set(0);
+        storage.takeChanges();
+        baseSequence = journal.getLastSequence();
+        lastCheckpointSequence = baseSequence;
+        snapshotFile.write(serialize(storage), baseSequence);
+        long snapshotNanos = System.nanoTime() - start;
 
-        return new IndexNumber(id, course, lessons, maxVacancy);
+        System.out.printf("Pre-loaded %d students in %d ms, %d courses in %d ms, merged in %d ms, "
+                + "saved snapshot in %d ms%n", students.size(), TimeUnit.NANOSECONDS.toMillis(studentNanos),
+                courses.size(), TimeUnit.NANOSECONDS.toMillis(courseNanos[0]),
+                TimeUnit.NANOSECONDS.toMillis(mergeNanos), TimeUnit.NANOSECONDS.toMillis(snapshotNanos));
     }
 
     /**
-     * Contains the logic to parse the first line of text from the files inside "data/preload/Courses" and return a
-     * {@code Course} object containing the information specified in the line.
-     * @param line The first line of text from the files inside "data/preload/Courses".
-     * @return A {@code Course} object containing all the information specified in line.
-     * @see Course
+     * Attempts to look if an existing snapshot named "Storage.ser" inside "data" folder exists. If it exists, verify
+     * it and load its courses into the Storage object that this class is managing, which reads each student from the
+     * memory-mapped snapshot the first time it is asked for. The deltas saved after the snapshot are laid over it by
+     * {@code SegmentedSnapshot}, up to the first one that is corrupted, and the changes recorded in the journal after
+     * the last of them are re-applied. If the snapshot is corrupted, the previous snapshot is used instead, together
+     * with the deltas saved after it. A snapshot of an older format version is upgraded by {@code SnapshotMigrationChain} and saved again in
+     * the current format version, so that it only has to be upgraded once. If there is no snapshot, we attempt to create
+     * a new Storage object by loading it with some pre-loaded information provided inside the "data/preload" folder.
+     * The Storage object is only kept once all of this has succeeded, so that the program never carries on without
+     * it or with only part of the changes re-applied.
+     * @throws IOException if neither snapshot could be read, the snapshot could not be upgraded, the journal could not
+     * be replayed or the pre-loaded information could not be read.
+     * @see SnapshotMigrationChain
+     */
+    private void load() throws IOException {
+        StorageSnapshot snapshot = snapshotFile.read();
+        if (snapshot == null) {
+            preload();
+            return;
+        }
+
+        SnapshotMigrationChain migrationChain = new SnapshotMigrationChain();
+        if (migrationChain.needsMigration(snapshot)) {
+            snapshot = migrationChain.migrate(snapshot);
+            snapshotFile.write(snapshot.getPayload(), snapshot.getSequence());
+        }
+        ArrayList<StorageSnapshot> deltas = snapshotDeltas.readChain(snapshot.getSequence());
+        Storage loaded = new SegmentedSnapshot(payloadsOf(snapshot, deltas)).read();
+        long checkpointSequence = deltas.isEmpty()
+                ? snapshot.getSequence() : deltas.get(deltas.size() - 1).getSequence();
+        int replayed = journal.replay(loaded, checkpointSequence);
+        storage = loaded;
+        baseSequence = snapshot.getSequence();
+        lastCheckpointSequence = checkpointSequence;
+        recordsSinceSnapshot.set(replayed);
+    }
+
+    /**
+     * Encodes a Storage object into an array of bytes using the mapped snapshot layout. Students that have not been
+     * read from the current snapshot and its deltas are copied from them as they are.
+     * @param storage The Storage object to be encoded.
+     * @return The encoded Storage object.
+     * @throws IOException if the Storage object could not be encoded.
+     * @see MappedSnapshotWriter
+     */
+    private byte[] serialize(Storage storage) throws IOException {
+        return new MappedSnapshotWriter().write(storage);
+    }
+
+    /**
+     * Returns the payloads of a whole snapshot and the deltas saved after it.
+     * @param snapshot The whole snapshot.
+     * @param deltas The chain of deltas saved after the snapshot.
+     * @return A List of the payloads, starting with that of the whole snapshot.
      */
-    private Course parseCourseFromTxt(String line) {
-        String[] lineSplit = line.split("\\|");
-        String courseName = lineSplit[0];
-        String courseCode = lineSplit[1];
-        School school;
-        switch (lineSplit[2]) {
-        case "SCSE":
-            school = School.SCSE;
-            break;
-        case "SSS":
-            school = School.SSS;
-            break;
-        default:
-            throw new IllegalStateException("Unexpected value: " + lineSplit[2]);
+    private List<ByteBuffer> payloadsOf(StorageSnapshot snapshot, List<StorageSnapshot> deltas) {
+        ArrayList<ByteBuffer> payloads = new ArrayList<>();
+        payloads.add(snapshot.getPayloadBuffer());
+        for (StorageSnapshot delta: deltas) {
+            payloads.add(delta.getPayloadBuffer());
         }
-        int au = Integer.parseInt(lineSplit[3]);
+        return payloads;
+    }
 
-        return new Course(courseName, courseCode, school, au);
+    /**
+     * Saves a new delta on the checkpoint thread straight away, whether or not enough records have been appended to
+     * the journal, such as after a bulk import so that it does not have to be replayed on every start up.
+     */
+    void checkpointSoon() {
+        recordsSinceSnapshot.accumulateAndGet(CHECKPOINT_THRESHOLD, Math::max);
+        checkpointExecutor.execute(this::checkpoint);
     }
 
     /**
-     * Contains the logic to parse a line of text from the "data/preload/Students.txt" file.
-     * @param line A line of text from the "data/preload/Students.txt" file.
-     * @return A {@code Student} object containing all the information provided in line.
-     * @see Student
+     * Queues the record of a change that has been made to the Storage object to be written to the journal. Has to be
+     * called while holding the locks of the change, so that the records of changes to the same students and index
+     * numbers are written in the order the changes were made. Changes that do not share any locks can be replayed in
+     * either order. If the record could not be written, a delta is saved straight away, since the change has been
+     * made and the journal can no longer be replayed past the sequence number it leaves missing.
+     * @param record The {@code JournalRecord} describing the change.
+     * @return A future that completes once the record is on disk.
      */
-    private Student parseStudentFromTxt(String line) {
-        String[] lineSplit = line.split("\\|");
-        String name = lineSplit[0];
-        String userId = lineSplit[1];
-        String matricNumber = lineSplit[2];
-        String nationality = lineSplit[3];
-        Gender gender = lineSplit[4].equals("MALE") ? Gender.MALE : Gender.FEMALE;
-        String emailAddress = lineSplit[5];
-        String[] accessStartTimeSplit = lineSplit[6].split("-");
-        String[] accessEndTimeStringSplit = lineSplit[7].split("-");
-        LocalDateTime acccessStartTime = LocalDateTime.of(Integer.parseInt(accessStartTimeSplit[0]),
-                Integer.parseInt(accessStartTimeSplit[1]), Integer.parseInt(accessStartTimeSplit[2]),
-                Integer.parseInt(accessStartTimeSplit[3]), Integer.parseInt(accessStartTimeSplit[4]));
-        LocalDateTime accessEndTime = LocalDateTime.of(Integer.parseInt(accessEndTimeStringSplit[0]),
-                Integer.parseInt(accessEndTimeStringSplit[1]), Integer.parseInt(accessEndTimeStringSplit[2]),
-                Integer.parseInt(accessEndTimeStringSplit[3]), Integer.parseInt(accessEndTimeStringSplit[4]));
-
-        return new Student(name, userId, matricNumber, nationality, emailAddress, gender,
-                new AccessTime(acccessStartTime, accessEndTime));
-    }
-
-    /**
-     * Attempts to look if an existing byte-stream file named "Storage.ser" inside "data" folder exists. If it exists,
-     * de-serialize it and load it into the Storage object that this class is managing. Otherwise, we attempt to create
-     * a new Storage object by loading it with some pre-loaded information provided inside the "data/preload" folder.
+    CompletableFuture<Long> commit(JournalRecord record) {
+        recordsSinceSnapshot.incrementAndGet();
+        CompletableFuture<Long> durable = groupCommitter.submit(record);
+        durable.whenComplete((sequence, e) -> {
+            if (e != null) {
+                checkpointSoon();
+            }
+        });
+        return durable;
+    }
+
+    /**
+     * Waits until the record of a change is on disk. Has to be called after releasing the locks of the change, so
+     * that other changes can be made and queued in the meantime.
+     * @param durable The future returned when the record was queued.
+     * @throws ChangeNotSavedException if the record could not be written, in which case the change has been made but
+     * would be lost if the program were restarted before the next delta is saved.
      */
-    private void load() {
+    private void awaitDurable(CompletableFuture<Long> durable) {
         try {
-            FileInputStream fis = new FileInputStream("data/Storage.ser");
-            ObjectInputStream ois = new ObjectInputStream(fis);
-            storage = (Storage) ois.readObject();
-            ois.close();
-            fis.close();
-        } catch (FileNotFoundException e) {
-            preload();
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        } catch (InvalidClassException e) {
-            preload();
-        } catch (IOException e) {
-            e.printStackTrace();
+            durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ChangeNotSavedException(e.getCause());
+        }
+    }
+
+    /**
+     * Takes the shared side of the storage lock and locks a number of students and index numbers.
+     * @param userIds The user ids of the students.
+     * @param indexNumbers The {@code IndexNumber} objects.
+     * @return The stripes held, which have to be passed to {@link #unlockShared(int[])} afterwards.
+     * @see RegistrationLocks
+     */
+    private int[] lockShared(String[] userIds, IndexNumber... indexNumbers) {
+        storageLock.readLock().lock();
+        try {
+            return registrationLocks.lock(userIds, indexNumbers);
+        } catch (RuntimeException | Error e) {
+            storageLock.readLock().unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Unlocks the students and index numbers locked by {@link #lockShared(String[], IndexNumber...)} and releases the
+     * shared side of the storage lock.
+     * @param held The stripes held.
+     */
+    private void unlockShared(int[] held) {
+        registrationLocks.unlock(held);
+        storageLock.readLock().unlock();
+    }
+
+    /**
+     * Locks a student, an index number the student is dropping and the next student in the wait list of the index
+     * number, who is registered in place of the student. The next student can only be found once the index number is
+     * locked, and students have to be locked before index numbers, so if the stripe of the next student is not held
+     * yet, everything is unlocked and locked again together with the next student, until the next student is the
+     * same as before.
+     * @param userId The user id of the student dropping the index number.
+     * @param indexNumber The {@code IndexNumber} object being dropped.
+     * @return The stripes held, which have to be passed to {@link #unlockShared(int[])} afterwards.
+     */
+    private int[] lockWithNextStudentInWaitList(String userId, IndexNumber indexNumber) {
+        String[] userIds = {userId};
+        while (true) {
+            int[] held = lockShared(userIds, indexNumber);
+            Student nextStudentInWaitList = indexNumber.getWaitListStudents().peek();
+            if (nextStudentInWaitList == null
+                    || registrationLocks.holdsStudent(held, nextStudentInWaitList.getUserId())) {
+                return held;
+            }
+            unlockShared(held);
+            userIds = new String[] {userId, nextStudentInWaitList.getUserId()};
         }
     }
 
     /**
-     * Contains the logic to save the Storage object managed by this class into a byte-stream file named "Storage.ser"
-     * inside "data" folder.
+     * Saves a new delta if enough records have been appended to the journal since the last checkpoint. Only taking
+     * the changes of the Storage object, encoding the students and courses that changed and starting a new journal
+     * segment is done while holding the exclusive side of the storage lock; writing the delta to disk is done
+     * afterwards, so changes can keep being made in the meantime. No journal segments are deleted here, since a delta
+     * that turns out to be corrupted can only be made up for by replaying the journal; they are deleted by
+     * {@link #mergeDeltas()}. If the delta could not be saved, its changes are taken again by the next delta.
      */
-    private void save() {
+    private void checkpoint() {
+        ChangeSet changes;
+        byte[] payload;
+        long sequence;
+        storageLock.writeLock().lock();
+        try {
+            if (recordsSinceSnapshot.get() < CHECKPOINT_THRESHOLD) {
+                return;
+            }
+            sequence = groupCommitter.getLastSequence();
+            if (sequence == lastCheckpointSequence) {
+                recordsSinceSnapshot.set(0);
+                return;
+            }
+            changes = storage.takeChanges();
+            try {
+                payload = new MappedSnapshotWriter().writeDelta(storage, changes);
+                journal.roll();
+            } catch (IOException e) {
+                storage.restoreChanges(changes);
+                System.out.println(e);
+                return;
+            }
+            recordsSinceSnapshot.set(0);
+        } finally {
+            storageLock.writeLock().unlock();
+        }
+
         try {
-            FileOutputStream fos = new FileOutputStream("data/Storage.ser");
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(storage);
-            oos.close();
-            fos.close();
+            snapshotDeltas.write(payload, lastCheckpointSequence, sequence);
         } catch (IOException e) {
+            storageLock.writeLock().lock();
+            try {
+                storage.restoreChanges(changes);
+            } finally {
+                storageLock.writeLock().unlock();
+            }
+            System.out.println(e);
+            return;
+        }
+        lastCheckpointSequence = sequence;
+        mergeDeltas();
+    }
+
+    /**
+     * Merges the whole snapshot and the deltas saved after it into a new whole snapshot, once there are too many
+     * deltas or they have grown to half the size of the whole snapshot. The merge only reads the files, so changes can
+     * keep being made in the meantime, and students that have not changed are copied as they are. The deltas are kept
+     * until the next merge, so that they can be laid over the previous snapshot if the new one turns out to be
+     * corrupted. The journal segments whose records are all contained in the previous snapshot are deleted, while
+     * those after it are kept, so that the journal can still be replayed on top of the previous snapshot if its deltas
+     * turn out to be corrupted as well.
+     */
+    private void mergeDeltas() {
+        if (snapshotDeltas.countChain(baseSequence) < MAX_DELTAS
+                && snapshotDeltas.sizeOfChain(baseSequence) * 2 < snapshotFile.getSize()) {
+            return;
+        }
+
+        try {
+            StorageSnapshot snapshot = snapshotFile.read();
+            ArrayList<StorageSnapshot> deltas = snapshotDeltas.readChain(snapshot.getSequence());
+            if (deltas.isEmpty()) {
+                return;
+            }
+            Storage merged = new SegmentedSnapshot(payloadsOf(snapshot, deltas)).read();
+            long sequence = deltas.get(deltas.size() - 1).getSequence();
+            snapshotFile.write(serialize(merged), sequence);
+            snapshotDeltas.deleteUpTo(snapshot.getSequence());
+            baseSequence = sequence;
+            journal.deleteSegmentsUpTo(snapshot.getSequence());
+        } catch (IOException | UncheckedIOException e) {
             System.out.println(e);
         }
     }
 
+    /**
+     * Starts the dedicated thread that periodically saves deltas. A shutdown hook waits for a delta that is being
+     * saved to finish so that the program does not exit halfway through it.
+     */
+    private void startCheckpointing() {
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpoint, CHECKPOINT_INTERVAL_SECONDS,
+                CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            checkpointExecutor.shutdown();
+            try {
+                checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+                groupCommitter.close(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
 }
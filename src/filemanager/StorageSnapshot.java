@@ -0,0 +1,116 @@
+package filemanager;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class holds the contents of a snapshot read by {@code SnapshotFile}, i.e. the saved {@code Storage} object and
+ * the sequence number of the last journal record that it contains.
+ * @see SnapshotFile
+ */
+public class StorageSnapshot {
+    /**
+     * The format version of snapshots saved before snapshots had a header and trailer, whose payload is the
+     * {@code Storage} object written with Java serialization followed by the journal sequence number.
+     */
+    public static final int LEGACY_FORMAT = 0;
+
+    /**
+     * The format version of snapshots whose payload is the {@code Storage} object written with Java serialization.
+     */
+    public static final int SERIALIZED_FORMAT = 1;
+
+    /**
+     * The format version of snapshots whose payload is the {@code Storage} object written by
+     * {@code StorageSnapshotWriter}.
+     */
+    public static final int BINARY_FORMAT = 2;
+
+    /**
+     * The format version of snapshots whose payload is the {@code Storage} object written by
+     * {@code MappedSnapshotWriter}, which can be read straight from a memory-mapped file without decoding the
+     * students up front.
+     */
+    public static final int MAPPED_FORMAT = 3;
+
+    /**
+     * The format version in which snapshots are saved. Snapshots of older format versions are upgraded by
+     * {@code SnapshotMigrationChain} when they are loaded.
+     */
+    public static final int CURRENT_FORMAT = MAPPED_FORMAT;
+
+    /**
+     * The bytes of the saved {@code Storage} object, either in memory or mapped from the snapshot file.
+     */
+    private ByteBuffer payload;
+
+    /**
+     * The sequence number of the last journal record contained in the snapshot.
+     */
+    private long sequence;
+
+    /**
+     * The format version of the snapshot, which determines how the payload has to be decoded.
+     */
+    private int formatVersion;
+
+    /**
+     * Constructs a new StorageSnapshot.
+     * @param payload The bytes of the saved {@code Storage} object.
+     * @param sequence The sequence number of the last journal record contained in the snapshot.
+     * @param formatVersion The format version of the snapshot.
+     */
+    public StorageSnapshot(byte[] payload, long sequence, int formatVersion) {
+        this(ByteBuffer.wrap(payload), sequence, formatVersion);
+    }
+
+    /**
+     * Constructs a new StorageSnapshot whose payload does not have to be in memory, e.g. because it is mapped from the
+     * snapshot file.
+     * @param payload The bytes of the saved {@code Storage} object, from the position to the limit of the buffer.
+     * @param sequence The sequence number of the last journal record contained in the snapshot.
+     * @param formatVersion The format version of the snapshot.
+     */
+    public StorageSnapshot(ByteBuffer payload, long sequence, int formatVersion) {
+        this.payload = payload.slice();
+        this.sequence = sequence;
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * Returns the bytes of the saved {@code Storage} object, copying them into memory if they are mapped from the
+     * snapshot file.
+     * @return The payload of the snapshot.
+     */
+    public byte[] getPayload() {
+        if (payload.hasArray() && payload.arrayOffset() == 0 && payload.capacity() == payload.remaining()) {
+            return payload.array();
+        }
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes of the saved {@code Storage} object without copying them.
+     * @return A read-only {@code ByteBuffer} of the payload of the snapshot.
+     */
+    public ByteBuffer getPayloadBuffer() {
+        return payload.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the sequence number of the last journal record contained in the snapshot.
+     * @return The sequence number of the last journal record contained in the snapshot.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the format version of the snapshot.
+     * @return The format version of the snapshot.
+     */
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+}
@@ -0,0 +1,346 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.Gender;
+import model.IndexNumber;
+import model.Lesson;
+import model.LessonType;
+import model.School;
+import model.Storage;
+import model.Student;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class is responsible for decoding a {@code Storage} object from the compact binary snapshot format written by
+ * {@code StorageSnapshotWriter}. The students and index numbers are decoded first and the references between them
+ * are linked up afterwards in one pass through their record ids, so no part of the object graph has to be followed
+ * recursively. Snapshots written by the first version of the codec, which referred to students and index numbers by
+ * their positions instead of their record ids, can still be decoded.
+ * @see StorageSnapshotWriter
+ */
+public class StorageSnapshotReader {
+    /**
+     * The bytes to be decoded.
+     */
+    private byte[] bytes;
+
+    /**
+     * The position of the next byte to be decoded.
+     */
+    private int position;
+
+    /**
+     * The version of the codec that wrote the bytes.
+     */
+    private int version;
+
+    /**
+     * The string dictionary of the snapshot.
+     */
+    private String[] strings;
+
+    /**
+     * The students decoded, in the order they were written.
+     */
+    private Student[] students;
+
+    /**
+     * The students decoded, placed at their record ids.
+     */
+    private Student[] studentsByRecordId;
+
+    /**
+     * The index numbers decoded so far, in the order they were written.
+     */
+    private ArrayList<IndexNumber> indexNumbers = new ArrayList<>();
+
+    /**
+     * The index numbers decoded, placed at their record ids.
+     */
+    private IndexNumber[] indexNumbersByRecordId;
+
+    /**
+     * Constructs a new StorageSnapshotReader.
+     * @param bytes The bytes of the encoded {@code Storage} object.
+     */
+    public StorageSnapshotReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Decodes the {@code Storage} object.
+     * @return The decoded {@code Storage} object.
+     * @throws IOException if the bytes were written by an unknown version of the codec or are not a valid encoding.
+     */
+    public Storage read() throws IOException {
+        version = readVarInt();
+        if (version < 1 || version > StorageSnapshotWriter.CODEC_VERSION) {
+            throw new StreamCorruptedException("unknown snapshot codec version " + version);
+        }
+
+        try {
+            strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readCount();
+                strings[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+
+            Storage storage = new Storage();
+            students = new Student[readCount()];
+            int maxStudentRecordId = 0;
+            for (int i = 0; i < students.length; i++) {
+                students[i] = readStudent(i);
+                maxStudentRecordId = Math.max(maxStudentRecordId, students[i].getRecordId());
+            }
+            studentsByRecordId = new Student[checkRecordId(maxStudentRecordId) + 1];
+            for (Student student: students) {
+                studentsByRecordId[student.getRecordId()] = student;
+                storage.addStudent(student);
+            }
+
+            ArrayList<Course> courses = new ArrayList<>();
+            int courseCount = readCount();
+            int maxIndexNumberRecordId = 0;
+            for (int i = 0; i < courseCount; i++) {
+                Course course = readCourse();
+                for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                    maxIndexNumberRecordId = Math.max(maxIndexNumberRecordId, indexNumber.getRecordId());
+                }
+                courses.add(course);
+            }
+            indexNumbersByRecordId = new IndexNumber[checkRecordId(maxIndexNumberRecordId) + 1];
+            for (IndexNumber indexNumber: indexNumbers) {
+                indexNumbersByRecordId[indexNumber.getRecordId()] = indexNumber;
+            }
+            for (Course course: courses) {
+                storage.addCourse(course);
+            }
+
+            for (Student student: students) {
+                readIndexNumbers(student.getRegisteredIndexNumbers());
+                readIndexNumbers(student.getWaitListIndexNumbers());
+            }
+
+            return storage;
+        } catch (IndexOutOfBoundsException e) {
+            throw new StreamCorruptedException("snapshot refers to something it does not contain");
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new StreamCorruptedException("snapshot contains an invalid value: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes the details of a student, leaving its time table empty.
+     * @param index The position of the student among all the students.
+     * @return The decoded {@code Student} object.
+     * @throws IOException if the bytes end before the student does.
+     */
+    private Student readStudent(int index) throws IOException {
+        int recordId = version == 1 ? index + 1 : readVarInt();
+        String name = readString();
+        String userId = readString();
+        String matricNumber = readString();
+        String nationality = readString();
+        String emailAddress = readString();
+        Gender gender = Gender.values()[readByte()];
+        AccessTime accessTime = new AccessTime(readDateTime(), readDateTime());
+
+        Student student = new Student(name, userId, matricNumber, nationality, emailAddress, gender, accessTime);
+        student.setRecordId(recordId);
+
+        return student;
+    }
+
+    /**
+     * Decodes a course together with all its index numbers, along with the students registered for and wait listed
+     * in each index number.
+     * @return The decoded {@code Course} object.
+     * @throws IOException if the bytes end before the course does.
+     */
+    private Course readCourse() throws IOException {
+        String courseName = readString();
+        String courseCode = readString();
+        School school = School.values()[readByte()];
+        int au = readVarInt();
+        Course course = new Course(courseName, courseCode, school, au);
+
+        int indexNumberCount = readCount();
+        ArrayList<IndexNumber> courseIndexNumbers = new ArrayList<>(indexNumberCount);
+        for (int i = 0; i < indexNumberCount; i++) {
+            int recordId = version == 1 ? indexNumbers.size() + 1 : readVarInt();
+            int id = readVarInt();
+            int maxVacancy = readVarInt();
+
+            int lessonCount = readCount();
+            ArrayList<Lesson> lessons = new ArrayList<>(lessonCount);
+            for (int j = 0; j < lessonCount; j++) {
+                LessonType lessonType = LessonType.values()[readByte()];
+                DayOfWeek dayOfWeek = DayOfWeek.of(readByte());
+                LocalTime startTime = LocalTime.ofSecondOfDay(readVarInt());
+                LocalTime endTime = LocalTime.ofSecondOfDay(readVarInt());
+                lessons.add(new Lesson(lessonType, dayOfWeek, startTime, endTime));
+            }
+
+            IndexNumber indexNumber = new IndexNumber(id, course, lessons, maxVacancy);
+            indexNumber.setRecordId(recordId);
+            int registeredCount = readCount();
+            for (int j = 0; j < registeredCount; j++) {
+                indexNumber.registerStudent(readStudentReference());
+            }
+            int waitListCount = readCount();
+            for (int j = 0; j < waitListCount; j++) {
+                indexNumber.addStudentToWaitList(readStudentReference());
+            }
+
+            courseIndexNumbers.add(indexNumber);
+            indexNumbers.add(indexNumber);
+        }
+        course.setIndexNumbers(courseIndexNumbers);
+
+        return course;
+    }
+
+    /**
+     * Decodes the index numbers of a time table into the map of course codes and index numbers of the time table.
+     * @param timeTableIndexNumbers The map of course codes and index numbers to be filled in.
+     * @throws IOException if the bytes end before the index numbers do.
+     */
+    private void readIndexNumbers(HashMap<String, IndexNumber> timeTableIndexNumbers) throws IOException {
+        int count = readCount();
+        for (int i = 0; i < count; i++) {
+            String courseCode = readString();
+            timeTableIndexNumbers.put(courseCode, readIndexNumberReference());
+        }
+    }
+
+    /**
+     * Decodes a reference to a student, which is its record id, or its position for the first version of the codec.
+     * @return The {@code Student} object referred to.
+     * @throws IOException if the bytes end before the reference does or no student has the record id.
+     */
+    private Student readStudentReference() throws IOException {
+        int recordId = version == 1 ? readVarInt() + 1 : readVarInt();
+        Student student = studentsByRecordId[recordId];
+        if (student == null) {
+            throw new StreamCorruptedException("snapshot refers to a student it does not contain");
+        }
+        return student;
+    }
+
+    /**
+     * Decodes a reference to an index number, which is its record id, or its position for the first version of the
+     * codec.
+     * @return The {@code IndexNumber} object referred to.
+     * @throws IOException if the bytes end before the reference does or no index number has the record id.
+     */
+    private IndexNumber readIndexNumberReference() throws IOException {
+        int recordId = version == 1 ? readVarInt() + 1 : readVarInt();
+        IndexNumber indexNumber = indexNumbersByRecordId[recordId];
+        if (indexNumber == null) {
+            throw new StreamCorruptedException("snapshot refers to an index number it does not contain");
+        }
+        return indexNumber;
+    }
+
+    /**
+     * Checks that the largest record id decoded is not larger than the snapshot could possibly need, so that a
+     * corrupted record id does not cause an enormous array to be allocated.
+     * @param maxRecordId The largest record id decoded.
+     * @return The largest record id decoded.
+     * @throws StreamCorruptedException if the record id is negative or too large.
+     */
+    private int checkRecordId(int maxRecordId) throws StreamCorruptedException {
+        if (maxRecordId < 0 || maxRecordId > bytes.length) {
+            throw new StreamCorruptedException("snapshot contains an invalid record id " + maxRecordId);
+        }
+        return maxRecordId;
+    }
+
+    /**
+     * Decodes a date-time written as the number of seconds since the epoch and the nanoseconds within that second.
+     * @return The decoded {@code LocalDateTime} object.
+     * @throws IOException if the bytes end before the date-time does.
+     */
+    private LocalDateTime readDateTime() throws IOException {
+        long zigZagSeconds = readVarLong();
+        long seconds = (zigZagSeconds >>> 1) ^ -(zigZagSeconds & 1);
+        return LocalDateTime.ofEpochSecond(seconds, readVarInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Decodes a string written as its position in the string dictionary.
+     * @return The decoded string.
+     * @throws IOException if the bytes end before the position does.
+     */
+    private String readString() throws IOException {
+        return strings[readVarInt()];
+    }
+
+    /**
+     * Decodes the number of items that follow, which can never be more than the number of bytes left.
+     * @return The number of items that follow.
+     * @throws IOException if the bytes end before the number does or the number is too large.
+     */
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0 || count > bytes.length - position) {
+            throw new StreamCorruptedException("snapshot is truncated");
+        }
+        return count;
+    }
+
+    /**
+     * Decodes a variable-length integer.
+     * @return The decoded integer.
+     * @throws IOException if the bytes end before the integer does or it does not fit into an int.
+     */
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value > 0xffffffffL) {
+            throw new StreamCorruptedException("snapshot contains an integer that is too large");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a variable-length long.
+     * @return The decoded long.
+     * @throws IOException if the bytes end before the long does or it is longer than 10 bytes.
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("snapshot contains an integer that is too large");
+    }
+
+    /**
+     * Decodes a single byte.
+     * @return The decoded byte as an unsigned value.
+     * @throws EOFException if there are no bytes left.
+     */
+    private int readByte() throws EOFException {
+        if (position >= bytes.length) {
+            throw new EOFException("snapshot is truncated");
+        }
+        return bytes[position++] & 0xff;
+    }
+}
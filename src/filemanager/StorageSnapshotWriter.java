@@ -0,0 +1,275 @@
+package filemanager;
+
+import model.AccessTime;
+import model.Course;
+import model.IndexNumber;
+import model.Lesson;
+import model.Storage;
+import model.Student;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is responsible for encoding a {@code Storage} object into the compact binary snapshot format read by
+ * {@code StorageSnapshotReader}. Instead of writing out the whole object graph like Java serialization does, every
+ * student and index number is written exactly once and is referred to everywhere else by its record id, every string
+ * is written once into a dictionary and referred to by its position in the dictionary, and all the counts, ids and
+ * positions are written as variable-length integers. Nothing is written recursively, so the time and stack depth
+ * needed only depend on the number of objects and not on how they are linked.
+ *
+ * <p>The format is laid out as follows, where every number is a variable-length integer unless stated otherwise:</p>
+ * <ol>
+ *     <li>the codec version;</li>
+ *     <li>the string dictionary: the number of strings, then each string as its length in bytes and its UTF-8 bytes;</li>
+ *     <li>the students: the number of students, then for each student its record id, the dictionary positions of its
+ *     name, user ID, matriculation number, nationality and email address, its gender as a single byte and its access
+ *     time;</li>
+ *     <li>the courses: the number of courses, then for each course the dictionary positions of its name and course
+ *     code, its school as a single byte, its AUs and its index numbers. Each index number is written as its record id,
+ *     its ID, its maximum vacancy, its lessons and the record ids of its registered and wait listed students in
+ *     order;</li>
+ *     <li>the time tables: for each student in the same order as above, its registered and its wait listed index
+ *     numbers as pairs of the dictionary position of the course code and the record id of the index number.</li>
+ * </ol>
+ * @see StorageSnapshotReader
+ */
+public class StorageSnapshotWriter {
+    /**
+     * The version of the codec written into every snapshot, to be increased whenever the format changes.
+     */
+    public static final int CODEC_VERSION = 2;
+
+    /**
+     * The bytes written so far.
+     */
+    private byte[] buffer = new byte[8192];
+
+    /**
+     * The number of bytes written so far.
+     */
+    private int size;
+
+    /**
+     * The strings written so far, in the order they were first written.
+     */
+    private ArrayList<String> strings;
+
+    /**
+     * The position of every string in the string dictionary.
+     */
+    private HashMap<String, Integer> stringPositions;
+
+    /**
+     * Encodes a {@code Storage} object. Since the string dictionary has to come before everything that refers to it,
+     * the students, courses and time tables are encoded first and the dictionary is put in front of them at the end.
+     * @param storage The {@code Storage} object to be encoded.
+     * @return The encoded {@code Storage} object.
+     * @throws IOException if the {@code Storage} object refers to a student or index number without a record id.
+     */
+    public byte[] write(Storage storage) throws IOException {
+        ArrayList<Student> students = storage.getAllStudents();
+        strings = new ArrayList<>(students.size() * 5);
+        stringPositions = new HashMap<>(students.size() * 8);
+        writeVarInt(students.size());
+        for (Student student: students) {
+            writeStudent(student);
+        }
+
+        ArrayList<Course> courses = storage.getAllCourses();
+        writeVarInt(courses.size());
+        for (Course course: courses) {
+            writeCourse(course);
+        }
+
+        for (Student student: students) {
+            writeIndexNumbers(student.getRegisteredIndexNumbers());
+            writeIndexNumbers(student.getWaitListIndexNumbers());
+        }
+
+        byte[] body = Arrays.copyOf(buffer, size);
+        size = 0;
+        writeVarInt(CODEC_VERSION);
+        writeVarInt(strings.size());
+        for (String string: strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes, bytes.length);
+        }
+        writeBytes(body, body.length);
+
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Encodes the details of a student, apart from its time table which can only be encoded once all the index numbers
+     * have been encoded.
+     * @param student The {@code Student} object to be encoded.
+     */
+    private void writeStudent(Student student) {
+        writeVarInt(student.getRecordId());
+        writeString(student.getName());
+        writeString(student.getUserId());
+        writeString(student.getMatricNumber());
+        writeString(student.getNationality());
+        writeString(student.getEmailAddress());
+        writeByte(student.getGender().ordinal());
+        writeAccessTime(student.getAccessTime());
+    }
+
+    /**
+     * Encodes a course together with all its index numbers.
+     * @param course The {@code Course} object to be encoded.
+     * @throws IOException if an index number refers to a student without a record id.
+     */
+    private void writeCourse(Course course) throws IOException {
+        writeString(course.getCourseName());
+        writeString(course.getCourseCode());
+        writeByte(course.getSchool().ordinal());
+        writeVarInt(course.getAu());
+
+        ArrayList<IndexNumber> indexNumbers = course.getIndexNumbers() == null
+                ? new ArrayList<>() : course.getIndexNumbers();
+        writeVarInt(indexNumbers.size());
+        for (IndexNumber indexNumber: indexNumbers) {
+            writeVarInt(indexNumber.getRecordId());
+            writeVarInt(indexNumber.getId());
+            writeVarInt(indexNumber.getMaxVacancy());
+
+            writeVarInt(indexNumber.getLessons().size());
+            for (Lesson lesson: indexNumber.getLessons()) {
+                writeByte(lesson.getLessonType().ordinal());
+                writeByte(lesson.getDayOfWeek().getValue());
+                writeVarInt(lesson.getStartTime().toSecondOfDay());
+                writeVarInt(lesson.getEndTime().toSecondOfDay());
+            }
+
+            writeStudents(indexNumber.getRegisteredStudents());
+            writeStudents(indexNumber.getWaitListStudents());
+        }
+    }
+
+    /**
+     * Encodes a list of students as their record ids.
+     * @param students The list of students to be encoded.
+     * @throws IOException if one of the students does not have a record id.
+     */
+    private void writeStudents(Collection<Student> students) throws IOException {
+        writeVarInt(students.size());
+        for (Student student: students) {
+            if (student.getRecordId() == 0) {
+                throw new IOException("Student " + student.getUserId() + " is not in the storage");
+            }
+            writeVarInt(student.getRecordId());
+        }
+    }
+
+    /**
+     * Encodes the index numbers of a time table as pairs of course codes and index number record ids.
+     * @param indexNumbers The course codes and index numbers of the time table.
+     * @throws IOException if one of the index numbers does not have a record id.
+     */
+    private void writeIndexNumbers(HashMap<String, IndexNumber> indexNumbers) throws IOException {
+        writeVarInt(indexNumbers.size());
+        for (Map.Entry<String, IndexNumber> entry: indexNumbers.entrySet()) {
+            if (entry.getValue().getRecordId() == 0) {
+                throw new IOException("Index number " + entry.getValue().getId() + " is not in the storage");
+            }
+            writeString(entry.getKey());
+            writeVarInt(entry.getValue().getRecordId());
+        }
+    }
+
+    /**
+     * Encodes an access time as the start and end date-times.
+     * @param accessTime The {@code AccessTime} object to be encoded.
+     */
+    private void writeAccessTime(AccessTime accessTime) {
+        writeDateTime(accessTime.getStart());
+        writeDateTime(accessTime.getEnd());
+    }
+
+    /**
+     * Encodes a date-time as the number of seconds since the epoch and the nanoseconds within that second.
+     * @param dateTime The {@code LocalDateTime} object to be encoded.
+     */
+    private void writeDateTime(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        writeVarLong((seconds << 1) ^ (seconds >> 63));
+        writeVarInt(dateTime.getNano());
+    }
+
+    /**
+     * Encodes a string as its position in the string dictionary, adding it to the dictionary if it is not in there.
+     * @param string The string to be encoded.
+     */
+    private void writeString(String string) {
+        Integer position = stringPositions.get(string);
+        if (position == null) {
+            position = strings.size();
+            strings.add(string);
+            stringPositions.put(string, position);
+        }
+        writeVarInt(position);
+    }
+
+    /**
+     * Encodes a non-negative integer in as few bytes as needed, 7 bits per byte with the highest bit set on every byte
+     * except the last.
+     * @param value The integer to be encoded.
+     */
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xffffffffL);
+    }
+
+    /**
+     * Encodes a non-negative long in as few bytes as needed, 7 bits per byte with the highest bit set on every byte
+     * except the last.
+     * @param value The long to be encoded.
+     */
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7fL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a single byte.
+     * @param value The byte to be written.
+     */
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes the first bytes of an array.
+     * @param bytes The array containing the bytes to be written.
+     * @param length The number of bytes to be written.
+     */
+    private void writeBytes(byte[] bytes, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, 0, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * Grows the buffer if it does not have enough room for a number of bytes.
+     * @param length The number of bytes about to be written.
+     */
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+        }
+    }
+}
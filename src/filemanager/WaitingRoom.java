@@ -0,0 +1,253 @@
+package filemanager;
+
+import exception.WaitingRoomFullException;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for letting students into the student panel at a steady rate, so that the crowd logging
+ * in when a cohort's access period opens reaches storage and the email notifications a few at a time instead of all
+ * at once. Admissions are handed out from a token bucket that fills up at a fixed number of tokens per second and
+ * holds up to a second's worth, so short bursts are let straight in. Students who arrive while there is no token wait
+ * in the queue in the order they arrived, and can be told their position and how long they should still have to wait.
+ *
+ * <p>Once the queue is full, further students are turned away straight away instead of waiting for minutes behind
+ * everyone else, and are asked to try again later.</p>
+ */
+public class WaitingRoom {
+    /**
+     * The default number of students let in per second, which can be changed with the "stars.admissionsPerSecond"
+     * system property.
+     */
+    private static final int DEFAULT_ADMISSIONS_PER_SECOND = Math.max(1,
+            Integer.getInteger("stars.admissionsPerSecond", 20));
+
+    /**
+     * The default number of students that may wait in the queue, which can be changed with the
+     * "stars.waitingRoomCapacity" system property.
+     */
+    private static final int DEFAULT_CAPACITY = Math.max(1, Integer.getInteger("stars.waitingRoomCapacity", 2000));
+
+    /**
+     * The number of students let in per second.
+     */
+    private double admissionsPerSecond;
+
+    /**
+     * The largest number of tokens the bucket can hold, which is how many students can be let in at once.
+     */
+    private double burst;
+
+    /**
+     * The largest number of students that may wait in the queue.
+     */
+    private int capacity;
+
+    /**
+     * The number of tokens in the bucket, each of which lets a student in.
+     */
+    private double tokens;
+
+    /**
+     * The time at which the bucket was last filled up.
+     */
+    private long lastRefillNanos;
+
+    /**
+     * The students waiting to be let in, in the order they arrived.
+     */
+    private ArrayDeque<Ticket> queue = new ArrayDeque<>();
+
+    /**
+     * The total number of students let in.
+     */
+    private long totalAdmitted;
+
+    /**
+     * The total number of students turned away because the queue was full.
+     */
+    private long totalRejected;
+
+    /**
+     * Constructs a new WaitingRoom with the default rate and capacity.
+     */
+    public WaitingRoom() {
+        this(DEFAULT_ADMISSIONS_PER_SECOND, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new WaitingRoom whose bucket starts full.
+     * @param admissionsPerSecond The number of students let in per second.
+     * @param capacity The largest number of students that may wait in the queue.
+     */
+    public WaitingRoom(double admissionsPerSecond, int capacity) {
+        if (!(admissionsPerSecond > 0) || capacity < 1) {
+            throw new IllegalArgumentException("Invalid admission rate or waiting room capacity");
+        }
+        this.admissionsPerSecond = admissionsPerSecond;
+        this.capacity = capacity;
+        burst = Math.max(1, admissionsPerSecond);
+        tokens = burst;
+        lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Joins the waiting room. The student is let in straight away if nobody is waiting and there is a token left;
+     * otherwise the student is put at the back of the queue.
+     * @return The {@code Ticket} of the student, which is used to check when the student is let in.
+     * @throws WaitingRoomFullException if the queue is full.
+     */
+    public synchronized Ticket join() throws WaitingRoomFullException {
+        admitWaiting();
+        Ticket ticket = new Ticket();
+        if (queue.isEmpty() && tokens >= 1) {
+            tokens--;
+            ticket.admitted = true;
+            totalAdmitted++;
+            return ticket;
+        }
+        if (queue.size() >= capacity) {
+            totalRejected++;
+            throw new WaitingRoomFullException();
+        }
+        queue.addLast(ticket);
+        return ticket;
+    }
+
+    /**
+     * Waits until a student is let in or some time has passed, whichever is sooner.
+     * @param ticket The {@code Ticket} of the student.
+     * @param timeoutMillis The longest time in milliseconds to wait.
+     * @return true if the student has been let in; false if the time passed first or the student has left.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized boolean awaitAdmission(Ticket ticket, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            admitWaiting();
+            if (ticket.admitted || ticket.left) {
+                return ticket.admitted;
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return false;
+            }
+            long nextTokenNanos = (long) Math.ceil((1 - tokens) / admissionsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, Math.min(remainingNanos, nextTokenNanos)));
+        }
+    }
+
+    /**
+     * Returns the position of a student in the queue.
+     * @param ticket The {@code Ticket} of the student.
+     * @return The number of students waiting in front of the student plus one, or 0 if the student is no longer
+     * waiting.
+     */
+    public synchronized int getPosition(Ticket ticket) {
+        admitWaiting();
+        if (ticket.admitted || ticket.left) {
+            return 0;
+        }
+        int position = 1;
+        for (Ticket waiting: queue) {
+            if (waiting == ticket) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * Estimates how long a student still has to wait, assuming the students in front do not leave.
+     * @param ticket The {@code Ticket} of the student.
+     * @return The estimated waiting time in milliseconds, or 0 if the student is no longer waiting.
+     */
+    public synchronized long getEstimatedWaitMillis(Ticket ticket) {
+        int position = getPosition(ticket);
+        if (position == 0) {
+            return 0;
+        }
+        return (long) Math.ceil(Math.max(0, position - tokens) / admissionsPerSecond * TimeUnit.SECONDS.toMillis(1));
+    }
+
+    /**
+     * Leaves the queue without being let in, so that the students behind move up.
+     * @param ticket The {@code Ticket} of the student.
+     */
+    public synchronized void leave(Ticket ticket) {
+        if (!ticket.admitted && queue.remove(ticket)) {
+            ticket.left = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of students waiting in the queue.
+     * @return The number of students.
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the total number of students let in.
+     * @return The number of students.
+     */
+    public synchronized long getTotalAdmitted() {
+        return totalAdmitted;
+    }
+
+    /**
+     * Returns the total number of students turned away because the queue was full.
+     * @return The number of students.
+     */
+    public synchronized long getTotalRejected() {
+        return totalRejected;
+    }
+
+    /**
+     * Fills up the bucket for the time that has passed and lets in as many students from the front of the queue as
+     * there are tokens, waking up the threads waiting for them.
+     */
+    private void admitWaiting() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * admissionsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+
+        boolean admitted = false;
+        while (tokens >= 1 && !queue.isEmpty()) {
+            tokens--;
+            queue.removeFirst().admitted = true;
+            totalAdmitted++;
+            admitted = true;
+        }
+        if (admitted) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * The place of a student in the waiting room.
+     */
+    public static class Ticket {
+        /**
+         * Whether the student has been let in.
+         */
+        private volatile boolean admitted;
+
+        /**
+         * Whether the student has left the queue without being let in.
+         */
+        private boolean left;
+
+        /**
+         * Returns whether the student has been let in.
+         * @return true if the student has been let in; false otherwise.
+         */
+        public boolean isAdmitted() {
+            return admitted;
+        }
+    }
+}
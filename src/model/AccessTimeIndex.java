@@ -0,0 +1,269 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class is responsible for indexing the access periods of all the students, so that the number of students
+ * allowed to log in at any time can be found without going through the students. The start and end times of the
+ * access periods are kept in nanoseconds in two separate sorted arrays; the students within their access period at a
+ * time are those whose access period started before it, minus those whose access period ended at or before it, which
+ * takes two binary searches. This is the same rule as {@code AccessTime.isWithinAccessTime}, which leaves out both the
+ * start and the end of an access period, at the same precision.
+ *
+ * <p>Adding or removing an access period shifts part of the arrays, which is cheap next to how rarely access periods
+ * change compared to how often they are checked.</p>
+ * @see AccessTime
+ */
+public class AccessTimeIndex {
+    /**
+     * The largest number of seconds since 1970-01-01T00:00 that can be turned into nanoseconds in a long.
+     */
+    private static final long MAX_SECONDS = Long.MAX_VALUE / 1_000_000_000L;
+
+    /**
+     * The start times of the access periods in nanoseconds, sorted in ascending order. Only the first size elements are
+     * used.
+     */
+    private long[] starts;
+
+    /**
+     * The end times of the access periods in nanoseconds, sorted in ascending order. Only the first size elements are used.
+     */
+    private long[] ends;
+
+    /**
+     * The number of access periods in the index.
+     */
+    private int size;
+
+    /**
+     * Constructs a new AccessTimeIndex containing some access periods.
+     * @param accessTimes The {@code AccessTime} objects to be indexed.
+     */
+    public AccessTimeIndex(Collection<AccessTime> accessTimes) {
+        size = accessTimes.size();
+        starts = new long[Math.max(16, size)];
+        ends = new long[Math.max(16, size)];
+        int i = 0;
+        for (AccessTime accessTime: accessTimes) {
+            starts[i] = toNanos(accessTime.getStart());
+            ends[i] = toNanos(accessTime.getEnd());
+            i++;
+        }
+        Arrays.sort(starts, 0, size);
+        Arrays.sort(ends, 0, size);
+    }
+
+    /**
+     * Adds an access period.
+     * @param accessTime The {@code AccessTime} object to be added.
+     */
+    public void add(AccessTime accessTime) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        insert(starts, toNanos(accessTime.getStart()));
+        insert(ends, toNanos(accessTime.getEnd()));
+        size++;
+    }
+
+    /**
+     * Removes an access period that was added before.
+     * @param accessTime The {@code AccessTime} object to be removed, or an equal one.
+     */
+    public void remove(AccessTime accessTime) {
+        int startIndex = Arrays.binarySearch(starts, 0, size, toNanos(accessTime.getStart()));
+        int endIndex = Arrays.binarySearch(ends, 0, size, toNanos(accessTime.getEnd()));
+        if (startIndex < 0 || endIndex < 0) {
+            return;
+        }
+        System.arraycopy(starts, startIndex + 1, starts, startIndex, size - startIndex - 1);
+        System.arraycopy(ends, endIndex + 1, ends, endIndex, size - endIndex - 1);
+        size--;
+    }
+
+    /**
+     * Returns the number of access periods in the index.
+     * @return The number of access periods.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the students within their access period at a particular time, in the same way as
+     * {@code AccessTime.isWithinAccessTime}.
+     * @param dateTime The date and time to check.
+     * @return The number of access periods that started before and end after the date and time.
+     */
+    public int countWithinAccessTime(LocalDateTime dateTime) {
+        long nanos = toNanos(dateTime);
+        return countBefore(starts, nanos) - countNotAfter(ends, nanos);
+    }
+
+    /**
+     * Counts the access periods starting within a particular time range, i.e. the students who will become able to
+     * log in over it.
+     * @param from The start of the time range, inclusive.
+     * @param to The end of the time range, exclusive.
+     * @return The number of access periods starting within the time range.
+     */
+    public int countStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, countBefore(starts, toNanos(to)) - countBefore(starts, toNanos(from)));
+    }
+
+    /**
+     * Finds the largest number of students within their access period at the same time over a day. Only the access
+     * periods starting or ending during the day are gone through after two binary searches. The number of students
+     * only changes at the start or end of an access period, and is largest right after it, since the students whose
+     * access period starts then are not yet within it at that very time.
+     * @param day The day to check.
+     * @return The {@code Peak} holding the largest number of students and the time it is first reached.
+     */
+    public Peak findPeakWithinAccessTime(LocalDate day) {
+        long dayStart = toNanos(day.atStartOfDay());
+        long dayEnd = toNanos(day.plusDays(1).atStartOfDay());
+        int startIndex = countNotAfter(starts, dayStart);
+        int endIndex = countNotAfter(ends, dayStart);
+        int count = startIndex - endIndex;
+        int peak = count;
+        long peakTime = dayStart;
+
+        while (true) {
+            long next = Math.min(startIndex < size ? starts[startIndex] : Long.MAX_VALUE,
+                    endIndex < size ? ends[endIndex] : Long.MAX_VALUE);
+            if (next >= dayEnd) {
+                break;
+            }
+            while (startIndex < size && starts[startIndex] == next) {
+                startIndex++;
+                count++;
+            }
+            while (endIndex < size && ends[endIndex] == next) {
+                endIndex++;
+                count--;
+            }
+            if (count > peak) {
+                peak = count;
+                peakTime = next;
+            }
+        }
+        return new Peak(peak, toDateTime(peakTime).plusNanos(1));
+    }
+
+    /**
+     * Inserts a value into the sorted part of an array, which must have room for one more element.
+     * @param values The array.
+     * @param value The value to be inserted.
+     */
+    private void insert(long[] values, long value) {
+        int index = countBefore(values, value);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+    }
+
+    /**
+     * Counts the values in the sorted part of an array that are smaller than a value.
+     * @param values The array.
+     * @param value The value.
+     * @return The number of smaller values, which is also where the value would be inserted.
+     */
+    private int countBefore(long[] values, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Counts the values in the sorted part of an array that are smaller than or equal to a value.
+     * @param values The array.
+     * @param value The value.
+     * @return The number of values that are not larger.
+     */
+    private int countNotAfter(long[] values, long value) {
+        return value == Long.MAX_VALUE ? size : countBefore(values, value + 1);
+    }
+
+    /**
+     * Converts a date and time into nanoseconds, treating it as a time in UTC since only the order of times matters.
+     * Times too far from 1970 to fit are kept at the largest or smallest long, which keeps them in order.
+     * @param dateTime The date and time.
+     * @return The number of nanoseconds since 1970-01-01T00:00.
+     */
+    private static long toNanos(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= MAX_SECONDS) {
+            return Long.MAX_VALUE;
+        } else if (seconds < -MAX_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000_000L + dateTime.getNano();
+    }
+
+    /**
+     * Converts nanoseconds since 1970-01-01T00:00 back into a date and time.
+     * @param nanos The number of nanoseconds.
+     * @return The {@code LocalDateTime} object.
+     */
+    private static LocalDateTime toDateTime(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * The largest number of students within their access period at the same time over a period, and when it is first
+     * reached.
+     */
+    public static class Peak {
+        /**
+         * The largest number of students within their access period at the same time.
+         */
+        private int count;
+
+        /**
+         * The time at which the largest number of students is first reached.
+         */
+        private LocalDateTime time;
+
+        /**
+         * Constructs a new Peak.
+         * @param count The largest number of students within their access period at the same time.
+         * @param time The time at which the largest number of students is first reached.
+         */
+        public Peak(int count, LocalDateTime time) {
+            this.count = count;
+            this.time = time;
+        }
+
+        /**
+         * Returns the largest number of students within their access period at the same time.
+         * @return The number of students.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the time at which the largest number of students is first reached, which is one nanosecond after
+         * the start or end of an access period, so that {@code AccessTime.isWithinAccessTime} holds at it for all of
+         * the students counted.
+         * @return The {@code LocalDateTime} object representing the time.
+         */
+        public LocalDateTime getTime() {
+            return time;
+        }
+    }
+}
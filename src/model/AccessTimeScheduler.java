@@ -0,0 +1,143 @@
+package model;
+
+import exception.InsufficientAccessSlotsException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * This class is responsible for staggering the starts of the access periods of a cohort of students, so that the
+ * students do not all become able to log in at the same moment. The opening hours of every day in a range of days are
+ * divided into slots of a fixed length, and every slot is given at most a fixed number of students in order of user
+ * id, starting from the first slot of the first day. Every access period ends at the same time.
+ * @see AccessTime
+ */
+public class AccessTimeScheduler {
+    /**
+     * The first day on which access periods may start.
+     */
+    private LocalDate firstDay;
+
+    /**
+     * The last day on which access periods may start.
+     */
+    private LocalDate lastDay;
+
+    /**
+     * The time of day at which the first slot of every day starts.
+     */
+    private LocalTime dailyStart;
+
+    /**
+     * The time of day by which the last slot of every day has ended.
+     */
+    private LocalTime dailyEnd;
+
+    /**
+     * The length of a slot.
+     */
+    private Duration slotLength;
+
+    /**
+     * The largest number of access periods that may start in a slot.
+     */
+    private int maxStartsPerSlot;
+
+    /**
+     * The time at which every access period ends.
+     */
+    private LocalDateTime end;
+
+    /**
+     * Constructs a new AccessTimeScheduler.
+     * @param firstDay The first day on which access periods may start.
+     * @param lastDay The last day on which access periods may start.
+     * @param dailyStart The time of day at which the first slot of every day starts.
+     * @param dailyEnd The time of day by which the last slot of every day has ended.
+     * @param slotLength The length of a slot.
+     * @param maxStartsPerSlot The largest number of access periods that may start in a slot.
+     * @param end The time at which every access period ends.
+     */
+    public AccessTimeScheduler(LocalDate firstDay, LocalDate lastDay, LocalTime dailyStart, LocalTime dailyEnd,
+                               Duration slotLength, int maxStartsPerSlot, LocalDateTime end) {
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.dailyStart = dailyStart;
+        this.dailyEnd = dailyEnd;
+        this.slotLength = slotLength;
+        this.maxStartsPerSlot = maxStartsPerSlot;
+        this.end = end;
+    }
+
+    /**
+     * Returns the start times of all the slots, in order. Slots that would start at or after the end of the access
+     * periods are left out.
+     * @return An ArrayList of the start times of the slots.
+     */
+    public ArrayList<LocalDateTime> getSlotStarts() {
+        ArrayList<LocalDateTime> slotStarts = new ArrayList<>();
+        if (slotLength.isZero() || slotLength.isNegative()) {
+            return slotStarts;
+        }
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDateTime dayEnd = day.atTime(dailyEnd);
+            for (LocalDateTime slotStart = day.atTime(dailyStart); !slotStart.plus(slotLength).isAfter(dayEnd)
+                    && slotStart.isBefore(end); slotStart = slotStart.plus(slotLength)) {
+                slotStarts.add(slotStart);
+            }
+        }
+        return slotStarts;
+    }
+
+    /**
+     * Returns the largest number of students that can be given an access period.
+     * @return The number of slots times the largest number of access periods that may start in a slot.
+     */
+    public long getCapacity() {
+        return (long) getSlotStarts().size() * Math.max(0, maxStartsPerSlot);
+    }
+
+    /**
+     * Gives every student of a cohort a staggered access period.
+     * @param cohort The students to be given access periods.
+     * @return A LinkedHashMap of the new {@code AccessTime} of every student, in the order the access periods start.
+     * The key is the user id of the student.
+     * @throws InsufficientAccessSlotsException if there are not enough slots for the whole cohort.
+     */
+    public LinkedHashMap<String, AccessTime> schedule(List<Student> cohort) throws InsufficientAccessSlotsException {
+        long capacity = getCapacity();
+        if (cohort.size() > capacity) {
+            throw new InsufficientAccessSlotsException(cohort.size(), capacity);
+        }
+
+        ArrayList<Student> students = new ArrayList<>(cohort);
+        students.sort(Comparator.comparing(Student::getUserId));
+        ArrayList<LocalDateTime> slotStarts = getSlotStarts();
+        LinkedHashMap<String, AccessTime> accessTimes = new LinkedHashMap<>();
+        for (int i = 0; i < students.size(); i++) {
+            accessTimes.put(students.get(i).getUserId(), new AccessTime(slotStarts.get(i / maxStartsPerSlot), end));
+        }
+        return accessTimes;
+    }
+
+    /**
+     * Counts the access periods starting at every time.
+     * @param accessTimes The {@code AccessTime} objects.
+     * @return A TreeMap of the number of access periods starting at every time that any of them starts. The key is
+     * the start time.
+     */
+    public static TreeMap<LocalDateTime, Integer> countStarts(Iterable<AccessTime> accessTimes) {
+        TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        for (AccessTime accessTime: accessTimes) {
+            starts.merge(accessTime.getStart(), 1, Integer::sum);
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+
+import java.util.HashSet;
+
+/**
+ * This class is responsible for recording which students and courses in a {@code Storage} object have changed since
+ * the changes were last taken, so that only those have to be saved. A change to an index number is recorded as a
+ * change to its course. Changes can be recorded by many threads at the same time, so recording them is synchronized.
+ * @see Storage
+ */
+public class ChangeSet {
+    /**
+     * The user ids of the students that have been added or changed.
+     */
+    private HashSet<String> studentUserIds = new HashSet<>();
+
+    /**
+     * The course codes of the courses that have been added or changed, including those whose index numbers have
+     * changed.
+     */
+    private HashSet<String> courseCodes = new HashSet<>();
+
+    /**
+     * The course codes of the courses that have been removed. A course code can be both removed and changed if a
+     * course was added under the same course code afterwards.
+     */
+    private HashSet<String> removedCourseCodes = new HashSet<>();
+
+    /**
+     * Records that a student has been added or changed.
+     * @param userId The user id of the student.
+     */
+    public synchronized void studentChanged(String userId) {
+        studentUserIds.add(userId);
+    }
+
+    /**
+     * Records that a course or one of its index numbers has been added or changed.
+     * @param courseCode The course code of the course.
+     */
+    public synchronized void courseChanged(String courseCode) {
+        courseCodes.add(courseCode);
+    }
+
+    /**
+     * Records that a course has been removed.
+     * @param courseCode The course code of the course.
+     */
+    public synchronized void courseRemoved(String courseCode) {
+        removedCourseCodes.add(courseCode);
+    }
+
+    /**
+     * Records all the changes recorded in another ChangeSet as well.
+     * @param changes The other {@code ChangeSet} object.
+     */
+    public synchronized void addAll(ChangeSet changes) {
+        studentUserIds.addAll(changes.studentUserIds);
+        courseCodes.addAll(changes.courseCodes);
+        removedCourseCodes.addAll(changes.removedCourseCodes);
+    }
+
+    /**
+     * Returns the user ids of the students that have been added or changed.
+     * @return A HashSet of the user ids.
+     */
+    public HashSet<String> getStudentUserIds() {
+        return studentUserIds;
+    }
+
+    /**
+     * Returns the course codes of the courses that have been added or changed.
+     * @return A HashSet of the course codes.
+     */
+    public HashSet<String> getCourseCodes() {
+        return courseCodes;
+    }
+
+    /**
+     * Returns the course codes of the courses that have been removed.
+     * @return A HashSet of the course codes.
+     */
+    public HashSet<String> getRemovedCourseCodes() {
+        return removedCourseCodes;
+    }
+}
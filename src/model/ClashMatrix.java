@@ -0,0 +1,123 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * This class is responsible for working out once which index numbers of the whole catalogue clash with each other, so
+ * that registering and swapping only have to look the answer up. Every {@code IndexNumber} is given a row of the
+ * matrix, a bit set holding the record ids of the index numbers that clash with it. The rows are worked out in
+ * parallel when the matrix is built, and a row is added to every index number added afterwards.
+ *
+ * <p>Rows are never changed in place once they have been given to an index number; adding an index number gives the
+ * index numbers that clash with it a new copy of their row instead, so a row can be read while another index number
+ * is being added.</p>
+ * @see IndexNumber
+ */
+public class ClashMatrix {
+    /**
+     * The index numbers in the matrix.
+     */
+    private ArrayList<IndexNumber> indexNumbers;
+
+    /**
+     * Constructs a new ClashMatrix of some index numbers, working out their rows in parallel. Index numbers that do
+     * not have a record id yet are left out.
+     * @param indexNumbers The {@code IndexNumber} objects.
+     */
+    public ClashMatrix(Collection<IndexNumber> indexNumbers) {
+        this.indexNumbers = new ArrayList<>();
+        for (IndexNumber indexNumber: indexNumbers) {
+            if (indexNumber.getRecordId() != 0) {
+                this.indexNumbers.add(indexNumber);
+            }
+        }
+
+        BitSet[] rows = new BitSet[this.indexNumbers.size()];
+        IntStream.range(0, rows.length).parallel().forEach(i -> rows[i] = getRow(this.indexNumbers.get(i)));
+        for (int i = 0; i < rows.length; i++) {
+            this.indexNumbers.get(i).setClashRow(rows[i]);
+        }
+    }
+
+    /**
+     * Adds an index number to the matrix, giving it a row and adding it to the rows of the index numbers that clash
+     * with it. An index number that does not have a record id yet or is already in the matrix is left out.
+     * @param indexNumber The {@code IndexNumber} object to be added.
+     */
+    public void add(IndexNumber indexNumber) {
+        if (indexNumber.getRecordId() == 0 || indexNumber.getClashRow() != null) {
+            return;
+        }
+        BitSet row = getRow(indexNumber);
+        if (overlaps(indexNumber, indexNumber)) {
+            row.set(indexNumber.getRecordId());
+        }
+        for (IndexNumber other: indexNumbers) {
+            if (row.get(other.getRecordId())) {
+                BitSet otherRow = (BitSet) other.getClashRow().clone();
+                otherRow.set(indexNumber.getRecordId());
+                other.setClashRow(otherRow);
+            }
+        }
+        indexNumbers.add(indexNumber);
+        indexNumber.setClashRow(row);
+    }
+
+    /**
+     * Returns the number of index numbers in the matrix.
+     * @return The number of index numbers.
+     */
+    public int size() {
+        return indexNumbers.size();
+    }
+
+    /**
+     * Works out the row of an index number against all the index numbers in the matrix. An index number with any
+     * lesson clashes with itself, the same as when its lessons are compared.
+     * @param indexNumber The {@code IndexNumber} object.
+     * @return A BitSet of the record ids of the index numbers that clash with it.
+     */
+    private BitSet getRow(IndexNumber indexNumber) {
+        BitSet row = new BitSet();
+        for (IndexNumber other: indexNumbers) {
+            if (overlaps(indexNumber, other)) {
+                row.set(other.getRecordId());
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Checks whether any lesson of an index number overlaps with any lesson of another index number, without looking
+     * at their rows. The {@code WeeklyOccupancy} of both is checked first, and the lessons are only compared when the
+     * masks share a slot and cannot tell for sure.
+     * @param indexNumber The {@code IndexNumber} object.
+     * @param other The other {@code IndexNumber} object.
+     * @return true if the index numbers clash; false otherwise.
+     * @see WeeklyOccupancy
+     */
+    public static boolean overlaps(IndexNumber indexNumber, IndexNumber other) {
+        WeeklyOccupancy occupancy = indexNumber.getOccupancy();
+        WeeklyOccupancy otherOccupancy = other.getOccupancy();
+        if (!occupancy.intersects(otherOccupancy)) {
+            return false;
+        }
+        if (occupancy.isExact() && otherOccupancy.isExact()) {
+            return true;
+        }
+        for (Lesson lesson: other.getLessons()) {
+            for (Lesson lessonToBeAdded: indexNumber.getLessons()) {
+                if (lessonToBeAdded.getDayOfWeek() == lesson.getDayOfWeek()) {
+                    if (lessonToBeAdded.getStartTime().isBefore(lesson.getEndTime())  &&
+                            lesson.getStartTime().isBefore(lessonToBeAdded.getEndTime())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -6,6 +6,11 @@ import java.util.ArrayList;
 /**
  * This class is responsible for modelling a course which details the attributes and methods of each
  *  * {@code Course} object part of the STARS Planner system.
+ *
+ * <p>Students can be registered for different index numbers of the same course at the same time, so the numbers of
+ * students and vacancies kept up to date are only read, counted and changed while holding the lock of the course. An
+ * {@code IndexNumber} changes its lists of students while holding the same lock, so a count never sees a student that
+ * is about to be counted again by a change.</p>
  */
 public class Course implements Serializable {
     /**
@@ -33,6 +38,33 @@ public class Course implements Serializable {
      */
     private int au;
 
+    /**
+     * Whether the number of registered students and the total maximum vacancy of the index numbers have been counted.
+     * They are counted when first needed and kept up to date by the {@code IndexNumber} objects afterwards.
+     */
+    private transient boolean registeredStudentsCounted;
+
+    /**
+     * Whether the number of wait listed students has been counted. This is counted separately, since the wait lists
+     * of index numbers read lazily from a snapshot have to be read to be counted.
+     */
+    private transient boolean waitListStudentsCounted;
+
+    /**
+     * The number of students registered for any index number of the course.
+     */
+    private transient int registeredStudentCount;
+
+    /**
+     * The number of students in the wait list of any index number of the course.
+     */
+    private transient int waitListStudentCount;
+
+    /**
+     * The total maximum vacancy of the index numbers of the course.
+     */
+    private transient int maxVacancy;
+
     /**
      * Creates a new {@code Course} object.
      * @param courseName a String that represents the course name of the {@code Course} object.
@@ -61,16 +93,20 @@ public class Course implements Serializable {
      * @param indexNumbers ArrayList of {@code IndexNumber} objects that is held by the particular {@code Course} object.
      * @see IndexNumber
      */
-    public void setIndexNumbers(ArrayList<IndexNumber> indexNumbers) {
+    public synchronized void setIndexNumbers(ArrayList<IndexNumber> indexNumbers) {
         this.indexNumbers = indexNumbers;
+        registeredStudentsCounted = false;
+        waitListStudentsCounted = false;
     }
 
     /**
      * Adds a new {@code IndexNumber} object to the current ArrayList of {@code IndexNumber} objects held by the particular {@code Course} object.
      * @param indexNumber {@code IndexNumber} object to be added to the current ArrayList of {@code IndexNumber} objects.
      */
-    public void addIndexNumber(IndexNumber indexNumber) {
+    public synchronized void addIndexNumber(IndexNumber indexNumber) {
         indexNumbers.add(indexNumber);
+        registeredStudentsCounted = false;
+        waitListStudentsCounted = false;
     }
 
     /**
@@ -126,7 +162,7 @@ public class Course implements Serializable {
      * @return ArrayList of registered {@code Student} objects.
      */
     public ArrayList<Student> getRegisteredStudents() {
-        ArrayList<Student> registeredStudents = new ArrayList<>();
+        ArrayList<Student> registeredStudents = new ArrayList<>(getNumberOfRegisteredStudents());
         for (IndexNumber indexNumber: getIndexNumbers()) {
             for (Student student: indexNumber.getRegisteredStudents()) {
                 registeredStudents.add(student);
@@ -140,7 +176,7 @@ public class Course implements Serializable {
      * @return ArrayList of wait listed {@code Student} objects.
      */
     public ArrayList<Student> getWaitListStudents() {
-        ArrayList<Student> waitListStudents = new ArrayList<>();
+        ArrayList<Student> waitListStudents = new ArrayList<>(getNumberOfWaitListStudents());
         for (IndexNumber indexNumber: getIndexNumbers()) {
             for (Student student: indexNumber.getWaitListStudents()) {
                 waitListStudents.add(student);
@@ -149,6 +185,107 @@ public class Course implements Serializable {
         return waitListStudents;
     }
 
+    /**
+     * Returns the number of students registered for any index number of the course, which is kept up to date instead
+     * of being counted on every call.
+     * @return The number of registered students.
+     */
+    public synchronized int getNumberOfRegisteredStudents() {
+        countRegisteredStudents();
+        return registeredStudentCount;
+    }
+
+    /**
+     * Returns the number of students in the wait list of any index number of the course, which is kept up to date
+     * instead of being counted on every call.
+     * @return The number of wait listed students.
+     */
+    public synchronized int getNumberOfWaitListStudents() {
+        if (!waitListStudentsCounted) {
+            waitListStudentCount = countStudentsFromIndexNumbers()[1];
+            waitListStudentsCounted = true;
+        }
+        return waitListStudentCount;
+    }
+
+    /**
+     * Returns the number of students that can still be registered for the course across all its index numbers.
+     * @return The total available vacancy of the index numbers.
+     */
+    public synchronized int getAvailableVacancy() {
+        countRegisteredStudents();
+        return maxVacancy - registeredStudentCount;
+    }
+
+    /**
+     * Counts the registered and wait listed students and the total maximum vacancy from the index numbers from
+     * scratch, without looking at the numbers kept up to date. This is used to check that the numbers kept up to
+     * date have not drifted.
+     * @return An array of the number of registered students, the number of wait listed students and the total maximum
+     * vacancy, in that order.
+     */
+    synchronized int[] countStudentsFromIndexNumbers() {
+        int[] counts = new int[3];
+        if (indexNumbers != null) {
+            for (IndexNumber indexNumber: indexNumbers) {
+                counts[0] += indexNumber.getNumberOfRegisteredStudents();
+                counts[1] += indexNumber.getNumberOfWaitListStudents();
+                counts[2] += indexNumber.getMaxVacancy();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the registered students and the total maximum vacancy if they have not been counted since the index
+     * numbers were last changed. The wait lists are not read.
+     */
+    private void countRegisteredStudents() {
+        if (!registeredStudentsCounted) {
+            registeredStudentCount = 0;
+            maxVacancy = 0;
+            if (indexNumbers != null) {
+                for (IndexNumber indexNumber: indexNumbers) {
+                    registeredStudentCount += indexNumber.getNumberOfRegisteredStudents();
+                    maxVacancy += indexNumber.getMaxVacancy();
+                }
+            }
+            registeredStudentsCounted = true;
+        }
+    }
+
+    /**
+     * Updates the number of registered students after an {@code IndexNumber} of the course has registered or
+     * deregistered a student.
+     * @param change The change in the number of registered students.
+     */
+    synchronized void registeredStudentCountChanged(int change) {
+        if (registeredStudentsCounted) {
+            registeredStudentCount += change;
+        }
+    }
+
+    /**
+     * Updates the number of wait listed students after a student has been added to or removed from the wait list of
+     * an {@code IndexNumber} of the course.
+     * @param change The change in the number of wait listed students.
+     */
+    synchronized void waitListStudentCountChanged(int change) {
+        if (waitListStudentsCounted) {
+            waitListStudentCount += change;
+        }
+    }
+
+    /**
+     * Updates the total maximum vacancy after the maximum vacancy of an {@code IndexNumber} of the course has changed.
+     * @param change The change in the maximum vacancy.
+     */
+    synchronized void maxVacancyChanged(int change) {
+        if (registeredStudentsCounted) {
+            maxVacancy += change;
+        }
+    }
+
     /**
      * String representation of a {@code Course} object which includes the course code and course name.
      * @return A String containing the course code and course name of the {@code Course} object.
@@ -30,6 +30,20 @@ public class EmailNotification implements INotification, Serializable {
      */
     private static EmailNotification instance = new EmailNotification();
 
+    /**
+     * Whether E-mails are actually sent. Turned off while changes that have already been notified once are being
+     * re-applied, e.g. when the journal is replayed on start up.
+     */
+    private static volatile boolean enabled = true;
+
+    /**
+     * Turns the sending of E-mail notifications on or off.
+     * @param enabled true if E-mails should be sent; false if they should be silently dropped.
+     */
+    public static void setEnabled(boolean enabled) {
+        EmailNotification.enabled = enabled;
+    }
+
     /**
      * Sets the E-mail to be used for sending the E-mail notification.
      * @param username  String representing the username of the E-mail to be used to send the notification to the particular students.
@@ -62,6 +76,15 @@ public class EmailNotification implements INotification, Serializable {
         return getInstance();
     }
 
+    /**
+     * Returns whether E-mails are sent.
+     * @return true if E-mails are sent; false if they are silently dropped.
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
     /**
      * Send the particular message to the particular student's provided E-mail.
      * @param recipientEmail String representing the E-mail address to send the message to.
@@ -69,6 +92,10 @@ public class EmailNotification implements INotification, Serializable {
      */
     @Override
     public void send(String recipientEmail, String messageToSend) {
+        if (!enabled) {
+            return;
+        }
+
         Properties props = new Properties();
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
@@ -12,4 +12,11 @@ public interface INotification {
      * @param message The details of the notification.
      */
     void send(String recipient, String message);
+
+    /**
+     * This is a method which tells whether messages are actually sent, so that they do not have to be put together
+     * when they would be dropped anyway.
+     * @return true if messages are sent; false if they are dropped.
+     */
+    boolean isEnabled();
 }
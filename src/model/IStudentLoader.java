@@ -0,0 +1,48 @@
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * This interface is an abstraction of the methods that any class loading {@code Student} objects into a
+ * {@code Storage} object on demand should implement. It allows a {@code Storage} object to be used before all its
+ * students have been read, with each student read the first time it is asked for.
+ * @see Storage
+ * @see IndexNumber
+ */
+public interface IStudentLoader {
+    /**
+     * This method should contain the logic to read a student, together with its time table.
+     * @param userId The user id of the student to be read.
+     * @return The {@code Student} object, or null if there is no student with the user id.
+     */
+    Student loadStudent(String userId);
+
+    /**
+     * This method should return the user ids of all the students that can be read.
+     * @return An ArrayList of the user ids of all the students that can be read.
+     */
+    ArrayList<String> getUserIds();
+
+    /**
+     * This method should return the record id after the largest record id among the students that can be read, so
+     * that students added later are not given a record id that is already taken.
+     * @return The smallest record id that is not taken by any of the students that can be read.
+     */
+    int getNextRecordId();
+
+    /**
+     * This method should contain the logic to read the students registered for an index number, in the order they
+     * registered.
+     * @param indexNumber The {@code IndexNumber} object whose registered students are to be read.
+     * @return An ArrayList of the registered {@code Student} objects.
+     */
+    ArrayList<Student> loadRegisteredStudents(IndexNumber indexNumber);
+
+    /**
+     * This method should contain the logic to read the students in the wait list of an index number, in the order they
+     * joined the wait list.
+     * @param indexNumber The {@code IndexNumber} object whose wait listed students are to be read.
+     * @return An ArrayList of the wait listed {@code Student} objects.
+     */
+    ArrayList<Student> loadWaitListStudents(IndexNumber indexNumber);
+}
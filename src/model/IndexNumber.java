@@ -10,11 +10,22 @@ import exception.ClashingWaitListedIndexNumberException;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is responsible for modelling the index number of a course which details the attributes and methods of
  * each {@code IndexNumber} object for a particular {@code Course} object.
+ *
+ * <p>Only one student at a time registers for, drops or joins the wait list of an index number, but students of other
+ * index numbers of the same course do so at the same time, so the lists of students are changed while holding the
+ * lock of the course, which keeps the numbers of students of the course up to date.</p>
+ *
+ * <p>Whether there is a seat left is decided only by {@link #tryReserveSeat()}, which takes a seat with a single
+ * compare-and-set of a counter of the seats taken, so two students can never both get the last seat even if they
+ * check at the same time. A student is put into the registered students only after a seat has been reserved for
+ * them.</p>
  */
 public class IndexNumber implements Serializable {
 
@@ -23,6 +34,14 @@ public class IndexNumber implements Serializable {
      */
     private int id;
 
+    /**
+     * An integer declared as recordId representing the stable number that identifies the IndexNumber inside
+     * {@code Storage}, or 0 if it has not been added to {@code Storage} yet. Unlike the id, it is unique across
+     * all the courses.
+     * @see Storage
+     */
+    private int recordId;
+
     /**
      * A {@code Course} object declared as course representing the course in which the IndexNumber belongs to.
      * @see Course
@@ -33,7 +52,7 @@ public class IndexNumber implements Serializable {
      * An integer declared as maxVacancy representing the maximum number of Students that can be enrolled
      * into this particular IndexNumber of a course.
      */
-    private int maxVacancy;
+    private volatile int maxVacancy;
 
     /**
      * An ArrayList of {@code Lesson} declared as lessons representing the list of lessons each IndexNumber has
@@ -55,6 +74,39 @@ public class IndexNumber implements Serializable {
      */
     private LinkedList<Student> waitListStudents;
 
+    /**
+     * The {@code IStudentLoader} that reads the registered and wait listed students of the IndexNumber the first time
+     * they are needed, or null once they have been read. It is cleared only after both lists have been filled in.
+     * @see IStudentLoader
+     */
+    private transient volatile IStudentLoader studentLoader;
+
+    /**
+     * The number of seats taken, which is the number of registered students together with the seats that have been
+     * reserved for students about to be registered, or null until it is first needed.
+     * @see #tryReserveSeat()
+     */
+    private transient volatile AtomicInteger seatsTaken;
+
+    /**
+     * An integer declared as unloadedRegisteredStudentCount representing the number of registered students that the
+     * studentLoader will read, so that the vacancy can be known without reading them.
+     */
+    private transient int unloadedRegisteredStudentCount;
+
+    /**
+     * The {@code WeeklyOccupancy} of the lessons of the IndexNumber, worked out the first time it is needed.
+     * @see WeeklyOccupancy
+     */
+    private transient volatile WeeklyOccupancy occupancy;
+
+    /**
+     * The row of the {@code ClashMatrix} of the IndexNumber, holding the record ids of the index numbers that clash
+     * with it, or null if it is not in a matrix.
+     * @see ClashMatrix
+     */
+    private transient volatile BitSet clashRow;
+
     /**
      * A constructor which constructs the IndexNumber object.
      * @param id The ID of the IndexNumber object.
@@ -83,6 +135,24 @@ public class IndexNumber implements Serializable {
         return id;
     }
 
+    /**
+     * Returns the stable number that identifies the IndexNumber inside {@code Storage}.
+     * @return The integer representing the record id of the IndexNumber object, or 0 if it has not been added to
+     * {@code Storage} yet.
+     */
+    public int getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Sets the stable number that identifies the IndexNumber inside {@code Storage}. This is only meant to be called
+     * by {@code Storage} and when restoring a saved {@code Storage} object.
+     * @param recordId The record id of the IndexNumber object.
+     */
+    public void setRecordId(int recordId) {
+        this.recordId = recordId;
+    }
+
     /**
      * Returns the {@code Course} object that the IndexNumber belongs to.
      * @return The {@code Course} representing the Course of the IndexNumber object.
@@ -92,6 +162,15 @@ public class IndexNumber implements Serializable {
         return course;
     }
 
+    /**
+     * Moves the IndexNumber to another {@code Course} object, such as the copy of its course made when the course code
+     * is changed, so that the numbers of students and vacancies kept up to date are changed on that course instead.
+     * @param course The {@code Course} in which the IndexNumber now belongs to.
+     */
+    void setCourse(Course course) {
+        this.course = course;
+    }
+
     /**
      * Returns the maximum vacancy of the IndexNumber.
      * @return The integer variable representing the maximum vacancy of the IndexNumber object.
@@ -105,6 +184,9 @@ public class IndexNumber implements Serializable {
      * @return The integer variable representing the number of registered students in the IndexNumber object.
      */
     public int getNumberOfRegisteredStudents() {
+        if (studentLoader != null) {
+            return unloadedRegisteredStudentCount;
+        }
         return registeredStudents.size();
     }
 
@@ -114,6 +196,7 @@ public class IndexNumber implements Serializable {
      * @see Student
      */
     public ArrayList<Student> getRegisteredStudents() {
+        loadStudents();
         return registeredStudents;
     }
 
@@ -124,9 +207,19 @@ public class IndexNumber implements Serializable {
      * @see Student
      */
     public LinkedList<Student> getWaitListStudents() {
+        loadStudents();
         return waitListStudents;
     }
 
+    /**
+     * Returns the number of students in the wait list of the IndexNumber.
+     * @return The integer representing the number of students in the wait list of the IndexNumber object.
+     */
+    public int getNumberOfWaitListStudents() {
+        loadStudents();
+        return waitListStudents.size();
+    }
+
     /**
      * Sets the maximum vacancy of the IndexNumber.
      * @param maxVacancy The maximum number of students that can be registered in this IndexNumber.
@@ -134,9 +227,10 @@ public class IndexNumber implements Serializable {
      * already registered for the particular IndexNumber
      */
     public void setMaxVacancy(int maxVacancy) throws InvalidNewMaxException {
-        if (maxVacancy < getNumberOfRegisteredStudents()) {
+        if (maxVacancy < getSeatsTaken().get()) {
             throw new InvalidNewMaxException();
         }
+        course.maxVacancyChanged(maxVacancy - this.maxVacancy);
         this.maxVacancy = maxVacancy;
     }
 
@@ -145,25 +239,101 @@ public class IndexNumber implements Serializable {
      * @return An integer representing the available remaining vacancy of the IndexNumber.
      */
     public int getAvailableVacancy() {
-        return maxVacancy - getNumberOfRegisteredStudents();
+        return maxVacancy - getSeatsTaken().get();
     }
 
     /**
-     * Adds a {@code Student} object to the registeredStudents ArrayList.
+     * Returns the number of seats taken, which is the number of registered students together with the seats that
+     * have been reserved for students about to be registered.
+     * @return The number of seats taken.
+     */
+    public int getNumberOfSeatsTaken() {
+        return getSeatsTaken().get();
+    }
+
+    /**
+     * Reserves a seat for a student about to be registered, if there is one left. The seat is taken with a
+     * compare-and-set, so this is the only place that decides whether there is a vacancy, however many students try
+     * at the same time. The seat has to be either taken up with {@link #registerStudentInReservedSeat(Student)} or
+     * given back with {@link #releaseSeat()}.
+     * @return true if a seat has been reserved; false if there is no vacancy.
+     */
+    public boolean tryReserveSeat() {
+        AtomicInteger seatsTaken = getSeatsTaken();
+        while (true) {
+            int taken = seatsTaken.get();
+            if (taken >= maxVacancy) {
+                return false;
+            }
+            if (seatsTaken.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a seat, either one that was reserved but not taken up or that of a student who has been
+     * deregistered.
+     */
+    public void releaseSeat() {
+        getSeatsTaken().decrementAndGet();
+    }
+
+    /**
+     * Adds a {@code Student} object to the registeredStudents ArrayList and takes up a seat for them without checking
+     * whether there is a vacancy. This is only meant for restoring registrations that have already been checked.
      * @param student The {@code Student} object to be added into the registeredStudents ArrayList.
      * @see Student
      */
     public void registerStudent(Student student) {
-        registeredStudents.add(student);
+        getSeatsTaken().incrementAndGet();
+        registerStudentInReservedSeat(student);
+    }
+
+    /**
+     * Adds a {@code Student} object to the registeredStudents ArrayList, taking up the seat that has been reserved for
+     * them with {@link #tryReserveSeat()}.
+     * @param student The {@code Student} object to be added into the registeredStudents ArrayList.
+     * @see Student
+     */
+    public void registerStudentInReservedSeat(Student student) {
+        loadStudents();
+        synchronized (course) {
+            registeredStudents.add(student);
+            course.registeredStudentCountChanged(1);
+        }
     }
 
     /**
-     * Removes a {@code Student} object from the registeredStudents ArrayList.
+     * Removes a {@code Student} object from the registeredStudents ArrayList and gives back their seat.
      * @param student The {@code Student} object to be removed from the registeredStudents ArrayList.
      * @see Student
      */
     public void deregisterStudent(Student student) {
-        registeredStudents.remove(student);
+        loadStudents();
+        boolean removed;
+        synchronized (course) {
+            removed = registeredStudents.remove(student);
+            if (removed) {
+                course.registeredStudentCountChanged(-1);
+            }
+        }
+        if (removed) {
+            releaseSeat();
+        }
+    }
+
+    /**
+     * Puts a {@code Student} object in the place of another in the registeredStudents ArrayList, so that the seat of
+     * one student is handed to the other without ever being free. This is used when two students swap index numbers.
+     * @param student The {@code Student} object to be replaced.
+     * @param replacement The {@code Student} object to take their place.
+     */
+    void replaceRegisteredStudent(Student student, Student replacement) {
+        loadStudents();
+        synchronized (course) {
+            registeredStudents.set(registeredStudents.indexOf(student), replacement);
+        }
     }
 
     /**
@@ -172,7 +342,11 @@ public class IndexNumber implements Serializable {
      * @see Student
      */
     public void addStudentToWaitList(Student student) {
-        waitListStudents.add(student);
+        loadStudents();
+        synchronized (course) {
+            waitListStudents.add(student);
+            course.waitListStudentCountChanged(1);
+        }
     }
 
     /**
@@ -181,7 +355,12 @@ public class IndexNumber implements Serializable {
      * @see Student
      */
     public void removeStudentFromWaitList(Student student) {
-        waitListStudents.remove(student);
+        loadStudents();
+        synchronized (course) {
+            if (waitListStudents.remove(student)) {
+                course.waitListStudentCountChanged(-1);
+            }
+        }
     }
 
     /**
@@ -200,14 +379,73 @@ public class IndexNumber implements Serializable {
     public void registerNextStudentInWaitList()
             throws CourseRegisteredException, CourseInWaitListException, NoVacancyException,
             ClashingRegisteredIndexNumberException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
+        loadStudents();
         if (!waitListStudents.isEmpty()) {
-            Student nextStudentInWaitList = waitListStudents.poll();
-            nextStudentInWaitList.getWaitListCourseCodes().remove(course.getCourseCode());
-            nextStudentInWaitList.getWaitListIndexNumbers().remove(course.getCourseCode());
+            Student nextStudentInWaitList;
+            synchronized (course) {
+                nextStudentInWaitList = waitListStudents.poll();
+                course.waitListStudentCountChanged(-1);
+            }
+            nextStudentInWaitList.getTimeTable().leaveWaitList(course.getCourseCode());
             nextStudentInWaitList.registerForCourse(course.getCourseCode(), this);
         }
     }
 
+    /**
+     * Defers reading the registered and wait listed students of the IndexNumber until they are first needed. Only the
+     * number of registered students is known until then.
+     * @param studentLoader The {@code IStudentLoader} that reads the students.
+     * @param registeredStudentCount The number of registered students that the studentLoader will read.
+     * @see IStudentLoader
+     */
+    public void setStudentLoader(IStudentLoader studentLoader, int registeredStudentCount) {
+        unloadedRegisteredStudentCount = registeredStudentCount;
+        this.studentLoader = studentLoader;
+    }
+
+    /**
+     * Returns the {@code IStudentLoader} that will read the registered and wait listed students of the IndexNumber.
+     * @return The {@code IStudentLoader} object, or null if the students have already been read.
+     * @see IStudentLoader
+     */
+    public IStudentLoader getStudentLoader() {
+        return studentLoader;
+    }
+
+    /**
+     * Returns the counter of the seats taken, creating it from the number of registered students the first time.
+     * @return The AtomicInteger counting the seats taken.
+     */
+    private AtomicInteger getSeatsTaken() {
+        AtomicInteger seatsTaken = this.seatsTaken;
+        if (seatsTaken == null) {
+            synchronized (this) {
+                seatsTaken = this.seatsTaken;
+                if (seatsTaken == null) {
+                    seatsTaken = new AtomicInteger(getNumberOfRegisteredStudents());
+                    this.seatsTaken = seatsTaken;
+                }
+            }
+        }
+        return seatsTaken;
+    }
+
+    /**
+     * Reads the registered and wait listed students of the IndexNumber if they have not been read yet.
+     */
+    private void loadStudents() {
+        if (studentLoader == null) {
+            return;
+        }
+        synchronized (this) {
+            if (studentLoader != null) {
+                registeredStudents.addAll(studentLoader.loadRegisteredStudents(this));
+                waitListStudents.addAll(studentLoader.loadWaitListStudents(this));
+                studentLoader = null;
+            }
+        }
+    }
+
     /**
      * Returns an ArrayList of {@code Lesson} that the IndexNumber contains.
      * @return The ArrayList of {@code Lesson} representing the list of {@code Lesson} of the IndexNumber.
@@ -217,6 +455,55 @@ public class IndexNumber implements Serializable {
         return lessons;
     }
 
+    /**
+     * Returns the times of the week taken up by the lessons of the IndexNumber, working them out the first time they
+     * are asked for.
+     * @return The {@code WeeklyOccupancy} of the lessons.
+     * @see WeeklyOccupancy
+     */
+    public WeeklyOccupancy getOccupancy() {
+        WeeklyOccupancy occupancy = this.occupancy;
+        if (occupancy == null) {
+            occupancy = new WeeklyOccupancy(lessons);
+            this.occupancy = occupancy;
+        }
+        return occupancy;
+    }
+
+    /**
+     * Returns the row of the {@code ClashMatrix} of the IndexNumber, which must not be changed.
+     * @return A BitSet of the record ids of the index numbers that clash with it, or null if it is not in a matrix.
+     * @see ClashMatrix
+     */
+    BitSet getClashRow() {
+        return clashRow;
+    }
+
+    /**
+     * Sets the row of the {@code ClashMatrix} of the IndexNumber.
+     * @param clashRow A BitSet of the record ids of the index numbers that clash with it.
+     * @see ClashMatrix
+     */
+    void setClashRow(BitSet clashRow) {
+        this.clashRow = clashRow;
+    }
+
+    /**
+     * Checks whether any lesson of the IndexNumber overlaps with any lesson of another index number. If both are in
+     * the {@code ClashMatrix}, the answer is looked up in the row of the IndexNumber; otherwise the lessons are
+     * checked.
+     * @param other The other {@code IndexNumber} object.
+     * @return true if the index numbers clash; false otherwise.
+     * @see ClashMatrix
+     */
+    public boolean clashesWith(IndexNumber other) {
+        BitSet clashRow = this.clashRow;
+        if (clashRow != null && other.clashRow != null) {
+            return clashRow.get(other.recordId);
+        }
+        return ClashMatrix.overlaps(this, other);
+    }
+
     /**
      * Returns a detailed String description of the IndexNumber.
      * @return The String which details the type of {@code Lesson}, day of week in which {@code Lesson} occur,
@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Objects;
+
 /**
  * This class is responsible for modelling LoginInfo which details the attributes and methods of each LoginInfo object
  * from a particular user logging into the STARS Planner.
@@ -21,10 +23,22 @@ public class LoginInfo {
 
     /**
      * A String declared as password representing the password entered from the user logging in
-     * who is logging in
+     * who is logging in, or the hash of the password if the login information was saved
      */
     private String password;
 
+    /**
+     * A String declared as salt representing the salt the saved hash of the password was made with, or null if the
+     * password is not hashed or was hashed before passwords were salted
+     */
+    private String salt;
+
+    /**
+     * An int declared as cost representing the cost the saved hash of the password was made with, or 0 if the
+     * password is not hashed or was hashed before passwords were salted
+     */
+    private int cost;
+
     /**
      * A constructor which constructs the LoginInfo object.
      * @param accountType The {@code AccountType} of the user logging in.
@@ -38,6 +52,21 @@ public class LoginInfo {
         this.password = password;
     }
 
+    /**
+     * A constructor which constructs the LoginInfo object of saved login information with a salted hash.
+     * @param accountType The {@code AccountType} of the user.
+     * @param userId The userId of the user
+     * @param password The hash of the password of the user
+     * @param salt The salt the hash was made with
+     * @param cost The cost the hash was made with
+     * @see AccountType
+     */
+    public LoginInfo(AccountType accountType, String userId, String password, String salt, int cost) {
+        this(accountType, userId, password);
+        this.salt = salt;
+        this.cost = cost;
+    }
+
     /**
      * Returns the password that the {@code LoginInfo} object holds.
      * @return The String representing the password of the {@code LoginInfo} object
@@ -46,6 +75,22 @@ public class LoginInfo {
         return password;
     }
 
+    /**
+     * Returns the salt of the hash of the password that the {@code LoginInfo} object holds.
+     * @return The String representing the salt, or null if the password is not salted
+     */
+    public String getSalt() {
+        return salt;
+    }
+
+    /**
+     * Returns the cost of the hash of the password that the {@code LoginInfo} object holds.
+     * @return The cost of the hash, or 0 if the password is not salted
+     */
+    public int getCost() {
+        return cost;
+    }
+
     /**
      * Returns the user id that the {@code LoginInfo} object holds.
      * @return The String representing the userId of the {@code LoginInfo} object
@@ -65,7 +110,7 @@ public class LoginInfo {
 
     /**
      * Logic to check if two {@code LoginInfo} objects are the same. First checks if the argument passed in is of
-     * {@code LoginInfo} type and if it is, check whether the userId, password and {@code AccountType} of both
+     * {@code LoginInfo} type and if it is, check whether the userId, password, salt, cost and {@code AccountType} of both
      * the {@code LoginInfo} objects are the same. Returns true if they are the same, false otherwise.
      * @return A boolean value with true representing that the two {@code LoginInfo} objects are the same; false otherwise.
      * @param obj The Object which will be evaluated.
@@ -78,6 +123,8 @@ public class LoginInfo {
 
             return getUserId().equals(loginInfoObj.getUserId()) &&
                     getPassword().equals(loginInfoObj.getPassword()) &&
+                    Objects.equals(getSalt(), loginInfoObj.getSalt()) &&
+                    getCost() == loginInfoObj.getCost() &&
                     getAccountType().equals(loginInfoObj.getAccountType());
         }
 
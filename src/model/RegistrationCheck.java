@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * This is one of the enum data types we created - RegistrationCheck
+ * The pre-defined group of constants under our RegistrationCheck data type are the outcomes of checking whether a
+ * student may register for an index number, one for every reason the registration can be refused and ALLOWED if it
+ * can go ahead. Checking returns one of these constants instead of throwing an exception, so refused registrations
+ * can be checked without creating anything.
+ * @see TimeTable
+ */
+public enum RegistrationCheck {
+    ALLOWED,
+    COURSE_REGISTERED,
+    MAX_AU_EXCEEDED,
+    COURSE_IN_WAIT_LIST,
+    CLASHING_REGISTERED_INDEX_NUMBER,
+    CLASHING_WAIT_LISTED_INDEX_NUMBER,
+    NO_VACANCY
+}
@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * This class is responsible for modelling a Session which is opened for a user once the login information of the
+ * user has been verified, so that the user can be recognised again by its token alone.
+ */
+public class Session {
+    /**
+     * A String declared as token representing the random token that identifies the session.
+     */
+    private String token;
+
+    /**
+     * A String declared as userId representing the user id of the user the session belongs to.
+     */
+    private String userId;
+
+    /**
+     * An {@code AccountType} variable declared as accountType representing the type of account of the user the
+     * session belongs to.
+     * @see AccountType
+     */
+    private AccountType accountType;
+
+    /**
+     * The time in milliseconds after which the session is no longer valid, which is moved forward every time the
+     * session is used.
+     */
+    private volatile long expiresAtMillis;
+
+    /**
+     * A constructor which constructs the Session object.
+     * @param token The random token that identifies the session.
+     * @param userId The user id of the user the session belongs to.
+     * @param accountType The {@code AccountType} of the user the session belongs to.
+     * @param expiresAtMillis The time in milliseconds after which the session is no longer valid.
+     * @see AccountType
+     */
+    public Session(String token, String userId, AccountType accountType, long expiresAtMillis) {
+        this.token = token;
+        this.userId = userId;
+        this.accountType = accountType;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Returns the token that identifies the session.
+     * @return The String representing the token of the {@code Session} object
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the user id of the user the session belongs to.
+     * @return The String representing the userId of the {@code Session} object
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the {@code AccountType} of the user the session belongs to.
+     * @return The {@code AccountType} representing the type of account of the {@code Session} object
+     * @see AccountType
+     */
+    public AccountType getAccountType() {
+        return accountType;
+    }
+
+    /**
+     * Returns the time after which the session is no longer valid.
+     * @return The time in milliseconds
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Sets the time after which the session is no longer valid.
+     * @param expiresAtMillis The time in milliseconds
+     */
+    public void setExpiresAtMillis(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+}
@@ -3,28 +3,63 @@ package model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import exception.CourseRegisteredException;
 import exception.ClashingRegisteredIndexNumberException;
 import exception.MaxAuExceededException;
 import exception.NoVacancyException;
 import exception.NoVacancySwapException;
+import exception.NotRegisteredSwapException;
 import exception.CourseInWaitListException;
 import exception.SameIndexNumberSwapException;
 import exception.ClashingWaitListedIndexNumberException;
 import exception.PeerClashingRegisteredIndexNumberException;
 import exception.PeerClashingWaitListedIndexNumberException;
+import exception.InvalidNewMaxException;
 
 /**
  * This class is responsible for storing and retrieving all the {@code Student} objects and {@code Course} objects in the program.
  */
 public class Storage implements Serializable {
     /**
-     * A HashMap with the key being the String representation of the user id of a {@code Student} object and the value is
-     * the {@code Student} object.
+     * A ConcurrentHashMap with the key being the String representation of the user id of a {@code Student} object and
+     * the value is the {@code Student} object. Students that the studentLoader has not read yet are not in here.
      * @see Student
      */
-    private HashMap<String, Student> students;
+    private ConcurrentHashMap<String, Student> students;
+
+    /**
+     * The {@code IStudentLoader} that reads students that are not in memory yet the first time they are asked for, or
+     * null if all the students are always in memory.
+     * @see IStudentLoader
+     */
+    private transient IStudentLoader studentLoader;
+
+    /**
+     * Whether the studentLoader has read all of its students.
+     */
+    private transient volatile boolean allStudentsLoaded;
+
+    /**
+     * The students and courses that have changed since the changes were last taken.
+     * @see ChangeSet
+     */
+    private transient ChangeSet changes;
+
+    /**
+     * The index of the access periods of all the students, which is built the first time it is asked for and kept up
+     * to date afterwards, or null if it has not been asked for yet.
+     * @see AccessTimeIndex
+     */
+    private transient AccessTimeIndex accessTimeIndex;
+
+    /**
+     * The matrix of the index numbers of all the courses that clash with each other, which is built the first time it
+     * is asked for and kept up to date afterwards, or null if it has not been asked for yet.
+     * @see ClashMatrix
+     */
+    private transient ClashMatrix clashMatrix;
 
     /**
      * A HashMap with the key being the String representation of the course code of a {@code Course} object and the value is
@@ -33,21 +68,45 @@ public class Storage implements Serializable {
      */
     private HashMap<String, Course> courses;
 
+    /**
+     * The record id that will be given to the next {@code Student} object added that does not have one yet.
+     */
+    private int nextStudentRecordId;
+
+    /**
+     * The record id that will be given to the next {@code IndexNumber} object added that does not have one yet.
+     */
+    private int nextIndexNumberRecordId;
+
     /**
      * Constructs a new Storage object.
      */
     public Storage() {
-        students = new HashMap<>();
+        students = new ConcurrentHashMap<>();
         courses = new HashMap<>();
+        nextStudentRecordId = 1;
+        nextIndexNumberRecordId = 1;
+        changes = new ChangeSet();
     }
 
     /**
-     * Add a new {@code Student} object.
+     * Add a new {@code Student} object. The student is given the next record id if it does not have one yet.
      * @param student The new {@code Student} object to be added.
      * @see Student
      */
     public void addStudent(Student student) {
-        students.put(student.getUserId(), student);
+        if (student.getRecordId() == 0) {
+            student.setRecordId(nextStudentRecordId);
+        }
+        nextStudentRecordId = Math.max(nextStudentRecordId, student.getRecordId() + 1);
+        Student replacedStudent = students.put(student.getUserId(), student);
+        changes.studentChanged(student.getUserId());
+        if (accessTimeIndex != null) {
+            if (replacedStudent != null) {
+                accessTimeIndex.remove(replacedStudent.getAccessTime());
+            }
+            accessTimeIndex.add(student.getAccessTime());
+        }
     }
 
     /**
@@ -56,7 +115,57 @@ public class Storage implements Serializable {
      * @return {@code Student} object with the userId specified.
      */
     public Student getStudent(String userId) {
-        return students.get(userId);
+        Student student = students.get(userId);
+        if (student == null && studentLoader != null && !allStudentsLoaded) {
+            student = loadStudent(userId);
+        }
+        return student;
+    }
+
+    /**
+     * Reads a student through the studentLoader and keeps it, unless another thread has read it in the meantime, so
+     * that there is only ever one {@code Student} object for each user id.
+     * @param userId The user id of the {@code Student} object to be read.
+     * @return {@code Student} object with the userId specified, or null if there is no such student.
+     */
+    private synchronized Student loadStudent(String userId) {
+        Student student = students.get(userId);
+        if (student == null) {
+            student = studentLoader.loadStudent(userId);
+            if (student != null) {
+                students.put(userId, student);
+            }
+        }
+        return student;
+    }
+
+    /**
+     * Sets the {@code IStudentLoader} that reads students that are not in memory yet the first time they are asked for.
+     * Students added afterwards are given record ids after those of the students it can read.
+     * @param studentLoader The {@code IStudentLoader} object.
+     * @see IStudentLoader
+     */
+    public void setStudentLoader(IStudentLoader studentLoader) {
+        this.studentLoader = studentLoader;
+        nextStudentRecordId = Math.max(nextStudentRecordId, studentLoader.getNextRecordId());
+    }
+
+    /**
+     * Returns the {@code IStudentLoader} that reads students that are not in memory yet.
+     * @return The {@code IStudentLoader} object, or null if all the students are always in memory.
+     * @see IStudentLoader
+     */
+    public IStudentLoader getStudentLoader() {
+        return studentLoader;
+    }
+
+    /**
+     * Retrieves the students that are in memory, without reading the students that have not been asked for yet.
+     * @return An ArrayList of {@code Student} containing the students that are in memory.
+     * @see Student
+     */
+    public ArrayList<Student> getLoadedStudents() {
+        return new ArrayList<>(students.values());
     }
 
     /**
@@ -65,7 +174,16 @@ public class Storage implements Serializable {
      * @see Course
      */
     public void addCourse(Course course) {
+        if (course.getIndexNumbers() != null) {
+            for (IndexNumber indexNumber: course.getIndexNumbers()) {
+                assignRecordId(indexNumber);
+                if (clashMatrix != null) {
+                    clashMatrix.add(indexNumber);
+                }
+            }
+        }
         courses.put(course.getCourseCode(), course);
+        changes.courseChanged(course.getCourseCode());
     }
 
     /**
@@ -74,7 +192,9 @@ public class Storage implements Serializable {
      * @see Course
      */
     public void removeCourse(Course course) {
-        courses.remove(course.getCourseCode(), course);
+        if (courses.remove(course.getCourseCode(), course)) {
+            changes.courseRemoved(course.getCourseCode());
+        }
     }
 
     /**
@@ -84,7 +204,23 @@ public class Storage implements Serializable {
      * @see IndexNumber
      */
     public void addIndexNumber(IndexNumber indexNumber, String courseCode) {
+        assignRecordId(indexNumber);
+        if (clashMatrix != null) {
+            clashMatrix.add(indexNumber);
+        }
         getCourse(courseCode).addIndexNumber(indexNumber);
+        changes.courseChanged(courseCode);
+    }
+
+    /**
+     * Gives an {@code IndexNumber} object the next record id if it does not have one yet.
+     * @param indexNumber The {@code IndexNumber} object being added.
+     */
+    private void assignRecordId(IndexNumber indexNumber) {
+        if (indexNumber.getRecordId() == 0) {
+            indexNumber.setRecordId(nextIndexNumberRecordId);
+        }
+        nextIndexNumberRecordId = Math.max(nextIndexNumberRecordId, indexNumber.getRecordId() + 1);
     }
 
     /**
@@ -96,13 +232,165 @@ public class Storage implements Serializable {
         return courses.get(courseCode);
     }
 
+    /**
+     * Returns the {@code IndexNumber} object with a particular id in a course.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumberId The id of the index number to be retrieved.
+     * @return The {@code IndexNumber} object with the specified id, or null if the course does not have such an index
+     * number.
+     * @see IndexNumber
+     */
+    public IndexNumber getIndexNumber(String courseCode, int indexNumberId) {
+        for (IndexNumber indexNumber: getCourse(courseCode).getIndexNumbers()) {
+            if (indexNumber.getId() == indexNumberId) {
+                return indexNumber;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Set a new course code for an existing course by replacing it with a copy of the course under the new course code.
+     * The index numbers are moved to the copy, so that they keep its numbers of students and vacancies up to date.
+     * @param newCourseCode The new course code for the existing course.
+     * @param forCourseCode The course code of the existing course.
+     */
+    public void setCourseCode(String newCourseCode, String forCourseCode) {
+        Course oldCourse = getCourse(forCourseCode);
+        Course updatedCourse = new Course(oldCourse.getCourseName(), newCourseCode, oldCourse.getSchool(), oldCourse.getAu());
+        for (IndexNumber indexNumber: oldCourse.getIndexNumbers()) {
+            indexNumber.setCourse(updatedCourse);
+        }
+        updatedCourse.setIndexNumbers(oldCourse.getIndexNumbers());
+
+        removeCourse(oldCourse);
+        addCourse(updatedCourse);
+    }
+
     /**
      * Set a new access time for a particular student.
      * @param userId The user id of the student for which the new access time is to be set for.
      * @param accessTime The new {@code AccessTime} object containing the new access time for the student.
      */
     public void setAccessTime(String userId, AccessTime accessTime) {
-        getStudent(userId).setAccessTime(accessTime);
+        changes.studentChanged(userId);
+        Student student = getStudent(userId);
+        if (accessTimeIndex != null) {
+            accessTimeIndex.remove(student.getAccessTime());
+            accessTimeIndex.add(accessTime);
+        }
+        student.setAccessTime(accessTime);
+    }
+
+    /**
+     * Returns the matrix of the index numbers of all the courses that clash with each other. The first time it is
+     * asked for, it is built in parallel from all the index numbers; afterwards it is kept up to date as courses and
+     * index numbers are added.
+     * @return The {@code ClashMatrix} object.
+     * @see ClashMatrix
+     */
+    public ClashMatrix getClashMatrix() {
+        if (clashMatrix == null) {
+            ArrayList<IndexNumber> indexNumbers = new ArrayList<>();
+            for (Course course: courses.values()) {
+                if (course.getIndexNumbers() != null) {
+                    indexNumbers.addAll(course.getIndexNumbers());
+                }
+            }
+            clashMatrix = new ClashMatrix(indexNumbers);
+        }
+        return clashMatrix;
+    }
+
+    /**
+     * Returns the index of the access periods of all the students. The first time it is asked for, all the students
+     * are read to build it; afterwards it is kept up to date as students are added and their access periods are set.
+     * @return The {@code AccessTimeIndex} object.
+     * @see AccessTimeIndex
+     */
+    public AccessTimeIndex getAccessTimeIndex() {
+        if (accessTimeIndex == null) {
+            ArrayList<AccessTime> accessTimes = new ArrayList<>();
+            for (Student student: getAllStudents()) {
+                accessTimes.add(student.getAccessTime());
+            }
+            accessTimeIndex = new AccessTimeIndex(accessTimes);
+        }
+        return accessTimeIndex;
+    }
+
+    /**
+     * Set a new course name for an existing course.
+     * @param courseCode The course code of the existing course.
+     * @param courseName The new course name for the existing course.
+     */
+    public void setCourseName(String courseCode, String courseName) {
+        changes.courseChanged(courseCode);
+        getCourse(courseCode).setCourseName(courseName);
+    }
+
+    /**
+     * Set a new school for an existing course.
+     * @param courseCode The course code of the existing course.
+     * @param school The new {@code School} for the existing course.
+     */
+    public void setSchool(String courseCode, School school) {
+        changes.courseChanged(courseCode);
+        getCourse(courseCode).setSchool(school);
+    }
+
+    /**
+     * Set a new maximum vacancy for an existing index number.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param index The position of the index number among the index numbers of the course.
+     * @param maxVacancy The new maximum vacancy of the index number.
+     * @throws InvalidNewMaxException if the new maximum vacancy is less than the number of students registered for the
+     * index number.
+     */
+    public void setMaxVacancy(String courseCode, int index, int maxVacancy) throws InvalidNewMaxException {
+        changes.courseChanged(courseCode);
+        getCourse(courseCode).getIndexNumbers().get(index).setMaxVacancy(maxVacancy);
+    }
+
+    /**
+     * Links a student to an index number directly, without the checks of registering for a course or adding a course
+     * to the wait list. This is only meant for restoring enrolments that have already been checked.
+     * @param userId The user id of the student.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumber The {@code IndexNumber} object the student is enrolled in.
+     * @param waitListed true if the student is in the wait list of the index number; false if the student is registered.
+     */
+    public void enrol(String userId, String courseCode, IndexNumber indexNumber, boolean waitListed) {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCode);
+        Student student = getStudent(userId);
+        if (waitListed) {
+            indexNumber.addStudentToWaitList(student);
+        } else {
+            indexNumber.registerStudent(student);
+        }
+        student.enrol(courseCode, indexNumber, waitListed);
+    }
+
+    /**
+     * Returns the students and courses that have changed since this method was last called, and starts recording
+     * changes afresh.
+     * @return The {@code ChangeSet} object of the changes.
+     * @see ChangeSet
+     */
+    public ChangeSet takeChanges() {
+        ChangeSet takenChanges = changes;
+        changes = new ChangeSet();
+        return takenChanges;
+    }
+
+    /**
+     * Records changes that were taken with {@link #takeChanges()} again, e.g. because saving them failed.
+     * @param takenChanges The {@code ChangeSet} object of the changes.
+     */
+    public void restoreChanges(ChangeSet takenChanges) {
+        changes.addAll(takenChanges);
     }
 
     /**
@@ -123,6 +411,8 @@ public class Storage implements Serializable {
     public void registerForCourse(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded)
             throws CourseRegisteredException, ClashingRegisteredIndexNumberException, NoVacancyException,
             CourseInWaitListException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCodeToBeAdded);
         Student student = getStudent(userId);
         student.registerForCourse(courseCodeToBeAdded, indexNumberToBeAdded);
     }
@@ -139,9 +429,13 @@ public class Storage implements Serializable {
      * @throws SameIndexNumberSwapException if the new index number is the same as current index number of the student.
      * @throws ClashingWaitListedIndexNumberException if the new index number to be swapped clashes with an index number
      * that is in the wait list of the student.
+     * @throws NotRegisteredSwapException if the student is no longer registered for the course.
      */
     public void swapIndexNumber(String userId, String courseCodeToBeSwapped, IndexNumber newIndexNumber)
-            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException, ClashingWaitListedIndexNumberException {
+            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException,
+            ClashingWaitListedIndexNumberException, NotRegisteredSwapException {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCodeToBeSwapped);
         Student student = getStudent(userId);
         student.swapIndexNumber(courseCodeToBeSwapped, newIndexNumber);
     }
@@ -160,11 +454,15 @@ public class Storage implements Serializable {
      * the student's registered list.
      * @throws PeerClashingWaitListedIndexNumberException if the student's index number clashes with an index number
      * that is in the peer's wait list.
+     * @throws NotRegisteredSwapException if the student or the peer is no longer registered for the course.
      */
     public void swapIndexWithPeer(String userId, String peerUserId, String courseCodeToBeSwapped)
             throws PeerClashingWaitListedIndexNumberException, SameIndexNumberSwapException,
             ClashingWaitListedIndexNumberException, ClashingRegisteredIndexNumberException,
-            PeerClashingRegisteredIndexNumberException {
+            PeerClashingRegisteredIndexNumberException, NotRegisteredSwapException {
+        changes.studentChanged(userId);
+        changes.studentChanged(peerUserId);
+        changes.courseChanged(courseCodeToBeSwapped);
         Student student = getStudent(userId);
         Student peer = getStudent(peerUserId);
         student.swapIndexNumberWithPeer(courseCodeToBeSwapped, peer);
@@ -177,6 +475,8 @@ public class Storage implements Serializable {
      * @param indexNumberToBeDropped The {@code IndexNumber} object for which it will be dropped from the wait list.
      */
     public void dropCourseFromWaitList(String userId, String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped) {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCodeToBeDropped);
         Student student = getStudent(userId);
         student.dropCourseFromWaitList(courseCodeToBeDropped, indexNumberToBeDropped);
     }
@@ -192,6 +492,12 @@ public class Storage implements Serializable {
     public void dropCourseAndRegisterNextStudentInWaitList(String userId, String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped)
             throws CourseInWaitListException, ClashingRegisteredIndexNumberException,
             CourseRegisteredException, NoVacancyException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCodeToBeDropped);
+        Student nextStudentInWaitList = indexNumberToBeDropped.getWaitListStudents().peek();
+        if (nextStudentInWaitList != null) {
+            changes.studentChanged(nextStudentInWaitList.getUserId());
+        }
         Student student = getStudent(userId);
         student.dropCourseAndRegisterNextStudentInWaitList(getCourse(courseCodeToBeDropped), indexNumberToBeDropped);
     }
@@ -206,6 +512,8 @@ public class Storage implements Serializable {
      * @see IndexNumber
      */
     public void addCourseToWaitList(String userId, String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
+        changes.studentChanged(userId);
+        changes.courseChanged(courseCodeToBeAdded);
         Student student = getStudent(userId);
         student.addCourseToWaitList(courseCodeToBeAdded, indexNumberToBeAdded);
     }
@@ -225,11 +533,18 @@ public class Storage implements Serializable {
     }
 
     /**
-     * Retrieves all students in Storage object maintained.
+     * Retrieves all students in Storage object maintained, reading all the students that have not been asked for yet.
      * @return An ArrayList of {@code Student} containing all the students in the Storage object.
      * @see Student
      */
     public ArrayList<Student> getAllStudents() {
+        if (studentLoader != null && !allStudentsLoaded) {
+            for (String userId: studentLoader.getUserIds()) {
+                getStudent(userId);
+            }
+            allStudentsLoaded = true;
+        }
+
         ArrayList<Student> studentsArrayList = new ArrayList<>();
         for (Student student: students.values()) {
             studentsArrayList.add(student);
@@ -0,0 +1,156 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * This class is responsible for checking that the students, courses and index numbers in a {@code Storage} agree with
+ * each other. The AUs of every {@code TimeTable} and the numbers of students and vacancies of every {@code Course} are
+ * kept up to date as students register, drop, swap and move off wait lists instead of being counted every time, so
+ * they are counted again from scratch here and compared, as are the seats taken in every {@code IndexNumber}. The
+ * enrolments are also checked from both sides: every index number a student is enrolled in must list the student, and
+ * every student an index number lists must be enrolled in it.
+ * @see Storage
+ */
+public class StorageInvariantChecker {
+    /**
+     * The problems found so far.
+     */
+    private ArrayList<String> violations;
+
+    /**
+     * Checks all the students and courses in a storage. All the students are read if they have not been read yet.
+     * @param storage The {@code Storage} to check.
+     * @return An ArrayList of descriptions of the problems found, which is empty if there are none.
+     */
+    public ArrayList<String> check(Storage storage) {
+        violations = new ArrayList<>();
+        for (Student student: storage.getAllStudents()) {
+            checkStudent(student);
+        }
+        for (Course course: storage.getAllCourses()) {
+            checkCourse(course);
+        }
+        return violations;
+    }
+
+    /**
+     * Checks the AUs and the enrolments of a student.
+     * @param student The {@code Student} to check.
+     */
+    private void checkStudent(Student student) {
+        TimeTable timeTable = student.getTimeTable();
+        String name = "Student " + student.getUserId();
+
+        int registeredAu = timeTable.getRegisteredAu();
+        int countedRegisteredAu = timeTable.countRegisteredAu();
+        if (registeredAu != countedRegisteredAu) {
+            violations.add(name + ": registered AUs are " + registeredAu + " but the registered courses add up to "
+                    + countedRegisteredAu);
+        }
+        int waitListAu = timeTable.getWaitListAu();
+        int countedWaitListAu = timeTable.countWaitListAu();
+        if (waitListAu != countedWaitListAu) {
+            violations.add(name + ": wait list AUs are " + waitListAu + " but the wait listed courses add up to "
+                    + countedWaitListAu);
+        }
+        if (countedRegisteredAu + countedWaitListAu > Student.maxAu) {
+            violations.add(name + ": " + (countedRegisteredAu + countedWaitListAu)
+                    + " AUs registered and wait listed, more than the maximum of " + Student.maxAu);
+        }
+
+        for (Map.Entry<String, IndexNumber> entry: timeTable.getRegisteredIndexNumbers().entrySet()) {
+            IndexNumber indexNumber = entry.getValue();
+            checkCourseCode(name, entry.getKey(), indexNumber);
+            if (!indexNumber.getRegisteredStudents().contains(student)) {
+                violations.add(name + ": registered for index " + indexNumber.getId() + " of " + entry.getKey()
+                        + " but not in its registered students");
+            }
+            if (timeTable.getWaitListIndexNumbers().containsKey(entry.getKey())) {
+                violations.add(name + ": both registered and wait listed for " + entry.getKey());
+            }
+        }
+        for (Map.Entry<String, IndexNumber> entry: timeTable.getWaitListIndexNumbers().entrySet()) {
+            IndexNumber indexNumber = entry.getValue();
+            checkCourseCode(name, entry.getKey(), indexNumber);
+            if (!indexNumber.getWaitListStudents().contains(student)) {
+                violations.add(name + ": wait listed for index " + indexNumber.getId() + " of " + entry.getKey()
+                        + " but not in its wait list");
+            }
+        }
+    }
+
+    /**
+     * Checks that an index number is kept under the course code of its course.
+     * @param name The name of the student being checked.
+     * @param courseCode The course code the index number is kept under.
+     * @param indexNumber The {@code IndexNumber} object.
+     */
+    private void checkCourseCode(String name, String courseCode, IndexNumber indexNumber) {
+        if (!indexNumber.getCourse().getCourseCode().equals(courseCode)) {
+            violations.add(name + ": index " + indexNumber.getId() + " of " + indexNumber.getCourse().getCourseCode()
+                    + " is kept under " + courseCode);
+        }
+    }
+
+    /**
+     * Checks the numbers of students and vacancies of a course and the students of its index numbers.
+     * @param course The {@code Course} to check.
+     */
+    private void checkCourse(Course course) {
+        String name = "Course " + course.getCourseCode();
+
+        int[] counts = course.countStudentsFromIndexNumbers();
+        if (course.getNumberOfRegisteredStudents() != counts[0]) {
+            violations.add(name + ": " + course.getNumberOfRegisteredStudents()
+                    + " registered students but the index numbers have " + counts[0]);
+        }
+        if (course.getNumberOfWaitListStudents() != counts[1]) {
+            violations.add(name + ": " + course.getNumberOfWaitListStudents()
+                    + " wait listed students but the index numbers have " + counts[1]);
+        }
+        if (course.getAvailableVacancy() != counts[2] - counts[0]) {
+            violations.add(name + ": " + course.getAvailableVacancy()
+                    + " vacancies but the index numbers have " + (counts[2] - counts[0]));
+        }
+        if (course.getIndexNumbers() == null) {
+            return;
+        }
+
+        for (IndexNumber indexNumber: course.getIndexNumbers()) {
+            String indexName = name + " index " + indexNumber.getId();
+            if (indexNumber.getCourse() != course) {
+                violations.add(indexName + ": belongs to " + indexNumber.getCourse().getCourseCode());
+            }
+            if (indexNumber.getNumberOfSeatsTaken() != indexNumber.getNumberOfRegisteredStudents()) {
+                violations.add(indexName + ": " + indexNumber.getNumberOfSeatsTaken() + " seats taken but "
+                        + indexNumber.getNumberOfRegisteredStudents() + " registered students");
+            }
+            if (indexNumber.getAvailableVacancy() < 0) {
+                violations.add(indexName + ": " + indexNumber.getNumberOfRegisteredStudents()
+                        + " registered students, more than the maximum vacancy of " + indexNumber.getMaxVacancy());
+            }
+            HashSet<Student> seen = new HashSet<>();
+            for (Student student: indexNumber.getRegisteredStudents()) {
+                if (!seen.add(student)) {
+                    violations.add(indexName + ": " + student.getUserId() + " is registered more than once");
+                }
+                if (student.getRegisteredIndexNumbers().get(course.getCourseCode()) != indexNumber) {
+                    violations.add(indexName + ": " + student.getUserId()
+                            + " is in the registered students but not registered for it");
+                }
+            }
+            seen.clear();
+            for (Student student: indexNumber.getWaitListStudents()) {
+                if (!seen.add(student)) {
+                    violations.add(indexName + ": " + student.getUserId() + " is in the wait list more than once");
+                }
+                if (student.getWaitListIndexNumbers().get(course.getCourseCode()) != indexNumber) {
+                    violations.add(indexName + ": " + student.getUserId()
+                            + " is in the wait list but not wait listed for it");
+                }
+            }
+        }
+    }
+}
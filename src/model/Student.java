@@ -10,6 +10,7 @@ import exception.ClashingRegisteredIndexNumberException;
 import exception.MaxAuExceededException;
 import exception.NoVacancyException;
 import exception.NoVacancySwapException;
+import exception.NotRegisteredSwapException;
 import exception.CourseInWaitListException;
 import exception.SameIndexNumberSwapException;
 import exception.ClashingWaitListedIndexNumberException;
@@ -28,6 +29,13 @@ public class Student implements Serializable {
      */
     public static int maxAu = 21;
 
+    /**
+     * An integer declared as recordId representing the stable number that identifies the {@code Student} object
+     * inside {@code Storage}, or 0 if it has not been added to {@code Storage} yet
+     * @see Storage
+     */
+    private int recordId;
+
     /**
      * An String variable declared as name representing the name of the {@code Student} object
      */
@@ -109,6 +117,24 @@ public class Student implements Serializable {
         preferredNotification = EmailNotification.getInstance();
     }
 
+    /**
+     * Returns the stable number that identifies the {@code Student} object inside {@code Storage}
+     * @return The integer representing the record id of the {@code Student} object, or 0 if it has not been added to
+     * {@code Storage} yet
+     */
+    public int getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Sets the stable number that identifies the {@code Student} object inside {@code Storage}. This is only meant to
+     * be called by {@code Storage} and when restoring a saved {@code Storage} object
+     * @param recordId The record id of the {@code Student} object
+     */
+    public void setRecordId(int recordId) {
+        this.recordId = recordId;
+    }
+
     /**
      * Returns the matric number of the {@code Student} object
      * @return The String representing the matric number of the {@code Student} object
@@ -117,6 +143,31 @@ public class Student implements Serializable {
         return matricNumber;
     }
 
+    /**
+     * Returns the nationality of the {@code Student} object
+     * @return The String representing the nationality of the {@code Student} object
+     */
+    public String getNationality() {
+        return nationality;
+    }
+
+    /**
+     * Returns the email address of the {@code Student} object
+     * @return The String representing the email address of the {@code Student} object
+     */
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    /**
+     * Returns the {@code Gender} of the {@code Student} object
+     * @return The {@code Gender} representing the gender of the {@code Student} object
+     * @see Gender
+     */
+    public Gender getGender() {
+        return gender;
+    }
+
     /**
      * Returns the user id of the {@code Student} object
      * @return The String representing the userId of the {@code Student} object
@@ -189,7 +240,9 @@ public class Student implements Serializable {
 
     /**
      * Returns the HashMap with the key being a String corresponding to a course code and the value is a {@code IndexNumber}
-     * object in which the student is registered for that {@code IndexNumber} object for that course code
+     * object in which the student is registered for that {@code IndexNumber} object for that course code. The
+     * HashMap is not a copy and is changed by other sessions under the lock of the student, so sessions read a copy
+     * from {@code IStorageManager#getIndexNumbersTakenByStudent} instead
      * @return A HashMap, with the key being a String corresponding to a course code and the value is a {@code IndexNumber}
      * object in which the student is registered in that {@code IndexNumber} object for that course code
      * @see IndexNumber
@@ -201,7 +254,8 @@ public class Student implements Serializable {
 
     /**
      * Returns the HashMap with the key being a String corresponding to a course code and the value is a {@code IndexNumber}
-     * object in which the student is in the wait list for that {@code IndexNumber} object for that course code
+     * object in which the student is in the wait list for that {@code IndexNumber} object for that course code. In
+     * the same way, sessions read a copy from {@code IStorageManager#getIndexNumbersInWaitListByStudent} instead
      * @return A HashMap, with the key being a String corresponding to a course code and the value is a {@code IndexNumber}
      * object in which the student is in the wait list for that {@code IndexNumber} object for that course code
      * IndexNumbers on wait list of the student's timetable
@@ -237,6 +291,31 @@ public class Student implements Serializable {
         return timeTable.getTotalAuInRegisteredAndWaitList();
     }
 
+    /**
+     * Checks whether the {@code Student} may register for a course without registering or throwing an exception
+     * @param courseCodeToBeAdded The String representing the course code of the course to be added
+     * @param indexNumberToBeAdded The {@code IndexNumber} of the course to be added
+     * @return The {@code RegistrationCheck} that is ALLOWED if the student may register, or the reason why not
+     * @see RegistrationCheck
+     * @see TimeTable
+     */
+    public RegistrationCheck checkRegistration(String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
+        return timeTable.checkRegistration(courseCodeToBeAdded, indexNumberToBeAdded);
+    }
+
+    /**
+     * Puts an index number into the {@code TimeTable} of the student directly, without the checks of registering for
+     * a course or adding a course to the wait list and without changing the index number. This is only meant for
+     * restoring enrolments that have already been checked.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumber The {@code IndexNumber} object the student is enrolled in.
+     * @param waitListed true if the student is in the wait list of the index number; false if the student is registered.
+     * @see TimeTable
+     */
+    public void enrol(String courseCode, IndexNumber indexNumber, boolean waitListed) {
+        timeTable.enrol(courseCode, indexNumber, waitListed);
+    }
+
     /**
      * Registers a course for the {@code Student} and updating the {@code TimeTable}
      * @param courseCodeToBeAdded The String representing the course code of the course to be added
@@ -272,13 +351,14 @@ public class Student implements Serializable {
      * the student's registered list.
      * @throws PeerClashingWaitListedIndexNumberException if the student's index number clashes with an index number
      * that is in the peer's wait list.
+     * @throws NotRegisteredSwapException if the student or the peer is no longer registered for the course.
      * @see Student
      * @see TimeTable
      */
     public void swapIndexNumberWithPeer(String courseCodeToBeSwapped, Student peer)
             throws ClashingRegisteredIndexNumberException, SameIndexNumberSwapException,
             ClashingWaitListedIndexNumberException, PeerClashingRegisteredIndexNumberException,
-            PeerClashingWaitListedIndexNumberException {
+            PeerClashingWaitListedIndexNumberException, NotRegisteredSwapException {
         timeTable.swapIndexNumberWithPeer(courseCodeToBeSwapped, peer);
     }
 
@@ -293,11 +373,13 @@ public class Student implements Serializable {
      * wait listed index numbers
      * @throws NoVacancySwapException if there are no more vacancies in the new index number to be swapped to
      * @throws SameIndexNumberSwapException if the pair of index numbers are the same
+     * @throws NotRegisteredSwapException if the student is no longer registered for the course
      * @see IndexNumber
      * @see TimeTable
      */
     public void swapIndexNumber(String courseCodeToBeSwapped, IndexNumber newIndexNumber)
-            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException, ClashingWaitListedIndexNumberException {
+            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException,
+            ClashingWaitListedIndexNumberException, NotRegisteredSwapException {
         timeTable.swapIndexNumber(courseCodeToBeSwapped, newIndexNumber);
     }
 
@@ -340,6 +422,15 @@ public class Student implements Serializable {
         timeTable.dropCourseAndRegisterNextStudentInWaitList(course, indexNumberToBeDropped);
     }
 
+    /**
+     * Returns whether messages sent to the {@code Student} are actually delivered, so that messages do not have to be
+     * put together when they would be dropped anyway.
+     * @return true if notifications are delivered; false otherwise.
+     */
+    protected boolean isNotificationEnabled() {
+        return preferredNotification.isEnabled();
+    }
+
     /**
      * Sends an email containing a message to the email address of the {@code Student}
      * @param messageToSend The String which is the message to be sent to the student.
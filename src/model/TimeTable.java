@@ -3,6 +3,7 @@ package model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 import errormessage.ErrorMessage;
 import exception.CourseRegisteredException;
@@ -12,6 +13,7 @@ import exception.ClashingRegisteredIndexNumberException;
 import exception.MaxAuExceededException;
 import exception.NoVacancyException;
 import exception.NoVacancySwapException;
+import exception.NotRegisteredSwapException;
 import exception.SameIndexNumberSwapException;
 import exception.PeerClashingWaitListedIndexNumberException;
 import exception.PeerClashingRegisteredIndexNumberException;
@@ -43,6 +45,36 @@ public class TimeTable implements Serializable {
      */
     private HashMap<String, IndexNumber> waitListIndexNumbers;
 
+    /**
+     * The times of the week taken up by all the registered index numbers, or null if they have to be worked out again.
+     * @see WeeklyOccupancy
+     */
+    private transient WeeklyOccupancy registeredOccupancy;
+
+    /**
+     * The times of the week taken up by all the wait listed index numbers, or null if they have to be worked out
+     * again.
+     * @see WeeklyOccupancy
+     */
+    private transient WeeklyOccupancy waitListOccupancy;
+
+    /**
+     * Whether registeredAu and waitListAu hold the AUs of the index numbers, which is not the case after the
+     * {@code TimeTable} has been read from an old snapshot until they are first counted.
+     */
+    private transient boolean ausCounted;
+
+    /**
+     * The total AUs of the registered index numbers, kept up to date on every registration and drop.
+     */
+    private transient int registeredAu;
+
+    /**
+     * The total AUs of the wait listed index numbers, kept up to date on every addition to and removal from the wait
+     * list.
+     */
+    private transient int waitListAu;
+
     /**
      * A constructor which constructs the Timetable object.
      * @param student The {@code Student} object which this {@code TimeTable} is associated to.
@@ -52,6 +84,7 @@ public class TimeTable implements Serializable {
         this.student = student;
         registeredIndexNumbers = new HashMap<>();
         waitListIndexNumbers = new HashMap<>();
+        ausCounted = true;
     }
 
     /**
@@ -63,7 +96,9 @@ public class TimeTable implements Serializable {
     }
 
     /**
-     * Returns the HashMap of the registered index numbers.
+     * Returns the HashMap of the registered index numbers. The HashMap must not be changed by the caller, since the
+     * AUs and the times of the week taken up by the registered index numbers are kept up to date only by the methods of
+     * the {@code TimeTable}; use {@link #enrol(String, IndexNumber, boolean)} instead.
      * @return A HashMap object containing all the registered {@code IndexNumber} objects.
      * @see IndexNumber
      */
@@ -80,7 +115,8 @@ public class TimeTable implements Serializable {
     }
 
     /**
-     * Returns the HashMap of the wait listed index numbers.
+     * Returns the HashMap of the wait listed index numbers. The HashMap must not be changed by the caller, in the same
+     * way as {@link #getRegisteredIndexNumbers()}.
      * @return A Hashmap object containing all the wait listed {@code IndexNumber} objects.
      */
     public HashMap<String, IndexNumber> getWaitListIndexNumbers() {
@@ -88,29 +124,66 @@ public class TimeTable implements Serializable {
     }
 
     /**
-     * Counts the number of AU that the student associated to this timetable have been registered for.
+     * Returns the number of AU that the student associated to this timetable have been registered for, which is kept
+     * up to date instead of being counted on every call.
      * @return the total AU that have been registered by the student associated to this timetable.
      */
     public int getRegisteredAu() {
-        int registeredAu = 0;
-        for (IndexNumber indexNumber: registeredIndexNumbers.values()) {
-            registeredAu += indexNumber.getCourse().getAu();
-        }
+        countAus();
         return registeredAu;
     }
 
     /**
-     * Counts the number of AU that the student associated to this timetable have been waitlisted for.
+     * Returns the number of AU that the student associated to this timetable have been waitlisted for, which is kept
+     * up to date instead of being counted on every call.
      * @return the total AU that have been waitlisted by the student associated to this timetable.
      */
     public int getWaitListAu() {
-        int waitListAu = 0;
-        for (IndexNumber indexNumber: waitListIndexNumbers.values()) {
-            waitListAu += indexNumber.getCourse().getAu();
-        }
+        countAus();
         return waitListAu;
     }
 
+    /**
+     * Counts the AUs of the registered index numbers from scratch, without looking at the AUs kept up to date. This
+     * is used to check that the AUs kept up to date have not drifted.
+     * @return the total AU of the registered index numbers.
+     */
+    int countRegisteredAu() {
+        return countAu(registeredIndexNumbers);
+    }
+
+    /**
+     * Counts the AUs of the wait listed index numbers from scratch, without looking at the AUs kept up to date.
+     * @return the total AU of the wait listed index numbers.
+     */
+    int countWaitListAu() {
+        return countAu(waitListIndexNumbers);
+    }
+
+    /**
+     * Counts the AUs of the index numbers if they have not been counted yet.
+     */
+    private void countAus() {
+        if (!ausCounted) {
+            registeredAu = countRegisteredAu();
+            waitListAu = countWaitListAu();
+            ausCounted = true;
+        }
+    }
+
+    /**
+     * Counts the AUs of a group of index numbers.
+     * @param indexNumbers The group of index numbers.
+     * @return The total AU of the courses of the index numbers.
+     */
+    private static int countAu(HashMap<String, IndexNumber> indexNumbers) {
+        int au = 0;
+        for (IndexNumber indexNumber: indexNumbers.values()) {
+            au += indexNumber.getCourse().getAu();
+        }
+        return au;
+    }
+
     /**
      * Returns the sum of the amount of registered AUs and wait listed AUs
      * @return the total AUs that have been registered and wait listed for.
@@ -164,65 +237,88 @@ public class TimeTable implements Serializable {
             throws CourseRegisteredException, ClashingRegisteredIndexNumberException,
             NoVacancyException, CourseInWaitListException, ClashingWaitListedIndexNumberException,
             MaxAuExceededException {
-        for (String courseCode: getRegisteredCourseCodes()) {
-            if (courseCode.equals(courseCodeToBeAdded)) {
-                throw new CourseRegisteredException();
-            }
-        }
-
-        if (getTotalAuInRegisteredAndWaitList() + indexNumberToBeAdded.getCourse().getAu() > Student.maxAu) {
+        switch (checkRegistration(courseCodeToBeAdded, indexNumberToBeAdded)) {
+        case COURSE_REGISTERED:
+            throw new CourseRegisteredException();
+        case MAX_AU_EXCEEDED:
             throw new MaxAuExceededException();
-        }
-
-        for (String courseCode: getWaitListCourseCodes()) {
-            if (courseCode.equals(courseCodeToBeAdded)) {
-                throw new CourseInWaitListException();
-            }
-        }
-
-        if (!getClashingRegisteredIndexNumbers(indexNumberToBeAdded).isEmpty()) {
+        case COURSE_IN_WAIT_LIST:
+            throw new CourseInWaitListException();
+        case CLASHING_REGISTERED_INDEX_NUMBER:
             throw new ClashingRegisteredIndexNumberException();
-        }
-
-        if (!getClashingWaitListedIndexNumbers(indexNumberToBeAdded).isEmpty()) {
+        case CLASHING_WAIT_LISTED_INDEX_NUMBER:
             throw new ClashingWaitListedIndexNumberException();
+        case NO_VACANCY:
+            throw new NoVacancyException();
+        default:
+            break;
         }
-
-        if (indexNumberToBeAdded.getAvailableVacancy() <= 0) {
+        if (!indexNumberToBeAdded.tryReserveSeat()) {
             throw new NoVacancyException();
         }
 
         addCourse(courseCodeToBeAdded, indexNumberToBeAdded);
 
-        String messageToSend = "You have successfully registered for the course:\n\n"
-                + indexNumberToBeAdded.getCourse().toString() + "\n\n" + indexNumberToBeAdded.getFullDescription();
-        student.notify(messageToSend);
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have successfully registered for the course:\n\n"
+                    + indexNumberToBeAdded.getCourse().toString() + "\n\n" + indexNumberToBeAdded.getFullDescription();
+            student.notify(messageToSend);
+        }
     }
 
     /**
-     * Method that adds the selected course and index number for the student.
-     * @param courseCodeToBeAdded course code of the course to be added.
-     * @param indexNumberToBeAdded {@code IndexNumber} object which is to be added.
+     * Checks whether the student may register for a specific course and index number, in the same order as
+     * {@link #registerForCourse(String, IndexNumber)}, but returns the reason instead of throwing an exception. The
+     * course codes are looked up in the HashMaps and the clashes are checked against the masks kept up to date, so
+     * nothing is created while checking.
+     * @param courseCodeToBeAdded course code of the course to be registered for.
+     * @param indexNumberToBeAdded {@code IndexNumber} object that is to be registered for.
+     * @return The {@code RegistrationCheck} that is ALLOWED if the student may register, or the reason why not.
+     * @see RegistrationCheck
      */
-    private void addCourse(String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
-        registeredIndexNumbers.put(courseCodeToBeAdded, indexNumberToBeAdded);
-        indexNumberToBeAdded.registerStudent(student);
+    public RegistrationCheck checkRegistration(String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
+        if (registeredIndexNumbers.containsKey(courseCodeToBeAdded)) {
+            return RegistrationCheck.COURSE_REGISTERED;
+        }
+        if (getTotalAuInRegisteredAndWaitList() + indexNumberToBeAdded.getCourse().getAu() > Student.maxAu) {
+            return RegistrationCheck.MAX_AU_EXCEEDED;
+        }
+        if (waitListIndexNumbers.containsKey(courseCodeToBeAdded)) {
+            return RegistrationCheck.COURSE_IN_WAIT_LIST;
+        }
+        if (hasClashingRegisteredIndexNumber(indexNumberToBeAdded)) {
+            return RegistrationCheck.CLASHING_REGISTERED_INDEX_NUMBER;
+        }
+        if (hasClashingWaitListedIndexNumber(indexNumberToBeAdded)) {
+            return RegistrationCheck.CLASHING_WAIT_LISTED_INDEX_NUMBER;
+        }
+        if (indexNumberToBeAdded.getAvailableVacancy() <= 0) {
+            return RegistrationCheck.NO_VACANCY;
+        }
+        return RegistrationCheck.ALLOWED;
     }
 
     /**
-     * Method that drops the course and index number for the student.
-     * @param courseCodeToBeDropped course code of the course to be dropped.
-     * @param indexNumberToBeDropped {@code IndexNumber} object which is to be dropped.
+     * Method that adds the selected course and index number for the student, taking up the seat that has been
+     * reserved for the student in the index number.
+     * @param courseCodeToBeAdded course code of the course to be added.
+     * @param indexNumberToBeAdded {@code IndexNumber} object which is to be added.
      */
-    private void dropCourse(String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped) {
-        indexNumberToBeDropped.deregisterStudent(student);
-        registeredIndexNumbers.remove(courseCodeToBeDropped);
+    private void addCourse(String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
+        putRegisteredIndexNumber(courseCodeToBeAdded, indexNumberToBeAdded);
+        indexNumberToBeAdded.registerStudentInReservedSeat(student);
     }
 
     /**
-     * This method performs the swapping of an index number with a peer when all conditions are met.
+     * This method performs the swapping of an index number with a peer when all conditions are met. Every clash is
+     * checked before anything is changed, leaving the index numbers being swapped out of the check without taking
+     * them out of either timetable, so the swap either happens completely or not at all and neither student is ever
+     * seen without the course. Each student then takes the place of the other in the registered students of the index
+     * numbers, so the seats are never free for anyone else in between.
      * @param courseCodeToBeSwapped course code of the course to be swapped with peer.
      * @param peer {@code Student} object that the current user will be swapping index with.
+     * @throws NotRegisteredSwapException if the student or the peer is no longer registered for the course, such as
+     * when one of them has dropped it in another session in the meantime.
      * @throws SameIndexNumberSwapException if the student and the peer has the same index number.
      * @throws ClashingWaitListedIndexNumberException if the peer's index number clashes with an index number that is in
      * the student's wait list.
@@ -236,68 +332,59 @@ public class TimeTable implements Serializable {
     public void swapIndexNumberWithPeer(String courseCodeToBeSwapped, Student peer)
             throws ClashingRegisteredIndexNumberException, SameIndexNumberSwapException,
             ClashingWaitListedIndexNumberException, PeerClashingRegisteredIndexNumberException,
-            PeerClashingWaitListedIndexNumberException {
+            PeerClashingWaitListedIndexNumberException, NotRegisteredSwapException {
+        TimeTable peerTimeTable = peer.getTimeTable();
         IndexNumber myIndexNumber = registeredIndexNumbers.get(courseCodeToBeSwapped);
-        IndexNumber peerIndexNumber = peer.getRegisteredIndexNumbers().get(courseCodeToBeSwapped);
+        IndexNumber peerIndexNumber = peerTimeTable.registeredIndexNumbers.get(courseCodeToBeSwapped);
+        if (myIndexNumber == null || peerIndexNumber == null) {
+            throw new NotRegisteredSwapException();
+        }
 
         if (myIndexNumber == peerIndexNumber) {
             throw new SameIndexNumberSwapException();
         }
 
-        // deregister myself
-        dropCourse(courseCodeToBeSwapped, myIndexNumber);
-        // deregister peer
-        peer.getTimeTable().dropCourse(courseCodeToBeSwapped, peerIndexNumber);
-
-        if (!getClashingRegisteredIndexNumbers(peerIndexNumber).isEmpty()) {
-            // register back myself
-            addCourse(courseCodeToBeSwapped, myIndexNumber);
-            // register back peer
-            peer.getTimeTable().addCourse(courseCodeToBeSwapped, peerIndexNumber);
+        if (hasClashingRegisteredIndexNumber(peerIndexNumber, courseCodeToBeSwapped)) {
             throw new ClashingRegisteredIndexNumberException();
         }
 
-        if (!getClashingWaitListedIndexNumbers(peerIndexNumber).isEmpty()) {
-            // register back myself
-            addCourse(courseCodeToBeSwapped, myIndexNumber);
-            // register back peer
-            peer.getTimeTable().addCourse(courseCodeToBeSwapped, peerIndexNumber);
+        if (hasClashingWaitListedIndexNumber(peerIndexNumber)) {
             throw new ClashingWaitListedIndexNumberException();
         }
 
-        if (!peer.getTimeTable().getClashingRegisteredIndexNumbers(myIndexNumber).isEmpty()) {
-            // register back myself
-            addCourse(courseCodeToBeSwapped, myIndexNumber);
-            // register back peer
-            peer.getTimeTable().addCourse(courseCodeToBeSwapped, peerIndexNumber);
+        if (peerTimeTable.hasClashingRegisteredIndexNumber(myIndexNumber, courseCodeToBeSwapped)) {
             throw new PeerClashingRegisteredIndexNumberException();
         }
 
-        if (!peer.getTimeTable().getClashingWaitListedIndexNumbers(myIndexNumber).isEmpty()) {
-            // register back myself
-            addCourse(courseCodeToBeSwapped, myIndexNumber);
-            // register back peer
-            peer.getTimeTable().addCourse(courseCodeToBeSwapped, peerIndexNumber);
+        if (peerTimeTable.hasClashingWaitListedIndexNumber(myIndexNumber)) {
             throw new PeerClashingWaitListedIndexNumberException();
         }
 
-        addCourse(courseCodeToBeSwapped, peerIndexNumber);
-        peer.getTimeTable().addCourse(courseCodeToBeSwapped, myIndexNumber);
-
-        String messageToSend = "You have successfully swapped index with your peer, " + peer.getName() + ", for the course:\n\n"
-                + myIndexNumber.getCourse().toString() + "\n\n"
-                + "Your old index number was: " + myIndexNumber.getFullDescription() + "\n\n"
-                + "You are now registered for index number: " + peerIndexNumber.getFullDescription();
-        student.notify(messageToSend);
-        String peerMessageToSend = "You have successfully swapped index with your peer, " + student.getName() + ", for the course:\n\n"
-                + myIndexNumber.getCourse().toString() + "\n\n"
-                + "Your old index number was: " + peerIndexNumber.getFullDescription() + "\n\n"
-                + "You are now registered for index number: " + myIndexNumber.getFullDescription();
-        peer.notify(peerMessageToSend);
+        // hand each seat straight to the other student, so neither is ever free for anyone else to take
+        putRegisteredIndexNumber(courseCodeToBeSwapped, peerIndexNumber);
+        peerTimeTable.putRegisteredIndexNumber(courseCodeToBeSwapped, myIndexNumber);
+        myIndexNumber.replaceRegisteredStudent(student, peer);
+        peerIndexNumber.replaceRegisteredStudent(peer, student);
+
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have successfully swapped index with your peer, " + peer.getName() + ", for the course:\n\n"
+                    + myIndexNumber.getCourse().toString() + "\n\n"
+                    + "Your old index number was: " + myIndexNumber.getFullDescription() + "\n\n"
+                    + "You are now registered for index number: " + peerIndexNumber.getFullDescription();
+            student.notify(messageToSend);
+        }
+        if (peer.isNotificationEnabled()) {
+            String peerMessageToSend = "You have successfully swapped index with your peer, " + student.getName() + ", for the course:\n\n"
+                    + myIndexNumber.getCourse().toString() + "\n\n"
+                    + "Your old index number was: " + peerIndexNumber.getFullDescription() + "\n\n"
+                    + "You are now registered for index number: " + myIndexNumber.getFullDescription();
+            peer.notify(peerMessageToSend);
+        }
     }
 
     /**
-     * Swap index number for a course that the student is registered for.
+     * Swap index number for a course that the student is registered for. A seat in the new index number is reserved
+     * before the student leaves the old one.
      * @param courseCodeToBeSwapped The course code of the course for which the index number will swapped for the student.
      * @param newIndexNumber The {@code IndexNumber} object that represents the new index number that the student wants
      *                       to swap to.
@@ -307,91 +394,206 @@ public class TimeTable implements Serializable {
      * @throws SameIndexNumberSwapException if the new index number is the same as current index number of the student.
      * @throws ClashingWaitListedIndexNumberException if the new index number to be swapped clashes with an index number
      * that is in the wait list of the student.
+     * @throws NotRegisteredSwapException if the student is no longer registered for the course, such as when another
+     * session of the student has dropped it in the meantime.
      */
     public void swapIndexNumber(String courseCodeToBeSwapped, IndexNumber newIndexNumber)
-            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException, ClashingWaitListedIndexNumberException {
+            throws ClashingRegisteredIndexNumberException, NoVacancySwapException, SameIndexNumberSwapException,
+            ClashingWaitListedIndexNumberException, NotRegisteredSwapException {
         IndexNumber indexNumberToBeSwapped = registeredIndexNumbers.get(courseCodeToBeSwapped);
+        if (indexNumberToBeSwapped == null) {
+            throw new NotRegisteredSwapException();
+        }
         if (indexNumberToBeSwapped == newIndexNumber) {
             throw new SameIndexNumberSwapException();
         }
 
-        dropCourse(courseCodeToBeSwapped, indexNumberToBeSwapped);
-
-        if (!getClashingRegisteredIndexNumbers(newIndexNumber).isEmpty()) {
-            addCourse(courseCodeToBeSwapped, indexNumberToBeSwapped);
+        if (hasClashingRegisteredIndexNumber(newIndexNumber, courseCodeToBeSwapped)) {
             throw new ClashingRegisteredIndexNumberException();
         }
 
-        if (!getClashingWaitListedIndexNumbers(newIndexNumber).isEmpty()) {
-            addCourse(courseCodeToBeSwapped, indexNumberToBeSwapped);
+        if (hasClashingWaitListedIndexNumber(newIndexNumber)) {
             throw new ClashingWaitListedIndexNumberException();
         }
 
-        if (newIndexNumber.getAvailableVacancy() <= 0) {
-            addCourse(courseCodeToBeSwapped, indexNumberToBeSwapped);
+        if (!newIndexNumber.tryReserveSeat()) {
             throw new NoVacancySwapException();
         }
 
+        indexNumberToBeSwapped.deregisterStudent(student);
         addCourse(newIndexNumber.getCourse().getCourseCode(), newIndexNumber);
 
-        String messageToSend = "You have successfully swapped index for the course:\n\n"
-                + indexNumberToBeSwapped.getCourse().toString() + "\n\n"
-                + "Your old index number was:" + indexNumberToBeSwapped.getFullDescription() + "\n\n"
-                + "You are now registered for index number:" + newIndexNumber.getFullDescription();
-        student.notify(messageToSend);
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have successfully swapped index for the course:\n\n"
+                    + indexNumberToBeSwapped.getCourse().toString() + "\n\n"
+                    + "Your old index number was:" + indexNumberToBeSwapped.getFullDescription() + "\n\n"
+                    + "You are now registered for index number:" + newIndexNumber.getFullDescription();
+            student.notify(messageToSend);
+        }
     }
 
     /**
-     * Add a course to the wait list for the student.
+     * Add a course to the wait list for the student. Nothing is added if the course is already registered or in the
+     * wait list, such as when another session of the student has added it in the meantime.
      * @param courseCodeToBeAdded The course code of the course for which it will be added to the wait list for the
      *                            student.
      * @param indexNumberToBeAdded The {@code IndexNumber} object for which it will be added to the wait list for the
      *                             student.
      */
     public void addCourseToWaitList(String courseCodeToBeAdded, IndexNumber indexNumberToBeAdded) {
-        waitListIndexNumbers.put(courseCodeToBeAdded, indexNumberToBeAdded);
+        if (registeredIndexNumbers.containsKey(courseCodeToBeAdded)
+                || waitListIndexNumbers.containsKey(courseCodeToBeAdded)) {
+            return;
+        }
+        putWaitListIndexNumber(courseCodeToBeAdded, indexNumberToBeAdded);
         indexNumberToBeAdded.addStudentToWaitList(student);
 
-        String messageToSend = "You have added to the wait list for the course:\n\n"
-                + indexNumberToBeAdded.getCourse().toString() + "\n\n"
-                + indexNumberToBeAdded.getFullDescription();
-        student.notify(messageToSend);
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have added to the wait list for the course:\n\n"
+                    + indexNumberToBeAdded.getCourse().toString() + "\n\n"
+                    + indexNumberToBeAdded.getFullDescription();
+            student.notify(messageToSend);
+        }
     }
 
     /**
-     * Drop a course from the wait list for the student.
+     * Drop a course from the wait list for the student. Nothing is dropped if the student is no longer in the wait
+     * list of the index number, such as when the student has been registered from the wait list by another session in
+     * the meantime.
      * @param courseCodeToBeDropped The course code of the course for which it will be dropped from the wait list.
      * @param indexNumberToBeDropped The {@code IndexNumber} object for which it will be dropped from the wait list.
      */
     public void dropCourseFromWaitList(String courseCodeToBeDropped, IndexNumber indexNumberToBeDropped) {
-        waitListIndexNumbers.remove(courseCodeToBeDropped);
+        if (waitListIndexNumbers.get(courseCodeToBeDropped) != indexNumberToBeDropped) {
+            return;
+        }
+        removeWaitListIndexNumber(courseCodeToBeDropped);
         indexNumberToBeDropped.removeStudentFromWaitList(student);
 
-        String messageToSend = "You have dropped from the wait list for the course:\n\n"
-                + indexNumberToBeDropped.getCourse().toString() + "\n\n"
-                + indexNumberToBeDropped.getFullDescription();
-        student.notify(messageToSend);
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have dropped from the wait list for the course:\n\n"
+                    + indexNumberToBeDropped.getCourse().toString() + "\n\n"
+                    + indexNumberToBeDropped.getFullDescription();
+            student.notify(messageToSend);
+        }
     }
 
     /**
      * Contains the logic to drop a course and the index number and register the next student in the wait list for that
      * index number. The exceptions can be ignored since the exceptions should have been taken care of when the index number is
-     *      * added into the next student in line's wait list.
+     *      * added into the next student in line's wait list. Nothing is dropped if the student is no longer registered for
+     * the index number, such as when it has been swapped with a peer by another session in the meantime.
      * @param course The {@code Course} object that is to be dropped.
      * @param indexNumberToBeDropped The {@code IndexNumber} object of the index number which the student wants to drop.
      */
     public void dropCourseAndRegisterNextStudentInWaitList(Course course, IndexNumber indexNumberToBeDropped)
             throws CourseInWaitListException, ClashingRegisteredIndexNumberException,
             CourseRegisteredException, NoVacancyException, ClashingWaitListedIndexNumberException, MaxAuExceededException {
+        if (registeredIndexNumbers.get(course.getCourseCode()) != indexNumberToBeDropped) {
+            return;
+        }
         indexNumberToBeDropped.deregisterStudent(student);
-        registeredIndexNumbers.remove(course.getCourseCode());
+        removeRegisteredIndexNumber(course.getCourseCode());
 
         indexNumberToBeDropped.registerNextStudentInWaitList();
 
-        String messageToSend = "You have successfully dropped from the course:\n\n"
-                + indexNumberToBeDropped.getCourse().toString() + "\n\n"
-                + indexNumberToBeDropped.getFullDescription();
-        student.notify(messageToSend);
+        if (student.isNotificationEnabled()) {
+            String messageToSend = "You have successfully dropped from the course:\n\n"
+                    + indexNumberToBeDropped.getCourse().toString() + "\n\n"
+                    + indexNumberToBeDropped.getFullDescription();
+            student.notify(messageToSend);
+        }
+    }
+
+    /**
+     * Puts an index number into the registered or wait listed index numbers directly, without the checks of
+     * registering for a course or adding a course to the wait list and without changing the index number. This is only
+     * meant for restoring enrolments that have already been checked.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumber The {@code IndexNumber} object the student is enrolled in.
+     * @param waitListed true if the student is in the wait list of the index number; false if the student is registered.
+     */
+    public void enrol(String courseCode, IndexNumber indexNumber, boolean waitListed) {
+        if (waitListed) {
+            putWaitListIndexNumber(courseCode, indexNumber);
+        } else {
+            putRegisteredIndexNumber(courseCode, indexNumber);
+        }
+    }
+
+    /**
+     * Removes a course from the wait listed index numbers without changing the index number, for when the index
+     * number has already taken the student off its wait list.
+     * @param courseCode The course code of the course to be removed from the wait list.
+     */
+    void leaveWaitList(String courseCode) {
+        removeWaitListIndexNumber(courseCode);
+    }
+
+    /**
+     * Puts an index number into the registered index numbers, keeping the AUs and the times of the week taken up by
+     * the registered index numbers up to date.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumber The {@code IndexNumber} object to be put.
+     */
+    private void putRegisteredIndexNumber(String courseCode, IndexNumber indexNumber) {
+        IndexNumber replaced = registeredIndexNumbers.put(courseCode, indexNumber);
+        if (replaced == null && registeredOccupancy != null) {
+            registeredOccupancy.or(indexNumber.getOccupancy());
+        } else {
+            rebuildOccupancy(registeredOccupancy, registeredIndexNumbers);
+        }
+        if (ausCounted) {
+            registeredAu += indexNumber.getCourse().getAu() - (replaced == null ? 0 : replaced.getCourse().getAu());
+        }
+    }
+
+    /**
+     * Removes a course from the registered index numbers, keeping the AUs and the times of the week taken up by the
+     * registered index numbers up to date.
+     * @param courseCode The course code of the course to be removed.
+     */
+    private void removeRegisteredIndexNumber(String courseCode) {
+        IndexNumber removed = registeredIndexNumbers.remove(courseCode);
+        if (removed != null) {
+            rebuildOccupancy(registeredOccupancy, registeredIndexNumbers);
+            if (ausCounted) {
+                registeredAu -= removed.getCourse().getAu();
+            }
+        }
+    }
+
+    /**
+     * Puts an index number into the wait listed index numbers, keeping the AUs and the times of the week taken up by
+     * the wait listed index numbers up to date.
+     * @param courseCode The course code of the course which the index number belongs to.
+     * @param indexNumber The {@code IndexNumber} object to be put.
+     */
+    private void putWaitListIndexNumber(String courseCode, IndexNumber indexNumber) {
+        IndexNumber replaced = waitListIndexNumbers.put(courseCode, indexNumber);
+        if (replaced == null && waitListOccupancy != null) {
+            waitListOccupancy.or(indexNumber.getOccupancy());
+        } else {
+            rebuildOccupancy(waitListOccupancy, waitListIndexNumbers);
+        }
+        if (ausCounted) {
+            waitListAu += indexNumber.getCourse().getAu() - (replaced == null ? 0 : replaced.getCourse().getAu());
+        }
+    }
+
+    /**
+     * Removes a course from the wait listed index numbers, keeping the AUs and the times of the week taken up by the
+     * wait listed index numbers up to date.
+     * @param courseCode The course code of the course to be removed.
+     */
+    private void removeWaitListIndexNumber(String courseCode) {
+        IndexNumber removed = waitListIndexNumbers.remove(courseCode);
+        if (removed != null) {
+            rebuildOccupancy(waitListOccupancy, waitListIndexNumbers);
+            if (ausCounted) {
+                waitListAu -= removed.getCourse().getAu();
+            }
+        }
     }
 
     /**
@@ -402,7 +604,7 @@ public class TimeTable implements Serializable {
      */
     public ArrayList<IndexNumber> getClashingWaitListedIndexNumbers(IndexNumber indexNumberToBeAdded) {
         ArrayList<IndexNumber> clashingIndexNumbers = new ArrayList<>();
-        for (IndexNumber indexNumber: getAllIndexNumbersWaitListed()) {
+        for (IndexNumber indexNumber: waitListIndexNumbers.values()) {
             if (checkIndexNumberClash(indexNumberToBeAdded, indexNumber)) {
                 clashingIndexNumbers.add(indexNumber);
             }
@@ -419,7 +621,7 @@ public class TimeTable implements Serializable {
      */
     public ArrayList<IndexNumber> getClashingRegisteredIndexNumbers(IndexNumber indexNumberToBeAdded) {
         ArrayList<IndexNumber> clashingIndexNumbers = new ArrayList<>();
-        for (IndexNumber indexNumber: getAllIndexNumbersRegistered()) {
+        for (IndexNumber indexNumber: registeredIndexNumbers.values()) {
             if (checkIndexNumberClash(indexNumberToBeAdded, indexNumber)) {
                 clashingIndexNumbers.add(indexNumber);
             }
@@ -429,23 +631,117 @@ public class TimeTable implements Serializable {
     }
 
     /**
-     * Method that checks if the index number that the student wants to add clashes with another index number.
-     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the student
-     * @param indexNumberToCheck {@code IndexNumber} object that is to be checked if there are clashes with.
+     * Checks if the index number that the student wants to add clashes with any of the registered index numbers. The
+     * times of the week taken up by the index number are first checked against those taken up by all the registered
+     * index numbers together, so that the registered index numbers only have to be gone through one by one when the
+     * masks share a slot and cannot tell for sure, in which case the answer is looked up in the {@code ClashMatrix}.
+     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the current student
      * @return a boolean true if there are clashes and false if there are no clashes.
      */
-    private boolean checkIndexNumberClash(IndexNumber indexNumberToBeAdded, IndexNumber indexNumberToCheck) {
-        for (Lesson lesson: indexNumberToCheck.getLessons()) {
-            for (Lesson lessonToBeAdded: indexNumberToBeAdded.getLessons()) {
-                if (lessonToBeAdded.getDayOfWeek() == lesson.getDayOfWeek()) {
-                    if (lessonToBeAdded.getStartTime().isBefore(lesson.getEndTime())  &&
-                            lesson.getStartTime().isBefore(lessonToBeAdded.getEndTime())) {
-                        return true;
-                    }
-                }
+    public boolean hasClashingRegisteredIndexNumber(IndexNumber indexNumberToBeAdded) {
+        if (registeredOccupancy == null) {
+            registeredOccupancy = getOccupancy(registeredIndexNumbers);
+        }
+        return hasClashingIndexNumber(indexNumberToBeAdded, registeredOccupancy, registeredIndexNumbers);
+    }
+
+    /**
+     * Checks if an index number clashes with any of the registered index numbers except the one of a course, such as
+     * the course whose index number is being swapped, without taking that index number out of the registered index
+     * numbers. The times of the week taken up by all the registered index numbers are checked first, as in
+     * {@link #hasClashingRegisteredIndexNumber(IndexNumber)}.
+     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the current student
+     * @param courseCodeLeftOut The course code of the course whose registered index number is left out.
+     * @return a boolean true if there are clashes and false if there are no clashes.
+     */
+    private boolean hasClashingRegisteredIndexNumber(IndexNumber indexNumberToBeAdded, String courseCodeLeftOut) {
+        if (registeredOccupancy == null) {
+            registeredOccupancy = getOccupancy(registeredIndexNumbers);
+        }
+        if (!registeredOccupancy.intersects(indexNumberToBeAdded.getOccupancy())) {
+            return false;
+        }
+        for (Map.Entry<String, IndexNumber> entry: registeredIndexNumbers.entrySet()) {
+            if (!entry.getKey().equals(courseCodeLeftOut) && checkIndexNumberClash(indexNumberToBeAdded, entry.getValue())) {
+                return true;
             }
         }
+        return false;
+    }
 
+    /**
+     * Checks if the index number that the student wants to add clashes with any of the wait listed index numbers, in
+     * the same way as {@link #hasClashingRegisteredIndexNumber(IndexNumber)}.
+     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the current student
+     * @return a boolean true if there are clashes and false if there are no clashes.
+     */
+    public boolean hasClashingWaitListedIndexNumber(IndexNumber indexNumberToBeAdded) {
+        if (waitListOccupancy == null) {
+            waitListOccupancy = getOccupancy(waitListIndexNumbers);
+        }
+        return hasClashingIndexNumber(indexNumberToBeAdded, waitListOccupancy, waitListIndexNumbers);
+    }
+
+    /**
+     * Checks if an index number clashes with any of a group of index numbers.
+     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the current student
+     * @param occupancy The {@code WeeklyOccupancy} of all the index numbers in the group together.
+     * @param indexNumbers The group of index numbers.
+     * @return a boolean true if there are clashes and false if there are no clashes.
+     */
+    private boolean hasClashingIndexNumber(IndexNumber indexNumberToBeAdded, WeeklyOccupancy occupancy,
+                                           HashMap<String, IndexNumber> indexNumbers) {
+        WeeklyOccupancy occupancyToBeAdded = indexNumberToBeAdded.getOccupancy();
+        if (!occupancy.intersects(occupancyToBeAdded)) {
+            return false;
+        }
+        if (occupancy.isExact() && occupancyToBeAdded.isExact()) {
+            return true;
+        }
+        for (IndexNumber indexNumber: indexNumbers.values()) {
+            if (checkIndexNumberClash(indexNumberToBeAdded, indexNumber)) {
+                return true;
+            }
+        }
         return false;
     }
+
+    /**
+     * Works out the times of the week taken up by a group of index numbers together.
+     * @param indexNumbers The group of index numbers.
+     * @return The {@code WeeklyOccupancy} of all the index numbers.
+     */
+    private static WeeklyOccupancy getOccupancy(HashMap<String, IndexNumber> indexNumbers) {
+        WeeklyOccupancy occupancy = new WeeklyOccupancy();
+        for (IndexNumber indexNumber: indexNumbers.values()) {
+            occupancy.or(indexNumber.getOccupancy());
+        }
+        return occupancy;
+    }
+
+    /**
+     * Works out the times of the week taken up by a group of index numbers again into an existing mask, so that
+     * dropping a course does not create a new mask. Nothing is done if the mask has not been worked out yet.
+     * @param occupancy The {@code WeeklyOccupancy} of the group, or null if it has not been worked out yet.
+     * @param indexNumbers The group of index numbers.
+     */
+    private static void rebuildOccupancy(WeeklyOccupancy occupancy, HashMap<String, IndexNumber> indexNumbers) {
+        if (occupancy == null) {
+            return;
+        }
+        occupancy.clear();
+        for (IndexNumber indexNumber: indexNumbers.values()) {
+            occupancy.or(indexNumber.getOccupancy());
+        }
+    }
+
+    /**
+     * Method that checks if the index number that the student wants to add clashes with another index number.
+     * @param indexNumberToBeAdded {@code IndexNumber} object to be added by the student
+     * @param indexNumberToCheck {@code IndexNumber} object that is to be checked if there are clashes with.
+     * @return a boolean true if there are clashes and false if there are no clashes.
+     */
+    private boolean checkIndexNumberClash(IndexNumber indexNumberToBeAdded, IndexNumber indexNumberToCheck) {
+        return indexNumberToBeAdded.clashesWith(indexNumberToCheck);
+    }
 }
@@ -0,0 +1,135 @@
+package model;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class is responsible for representing the times of the week taken up by lessons as a bitmask, so that whether
+ * two sets of lessons clash can be found by ANDing a few words instead of comparing every pair of lessons. The week is
+ * divided into 5-minute slots, and the bit of a slot is set if any lesson takes up any part of it.
+ *
+ * <p>A lesson that starts or ends in the middle of a slot sets the whole slot, so two masks that share a bit may not
+ * actually clash. Masks remember whether all their lessons lie on slot boundaries; only when both do is a shared bit a
+ * real clash. Masks that share no bit never clash.</p>
+ * @see Lesson
+ */
+public class WeeklyOccupancy {
+    /**
+     * The length of a slot in minutes.
+     */
+    private static final int SLOT_MINUTES = 5;
+
+    /**
+     * The length of a slot in seconds.
+     */
+    private static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+
+    /**
+     * The number of slots in a day.
+     */
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    /**
+     * The number of words in a mask, enough for every slot of the week.
+     */
+    private static final int WORDS = (7 * SLOTS_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+    /**
+     * The bits of the slots, one for every slot of the week starting from Monday 00:00.
+     */
+    private long[] bits;
+
+    /**
+     * Whether every lesson in the mask starts and ends on a slot boundary.
+     */
+    private boolean exact;
+
+    /**
+     * Constructs a new WeeklyOccupancy with no slot taken up.
+     */
+    public WeeklyOccupancy() {
+        bits = new long[WORDS];
+        exact = true;
+    }
+
+    /**
+     * Constructs a new WeeklyOccupancy of the lessons of an index number.
+     * @param lessons The {@code Lesson} objects.
+     */
+    public WeeklyOccupancy(Collection<Lesson> lessons) {
+        this();
+        for (Lesson lesson: lessons) {
+            add(lesson);
+        }
+    }
+
+    /**
+     * Sets the bits of the slots taken up by a lesson. A lesson that ends before or when it starts takes up no slot.
+     * @param lesson The {@code Lesson} object.
+     */
+    private void add(Lesson lesson) {
+        int dayStart = (lesson.getDayOfWeek().getValue() - 1) * SLOTS_PER_DAY;
+        int startSecond = lesson.getStartTime().toSecondOfDay();
+        int endSecond = lesson.getEndTime().toSecondOfDay() + (lesson.getEndTime().getNano() > 0 ? 1 : 0);
+        if (!isOnBoundary(lesson.getStartTime()) || !isOnBoundary(lesson.getEndTime())) {
+            exact = false;
+        }
+        int from = dayStart + startSecond / SLOT_SECONDS;
+        int to = dayStart + (endSecond + SLOT_SECONDS - 1) / SLOT_SECONDS;
+        for (int slot = from; slot < to; slot++) {
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * Frees up every slot of the mask, so that it can be worked out again without creating a new one.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+        exact = true;
+    }
+
+    /**
+     * Adds all the slots taken up by another mask to this mask.
+     * @param other The other {@code WeeklyOccupancy}.
+     */
+    public void or(WeeklyOccupancy other) {
+        for (int i = 0; i < WORDS; i++) {
+            bits[i] |= other.bits[i];
+        }
+        exact &= other.exact;
+    }
+
+    /**
+     * Checks whether this mask and another mask take up any slot in common.
+     * @param other The other {@code WeeklyOccupancy}.
+     * @return true if any slot is taken up by both masks; false otherwise.
+     */
+    public boolean intersects(WeeklyOccupancy other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((bits[i] & other.bits[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether every lesson in the mask starts and ends on a slot boundary, in which case a slot it shares with
+     * another such mask is a real clash.
+     * @return true if every lesson lies on slot boundaries; false otherwise.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Checks whether a time lies on a slot boundary.
+     * @param time The time.
+     * @return true if the time is a whole number of slots since the start of its day; false otherwise.
+     */
+    private static boolean isOnBoundary(LocalTime time) {
+        return time.toSecondOfDay() % SLOT_SECONDS == 0 && time.getNano() == 0;
+    }
+}
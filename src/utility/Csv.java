@@ -0,0 +1,81 @@
+package utility;
+
+import java.util.ArrayList;
+
+/**
+ * This class is responsible for the logic of splitting a line of comma-separated values into its fields and joining
+ * fields into such a line. A field containing a comma, a double quote or a line break is surrounded by double quotes,
+ * with every double quote inside it written twice. Fields spanning more than one line are not supported.
+ */
+public class Csv {
+    /**
+     * Splits a line of comma-separated values into its fields.
+     * @param line The line to be split.
+     * @return An ArrayList of String containing the fields of the line.
+     * @throws IllegalArgumentException if a quoted field is not closed or is followed by something other than a comma.
+     */
+    public static ArrayList<String> parse(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unclosed quote");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quote");
+                }
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = line.length();
+                }
+                field.append(line, i, end);
+                i = end;
+            }
+
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Joins fields into a line of comma-separated values, quoting the fields that need to be quoted.
+     * @param fields The fields to be joined.
+     * @return The line containing all the fields, without a line break at the end.
+     */
+    public static String format(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields[i];
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                    && field.indexOf('\r') < 0) {
+                line.append(field);
+            } else {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            }
+        }
+
+        return line.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package utility;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * This class is responsible for the logic of hashing a password with a random salt and a tunable cost, using
+ * PBKDF2 with HMAC-SHA256. The cost is the base 2 logarithm of the number of iterations, so that every step up in cost
+ * doubles the time taken to hash a password. Hashes and salts are encoded as lowercase hexadecimal.
+ *
+ * <p>Passwords saved before they were salted have no salt and a cost of 0, and are verified against
+ * {@code SHA256Hasher} instead.</p>
+ * @see SHA256Hasher
+ */
+public class PasswordHasher {
+    /**
+     * The smallest cost that a password may be hashed with.
+     */
+    public static final int MIN_COST = 4;
+
+    /**
+     * The largest cost that a password may be hashed with, which keeps a tampered login file from making a single
+     * login take hours.
+     */
+    public static final int MAX_COST = 20;
+
+    /**
+     * The cost that new passwords are hashed with, which can be changed with the "stars.passwordHashCost" system
+     * property. Passwords hashed with a lower cost are hashed again with this cost when their user logs in.
+     */
+    public static final int DEFAULT_COST = Math.max(MIN_COST,
+            Math.min(MAX_COST, Integer.getInteger("stars.passwordHashCost", 12)));
+
+    /**
+     * The number of bytes in a salt.
+     */
+    private static final int SALT_LENGTH = 16;
+
+    /**
+     * The number of bits in a hash.
+     */
+    private static final int HASH_LENGTH = 256;
+
+    /**
+     * The digits of the hexadecimal encoding.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The source of random salts.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Generates a new random salt.
+     * @return A String containing the salt in hexadecimal.
+     */
+    public static String newSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return toHex(salt);
+    }
+
+    /**
+     * Hashes a password with a salt and a cost.
+     * @param password The password to be hashed.
+     * @param salt The salt in hexadecimal.
+     * @param cost The base 2 logarithm of the number of iterations, between MIN_COST and MAX_COST.
+     * @return A String containing the hashed password in hexadecimal.
+     * @throws IllegalArgumentException if the salt is not hexadecimal or the cost is out of range.
+     */
+    public static String hash(String password, String salt, int cost) {
+        return toHex(derive(password, salt, cost));
+    }
+
+    /**
+     * Checks whether a password matches a saved hash, taking the same time wherever the first difference is.
+     * @param password The password to be checked.
+     * @param hash The saved hash.
+     * @param salt The salt the hash was made with in hexadecimal, or null if it was made by {@code SHA256Hasher}.
+     * @param cost The cost the hash was made with, which is ignored if it was made by {@code SHA256Hasher}.
+     * @return true if the password matches the hash; false otherwise.
+     * @throws IllegalArgumentException if the salt is not hexadecimal or the cost is out of range.
+     */
+    public static boolean verify(String password, String hash, String salt, int cost) {
+        String actualHash = salt == null ? SHA256Hasher.hash(password) : hash(password, salt, cost);
+        return MessageDigest.isEqual(actualHash.getBytes(StandardCharsets.US_ASCII),
+                hash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Encodes bytes as lowercase hexadecimal, two digits per byte.
+     * @param bytes The bytes to be encoded.
+     * @return A String containing the hexadecimal digits.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes hexadecimal into bytes.
+     * @param hex The hexadecimal digits, two per byte.
+     * @return The decoded bytes.
+     * @throws IllegalArgumentException if the String is not hexadecimal.
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid hexadecimal " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hexadecimal " + hex);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * Derives the hash of a password with PBKDF2.
+     * @param password The password to be hashed.
+     * @param salt The salt in hexadecimal.
+     * @param cost The base 2 logarithm of the number of iterations.
+     * @return The bytes of the hash.
+     * @throws IllegalArgumentException if the salt is not hexadecimal or the cost is out of range.
+     */
+    private static byte[] derive(String password, String salt, int cost) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("Invalid password hash cost " + cost);
+        }
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), fromHex(salt), 1 << cost, HASH_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -4,9 +4,18 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 /**
- * This class is responsible for the logic of hashing a password.
+ * This class is responsible for the logic of hashing a password the way passwords were hashed before they were
+ * salted. It is only used to verify the login information saved back then, which is upgraded to a salted hash by
+ * {@code PasswordHasher} the next time its user logs in.
+ * @see PasswordHasher
  */
 public class SHA256Hasher {
+    /**
+     * The digits of the encoding of the hash. Every byte of the hash is encoded as the last base 32 digit of its
+     * unsigned value, which is the digit of its lowest 5 bits.
+     */
+    private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuv".toCharArray();
+
     /**
      * This method uses the SHA-256 method to hash a string.
      * @param password The password to be hashed.
@@ -19,12 +28,11 @@ public class SHA256Hasher {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             md.update(password.getBytes());
             byte[] bytes = md.digest();
-            StringBuilder sb = new StringBuilder();
-            int length = bytes.length;
-            for (int i = 0; i < length; i++) {
-                sb.append(Integer.toString((bytes[i] & 0xff) + 0x100, 32).substring(1));
+            char[] chars = new char[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i] = DIGITS[bytes[i] & 0x1f];
             }
-            generatedPassword = sb.toString();
+            generatedPassword = new String(chars);
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
         }
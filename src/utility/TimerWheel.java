@@ -0,0 +1,118 @@
+package utility;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * This class is responsible for keeping track of a large number of deadlines cheaply. Time is divided into ticks of a
+ * fixed length, and every deadline is kept in the slot of the tick it falls in, wrapping around a fixed number of
+ * slots, so that adding a deadline and moving time forward by a tick only touch a single slot whatever the number of
+ * deadlines. A deadline further away than a full turn of the wheel stays in its slot until the turn it falls in.
+ *
+ * <p>Deadlines fire at the first tick at or after them, so they fire up to a tick late but never early.</p>
+ * @param <T> The type of the items whose deadlines are kept.
+ */
+public class TimerWheel<T> {
+    /**
+     * The slots of the wheel, each holding the deadlines falling in the ticks that wrap around to it.
+     */
+    private ArrayList<ArrayList<Timeout<T>>> slots;
+
+    /**
+     * The length of a tick in milliseconds.
+     */
+    private long tickMillis;
+
+    /**
+     * The last tick whose deadlines have fired.
+     */
+    private long currentTick;
+
+    /**
+     * Constructs a new TimerWheel.
+     * @param slotCount The number of slots of the wheel.
+     * @param tickMillis The length of a tick in milliseconds.
+     * @param nowMillis The current time in milliseconds.
+     */
+    public TimerWheel(int slotCount, long tickMillis, long nowMillis) {
+        if (slotCount < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("Invalid number of slots or tick length");
+        }
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.tickMillis = tickMillis;
+        currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Adds a deadline. A deadline in the past fires at the next tick.
+     * @param item The item whose deadline it is.
+     * @param deadlineMillis The time in milliseconds of the deadline.
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        slots.get((int) Math.floorMod(deadlineTick, (long) slots.size())).add(new Timeout<>(item, deadlineTick));
+    }
+
+    /**
+     * Moves time forward and removes the deadlines that have passed.
+     * @param nowMillis The current time in milliseconds.
+     * @return An ArrayList of the items whose deadlines have passed, in no particular order.
+     */
+    public synchronized ArrayList<T> advance(long nowMillis) {
+        ArrayList<T> expired = new ArrayList<>();
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        for (long tick = Math.max(currentTick + 1, nowTick - slots.size() + 1); tick <= nowTick; tick++) {
+            Iterator<Timeout<T>> timeouts = slots.get((int) Math.floorMod(tick, (long) slots.size())).iterator();
+            while (timeouts.hasNext()) {
+                Timeout<T> timeout = timeouts.next();
+                if (timeout.deadlineTick <= nowTick) {
+                    expired.add(timeout.item);
+                    timeouts.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * Returns the number of deadlines that have not fired yet.
+     * @return The number of deadlines.
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (ArrayList<Timeout<T>> slot: slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    /**
+     * A deadline of an item.
+     * @param <T> The type of the item.
+     */
+    private static class Timeout<T> {
+        /**
+         * The item whose deadline it is.
+         */
+        private T item;
+
+        /**
+         * The tick the deadline falls in.
+         */
+        private long deadlineTick;
+
+        /**
+         * Constructs a new Timeout.
+         * @param item The item whose deadline it is.
+         * @param deadlineTick The tick the deadline falls in.
+         */
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
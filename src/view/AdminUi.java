@@ -4,6 +4,8 @@ import errormessage.ErrorMessage;
 import exception.InvalidLessonTypeException;
 import exception.InvalidAccessTimeException;
 import model.AccessTime;
+import model.AccessTimeIndex;
+import model.AccessTimeScheduler;
 import model.AccountType;
 import model.Course;
 import model.Gender;
@@ -16,11 +18,13 @@ import model.Student;
 
 import java.time.DateTimeException;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,9 +46,32 @@ public class AdminUi extends Ui {
             "5. Check available slot for an index number.",
             "6. Print student list by index number.",
             "7. Print student list by course.",
-            "8. Quit."
+            "8. Check number of students within their access period.",
+            "9. Stagger access periods of a cohort.",
+            "10. Quit."
     };
 
+    /**
+     * The length of the slots into which the access periods of a cohort of students are staggered.
+     */
+    private static final Duration ACCESS_SLOT_LENGTH = Duration.ofMinutes(15);
+
+    /**
+     * Constructs a new AdminUi for the console the program was started from.
+     */
+    public AdminUi() {
+        super();
+    }
+
+    /**
+     * Constructs a new AdminUi for the terminal of a user.
+     * @param terminal The {@code Terminal} of the user.
+     * @see Terminal
+     */
+    public AdminUi(Terminal terminal) {
+        super(terminal);
+    }
+
     /**
      * A String array containing all the options for edit course for the user to choose.
      * @param course The {@code Course} object that the user wants to edit for.
@@ -173,6 +200,89 @@ public class AdminUi extends Ui {
         return getInputChoice("Enter your choice:", ADMIN_MENU_OPTIONS);
     }
 
+    /**
+     * Get the user to input the date and time at which to check the number of students within their access period.
+     * @return A {@code LocalDateTime} object representing the date and time input by the user.
+     */
+    public LocalDateTime getAccessLoadDateTime() {
+        return getDateTime("Enter the date and time to check in \"dd-MM-yyyy HH:mm\" format (e.g. 10-12-2020 08:00):");
+    }
+
+    /**
+     * Displays the number of students within their access period at a date and time, the number of students whose
+     * access period starts within the hour after it, and the largest number of students within their access period at
+     * the same time over its day.
+     * @param dateTime The date and time that was checked.
+     * @param studentCount The number of students within their access period at the date and time.
+     * @param startingCount The number of students whose access period starts within the hour after the date and time.
+     * @param peak The {@code Peak} of the day of the date and time.
+     * @see AccessTimeIndex.Peak
+     */
+    public void printAccessLoad(LocalDateTime dateTime, int studentCount, int startingCount,
+                                AccessTimeIndex.Peak peak) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        printMessageWithDivider("Students within their access period at " + formatter.format(dateTime) + ": "
+                        + studentCount,
+                "Students whose access period starts within the next hour: " + startingCount,
+                "Most students within their access period at the same time on "
+                        + DateTimeFormatter.ofPattern("dd-MM-yyyy").format(dateTime) + ": " + peak.getCount()
+                        + " (from " + formatter.format(peak.getTime()) + ")");
+    }
+
+    /**
+     * Get the user to input the date and time at which the access periods of a cohort of students currently start.
+     * @return A {@code LocalDateTime} object representing the date and time input by the user.
+     */
+    public LocalDateTime getCohortAccessStart() {
+        return getDateTime("Enter the date and time at which the access periods of the cohort currently start in "
+                + "\"dd-MM-yyyy HH:mm\" format (e.g. 10-10-2020 08:00):");
+    }
+
+    /**
+     * Get the user to input how the access periods of a cohort of students should be staggered: the first and last
+     * days together with the daily hours over which the access periods may start, the largest number of access periods
+     * that may start in every 15 minutes, and when all the access periods end.
+     * @param cohortSize The number of students in the cohort.
+     * @return An {@code AccessTimeScheduler} object with the settings input by the user.
+     * @see AccessTimeScheduler
+     */
+    public AccessTimeScheduler getAccessTimeScheduler(int cohortSize) {
+        print("There are " + cohortSize + " students in the cohort.");
+        LocalDateTime firstStart = getDateTime("Enter the first day and the daily time at which access periods may "
+                + "start in \"dd-MM-yyyy HH:mm\" format (e.g. 10-10-2020 08:00):");
+        LocalDateTime lastEnd = getDateTime("Enter the last day and the daily time by which access periods must have "
+                + "started in \"dd-MM-yyyy HH:mm\" format (e.g. 12-10-2020 18:00):");
+        int maxStartsPerSlot = getMaxStartsPerSlot("Enter the largest number of students whose access period may "
+                + "start in every " + ACCESS_SLOT_LENGTH.toMinutes() + " minutes:");
+        LocalDateTime end = getDateTime("Enter the date and time at which all the access periods end in "
+                + "\"dd-MM-yyyy HH:mm\" format (e.g. 20-10-2020 23:59):");
+        return new AccessTimeScheduler(firstStart.toLocalDate(), lastEnd.toLocalDate(), firstStart.toLocalTime(),
+                lastEnd.toLocalTime(), ACCESS_SLOT_LENGTH, maxStartsPerSlot, end);
+    }
+
+    /**
+     * Displays the projected load after the access periods of a cohort of students have been staggered: for every
+     * time at which access periods start, the number of students whose access period starts then and the number of
+     * students within their access period right after it.
+     * @param accessTimes The new {@code AccessTime} of every student in the cohort. The key is the user id of the
+     *                    student.
+     * @param startCounts The number of access periods of the cohort starting at every time. The key is the start time.
+     * @param studentCounts The number of students within their access period right after every time. The key is the
+     *                      start time.
+     */
+    public void printStaggeredAccessTimes(Map<String, AccessTime> accessTimes, Map<LocalDateTime, Integer> startCounts,
+                                          Map<LocalDateTime, Integer> studentCounts) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        ArrayList<String> messages = new ArrayList<>();
+        messages.add("Staggered the access periods of " + accessTimes.size() + " students!");
+        messages.add("Projected load:");
+        for (Map.Entry<LocalDateTime, Integer> entry: startCounts.entrySet()) {
+            messages.add(formatter.format(entry.getKey()) + "  +" + entry.getValue() + " students, "
+                    + studentCounts.get(entry.getKey()) + " within their access period");
+        }
+        printMessageWithDivider(messages.toArray(new String[0]));
+    }
+
     /**
      * Displays all the students in the system and ask the user which student he/she would like to edit the access
      * time for. The method will always get the user to input a valid integer from 1 to size of students and return an
@@ -199,7 +309,7 @@ public class AdminUi extends Ui {
      * @see Student
      */
     public Student getNewStudent(String userId) {
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         print("Enter the name:");
         String name = sc.nextLine();
         print("Enter the matric number:");
@@ -360,7 +470,7 @@ public class AdminUi extends Ui {
      * @return A String containing the course code.
      */
     private String getCourseCode(String message) {
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         String courseCode;
 
         while (true) {
@@ -402,7 +512,7 @@ public class AdminUi extends Ui {
      * @return A String containing the course name.
      */
     private String getCourseName(String message) {
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         print(message);
         String courseName = sc.nextLine();
 
@@ -437,7 +547,7 @@ public class AdminUi extends Ui {
      * @see School
      */
     private School getSchool(String message) {
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         School school;
         getSchoolLoop: while(true) {
             print(message);
@@ -467,7 +577,7 @@ public class AdminUi extends Ui {
         while (true) {
             print("Enter the number of AU of this course:");
             try {
-                Scanner sc = new Scanner(System.in);
+                Scanner sc = newScanner();
                 au = sc.nextInt();
                 if (au <= 0) {
                     printErrorMessage(ErrorMessage.INVALID_AU);
@@ -552,7 +662,7 @@ public class AdminUi extends Ui {
     private int getMaxVacancy(String message) {
         while (true) {
             try {
-                Scanner sc = new Scanner(System.in);
+                Scanner sc = newScanner();
                 print(message);
                 int maxVacancy = sc.nextInt();
                 if (maxVacancy <= 0) {
@@ -566,6 +676,29 @@ public class AdminUi extends Ui {
         }
     }
 
+    /**
+     * Get the largest number of access periods that may start in a slot. This method will always return a valid
+     * integer more than 0.
+     * @param message The message to be displayed before asking the user for input.
+     * @return The integer representing the largest number of access periods that may start in a slot.
+     */
+    private int getMaxStartsPerSlot(String message) {
+        while (true) {
+            try {
+                Scanner sc = newScanner();
+                print(message);
+                int maxStartsPerSlot = sc.nextInt();
+                if (maxStartsPerSlot <= 0) {
+                    printErrorMessage(ErrorMessage.INVALID_MAX_STARTS_PER_SLOT);
+                    continue;
+                }
+                return maxStartsPerSlot;
+            } catch (InputMismatchException e) {
+                printErrorMessage(ErrorMessage.INVALID_MAX_STARTS_PER_SLOT);
+            }
+        }
+    }
+
     /**
      * Get the user to input all the information required for an index number.
      * @param isAdd true if adding an index number to an existing course; false if adding an index number to a new course.
@@ -574,7 +707,7 @@ public class AdminUi extends Ui {
      * @see IndexNumber
      */
     public IndexNumber getIndexNumber(boolean isAdd, Course course) {
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         String input;
 
         while (true) {
@@ -648,7 +781,7 @@ public class AdminUi extends Ui {
         LocalDateTime dateTime;
         while (true) {
             print(message);
-            Scanner sc = new Scanner(System.in);
+            Scanner sc = newScanner();
             String dateTimeString = sc.nextLine().trim();
             try {
                 DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
@@ -671,7 +804,7 @@ public class AdminUi extends Ui {
         LocalTime time;
         while (true) {
             print(message);
-            Scanner sc = new Scanner(System.in);
+            Scanner sc = newScanner();
             String startTimeString = sc.next();
             try {
                 time = LocalTime.of(Integer.parseInt(startTimeString.substring(0, 2)),
@@ -699,7 +832,7 @@ public class AdminUi extends Ui {
 
             LessonType lessonType;
             getLessonTypeLoop: while(true) {
-                Scanner sc = new Scanner(System.in);
+                Scanner sc = newScanner();
                 print("Enter the type of lesson " + LessonType.getAllLessonType()
                         + " (Enter Q if you are done):");
 
@@ -717,7 +850,7 @@ public class AdminUi extends Ui {
 
             DayOfWeek dayOfWeek;
             while (true) {
-                Scanner sc = new Scanner(System.in);
+                Scanner sc = newScanner();
                 print("1. Monday\n" + "2. Tuesday\n" +
                         "3. Wednesday\n" + "4. Thursday\n" +
                         "5. Friday\n" + "6. Saturday\n" + "7. Sunday");
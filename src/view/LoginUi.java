@@ -31,6 +31,22 @@ public class LoginUi extends Ui {
             "2. Admin Login"
     };
 
+    /**
+     * Constructs a new LoginUi for the console the program was started from.
+     */
+    public LoginUi() {
+        super();
+    }
+
+    /**
+     * Constructs a new LoginUi for the terminal of a user.
+     * @param terminal The {@code Terminal} of the user.
+     * @see Terminal
+     */
+    public LoginUi(Terminal terminal) {
+        super(terminal);
+    }
+
     /**
      * Prints the logo and the welcome message for the program.
      */
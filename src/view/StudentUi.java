@@ -30,6 +30,22 @@ public class StudentUi extends Ui {
             "8. Quit."
     };
 
+    /**
+     * Constructs a new StudentUi for the console the program was started from.
+     */
+    public StudentUi() {
+        super();
+    }
+
+    /**
+     * Constructs a new StudentUi for the terminal of a user.
+     * @param terminal The {@code Terminal} of the user.
+     * @see Terminal
+     */
+    public StudentUi(Terminal terminal) {
+        super(terminal);
+    }
+
     /**
      * Prints a welcome message when the user first comes into the student panel.
      * @param studentName Name of the student which logged in.
@@ -40,6 +56,19 @@ public class StudentUi extends Ui {
         );
     }
 
+    /**
+     * Prints the position of the student in the queue of the waiting room and how long the student should still have
+     * to wait before being let into the student panel.
+     * @param position The position of the student in the queue.
+     * @param estimatedWaitMillis The estimated waiting time in milliseconds.
+     */
+    public void printWaitingRoomPosition(int position, long estimatedWaitMillis) {
+        printMessageWithDivider(
+                "STARS is busy right now. You are number " + position + " in the queue.",
+                "Estimated waiting time: " + Math.max(1, (estimatedWaitMillis + 999) / 1000) + " seconds."
+        );
+    }
+
     /**
      * Prints all the options for the user in the student panel and get the user to input a choice.
      * @return A integer representing the user's input choice.
@@ -164,21 +193,21 @@ public class StudentUi extends Ui {
     /**
      * Get confirmation from the user that he/she is going to swap the index number for a particular course with another
      * peer.
-     * @param student The {@code Student} who wants to swap an index number with the peer.
      * @param peer The peer who is going to swap an index number with the student.
+     * @param yourIndexNumber The {@code IndexNumber} the student is registered for in the course.
+     * @param peerIndexNumber The {@code IndexNumber} the peer is registered for in the course.
      * @param courseToBeSwapped The {@code Course} for which the student and peer is going to be swapped.
      * @return true if the user confirms the swap; false if the user do not confirm the swap.
      */
-    public boolean confirmSwapWithPeer(Student student, Student peer, Course courseToBeSwapped) {
-        IndexNumber yourIndexNumber = student.getRegisteredIndexNumbers().get(courseToBeSwapped.getCourseCode());
+    public boolean confirmSwapWithPeer(Student peer, IndexNumber yourIndexNumber, IndexNumber peerIndexNumber,
+                                       Course courseToBeSwapped) {
         String yourIndexNumberMessage = "Your index number:\n";
         yourIndexNumberMessage += yourIndexNumber.getFullDescription();
 
-        IndexNumber peerIndexNumber  = peer.getRegisteredIndexNumbers().get(courseToBeSwapped.getCourseCode());
         String peerIndexNumberMessage = "Your peer " + peer.getName() + "'s index number:\n";
         peerIndexNumberMessage += peerIndexNumber.getFullDescription();
 
-        Scanner sc = new Scanner(System.in);
+        Scanner sc = newScanner();
         while (true) {
             printMessageWithDivider("Confirm swap for " + courseToBeSwapped.getCourseCode() + " "
                     + courseToBeSwapped.getCourseName() + " with peer?\n", yourIndexNumberMessage, peerIndexNumberMessage);
@@ -195,12 +224,21 @@ public class StudentUi extends Ui {
     }
 
     /**
-     * Get the login information of the peer.
+     * Get the user id of the peer.
+     * @return The user id of the peer.
+     */
+    public String getUserIdOfPeer() {
+        return getUserId("Enter user id of peer:");
+    }
+
+    /**
+     * Get the login information of the peer, whose user id has already been entered.
+     * @param userId The user id of the peer.
      * @return A {@code LoginInfo} object containing the login information for the peer.
      * @see LoginInfo
      */
-    public LoginInfo getLoginInfoOfPeer() {
-        return getLoginInfo(AccountType.STUDENT);
+    public LoginInfo getLoginInfoOfPeer(String userId) {
+        return new LoginInfo(AccountType.STUDENT, userId, getPassword("Enter password of peer:"));
     }
 }
 
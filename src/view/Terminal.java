@@ -0,0 +1,177 @@
+package view;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is responsible for the input and output of one user, which is either the console the program was started
+ * from or a connection to a user of the server. The Ui classes read from and print to the {@code Terminal} they are
+ * given instead of System.in and System.out, so that many users can be served at the same time.
+ *
+ * <p>The Ui classes create a new Scanner for every prompt, and a Scanner reads ahead as much as it can. The input is
+ * therefore handed out at most one line at a time, so that a Scanner never swallows lines meant for the next prompt,
+ * even when the user sends several lines at once.</p>
+ */
+public class Terminal {
+    /**
+     * The terminal of the console the program was started from.
+     */
+    private static final Terminal SYSTEM_TERMINAL = new Terminal(System.in, System.out, true);
+
+    /**
+     * The input of the user, handed out at most one line at a time.
+     */
+    private InputStream input;
+
+    /**
+     * The output to the user.
+     */
+    private PrintStream output;
+
+    /**
+     * Whether passwords are read through the console without echoing them, when there is a console.
+     */
+    private boolean useConsole;
+
+    /**
+     * Constructs a new Terminal for a connection to a user. Passwords are read as ordinary lines.
+     * @param input The input of the user.
+     * @param output The output to the user.
+     */
+    public Terminal(InputStream input, OutputStream output) {
+        this(input, new PrintStream(output, true, StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * Constructs a new Terminal.
+     * @param input The input of the user.
+     * @param output The output to the user.
+     * @param useConsole Whether passwords are read through the console when there is one.
+     */
+    private Terminal(InputStream input, PrintStream output, boolean useConsole) {
+        this.input = new LineInputStream(input);
+        this.output = output;
+        this.useConsole = useConsole;
+    }
+
+    /**
+     * Returns the terminal of the console the program was started from.
+     * @return The {@code Terminal} over System.in and System.out.
+     */
+    public static Terminal getSystemTerminal() {
+        return SYSTEM_TERMINAL;
+    }
+
+    /**
+     * Returns the input of the user, which hands out at most one line at a time.
+     * @return The InputStream of the user.
+     */
+    public InputStream getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the output to the user.
+     * @return The PrintStream to the user.
+     */
+    public PrintStream getOutput() {
+        return output;
+    }
+
+    /**
+     * Reads a password from the user. The password is not echoed if it is read through the console; otherwise it is
+     * read as an ordinary line, such as when the input is piped in or comes from a connection.
+     * @return The password entered, or an empty String if the input has ended.
+     */
+    public String readPassword() {
+        Console console = System.console();
+        if (useConsole && console != null) {
+            char[] password = console.readPassword();
+            return password == null ? "" : String.valueOf(password);
+        }
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try {
+            int b;
+            while ((b = input.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+        } catch (IOException e) {
+            return "";
+        }
+        return line.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * An InputStream that returns at most one line on every read and never says more is available, so that a reader
+     * reading ahead stops at the end of the line. Once reading fails, such as when the user of a connection has been
+     * idle for too long, every later read fails the same way, so that the input is treated as having ended even by a
+     * reader that carries on after the failure.
+     */
+    private static class LineInputStream extends InputStream {
+        /**
+         * The input being read.
+         */
+        private InputStream in;
+
+        /**
+         * The exception with which reading failed, or null if it has not failed.
+         */
+        private IOException failure;
+
+        /**
+         * Constructs a new LineInputStream.
+         * @param in The input being read.
+         */
+        LineInputStream(InputStream in) {
+            this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            try {
+                return in.read();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int count = 0;
+            while (count < length) {
+                int b = read();
+                if (b == -1) {
+                    break;
+                }
+                bytes[offset + count++] = (byte) b;
+                if (b == '\n') {
+                    break;
+                }
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
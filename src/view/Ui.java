@@ -6,9 +6,7 @@ import model.Course;
 import model.IndexNumber;
 import model.LoginInfo;
 import model.Student;
-import utility.SHA256Hasher;
 
-import java.io.Console;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -29,26 +27,48 @@ public class Ui {
      */
     private final String ERROR_DIVIDER_LINE = "!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!";
 
+    /**
+     * The terminal of the user, which all input is read from and all output is printed to.
+     * @see Terminal
+     */
+    private Terminal terminal;
+
+    /**
+     * Constructs a new Ui for the console the program was started from.
+     */
+    public Ui() {
+        this(Terminal.getSystemTerminal());
+    }
+
+    /**
+     * Constructs a new Ui for the terminal of a user.
+     * @param terminal The {@code Terminal} of the user.
+     * @see Terminal
+     */
+    public Ui(Terminal terminal) {
+        this.terminal = terminal;
+    }
+
     /**
      * Prints a message.
      * @param message The message to be shown to the user.
      */
     public void print(String message) {
-        System.out.println(message);
+        terminal.getOutput().println(message);
     }
 
     /**
      * Prints the normal divider line.
      */
     private void printDivider() {
-        System.out.println(DIVIDER_LINE);
+        terminal.getOutput().println(DIVIDER_LINE);
     }
 
     /**
      * Prints the error divider line.
      */
     private void printErrorDivider() {
-        System.out.println(ERROR_DIVIDER_LINE);
+        terminal.getOutput().println(ERROR_DIVIDER_LINE);
     }
 
     /**
@@ -97,7 +117,7 @@ public class Ui {
                     printMessageWithDivider(options);
                 }
                 print(finalMessageForInput);
-                Scanner sc = new Scanner(System.in);
+                Scanner sc = newScanner();
                 choice = sc.nextInt();
                 break;
             } catch (InputMismatchException e) {
@@ -191,33 +211,52 @@ public class Ui {
                 .stream()
                 .map((i) -> i.toString())
                 .collect(Collectors.toList());
-        indexNumbersString.add(0, "Here are the vacancies for " + course.toString());
+        indexNumbersString.add(0, "Here are the vacancies for " + course.toString() + " ("
+                + course.getAvailableVacancy() + " left in all index numbers)");
         printMessageWithDivider(indexNumbersString.toArray(String[]::new));
     }
 
     /**
      * Gets the login information from the user.
      * @param accountType The account type specified by the user to log in as.
-     * @return A LoginInfo object containing the user id, hashed password and account type.
+     * @return A LoginInfo object containing the user id, password and account type.
      * @see LoginInfo
      */
     public LoginInfo getLoginInfo(AccountType accountType) {
-        Scanner sc = new Scanner(System.in);
-        Console con = System.console();
-        String userId;
-        char[] passwordCharArray;
-        String passwordString;
-        //String password;
-
-        print("Enter user id:");
-        userId = sc.next();
-
-        print("Enter password:");
-        //password = sc.next();
-        passwordCharArray = con.readPassword();
-        passwordString = String.valueOf(passwordCharArray);
-
-        return new LoginInfo(accountType, userId, SHA256Hasher.hash(passwordString));
+        String userId = getUserId("Enter user id:");
+        String passwordString = getPassword("Enter password:");
+
+        return new LoginInfo(accountType, userId, passwordString);
+    }
+
+    /**
+     * Gets a user id from the user.
+     * @param message The message to print before getting the user id.
+     * @return The user id entered.
+     */
+    protected String getUserId(String message) {
+        Scanner sc = newScanner();
+
+        print(message);
+        return sc.next();
+    }
+
+    /**
+     * Gets a password from the user, without echoing it if it is typed into the console.
+     * @param message The message to print before getting the password.
+     * @return The password entered.
+     */
+    protected String getPassword(String message) {
+        print(message);
+        return terminal.readPassword();
+    }
+
+    /**
+     * Creates a new Scanner over the input of the user.
+     * @return A Scanner that reads from the {@code Terminal} of the user.
+     */
+    protected Scanner newScanner() {
+        return new Scanner(terminal.getInput());
     }
 
     /**